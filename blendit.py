@@ -1,28 +1,60 @@
+import os, re
 import bpy
+import numpy
 
-layers=[]
-with open('abi/layers', 'r') as myfile2:
-   for line in myfile2:
-   		layers.append(line)
-del layers[0]
+folder = 'abi'
 
+# Header of the binary files: magic number, format version, count, components
+VERT_MAGIC = 0x5856544A
+FACE_MAGIC = 0x4346544A
+HEADER_SIZE = 16
+
+#same as LayerExporter.getFileName()
+def file_name(layer):
+	return re.sub(r'[\\/:*?"<>|\x00-\x1f]', '_', layer)
+
+#read a binary block, or the former text lines as fallback
+def read_block(path, magic, dtype):
+	header = numpy.fromfile(path, dtype='<i4', count=4)
+	if len(header) == 4 and header[0] == magic:
+		if header[1] != 1:
+			raise ValueError('unsupported format version %d: %s' % (header[1], path))
+		with open(path, 'rb') as myfile:
+			myfile.seek(HEADER_SIZE)
+			return numpy.fromfile(myfile, dtype=dtype, count=int(header[2]) * int(header[3]))
+	return numpy.loadtxt(path, delimiter=',', dtype=dtype, ndmin=2).ravel()
+
+def link(obj):
+	if hasattr(bpy.context, 'collection'):
+		bpy.context.collection.objects.link(obj)
+		obj.select_set(True)
+	else:
+		bpy.context.scene.objects.link(obj)
+		obj.select = True
+
+with open(os.path.join(folder, 'layers'), 'r', encoding='utf-8') as myfile:
+	layers = [line.rstrip('\n') for line in myfile if line.strip()]
 
 for l in layers:
 	print(l)
-	verts=[]
-	with open('abi/vert_'+l.rstrip('\n'), 'r') as myfile1:
-	   for line in myfile1:
-	   		verts.append(eval(line))
-	faces=[]
-	with open('abi/face_'+l.rstrip('\n'), 'r') as myfile2:
-	   for line in myfile2:
-	   		faces.append(eval(line))
-	mesh_data = bpy.data.meshes.new(l.rstrip('\n')+"_data")  
-	mesh_data.from_pydata(verts, [], faces)
+	verts = read_block(os.path.join(folder, 'vert_' + file_name(l)), VERT_MAGIC, '<f4')
+	faces = read_block(os.path.join(folder, 'face_' + file_name(l)), FACE_MAGIC, '<i4')
+	triangles = len(faces) // 3
+
+	mesh_data = bpy.data.meshes.new(l + "_data")
+	mesh_data.vertices.add(len(verts) // 3)
+	mesh_data.vertices.foreach_set("co", verts.astype(numpy.float32))
+	mesh_data.loops.add(len(faces))
+	mesh_data.loops.foreach_set("vertex_index", faces.astype(numpy.int32))
+	mesh_data.polygons.add(triangles)
+	mesh_data.polygons.foreach_set("loop_start", numpy.arange(0, 3 * triangles, 3, dtype=numpy.int32))
+	try:
+		mesh_data.polygons.foreach_set("loop_total", numpy.full(triangles, 3, dtype=numpy.int32))
+	except (AttributeError, TypeError, RuntimeError):
+		pass #derived from loop_start since Blender 4.0
 	mesh_data.update()
-	obj = bpy.data.objects.new(l.rstrip('\n'), mesh_data)  
-	scene = bpy.context.scene    
-	scene.objects.link(obj)    
-	obj.select = True  
+
+	obj = bpy.data.objects.new(l, mesh_data)
+	link(obj)
 
 print("done")
@@ -0,0 +1,183 @@
+//################################################################################
+//	The MIT License
+//
+//	Copyright (c) 2014 Johannes Raida
+//
+//	Permission is hereby granted, free of charge, to any person obtaining a copy
+//	of this software and associated documentation files (the "Software"), to deal
+//	in the Software without restriction, including without limitation the rights
+//	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+//	copies of the Software, and to permit persons to whom the Software is
+//	furnished to do so, subject to the following conditions:
+//
+//	The above copyright notice and this permission notice shall be included in
+//	all copies or substantial portions of the Software.
+//
+//	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+//	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+//	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+//	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+//	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+//	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+//	THE SOFTWARE.
+//################################################################################
+
+
+import java.util.HashMap;
+import java.util.Map;
+
+import de.raida.jcadlib.cadimport.jt.model.IntIntMap;
+import de.raida.jcadlib.cadimport.jt.model.IntObjectMap;
+
+/**
+ * Benchmark of the node tables: building and reading the object ID -> node table and the
+ * property tables of a large product structure with the primitive IntObjectMap and
+ * IntIntMap, compared to the former boxed HashMaps. Prints the best time of all runs and
+ * the memory retained by the tables.
+ */
+public class BenchmarkIntMaps {
+	/** Number of nodes and of node property tables */
+	private final static int NODE_COUNT = 500000;
+
+	/** Number of key/value pairs per node property table */
+	private final static int PROPERTY_COUNT = 2;
+
+	/** Number of measured runs per case */
+	private final static int RUN_COUNT = 3;
+
+	/** Nodes, shared by both cases */
+	private static Object[] _nodes;
+
+	/** Tables of the last run, kept reachable to measure the retained memory */
+	private static Object _tables;
+
+	/** Sum of the read values, so the reads can't be optimized away */
+	private static long _checksum;
+
+	/**
+	 * Returns the object ID of a node. The IDs are spread like the object IDs of a JT file
+	 * and lie outside of the cache of boxed integers.
+	 * @param  index Index of the node
+	 * @return       Object ID
+	 */
+	private static int getObjectID(int index){
+		return 1000 + (index * 3);
+	}
+
+	/**
+	 * Builds and reads the tables with boxed HashMaps.
+	 * @return Tables (node table, property tables)
+	 */
+	private static Object runHashMaps(){
+		HashMap<Integer, Object> nodeTable = new HashMap<Integer, Object>();
+		HashMap<Integer, HashMap<Integer, Integer>> propertyTables = new HashMap<Integer, HashMap<Integer, Integer>>();
+		for(int i = 0; i < NODE_COUNT; i++){
+			int objectID = getObjectID(i);
+			nodeTable.put(objectID, _nodes[i]);
+
+			HashMap<Integer, Integer> nodePropertyTable = new HashMap<Integer, Integer>();
+			for(int j = 0; j < PROPERTY_COUNT; j++){
+				nodePropertyTable.put(objectID + 1 + j, objectID + 1000 + j);
+			}
+			propertyTables.put(objectID, nodePropertyTable);
+		}
+
+		for(int i = 0; i < NODE_COUNT; i++){
+			int objectID = getObjectID(i);
+			if(nodeTable.get(objectID) != null){
+				_checksum++;
+			}
+			for(Map.Entry<Integer, Integer> entry : propertyTables.get(objectID).entrySet()){
+				_checksum += entry.getKey() + entry.getValue();
+			}
+		}
+		return new Object[]{nodeTable, propertyTables};
+	}
+
+	/**
+	 * Builds and reads the tables with primitive int maps.
+	 * @return Tables (node table, property tables)
+	 */
+	private static Object runIntMaps(){
+		IntObjectMap<Object> nodeTable = new IntObjectMap<Object>();
+		IntObjectMap<IntIntMap> propertyTables = new IntObjectMap<IntIntMap>();
+		for(int i = 0; i < NODE_COUNT; i++){
+			int objectID = getObjectID(i);
+			nodeTable.put(objectID, _nodes[i]);
+
+			IntIntMap nodePropertyTable = new IntIntMap();
+			for(int j = 0; j < PROPERTY_COUNT; j++){
+				nodePropertyTable.put(objectID + 1 + j, objectID + 1000 + j);
+			}
+			propertyTables.put(objectID, nodePropertyTable);
+		}
+
+		for(int i = 0; i < NODE_COUNT; i++){
+			int objectID = getObjectID(i);
+			if(nodeTable.get(objectID) != null){
+				_checksum++;
+			}
+			IntIntMap nodePropertyTable = propertyTables.get(objectID);
+			for(int j = 0; j < nodePropertyTable.size(); j++){
+				_checksum += nodePropertyTable.getKeyAt(j) + nodePropertyTable.getValueAt(j);
+			}
+		}
+		return new Object[]{nodeTable, propertyTables};
+	}
+
+	/**
+	 * Measures a case.
+	 * @param name    Name of the case
+	 * @param intMaps Use the primitive int maps (else boxed HashMaps)?
+	 */
+	private static void measure(String name, boolean intMaps){
+		long bestTime = Long.MAX_VALUE;
+		for(int run = 0; run <= RUN_COUNT; run++){
+			_tables = null;
+			long usedMemory = getUsedMemory();
+
+			long startTime = System.nanoTime();
+			_tables = intMaps ? runIntMaps() : runHashMaps();
+			long time = System.nanoTime() - startTime;
+
+			// The first run is the warm up
+			if(run > 0){
+				bestTime = Math.min(bestTime, time);
+			}
+			if(run == RUN_COUNT){
+				long retainedMemory = getUsedMemory() - usedMemory;
+				System.out.println(String.format("%-20s %8.1f ms %8.1f MB retained", name, bestTime / 1e6, retainedMemory / (1024.0 * 1024.0)));
+			}
+		}
+		_tables = null;
+	}
+
+	/**
+	 * Returns the used heap memory after a garbage collection.
+	 * @return Used memory in bytes
+	 */
+	private static long getUsedMemory(){
+		Runtime runtime = Runtime.getRuntime();
+		for(int i = 0; i < 3; i++){
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	/**
+	 * Main entry point.
+	 * @param arguments Arguments of the command line (unused)
+	 */
+	public static void main(String[] arguments){
+		System.out.println(NODE_COUNT + " nodes, " + NODE_COUNT + " property tables with " + PROPERTY_COUNT + " entries each");
+		_nodes = new Object[NODE_COUNT];
+		for(int i = 0; i < NODE_COUNT; i++){
+			_nodes[i] = new Object();
+		}
+
+		measure("Boxed HashMaps", false);
+		measure("Primitive int maps", true);
+		System.out.println("Checksum: " + _checksum);
+		System.out.println("Done");
+	}
+}
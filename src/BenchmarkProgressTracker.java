@@ -0,0 +1,164 @@
+//################################################################################
+//	The MIT License
+//
+//	Copyright (c) 2014 Johannes Raida
+//
+//	Permission is hereby granted, free of charge, to any person obtaining a copy
+//	of this software and associated documentation files (the "Software"), to deal
+//	in the Software without restriction, including without limitation the rights
+//	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+//	copies of the Software, and to permit persons to whom the Software is
+//	furnished to do so, subject to the following conditions:
+//
+//	The above copyright notice and this permission notice shall be included in
+//	all copies or substantial portions of the Software.
+//
+//	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+//	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+//	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+//	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+//	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+//	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+//	THE SOFTWARE.
+//################################################################################
+
+
+import java.net.URL;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.raida.jcadlib.cadimport.jt.ProgressTracker;
+import de.raida.progress.ProgressEvent;
+import de.raida.progress.ProgressListenerInterface;
+
+/**
+ * Benchmark of the progress reporting overhead: the cost of advancing the progress
+ * tracker without listeners, with a listener at the default and without a notification
+ * interval and from several threads, compared to the former reporting by URL keyed maps.
+ */
+public class BenchmarkProgressTracker {
+	/** Number of progress updates per run */
+	private final static int UPDATE_COUNT = 20000000;
+
+	/** Number of measured runs per case */
+	private final static int RUN_COUNT = 5;
+
+	/** Number of received notifications */
+	private static AtomicLong _notificationCount = new AtomicLong();
+
+	/** Listener, only counting the notifications */
+	private static ProgressListenerInterface _countingListener = new ProgressListenerInterface(){
+		public void progressChanged(ProgressEvent progressEvent){
+			_notificationCount.incrementAndGet();
+		}
+	};
+
+	/**
+	 * Measures the progress tracker.
+	 * @param  name                 Name of the case
+	 * @param  notificationInterval Minimal time between two notifications in milliseconds
+	 * @param  listener             Add a listener?
+	 * @param  threadCount          Number of advancing threads
+	 * @throws Exception            Thrown if a thread was interrupted
+	 */
+	private static void measureTracker(String name, long notificationInterval, boolean listener, int threadCount) throws Exception {
+		long bestTime = Long.MAX_VALUE;
+		for(int run = 0; run <= RUN_COUNT; run++){
+			final ProgressTracker progressTracker = new ProgressTracker(notificationInterval);
+			if(listener){
+				progressTracker.addProgressListener(_countingListener);
+			}
+			progressTracker.setTotal(ProgressTracker.Phase.DECODE, UPDATE_COUNT);
+			_notificationCount.set(0);
+
+			Thread[] threads = new Thread[threadCount];
+			for(int i = 0; i < threadCount; i++){
+				final int updateCount = UPDATE_COUNT / threadCount;
+				threads[i] = new Thread(){
+					public void run(){
+						for(int j = 0; j < updateCount; j++){
+							progressTracker.advance(ProgressTracker.Phase.DECODE, 1);
+						}
+					}
+				};
+			}
+
+			long startTime = System.nanoTime();
+			for(Thread thread : threads){
+				thread.start();
+			}
+			for(Thread thread : threads){
+				thread.join();
+			}
+			long time = System.nanoTime() - startTime;
+
+			// The first run is the warm up
+			if(run > 0){
+				bestTime = Math.min(bestTime, time);
+			}
+		}
+		print(name, bestTime, _notificationCount.get());
+	}
+
+	/**
+	 * Measures the former reporting: three URL keyed maps, updated with boxed values.
+	 */
+	private static void measureLegacy(){
+		long bestTime = Long.MAX_VALUE;
+		long notificationCount = 0;
+		for(int run = 0; run <= RUN_COUNT; run++){
+			URL url = BenchmarkProgressTracker.class.getResource("BenchmarkProgressTracker.class");
+			HashMap<URL, Integer> readBytes = new HashMap<URL, Integer>();
+			HashMap<URL, Integer> progressIntervall = new HashMap<URL, Integer>();
+			HashMap<URL, Integer> fileLength = new HashMap<URL, Integer>();
+			readBytes.put(url, 0);
+			progressIntervall.put(url, 0);
+			fileLength.put(url, UPDATE_COUNT);
+			_notificationCount.set(0);
+
+			long startTime = System.nanoTime();
+			for(int i = 0; i < UPDATE_COUNT; i++){
+				if(!readBytes.containsKey(url)){
+					continue;
+				}
+				readBytes.put(url, readBytes.get(url) + 1);
+				progressIntervall.put(url, progressIntervall.get(url) + 1);
+				if(progressIntervall.get(url) > ProgressListenerInterface.PROGRESS_UPDATER_FREQUENCY_PARSER){
+					progressIntervall.put(url, progressIntervall.get(url) - ProgressListenerInterface.PROGRESS_UPDATER_FREQUENCY_PARSER);
+					_countingListener.progressChanged(new ProgressEvent((byte)((readBytes.get(url) * 100.0) / fileLength.get(url))));
+				}
+			}
+			long time = System.nanoTime() - startTime;
+
+			if(run > 0){
+				bestTime = Math.min(bestTime, time);
+				notificationCount = _notificationCount.get();
+			}
+		}
+		print("Former URL keyed maps", bestTime, notificationCount);
+	}
+
+	/**
+	 * Prints the result of a case.
+	 * @param name              Name of the case
+	 * @param time              Best time of all runs in nanoseconds
+	 * @param notificationCount Number of notifications of the last run
+	 */
+	private static void print(String name, long time, long notificationCount){
+		System.out.println(String.format("%-40s %8.2f ns/update %10d notifications", name, (double)time / UPDATE_COUNT, notificationCount));
+	}
+
+	/**
+	 * Main entry point.
+	 * @param  arguments Arguments of the command line (unused)
+	 * @throws Exception Thrown if a thread was interrupted
+	 */
+	public static void main(String[] arguments) throws Exception {
+		measureLegacy();
+		measureTracker("Tracker, no listener", 100, false, 1);
+		measureTracker("Tracker, listener, 100 ms interval", 100, true, 1);
+		measureTracker("Tracker, listener, no interval", 0, true, 1);
+		measureTracker("Tracker, listener, 100 ms, 4 threads", 100, true, 4);
+		System.out.println("Done");
+	}
+}
@@ -22,44 +22,17 @@
 //	THE SOFTWARE.
 //################################################################################
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 
+import de.raida.jcadlib.cadimport.jt.Diagnostics;
 import de.raida.jcadlib.cadimport.jt.JTImporter;
-
-class ToFile {
-
-	
-    public static void write(String abiStr,String fname) {
-        BufferedWriter writer = null;
-        try {
-            //create a temporary file
-            
-            File logFile = new File("abi/"+fname);
-
-            // This will output the full path where the file will be written to...
-            System.out.println(logFile.getCanonicalPath());
-
-            writer = new BufferedWriter(new FileWriter(logFile,true));
-            writer.write(abiStr);
-        } catch (Exception e) {
-            e.printStackTrace();
-        } finally {
-            try {
-                // Close the writer regardless of what happens...
-                writer.close();
-            } catch (Exception e) {
-            }
-        }
-    }
-}
-
+import de.raida.jcadlib.cadimport.jt.LoadStatistics;
+import de.raida.jcadlib.cadimport.jt.export.LayerExporter;
 
 /**
  * Test class for the JT importer.
@@ -69,19 +42,26 @@ public class TestJTImporter {
 	 * Test export.
 	 * @param jtImporter    Instance of the JT importer
 	 * @param testDirectory Base directory with the JT files
+	 * @param layerExporter Exporter of the triangles
 	 */
-	private void testImport(JTImporter jtImporter, String testDirectory){
+	private void testImport(JTImporter jtImporter, String testDirectory, LayerExporter layerExporter){
 		File sourceDirectory = new File(testDirectory);
 
 		for(String fileName : sourceDirectory.list()){
 			try {
 				// Load the JT file
 				System.out.println("\nLoading: " + fileName);
+				if(jtImporter.getLoadStatistics() != null){
+					jtImporter.getLoadStatistics().reset();
+				}
 				jtImporter.loadFile(new File(sourceDirectory + File.separator + fileName).toURI().toURL());
 
 				// Print all available information
 				printInformation(jtImporter);
 
+				// Export the triangles by their layers
+				layerExporter.export(jtImporter.getModel());
+
 			} catch(Exception exception){
 				exception.printStackTrace();
 			}
@@ -97,14 +77,20 @@ public class TestJTImporter {
 	private void printInformation(JTImporter jtImporter) throws Exception {
 		System.out.println("\nLoad information:");
 		System.out.println("--------------------------------------------------");
-		ArrayList<String[]> loadInformation = jtImporter.getLoadInformation();
-		if(loadInformation.size() == 0){
-			System.out.println("   ---");
-		} else {
-			for(String[] information : loadInformation){
-				System.out.println("   " + information[0] + ": " + information[1]);
+		Diagnostics diagnostics = jtImporter.getDiagnostics();
+		boolean foundInformation = false;
+		for(Diagnostics.Entry entry : diagnostics.getEntries()){
+			if(entry.getSeverity() != Diagnostics.Severity.INFO){
+				System.out.println("   " + entry.getSeverity() + ": " + entry.getMessage() + ((entry.getCount() > 1) ? " (" + entry.getCount() + "x)" : ""));
+				foundInformation = true;
 			}
 		}
+		if(!foundInformation){
+			System.out.println("   ---");
+		}
+		if(diagnostics.getDroppedCount() > 0){
+			System.out.println("   ... " + diagnostics.getDroppedCount() + " further messages");
+		}
 
 		System.out.println("\nModel information:");
 		System.out.println("--------------------------------------------------");
@@ -192,8 +178,6 @@ public class TestJTImporter {
 			System.out.println("     ... layer: " + layerName);
 			ArrayList<Object[]> faces = faceEntities.get(layerName);
 			System.out.println("         ... # entities: " + faces.size());
-			ToFile.write("\n"+layerName,"layers");
-			String tmp;
 			for(Object[] faceList : faces){
 				double[] vertices = (double[])faceList[0];
 				int[] indices = (int[])faceList[1];
@@ -203,30 +187,32 @@ public class TestJTImporter {
 				System.out.println("             ... [entity 1] indices: " + indices.length + " => (showing 3) [" + indices[0] + ", " + indices[1] + ", " + indices[2] + "]");
 				System.out.println("             ... [entity 1] colors: " + colors.length + " => (showing 1) [" + colors[0] + ", " + colors[1] + ", " + colors[2] + "]");
 				System.out.println("             ... [entity 1] normals: " + normals.length + " => (showing 1) [" + normals[0] + ", " + normals[1] + ", " + normals[2] + "]");
-				for(int x=0;x<vertices.length-2;x+=3){
-					tmp=vertices[x] + "," + vertices[x+1] + ", " + vertices[x+2] + "\n";
-					ToFile.write(tmp, "vert_"+layerName);
-				}
-				for(int x=0;x<indices.length-2;x+=3){
-					tmp=indices[x] + "," + indices[x+1] + "," + indices[x+2] + "\n";
-					ToFile.write(tmp, "face_"+layerName);
-				}
-				
+
 				if(faces.size() > 1){
 					System.out.println("             ...");
 				}
 				break;
 			}
 		}
+
+		LoadStatistics loadStatistics = jtImporter.getLoadStatistics();
+		if(loadStatistics != null){
+			System.out.println("\nLoad statistics:");
+			System.out.println("--------------------------------------------------");
+			System.out.print(loadStatistics);
+		}
 	}
 
 	/**
 	 * Main entry point.
-	 * @param arguments Arguments of the command line
+	 * @param arguments Arguments of the command line ("-text" exports text instead of binary files)
 	 */
 	public static void main(String[] arguments){
+		boolean binary = !Arrays.asList(arguments).contains("-text");
 		TestJTImporter testJTImporter = new TestJTImporter();
-		testJTImporter.testImport(new JTImporter(), "data");
+		JTImporter jtImporter = new JTImporter();
+		jtImporter.setLoadStatistics(new LoadStatistics());
+		testJTImporter.testImport(jtImporter, "data", new LayerExporter(new File("abi"), binary));
 		System.out.println("Done");
 	}
 }
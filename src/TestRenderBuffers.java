@@ -0,0 +1,233 @@
+//################################################################################
+//	The MIT License
+//
+//	Copyright (c) 2014 Johannes Raida
+//
+//	Permission is hereby granted, free of charge, to any person obtaining a copy
+//	of this software and associated documentation files (the "Software"), to deal
+//	in the Software without restriction, including without limitation the rights
+//	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+//	copies of the Software, and to permit persons to whom the Software is
+//	furnished to do so, subject to the following conditions:
+//
+//	The above copyright notice and this permission notice shall be included in
+//	all copies or substantial portions of the Software.
+//
+//	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+//	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+//	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+//	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+//	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+//	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+//	THE SOFTWARE.
+//################################################################################
+
+
+import java.nio.ByteBuffer;
+
+import de.raida.jcadlib.cadimport.jt.TriangleMesh;
+import de.raida.jcadlib.cadimport.jt.export.RenderBufferBuilder;
+import de.raida.jcadlib.cadimport.jt.export.RenderBuffers;
+import de.raida.jcadlib.cadimport.jt.export.VertexLayout;
+import de.raida.jcadlib.cadimport.jt.export.VertexLayout.ComponentFormat;
+
+/**
+ * Check of the render buffers: the offsets and strides of the vertex layouts, the half
+ * precision, signed and unsigned normalized encodings of the attributes and the switch
+ * from 16 to 32 bit indices. Exits with status 1, if a check failed.
+ */
+public class TestRenderBuffers {
+	/** Number of failed checks */
+	private static int _failureCount;
+
+	/**
+	 * Checks a value.
+	 * @param name     Name of the check
+	 * @param actual   Actual value
+	 * @param expected Expected value
+	 */
+	private static void check(String name, long actual, long expected){
+		if(actual != expected){
+			System.out.println("FAILED: " + name + ": " + actual + " (expected: " + expected + ")");
+			_failureCount++;
+		}
+	}
+
+	/**
+	 * Checks the offsets and the stride of a vertex layout.
+	 * @param normalFormat Format of the normal components
+	 * @param colorFormat  Format of the color components
+	 * @param alignment    Alignment of the stride in bytes
+	 * @param normalOffset Expected offset of the normal
+	 * @param colorOffset  Expected offset of the color
+	 * @param stride       Expected stride
+	 */
+	private static void checkLayout(ComponentFormat normalFormat, ComponentFormat colorFormat, int alignment, int normalOffset, int colorOffset, int stride){
+		VertexLayout vertexLayout = new VertexLayout(normalFormat, colorFormat, alignment);
+		String name = "Layout " + normalFormat + "/" + colorFormat + "/" + alignment;
+		check(name + " position offset", vertexLayout.getPositionOffset(), 0);
+		check(name + " normal offset", vertexLayout.getNormalOffset(), normalOffset);
+		check(name + " color offset", vertexLayout.getColorOffset(), colorOffset);
+		check(name + " stride", vertexLayout.getStride(), stride);
+	}
+
+	/**
+	 * Checks the vertex layouts.
+	 */
+	private static void testLayouts(){
+		checkLayout(ComponentFormat.NONE, ComponentFormat.NONE, 4, -1, -1, 12);
+		checkLayout(ComponentFormat.FLOAT, ComponentFormat.FLOAT, 4, 12, 24, 36);
+		checkLayout(ComponentFormat.FLOAT, ComponentFormat.NONE, 16, 12, -1, 32);
+		checkLayout(ComponentFormat.HALF_FLOAT, ComponentFormat.NORMALIZED_BYTE, 4, 12, 20, 24);
+		checkLayout(ComponentFormat.NORMALIZED_SHORT, ComponentFormat.NORMALIZED_SHORT, 4, 12, 20, 28);
+		checkLayout(ComponentFormat.NORMALIZED_BYTE, ComponentFormat.NORMALIZED_BYTE, 16, 12, 16, 32);
+		checkLayout(ComponentFormat.NONE, ComponentFormat.NORMALIZED_BYTE, 8, -1, 12, 16);
+
+		try {
+			new VertexLayout(ComponentFormat.FLOAT, ComponentFormat.FLOAT, 6);
+			check("Layout with alignment 6 rejected", 0, 1);
+		} catch(IllegalArgumentException exception){
+		}
+	}
+
+	/**
+	 * Packs the given values as normals of a single mesh (three per vertex) and returns its
+	 * render buffers. The normals of a mesh in local coordinates are written unchanged.
+	 * @param  vertexLayout Layout of the vertices
+	 * @param  values       Normal components
+	 * @return              Render buffers
+	 */
+	private static RenderBuffers packNormals(VertexLayout vertexLayout, double[] values){
+		int vertexCount = values.length / 3;
+		int[] indices = new int[((vertexCount + 2) / 3) * 3];
+		for(int i = 0; i < vertexCount; i++){
+			indices[i] = i;
+		}
+		return new RenderBufferBuilder(vertexLayout).build(new TriangleMesh(new double[values.length], indices, null, values), null);
+	}
+
+	/**
+	 * Checks the half precision encoding on its boundary values.
+	 */
+	private static void testHalfFloat(){
+		double[] values = {
+			65504,                    0x7bff,	// Largest half
+			65536,                    0x7c00,	// Overflow to infinity
+			1e6,                      0x7c00,
+			-65504,                   0xfbff,
+			1,                        0x3c00,
+			-2,                       0xc000,
+			0.1,                      0x2e66,
+			Math.pow(2, -14),         0x0400,	// Smallest normalized half
+			Math.pow(2, -15),         0x0200,	// Subnormals
+			Math.pow(2, -24),         0x0001,
+			-Math.pow(2, -24),        0x8001,
+			Math.pow(2, -26),         0x0000,	// Underflow to zero
+			0,                        0x0000,
+			-0.0,                     0x8000,
+			Double.POSITIVE_INFINITY, 0x7c00,
+			Double.NEGATIVE_INFINITY, 0xfc00
+		};
+		double[] normals = new double[((values.length / 2) + 1) * 3];
+		for(int i = 0; i < values.length / 2; i++){
+			normals[i * 3] = values[i * 2];
+		}
+		normals[(values.length / 2) * 3] = Double.NaN;
+
+		VertexLayout vertexLayout = new VertexLayout(ComponentFormat.HALF_FLOAT, ComponentFormat.NONE, 4);
+		ByteBuffer vertexBuffer = packNormals(vertexLayout, normals).getVertexBuffer();
+		for(int i = 0; i < values.length / 2; i++){
+			int bits = vertexBuffer.getShort((i * vertexLayout.getStride()) + vertexLayout.getNormalOffset()) & 0xffff;
+			check("Half float of " + values[i * 2], bits, (long)values[(i * 2) + 1]);
+		}
+
+		// NaN keeps a set mantissa bit
+		int bits = vertexBuffer.getShort(((values.length / 2) * vertexLayout.getStride()) + vertexLayout.getNormalOffset()) & 0xffff;
+		check("Half float of NaN is NaN", (((bits & 0x7c00) == 0x7c00) && ((bits & 0x3ff) != 0)) ? 1 : 0, 1);
+	}
+
+	/**
+	 * Checks the signed (normals) and unsigned (colors) normalized encodings.
+	 */
+	private static void testNormalized(){
+		double[] normals = {-1, 1, 0.5, -2, 2, 0};
+		VertexLayout shortLayout = new VertexLayout(ComponentFormat.NORMALIZED_SHORT, ComponentFormat.NONE, 4);
+		ByteBuffer vertexBuffer = packNormals(shortLayout, normals).getVertexBuffer();
+		long[] expectedShorts = {-32767, 32767, 16384, -32767, 32767, 0};
+		for(int i = 0; i < normals.length; i++){
+			int position = ((i / 3) * shortLayout.getStride()) + shortLayout.getNormalOffset() + ((i % 3) * 2);
+			check("Signed normalized short of " + normals[i], vertexBuffer.getShort(position), expectedShorts[i]);
+		}
+
+		VertexLayout byteLayout = new VertexLayout(ComponentFormat.NORMALIZED_BYTE, ComponentFormat.NONE, 4);
+		vertexBuffer = packNormals(byteLayout, normals).getVertexBuffer();
+		long[] expectedBytes = {-127, 127, 64, -127, 127, 0};
+		for(int i = 0; i < normals.length; i++){
+			int position = ((i / 3) * byteLayout.getStride()) + byteLayout.getNormalOffset() + (i % 3);
+			check("Signed normalized byte of " + normals[i], vertexBuffer.get(position), expectedBytes[i]);
+		}
+
+		// Vertex colors
+		double[] colors = {0, 1, 0.5, -1, 2, 0.2};
+		VertexLayout colorLayout = new VertexLayout(ComponentFormat.NONE, ComponentFormat.NORMALIZED_SHORT, 4);
+		vertexBuffer = new RenderBufferBuilder(colorLayout).build(new TriangleMesh(new double[6], new int[]{0, 1, 0}, colors, null), null).getVertexBuffer();
+		long[] expectedColors = {0, 65535, 32768, 0, 65535, 13107};
+		for(int i = 0; i < colors.length; i++){
+			int position = ((i / 3) * colorLayout.getStride()) + colorLayout.getColorOffset() + ((i % 3) * 2);
+			check("Unsigned normalized short of " + colors[i], vertexBuffer.getShort(position) & 0xffff, expectedColors[i]);
+		}
+
+		// Color of the mesh
+		colorLayout = new VertexLayout(ComponentFormat.NONE, ComponentFormat.NORMALIZED_BYTE, 4);
+		vertexBuffer = new RenderBufferBuilder(colorLayout).build(new TriangleMesh(new double[3], new int[]{0, 0, 0}, null, null), new float[]{1, 0.5f, 0}).getVertexBuffer();
+		long[] expectedColor = {255, 128, 0};
+		for(int i = 0; i < 3; i++){
+			check("Unsigned normalized byte of the mesh color " + i, vertexBuffer.get(colorLayout.getColorOffset() + i) & 0xff, expectedColor[i]);
+		}
+	}
+
+	/**
+	 * Checks the index format of a mesh with the given number of vertices.
+	 * @param vertexCount  Number of vertices
+	 * @param shortIndices Expect 16 bit indices?
+	 */
+	private static void checkIndices(int vertexCount, boolean shortIndices){
+		int[] indices = {0, vertexCount - 2, vertexCount - 1};
+		VertexLayout vertexLayout = new VertexLayout(ComponentFormat.NONE, ComponentFormat.NONE, 4);
+		RenderBuffers renderBuffers = new RenderBufferBuilder(vertexLayout).build(new TriangleMesh(new double[vertexCount * 3], indices, null, null), null);
+		ByteBuffer indexBuffer = renderBuffers.getIndexBuffer();
+
+		String name = "Indices of " + vertexCount + " vertices";
+		check(name + " are 16 bit", renderBuffers.hasShortIndices() ? 1 : 0, shortIndices ? 1 : 0);
+		check(name + " buffer size", indexBuffer.remaining(), indices.length * (shortIndices ? 2 : 4));
+		check(name + " index count", renderBuffers.getIndexCount(), indices.length);
+		check(name + " last index", shortIndices ? (indexBuffer.getShort(4) & 0xffff) : indexBuffer.getInt(8), vertexCount - 1);
+	}
+
+	/**
+	 * Checks the switch from 16 to 32 bit indices.
+	 */
+	private static void testIndices(){
+		checkIndices(3, true);
+		checkIndices(65535, true);
+		checkIndices(65536, true);
+		checkIndices(65537, false);
+	}
+
+	/**
+	 * Main entry point.
+	 * @param arguments Arguments of the command line (unused)
+	 */
+	public static void main(String[] arguments){
+		testLayouts();
+		testHalfFloat();
+		testNormalized();
+		testIndices();
+
+		if(_failureCount > 0){
+			System.out.println(_failureCount + " checks failed");
+			System.exit(1);
+		}
+		System.out.println("Done");
+	}
+}
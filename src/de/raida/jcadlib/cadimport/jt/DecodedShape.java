@@ -0,0 +1,130 @@
+//################################################################################
+//	The MIT License
+//
+//	Copyright (c) 2014 Johannes Raida
+//
+//	Permission is hereby granted, free of charge, to any person obtaining a copy
+//	of this software and associated documentation files (the "Software"), to deal
+//	in the Software without restriction, including without limitation the rights
+//	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+//	copies of the Software, and to permit persons to whom the Software is
+//	furnished to do so, subject to the following conditions:
+//
+//	The above copyright notice and this permission notice shall be included in
+//	all copies or substantial portions of the Software.
+//
+//	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+//	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+//	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+//	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+//	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+//	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+//	THE SOFTWARE.
+//################################################################################
+
+package de.raida.jcadlib.cadimport.jt;
+
+/**
+ * Geometry of a single shape LOD segment in its local coordinate system. A decoded
+ * shape is shared by all instances referencing the segment, so its arrays must not
+ * be modified.
+ * <br>(c) 2014 by <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @author  <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @version 1.0
+ */
+class DecodedShape {
+	/** Triangles; their colors are null, if the color of the instance has to be used */
+	private TriangleMesh _triangleMesh;
+
+	/** Polylines; their colors are null, if the color of the instance has to be used */
+	private PolylineSet _polylineSet;
+
+	/** Points; their colors are null, if the color of the instance has to be used */
+	private PointSet _pointSet;
+
+	/**
+	 * Constructor.
+	 */
+	private DecodedShape(){
+	}
+
+	/**
+	 * Creates a shape of triangles.
+	 * @param  triangleMesh Triangles
+	 * @return              Decoded shape
+	 */
+	public static DecodedShape createFaces(TriangleMesh triangleMesh){
+		DecodedShape decodedShape = new DecodedShape();
+		decodedShape._triangleMesh = triangleMesh;
+		return decodedShape;
+	}
+
+	/**
+	 * Creates a shape of polylines.
+	 * @param  polylineSet Polylines
+	 * @return             Decoded shape
+	 */
+	public static DecodedShape createPolylines(PolylineSet polylineSet){
+		DecodedShape decodedShape = new DecodedShape();
+		decodedShape._polylineSet = polylineSet;
+		return decodedShape;
+	}
+
+	/**
+	 * Creates a shape of points.
+	 * @param  pointSet Points
+	 * @return          Decoded shape
+	 */
+	public static DecodedShape createPoints(PointSet pointSet){
+		DecodedShape decodedShape = new DecodedShape();
+		decodedShape._pointSet = pointSet;
+		return decodedShape;
+	}
+
+	/**
+	 * Replaces the triangles, e.g. by a mesh in another precision. Must be called before the shape is shared.
+	 * @param triangleMesh Triangles
+	 */
+	void setTriangleMesh(TriangleMesh triangleMesh){
+		_triangleMesh = triangleMesh;
+	}
+
+	/**
+	 * Returns the triangles.
+	 * @return Triangles or null, if this isn't a shape of triangles
+	 */
+	public TriangleMesh getTriangleMesh(){
+		return _triangleMesh;
+	}
+
+	/**
+	 * Returns the polylines.
+	 * @return Polylines or null, if this isn't a shape of polylines
+	 */
+	public PolylineSet getPolylineSet(){
+		return _polylineSet;
+	}
+
+	/**
+	 * Returns the points.
+	 * @return Points or null, if this isn't a shape of points
+	 */
+	public PointSet getPointSet(){
+		return _pointSet;
+	}
+
+	/**
+	 * Estimates the memory held by the geometry of the shape.
+	 * @return Size in bytes
+	 */
+	long getByteSize(){
+		if(_triangleMesh != null){
+			return _triangleMesh.getByteSize();
+		} else if(_polylineSet != null){
+			return _polylineSet.getByteSize();
+		} else if(_pointSet != null){
+			return _pointSet.getByteSize();
+		}
+		return 0;
+	}
+}
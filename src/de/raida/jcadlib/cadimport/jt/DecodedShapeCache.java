@@ -0,0 +1,118 @@
+//################################################################################
+//	The MIT License
+//
+//	Copyright (c) 2014 Johannes Raida
+//
+//	Permission is hereby granted, free of charge, to any person obtaining a copy
+//	of this software and associated documentation files (the "Software"), to deal
+//	in the Software without restriction, including without limitation the rights
+//	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+//	copies of the Software, and to permit persons to whom the Software is
+//	furnished to do so, subject to the following conditions:
+//
+//	The above copyright notice and this permission notice shall be included in
+//	all copies or substantial portions of the Software.
+//
+//	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+//	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+//	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+//	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+//	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+//	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+//	THE SOFTWARE.
+//################################################################################
+
+package de.raida.jcadlib.cadimport.jt;
+
+import java.util.HashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import de.raida.jcadlib.cadimport.jt.model.GUID;
+
+/**
+ * Cache of the decoded shapes of one import, indexed by their segment ID's. Every
+ * segment is decoded only once, however many instances reference it. Concurrent
+ * requests for the same segment wait for the first decoder. Once the last registered
+ * instance of a segment has been released, its decoded shape is dropped.
+ * <br>(c) 2014 by <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @author  <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @version 1.0
+ */
+class DecodedShapeCache {
+	/** Decoded shapes (or shapes being decoded), indexed by their segment ID's */
+	private ConcurrentHashMap<GUID, FutureTask<DecodedShape>> _decodedShapes;
+
+	/** Number of not yet released instances, indexed by segment ID's */
+	private HashMap<GUID, Integer> _instanceCounts;
+
+	/**
+	 * Constructor.
+	 */
+	public DecodedShapeCache(){
+		_decodedShapes = new ConcurrentHashMap<GUID, FutureTask<DecodedShape>>();
+		_instanceCounts = new HashMap<GUID, Integer>();
+	}
+
+	/**
+	 * Registers an instance of the given segment.
+	 * @param segmentID Segment ID
+	 */
+	public synchronized void retain(GUID segmentID){
+		Integer instanceCount = _instanceCounts.get(segmentID);
+		_instanceCounts.put(segmentID, (instanceCount == null) ? 1 : instanceCount + 1);
+	}
+
+	/**
+	 * Releases an instance of the given segment. The decoded shape is dropped with the last instance.
+	 * @param segmentID Segment ID
+	 */
+	public synchronized void release(GUID segmentID){
+		Integer instanceCount = _instanceCounts.get(segmentID);
+		if((instanceCount == null) || (instanceCount <= 1)){
+			_instanceCounts.remove(segmentID);
+			_decodedShapes.remove(segmentID);
+		} else {
+			_instanceCounts.put(segmentID, instanceCount - 1);
+		}
+	}
+
+	/**
+	 * Returns the decoded shape of the given segment, decoding it if necessary.
+	 * @param  segmentID Segment ID
+	 * @param  decoder   Decoder, called if the segment hasn't been decoded yet
+	 * @return           Decoded shape or<br>
+	 *                   <b>null</b> if the segment couldn't be decoded
+	 * @throws Exception Thrown if decoding failed
+	 */
+	public DecodedShape get(GUID segmentID, Callable<DecodedShape> decoder) throws Exception {
+		FutureTask<DecodedShape> futureTask = _decodedShapes.get(segmentID);
+		if(futureTask == null){
+			FutureTask<DecodedShape> newFutureTask = new FutureTask<DecodedShape>(decoder);
+			futureTask = _decodedShapes.putIfAbsent(segmentID, newFutureTask);
+			if(futureTask == null){
+				futureTask = newFutureTask;
+				futureTask.run();
+			}
+		}
+
+		try {
+			return futureTask.get();
+		} catch(ExecutionException exception){
+			if(exception.getCause() instanceof Exception){
+				throw (Exception)exception.getCause();
+			}
+			throw exception;
+		}
+	}
+
+	/**
+	 * Returns the number of decoded segments, which are still held.
+	 * @return Number of decoded segments
+	 */
+	public int size(){
+		return _decodedShapes.size();
+	}
+}
@@ -0,0 +1,268 @@
+//################################################################################
+//	The MIT License
+//
+//	Copyright (c) 2014 Johannes Raida
+//
+//	Permission is hereby granted, free of charge, to any person obtaining a copy
+//	of this software and associated documentation files (the "Software"), to deal
+//	in the Software without restriction, including without limitation the rights
+//	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+//	copies of the Software, and to permit persons to whom the Software is
+//	furnished to do so, subject to the following conditions:
+//
+//	The above copyright notice and this permission notice shall be included in
+//	all copies or substantial portions of the Software.
+//
+//	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+//	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+//	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+//	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+//	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+//	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+//	THE SOFTWARE.
+//################################################################################
+
+package de.raida.jcadlib.cadimport.jt;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Collector of the messages, occurring while loading files. Messages with equal severity
+ * and text are stored once in a hash map and counted, so repeating warnings (e.g. per shape)
+ * cost a hash lookup instead of a scan over all messages; the entry keeps the references to
+ * the file of the first occurrence. Once the maximal number of entries of a severity is
+ * stored, further distinct messages of this severity are only counted as dropped, so many
+ * informations can't displace the warnings and errors. All methods are synchronized, so the
+ * messages may be added by concurrent decode jobs.
+ * <br>(c) 2014 by <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @author  <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @version 1.0
+ */
+public class Diagnostics {
+	/**
+	 * Severity of a message.
+	 */
+	public static enum Severity {
+		/** Information, e.g. an unsupported element, which has been skipped */
+		INFO,
+
+		/** Warning, the model may be incomplete */
+		WARNING,
+
+		/** Error, the file couldn't be loaded */
+		ERROR
+	}
+
+	/** Maximal number of stored entries per severity */
+	private int _maxEntryCount;
+
+	/** Number of stored entries per severity */
+	private int[] _entryCounts;
+
+	/** Stored entries in the order of their first occurrence (entry -> entry) */
+	private LinkedHashMap<Entry, Entry> _entries;
+
+	/** Number of occurrences per severity, including the dropped messages */
+	private long[] _occurrenceCounts;
+
+	/** Number of occurrences of messages, which haven't been stored */
+	private long _droppedCount;
+
+	/**
+	 * Constructor.
+	 * @param maxEntryCount Maximal number of stored entries per severity
+	 */
+	public Diagnostics(int maxEntryCount){
+		_maxEntryCount = maxEntryCount;
+		_entryCounts = new int[Severity.values().length];
+		_entries = new LinkedHashMap<Entry, Entry>();
+		_occurrenceCounts = new long[Severity.values().length];
+	}
+
+	/**
+	 * Adds a message without a reference to the file.
+	 * @param severity Severity
+	 * @param message  Message text
+	 */
+	public void add(Severity severity, String message){
+		add(severity, message, null, -1, -1);
+	}
+
+	/**
+	 * Adds a message or counts another occurrence of a message with equal severity and text.
+	 * @param severity      Severity
+	 * @param message       Message text
+	 * @param guid          GUID of the element or segment or null
+	 * @param objectID      Object ID of the node or -1
+	 * @param segmentOffset Byte offset of the segment in the file or -1
+	 */
+	public synchronized void add(Severity severity, String message, String guid, int objectID, long segmentOffset){
+		_occurrenceCounts[severity.ordinal()]++;
+
+		Entry entry = new Entry(severity, message, guid, objectID, segmentOffset, 1);
+		Entry storedEntry = _entries.get(entry);
+		if(storedEntry != null){
+			storedEntry._count++;
+		} else if(_entryCounts[severity.ordinal()] < _maxEntryCount){
+			_entries.put(entry, entry);
+			_entryCounts[severity.ordinal()]++;
+		} else {
+			_droppedCount++;
+		}
+	}
+
+	/**
+	 * Returns copies of the stored entries in the order of their first occurrence.
+	 * @return Stored entries
+	 */
+	public synchronized List<Entry> getEntries(){
+		List<Entry> entries = new ArrayList<Entry>(_entries.size());
+		for(Entry entry : _entries.values()){
+			entries.add(new Entry(entry._severity, entry._message, entry._guid, entry._objectID, entry._segmentOffset, entry._count));
+		}
+		return entries;
+	}
+
+	/**
+	 * Returns the number of occurrences of all messages with the given severity.
+	 * @param  severity Severity
+	 * @return          Number of occurrences, including the dropped messages
+	 */
+	public synchronized long getOccurrenceCount(Severity severity){
+		return _occurrenceCounts[severity.ordinal()];
+	}
+
+	/**
+	 * Returns the number of occurrences of messages, which haven't been stored, as the
+	 * maximal number of entries of their severity had been reached.
+	 * @return Number of dropped occurrences
+	 */
+	public synchronized long getDroppedCount(){
+		return _droppedCount;
+	}
+
+	/**
+	 * Removes all entries and counters.
+	 */
+	public synchronized void clear(){
+		_entries.clear();
+		_entryCounts = new int[Severity.values().length];
+		_occurrenceCounts = new long[Severity.values().length];
+		_droppedCount = 0;
+	}
+
+	/**
+	 * Single message with the references of its first occurrence and its number of occurrences.
+	 */
+	public static class Entry {
+		/** Severity */
+		private Severity _severity;
+
+		/** Message text */
+		private String _message;
+
+		/** GUID of the element or segment of the first occurrence (null, if unknown) */
+		private String _guid;
+
+		/** Object ID of the node of the first occurrence (-1, if unknown) */
+		private int _objectID;
+
+		/** Byte offset of the segment of the first occurrence in the file (-1, if unknown) */
+		private long _segmentOffset;
+
+		/** Number of occurrences */
+		private long _count;
+
+		/**
+		 * Constructor.
+		 * @param severity      Severity
+		 * @param message       Message text
+		 * @param guid          GUID of the element or segment or null
+		 * @param objectID      Object ID of the node or -1
+		 * @param segmentOffset Byte offset of the segment in the file or -1
+		 * @param count         Number of occurrences
+		 */
+		private Entry(Severity severity, String message, String guid, int objectID, long segmentOffset, long count){
+			_severity = severity;
+			_message = (message == null) ? "" : message;
+			_guid = guid;
+			_objectID = objectID;
+			_segmentOffset = segmentOffset;
+			_count = count;
+		}
+
+		/**
+		 * Returns the severity.
+		 * @return Severity
+		 */
+		public Severity getSeverity(){
+			return _severity;
+		}
+
+		/**
+		 * Returns the message text.
+		 * @return Message text
+		 */
+		public String getMessage(){
+			return _message;
+		}
+
+		/**
+		 * Returns the GUID of the element or segment of the first occurrence.
+		 * @return GUID or<br>
+		 *         <b>null</b>, if unknown
+		 */
+		public String getGUID(){
+			return _guid;
+		}
+
+		/**
+		 * Returns the object ID of the node of the first occurrence.
+		 * @return Object ID or<br>
+		 *         <b>-1</b>, if unknown
+		 */
+		public int getObjectID(){
+			return _objectID;
+		}
+
+		/**
+		 * Returns the byte offset of the segment of the first occurrence in the file.
+		 * @return Byte offset or<br>
+		 *         <b>-1</b>, if unknown
+		 */
+		public long getSegmentOffset(){
+			return _segmentOffset;
+		}
+
+		/**
+		 * Returns the number of occurrences.
+		 * @return Number of occurrences
+		 */
+		public long getCount(){
+			return _count;
+		}
+
+		/**
+		 * Compares the severity and the message text, ignoring the references and the number of occurrences.
+		 * @param  object Object to compare
+		 * @return        Are both entries equal?
+		 */
+		public boolean equals(Object object){
+			if(!(object instanceof Entry)){
+				return false;
+			}
+			Entry entry = (Entry)object;
+			return (_severity == entry._severity) && _message.equals(entry._message);
+		}
+
+		/**
+		 * Returns the hash code of the severity and the message text.
+		 * @return Hash code
+		 */
+		public int hashCode(){
+			return (_severity.ordinal() * 31) + _message.hashCode();
+		}
+	}
+}
@@ -0,0 +1,554 @@
+//################################################################################
+//	The MIT License
+//
+//	Copyright (c) 2014 Johannes Raida
+//
+//	Permission is hereby granted, free of charge, to any person obtaining a copy
+//	of this software and associated documentation files (the "Software"), to deal
+//	in the Software without restriction, including without limitation the rights
+//	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+//	copies of the Software, and to permit persons to whom the Software is
+//	furnished to do so, subject to the following conditions:
+//
+//	The above copyright notice and this permission notice shall be included in
+//	all copies or substantial portions of the Software.
+//
+//	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+//	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+//	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+//	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+//	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+//	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+//	THE SOFTWARE.
+//################################################################################
+
+package de.raida.jcadlib.cadimport.jt;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.zip.CRC32;
+
+import de.raida.jcadlib.cadimport.jt.model.GUID;
+
+/**
+ * Persistent cache of decoded shapes in a directory, surviving restarts of the application.
+ * Each decoded shape is stored in a file of its own, named by the hash of the file key
+ * (canonical path, modification time, size and geometry settings) and the segment ID.
+ * The files are read completely on reading and their arrays are copied in bulk, so the
+ * codecs and the dequantization don't have to run again.
+ * <br>File layout (little endian): magic number, format version, file key, shape type,
+ * number of arrays, the arrays (type, length, values) and a CRC32 checksum of all
+ * preceding bytes. Files with another version, another key or a wrong checksum are
+ * deleted and decoded again. The least recently used files are deleted, once the files
+ * exceed the size limit.
+ * <br>(c) 2014 by <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @author  <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @version 1.0
+ */
+public class DiskShapeCache {
+	/** Magic number of the cache files ("JTSC") */
+	private final static int MAGIC_NUMBER = 0x4353544A;
+
+	/** Version of the file format */
+	private final static int FORMAT_VERSION = 1;
+
+	/** File extension of the cache files */
+	private final static String FILE_EXTENSION = ".jtsc";
+
+	/** Shape type of triangle meshes */
+	private final static byte TRIANGLE_MESH = 1;
+
+	/** Shape type of polyline sets */
+	private final static byte POLYLINE_SET = 2;
+
+	/** Shape type of point sets */
+	private final static byte POINT_SET = 3;
+
+	/** Array type of missing arrays */
+	private final static byte NO_ARRAY = 0;
+
+	/** Array type of double arrays */
+	private final static byte DOUBLE_ARRAY = 1;
+
+	/** Array type of float arrays */
+	private final static byte FLOAT_ARRAY = 2;
+
+	/** Array type of int arrays */
+	private final static byte INT_ARRAY = 3;
+
+	/** Array type of short arrays */
+	private final static byte SHORT_ARRAY = 4;
+
+	/** Directory of the cache files */
+	private File _directory;
+
+	/** Maximal size of all cache files in bytes */
+	private long _maxByteSize;
+
+	/** Size of all cache files in bytes */
+	private long _byteSize;
+
+	/** Number of cache hits */
+	private long _hitCount;
+
+	/** Number of cache misses */
+	private long _missCount;
+
+	/** Number of files, deleted as outdated or corrupt */
+	private long _corruptCount;
+
+	/**
+	 * Constructor.
+	 * @param directory   Directory of the cache files; created, if missing
+	 * @param maxByteSize Maximal size of all cache files in bytes
+	 */
+	public DiskShapeCache(File directory, long maxByteSize){
+		_directory = directory;
+		_maxByteSize = maxByteSize;
+
+		_directory.mkdirs();
+		for(File file : listCacheFiles()){
+			_byteSize += file.length();
+		}
+	}
+
+	/**
+	 * Returns the decoded shape of a segment.
+	 * @param  fileKey   Key of the file, including the geometry settings
+	 * @param  segmentID Segment ID of the shape LOD element
+	 * @return           Decoded shape or<br>
+	 *                   <b>null</b>, if the shape isn't cached or the cache file is invalid
+	 */
+	DecodedShape getShape(String fileKey, GUID segmentID){
+		File file = getFile(fileKey, segmentID);
+		if(!file.isFile()){
+			countMiss(false);
+			return null;
+		}
+
+		DecodedShape decodedShape = null;
+		try {
+			decodedShape = readShape(file, fileKey);
+		} catch(Exception exception){
+			decodedShape = null;
+		}
+
+		if(decodedShape == null){
+			synchronized(this){
+				long length = file.length();
+				if(file.delete()){
+					_byteSize -= length;
+				}
+			}
+			countMiss(true);
+			return null;
+		}
+
+		// Keep the recently used files on cleaning up
+		file.setLastModified(System.currentTimeMillis());
+		synchronized(this){
+			_hitCount++;
+		}
+		return decodedShape;
+	}
+
+	/**
+	 * Stores the decoded shape of a segment. Failures are ignored, the shape is decoded again next time.
+	 * @param fileKey      Key of the file, including the geometry settings
+	 * @param segmentID    Segment ID of the shape LOD element
+	 * @param decodedShape Decoded shape
+	 */
+	void putShape(String fileKey, GUID segmentID, DecodedShape decodedShape){
+		File file = getFile(fileKey, segmentID);
+		File temporaryFile = new File(_directory, file.getName() + "." + Thread.currentThread().getId() + ".tmp");
+		try {
+			byte[] bytes = writeShape(fileKey, decodedShape);
+			FileOutputStream fileOutputStream = new FileOutputStream(temporaryFile);
+			try {
+				fileOutputStream.write(bytes);
+			} finally {
+				fileOutputStream.close();
+			}
+
+			synchronized(this){
+				long oldLength = file.length();
+				if(file.exists() && !file.delete()){
+					return;
+				}
+				_byteSize -= oldLength;
+				if(!temporaryFile.renameTo(file)){
+					return;
+				}
+				_byteSize += bytes.length;
+				if(_byteSize > _maxByteSize){
+					cleanUp();
+				}
+			}
+
+		} catch(Exception exception){
+			// Ignore, the cache is optional
+		} finally {
+			temporaryFile.delete();
+		}
+	}
+
+	/**
+	 * Deletes the least recently used files, until the files take at most 90% of the maximal size.
+	 */
+	private synchronized void cleanUp(){
+		File[] files = listCacheFiles();
+		final long[] lastModified = new long[files.length];
+		Integer[] order = new Integer[files.length];
+		for(int i = 0; i < files.length; i++){
+			lastModified[i] = files[i].lastModified();
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>(){
+			public int compare(Integer index1, Integer index2){
+				return Long.compare(lastModified[index1], lastModified[index2]);
+			}
+		});
+
+		_byteSize = 0;
+		for(File file : files){
+			_byteSize += file.length();
+		}
+
+		long targetByteSize = _maxByteSize / 10 * 9;
+		for(int i = 0; (i < order.length) && (_byteSize > targetByteSize); i++){
+			long length = files[order[i]].length();
+			if(files[order[i]].delete()){
+				_byteSize -= length;
+			}
+		}
+	}
+
+	/**
+	 * Deletes all cache files.
+	 */
+	public synchronized void clear(){
+		for(File file : listCacheFiles()){
+			file.delete();
+		}
+		_byteSize = 0;
+	}
+
+	/**
+	 * Returns the cache files of the directory.
+	 * @return Cache files
+	 */
+	private File[] listCacheFiles(){
+		File[] files = _directory.listFiles();
+		if(files == null){
+			return new File[0];
+		}
+
+		int count = 0;
+		for(File file : files){
+			if(file.getName().endsWith(FILE_EXTENSION)){
+				files[count++] = file;
+			}
+		}
+		return Arrays.copyOf(files, count);
+	}
+
+	/**
+	 * Returns the cache file of a segment.
+	 * @param  fileKey   Key of the file, including the geometry settings
+	 * @param  segmentID Segment ID of the shape LOD element
+	 * @return           Cache file
+	 */
+	private File getFile(String fileKey, GUID segmentID){
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-1").digest((fileKey + "#" + segmentID).getBytes("UTF-8"));
+			StringBuilder fileName = new StringBuilder(hash.length * 2 + FILE_EXTENSION.length());
+			for(byte value : hash){
+				fileName.append(Character.forDigit((value >> 4) & 0xf, 16)).append(Character.forDigit(value & 0xf, 16));
+			}
+			return new File(_directory, fileName.append(FILE_EXTENSION).toString());
+		} catch(Exception exception){
+			throw new IllegalStateException(exception);
+		}
+	}
+
+	/**
+	 * Counts a cache miss.
+	 * @param corrupt Has an invalid file been deleted?
+	 */
+	private synchronized void countMiss(boolean corrupt){
+		_missCount++;
+		if(corrupt){
+			_corruptCount++;
+		}
+	}
+
+	/**
+	 * Serializes a decoded shape.
+	 * @param  fileKey      Key of the file, including the geometry settings
+	 * @param  decodedShape Decoded shape
+	 * @return              Content of the cache file
+	 * @throws Exception    Thrown if the key can't be encoded
+	 */
+	private static byte[] writeShape(String fileKey, DecodedShape decodedShape) throws Exception {
+		byte shapeType;
+		Object[] arrays;
+		if(decodedShape.getTriangleMesh() != null){
+			TriangleMesh triangleMesh = decodedShape.getTriangleMesh();
+			shapeType = TRIANGLE_MESH;
+			if(triangleMesh.isSinglePrecision()){
+				arrays = new Object[]{triangleMesh.getFloatVertices(), triangleMesh.getOrigin(), triangleMesh.getFloatColors(), triangleMesh.getFloatNormals(), null};
+			} else {
+				arrays = new Object[]{triangleMesh.getVertices(), null, triangleMesh.getColors(), triangleMesh.getNormals(), null};
+			}
+			arrays[4] = triangleMesh.hasShortIndices() ? (Object)triangleMesh.getShortIndices() : (Object)triangleMesh.getIndices();
+
+		} else if(decodedShape.getPolylineSet() != null){
+			PolylineSet polylineSet = decodedShape.getPolylineSet();
+			shapeType = POLYLINE_SET;
+			if(polylineSet.isSinglePrecision()){
+				arrays = new Object[]{polylineSet.getFloatVertices(), polylineSet.getOrigin(), polylineSet.getFloatColors(), polylineSet.getOffsets()};
+			} else {
+				arrays = new Object[]{polylineSet.getVertices(), null, polylineSet.getColors(), polylineSet.getOffsets()};
+			}
+
+		} else {
+			PointSet pointSet = decodedShape.getPointSet();
+			shapeType = POINT_SET;
+			if(pointSet.isSinglePrecision()){
+				arrays = new Object[]{pointSet.getFloatVertices(), pointSet.getOrigin(), pointSet.getColors()};
+			} else {
+				arrays = new Object[]{pointSet.getVertices(), null, pointSet.getColors()};
+			}
+		}
+
+		byte[] key = fileKey.getBytes("UTF-8");
+		int length = 4 + 4 + 4 + key.length + 1 + 4 + 8;
+		for(Object array : arrays){
+			length += 5 + getByteLength(array);
+		}
+
+		ByteBuffer byteBuffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+		byteBuffer.putInt(MAGIC_NUMBER);
+		byteBuffer.putInt(FORMAT_VERSION);
+		byteBuffer.putInt(key.length);
+		byteBuffer.put(key);
+		byteBuffer.put(shapeType);
+		byteBuffer.putInt(arrays.length);
+		for(Object array : arrays){
+			writeArray(byteBuffer, array);
+		}
+
+		CRC32 crc32 = new CRC32();
+		crc32.update(byteBuffer.array(), 0, byteBuffer.position());
+		byteBuffer.putLong(crc32.getValue());
+		return byteBuffer.array();
+	}
+
+	/**
+	 * Reads a decoded shape from a cache file.
+	 * @param  file      Cache file
+	 * @param  fileKey   Key of the file, including the geometry settings
+	 * @return           Decoded shape or<br>
+	 *                   <b>null</b>, if the file is outdated or corrupt
+	 * @throws Exception Thrown if the file can't be read
+	 */
+	private static DecodedShape readShape(File file, String fileKey) throws Exception {
+		byte[] bytes;
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+		try {
+			long length = randomAccessFile.length();
+			if((length < 33) || (length > Integer.MAX_VALUE)){
+				return null;
+			}
+			bytes = new byte[(int)length];
+			randomAccessFile.readFully(bytes);
+		} finally {
+			randomAccessFile.close();
+		}
+
+		ByteBuffer byteBuffer = ByteBuffer.wrap(bytes);
+		byteBuffer.order(ByteOrder.LITTLE_ENDIAN);
+		if((byteBuffer.getInt() != MAGIC_NUMBER) || (byteBuffer.getInt() != FORMAT_VERSION)){
+			return null;
+		}
+
+		// Verify the checksum before interpreting any lengths
+		CRC32 crc32 = new CRC32();
+		crc32.update(bytes, 0, bytes.length - 8);
+		if(byteBuffer.getLong(bytes.length - 8) != crc32.getValue()){
+			return null;
+		}
+
+		byte[] key = new byte[byteBuffer.getInt()];
+		byteBuffer.get(key);
+		if(!fileKey.equals(new String(key, "UTF-8"))){
+			return null;
+		}
+
+		byte shapeType = byteBuffer.get();
+		Object[] arrays = new Object[byteBuffer.getInt()];
+		for(int i = 0; i < arrays.length; i++){
+			arrays[i] = readArray(byteBuffer);
+		}
+
+		switch(shapeType){
+			case TRIANGLE_MESH:
+				TriangleMesh triangleMesh;
+				int[] indices = (arrays[4] instanceof int[]) ? (int[])arrays[4] : null;
+				if(arrays[0] instanceof float[]){
+					triangleMesh = new TriangleMesh((float[])arrays[0], (double[])arrays[1], indices, (float[])arrays[2], (float[])arrays[3]);
+				} else {
+					triangleMesh = new TriangleMesh((double[])arrays[0], indices, (double[])arrays[2], (double[])arrays[3]);
+				}
+				if(arrays[4] instanceof short[]){
+					triangleMesh.setShortIndices((short[])arrays[4]);
+				}
+				return DecodedShape.createFaces(triangleMesh);
+
+			case POLYLINE_SET:
+				if(arrays[0] instanceof float[]){
+					return DecodedShape.createPolylines(new PolylineSet((float[])arrays[0], (double[])arrays[1], (float[])arrays[2], (int[])arrays[3]));
+				}
+				return DecodedShape.createPolylines(new PolylineSet((double[])arrays[0], (double[])arrays[2], (int[])arrays[3]));
+
+			case POINT_SET:
+				if(arrays[0] instanceof float[]){
+					return DecodedShape.createPoints(new PointSet((float[])arrays[0], (double[])arrays[1], (float[])arrays[2]));
+				}
+				return DecodedShape.createPoints(new PointSet((double[])arrays[0], (float[])arrays[2]));
+
+			default:
+				return null;
+		}
+	}
+
+	/**
+	 * Returns the size of the values of an array.
+	 * @param  array Primitive array or null
+	 * @return       Size in bytes
+	 */
+	private static int getByteLength(Object array){
+		if(array instanceof double[]){
+			return ((double[])array).length * 8;
+		} else if(array instanceof float[]){
+			return ((float[])array).length * 4;
+		} else if(array instanceof int[]){
+			return ((int[])array).length * 4;
+		} else if(array instanceof short[]){
+			return ((short[])array).length * 2;
+		}
+		return 0;
+	}
+
+	/**
+	 * Writes an array: type, number of values and the values.
+	 * @param byteBuffer Byte buffer to write to
+	 * @param array      Primitive array or null
+	 */
+	private static void writeArray(ByteBuffer byteBuffer, Object array){
+		int position = byteBuffer.position() + 5;
+		if(array instanceof double[]){
+			double[] values = (double[])array;
+			byteBuffer.put(DOUBLE_ARRAY).putInt(values.length);
+			byteBuffer.asDoubleBuffer().put(values);
+		} else if(array instanceof float[]){
+			float[] values = (float[])array;
+			byteBuffer.put(FLOAT_ARRAY).putInt(values.length);
+			byteBuffer.asFloatBuffer().put(values);
+		} else if(array instanceof int[]){
+			int[] values = (int[])array;
+			byteBuffer.put(INT_ARRAY).putInt(values.length);
+			byteBuffer.asIntBuffer().put(values);
+		} else if(array instanceof short[]){
+			short[] values = (short[])array;
+			byteBuffer.put(SHORT_ARRAY).putInt(values.length);
+			byteBuffer.asShortBuffer().put(values);
+		} else {
+			byteBuffer.put(NO_ARRAY).putInt(0);
+		}
+		byteBuffer.position(position + getByteLength(array));
+	}
+
+	/**
+	 * Reads an array, written by writeArray().
+	 * @param  byteBuffer Byte buffer to read from
+	 * @return            Primitive array or null
+	 */
+	private static Object readArray(ByteBuffer byteBuffer){
+		byte arrayType = byteBuffer.get();
+		int length = byteBuffer.getInt();
+		Object array;
+		switch(arrayType){
+			case DOUBLE_ARRAY:
+				double[] doubleValues = new double[length];
+				byteBuffer.asDoubleBuffer().get(doubleValues);
+				array = doubleValues;
+				break;
+			case FLOAT_ARRAY:
+				float[] floatValues = new float[length];
+				byteBuffer.asFloatBuffer().get(floatValues);
+				array = floatValues;
+				break;
+			case INT_ARRAY:
+				int[] intValues = new int[length];
+				byteBuffer.asIntBuffer().get(intValues);
+				array = intValues;
+				break;
+			case SHORT_ARRAY:
+				short[] shortValues = new short[length];
+				byteBuffer.asShortBuffer().get(shortValues);
+				array = shortValues;
+				break;
+			default:
+				return null;
+		}
+		byteBuffer.position(byteBuffer.position() + getByteLength(array));
+		return array;
+	}
+
+	/**
+	 * Returns the maximal size of all cache files.
+	 * @return Size in bytes
+	 */
+	public long getMaxByteSize(){
+		return _maxByteSize;
+	}
+
+	/**
+	 * Returns the size of all cache files.
+	 * @return Size in bytes
+	 */
+	public synchronized long getByteSize(){
+		return _byteSize;
+	}
+
+	/**
+	 * Returns the number of cache hits.
+	 * @return Number of hits
+	 */
+	public synchronized long getHitCount(){
+		return _hitCount;
+	}
+
+	/**
+	 * Returns the number of cache misses.
+	 * @return Number of misses (including the invalid files)
+	 */
+	public synchronized long getMissCount(){
+		return _missCount;
+	}
+
+	/**
+	 * Returns the number of files, deleted as outdated or corrupt.
+	 * @return Number of invalid files
+	 */
+	public synchronized long getCorruptCount(){
+		return _corruptCount;
+	}
+}
@@ -0,0 +1,205 @@
+//################################################################################
+//	The MIT License
+//
+//	Copyright (c) 2014 Johannes Raida
+//
+//	Permission is hereby granted, free of charge, to any person obtaining a copy
+//	of this software and associated documentation files (the "Software"), to deal
+//	in the Software without restriction, including without limitation the rights
+//	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+//	copies of the Software, and to permit persons to whom the Software is
+//	furnished to do so, subject to the following conditions:
+//
+//	The above copyright notice and this permission notice shall be included in
+//	all copies or substantial portions of the Software.
+//
+//	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+//	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+//	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+//	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+//	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+//	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+//	THE SOFTWARE.
+//################################################################################
+
+package de.raida.jcadlib.cadimport.jt;
+
+import java.util.HashMap;
+
+import de.raida.jcadlib.cadimport.jt.model.GUID;
+import de.raida.jcadlib.cadimport.jt.model.JTNode;
+import de.raida.jcadlib.cadimport.jt.model.lsg.GeometricTransformAttributeElement;
+import de.raida.jcadlib.cadimport.jt.model.lsg.GroupNodeElement;
+import de.raida.jcadlib.cadimport.jt.model.lsg.InstanceNodeElement;
+import de.raida.jcadlib.cadimport.jt.model.lsg.MaterialAttributeElement;
+import de.raida.jcadlib.cadimport.jt.model.lsg.MetaDataNodeElement;
+import de.raida.jcadlib.cadimport.jt.model.lsg.PartNodeElement;
+import de.raida.jcadlib.cadimport.jt.model.lsg.PartitionNodeElement;
+import de.raida.jcadlib.cadimport.jt.model.lsg.PointSetShapeNodeElement;
+import de.raida.jcadlib.cadimport.jt.model.lsg.PolylineSetShapeNodeElement;
+import de.raida.jcadlib.cadimport.jt.model.lsg.RangeLODNodeElement;
+import de.raida.jcadlib.cadimport.jt.model.lsg.TriStripSetShapeNodeElement;
+import de.raida.jcadlib.cadimport.jt.model.property.DatePropertyAtomElement;
+import de.raida.jcadlib.cadimport.jt.model.property.FloatingPointPropertyAtomElement;
+import de.raida.jcadlib.cadimport.jt.model.property.IntegerPropertyAtomElement;
+import de.raida.jcadlib.cadimport.jt.model.property.LateLoadedPropertyAtomElement;
+import de.raida.jcadlib.cadimport.jt.model.property.StringPropertyAtomElement;
+import de.raida.jcadlib.cadimport.jt.reader.WorkingContext;
+
+/**
+ * Registry of the element readers, used for the graph elements and property atom
+ * elements of the LSG segment. The readers are looked up by the object type ID of
+ * the element, so further element types can be supported by registering a reader.
+ * <br>(c) 2014 by <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @author  <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @version 1.0
+ */
+public class ElementReaderRegistry {
+	/** Mapping: object type ID -> element reader */
+	private HashMap<GUID, ElementReader> _elementReaders;
+
+	/**
+	 * Constructor.
+	 */
+	public ElementReaderRegistry(){
+		_elementReaders = new HashMap<GUID, ElementReader>();
+	}
+
+	/**
+	 * Registers an element reader, replacing a previously registered one.
+	 * @param elementID     Object type ID of the element
+	 * @param elementReader Element reader
+	 */
+	public void register(String elementID, ElementReader elementReader){
+		register(new GUID(elementID), elementReader);
+	}
+
+	/**
+	 * Registers an element reader, replacing a previously registered one.
+	 * @param elementID     Object type ID of the element
+	 * @param elementReader Element reader
+	 */
+	public void register(GUID elementID, ElementReader elementReader){
+		_elementReaders.put(elementID, elementReader);
+	}
+
+	/**
+	 * Returns the element reader for the given object type ID.
+	 * @param  elementID Object type ID of the element
+	 * @return           Element reader or<br>
+	 *                   <b>null</b>, if the element type isn't supported
+	 */
+	public ElementReader get(GUID elementID){
+		return _elementReaders.get(elementID);
+	}
+
+	/**
+	 * Creates a registry with the readers of all supported element types.
+	 * @return Element reader registry
+	 */
+	public static ElementReaderRegistry createDefault(){
+		ElementReaderRegistry elementReaderRegistry = new ElementReaderRegistry();
+
+		// Graph elements
+
+		elementReaderRegistry.register(PartNodeElement.ID, new ElementReader(){
+			public JTNode read(WorkingContext workingContext, int elementLength){
+				return PartNodeElement.read(workingContext);
+			}
+		});
+
+		elementReaderRegistry.register(RangeLODNodeElement.ID, new ElementReader(){
+			public JTNode read(WorkingContext workingContext, int elementLength){
+				return RangeLODNodeElement.read(workingContext);
+			}
+		});
+
+		elementReaderRegistry.register(GroupNodeElement.ID, new ElementReader(){
+			public JTNode read(WorkingContext workingContext, int elementLength){
+				return GroupNodeElement.read(workingContext);
+			}
+		});
+
+		elementReaderRegistry.register(TriStripSetShapeNodeElement.ID, new ElementReader(){
+			public JTNode read(WorkingContext workingContext, int elementLength){
+				return TriStripSetShapeNodeElement.read(workingContext);
+			}
+		});
+
+		elementReaderRegistry.register(MaterialAttributeElement.ID, new ElementReader(){
+			public JTNode read(WorkingContext workingContext, int elementLength){
+				return MaterialAttributeElement.read(workingContext);
+			}
+		});
+
+		elementReaderRegistry.register(MetaDataNodeElement.ID, new ElementReader(){
+			public JTNode read(WorkingContext workingContext, int elementLength){
+				return MetaDataNodeElement.read(workingContext);
+			}
+		});
+
+		elementReaderRegistry.register(InstanceNodeElement.ID, new ElementReader(){
+			public JTNode read(WorkingContext workingContext, int elementLength){
+				return InstanceNodeElement.read(workingContext);
+			}
+		});
+
+		elementReaderRegistry.register(GeometricTransformAttributeElement.ID, new ElementReader(){
+			public JTNode read(WorkingContext workingContext, int elementLength){
+				return GeometricTransformAttributeElement.read(workingContext, elementLength);
+			}
+		});
+
+		elementReaderRegistry.register(PartitionNodeElement.ID, new ElementReader(){
+			public JTNode read(WorkingContext workingContext, int elementLength){
+				return PartitionNodeElement.read(workingContext);
+			}
+		});
+
+		elementReaderRegistry.register(PolylineSetShapeNodeElement.ID, new ElementReader(){
+			public JTNode read(WorkingContext workingContext, int elementLength){
+				return PolylineSetShapeNodeElement.read(workingContext);
+			}
+		});
+
+		elementReaderRegistry.register(PointSetShapeNodeElement.ID, new ElementReader(){
+			public JTNode read(WorkingContext workingContext, int elementLength){
+				return PointSetShapeNodeElement.read(workingContext);
+			}
+		});
+
+		// Property atom elements
+
+		elementReaderRegistry.register(StringPropertyAtomElement.ID, new ElementReader(){
+			public JTNode read(WorkingContext workingContext, int elementLength){
+				return StringPropertyAtomElement.read(workingContext);
+			}
+		});
+
+		elementReaderRegistry.register(FloatingPointPropertyAtomElement.ID, new ElementReader(){
+			public JTNode read(WorkingContext workingContext, int elementLength){
+				return FloatingPointPropertyAtomElement.read(workingContext);
+			}
+		});
+
+		elementReaderRegistry.register(LateLoadedPropertyAtomElement.ID, new ElementReader(){
+			public JTNode read(WorkingContext workingContext, int elementLength){
+				return LateLoadedPropertyAtomElement.read(workingContext);
+			}
+		});
+
+		elementReaderRegistry.register(DatePropertyAtomElement.ID, new ElementReader(){
+			public JTNode read(WorkingContext workingContext, int elementLength){
+				return DatePropertyAtomElement.read(workingContext);
+			}
+		});
+
+		elementReaderRegistry.register(IntegerPropertyAtomElement.ID, new ElementReader(){
+			public JTNode read(WorkingContext workingContext, int elementLength){
+				return IntegerPropertyAtomElement.read(workingContext);
+			}
+		});
+
+		return elementReaderRegistry;
+	}
+}
@@ -0,0 +1,161 @@
+//################################################################################
+//	The MIT License
+//
+//	Copyright (c) 2014 Johannes Raida
+//
+//	Permission is hereby granted, free of charge, to any person obtaining a copy
+//	of this software and associated documentation files (the "Software"), to deal
+//	in the Software without restriction, including without limitation the rights
+//	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+//	copies of the Software, and to permit persons to whom the Software is
+//	furnished to do so, subject to the following conditions:
+//
+//	The above copyright notice and this permission notice shall be included in
+//	all copies or substantial portions of the Software.
+//
+//	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+//	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+//	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+//	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+//	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+//	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+//	THE SOFTWARE.
+//################################################################################
+
+package de.raida.jcadlib.cadimport.jt;
+
+import java.net.URL;
+import java.util.concurrent.Callable;
+
+import de.raida.jcadlib.cadimport.jt.LoadStatistics.Phase;
+import de.raida.jcadlib.cadimport.jt.ReferencedFileCache.ReferencedFile;
+
+/**
+ * Passes the geometry of an external referenced JT file, placed by the transformation of
+ * the referencing partition node, on to a geometry visitor. Files, which are referenced once
+ * and aren't kept in a part cache, are streamed into the visitor when visited, so their
+ * geometry is never held in memory as a whole. Other files are taken from the
+ * ReferencedFileCache and loaded, if this is their first reference; they may be loaded ahead
+ * on a worker thread, otherwise they are loaded when visited.
+ * <br>(c) 2014 by <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @author  <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @version 1.0
+ */
+class ExternalReferenceJob implements Callable<DecodedShape> {
+	/** JT importer of the referencing file */
+	private JTImporter _jtImporter;
+
+	/** URL of the referenced file */
+	private URL _externalReference;
+
+	/** Key of the referenced file in the cache */
+	private String _key;
+
+	/** Transformation of the partition node (4x4 matrix, row by row) */
+	private double[] _transformation;
+
+	/** Cache of the referenced files */
+	private ReferencedFileCache _referencedFileCache;
+
+	/** Referenced file, if it has been loaded ahead */
+	private ReferencedFile _referencedFile;
+
+	/**
+	 * Constructor. Registers the reference at the cache.
+	 * @param jtImporter          JT importer of the referencing file
+	 * @param externalReference   URL of the referenced file
+	 * @param transformation      Transformation of the partition node (4x4 matrix, row by row)
+	 * @param referencedFileCache Cache of the referenced files
+	 */
+	public ExternalReferenceJob(JTImporter jtImporter, URL externalReference, double[] transformation, ReferencedFileCache referencedFileCache){
+		_jtImporter = jtImporter;
+		_externalReference = externalReference;
+		_key = ReferencedFileCache.getKey(externalReference);
+		_transformation = transformation;
+		_referencedFileCache = referencedFileCache;
+		_referencedFileCache.retain(_key);
+	}
+
+	/**
+	 * Loads the referenced file ahead (or takes it from the cache), unless it's streamed.
+	 * @return           <b>null</b>, as the geometry is passed on by visit()
+	 * @throws Exception Thrown if loading failed
+	 */
+	public DecodedShape call() throws Exception {
+		if(!isStreamed()){
+			_referencedFile = getReferencedFile();
+		}
+		return null;
+	}
+
+	/**
+	 * Passes the geometry of the referenced file on to the given visitor, loading the file
+	 * now, if it hasn't been loaded ahead. Releases the reference at the cache.
+	 * @param  geometryVisitor Visitor, receiving the geometry
+	 * @throws Exception       Thrown if loading failed
+	 */
+	public void visit(GeometryVisitor geometryVisitor) throws Exception {
+		try {
+			if((_referencedFile == null) && isStreamed()){
+				_jtImporter.streamExternalReference(_externalReference, new TransformingVisitor(_transformation, geometryVisitor));
+				return;
+			}
+
+			if(_referencedFile == null){
+				_referencedFile = getReferencedFile();
+			}
+
+			int statisticsFrame = LoadStatistics.startPhase();
+			_referencedFile.getGeometryRecorder().replay(new TransformingVisitor(_transformation, geometryVisitor));
+			LoadStatistics.stopPhase(statisticsFrame, Phase.MODEL_ASSEMBLY, 0, 0, 0);
+			_jtImporter.addUnsupportedEntities(_referencedFile.getUnsupportedEntities());
+
+		} finally {
+			_referencedFile = null;
+			_referencedFileCache.release(_key);
+		}
+	}
+
+	/**
+	 * Checks, whether the referenced file is streamed into the visitor: its geometry is used
+	 * only by this reference and isn't kept in a part cache.
+	 * @return Is the file streamed?
+	 */
+	private boolean isStreamed(){
+		return (_jtImporter.getPartCache() == null) && _referencedFileCache.isReferencedOnce(_key);
+	}
+
+	/**
+	 * Returns the referenced file from the cache, loading it if necessary.
+	 * @return           Referenced file
+	 * @throws Exception Thrown if loading failed
+	 */
+	private ReferencedFile getReferencedFile() throws Exception {
+		return _referencedFileCache.get(_key, new Callable<ReferencedFile>(){
+			public ReferencedFile call(){
+				return loadReferencedFile();
+			}
+		}, _jtImporter.getReferenceDepth() == 0);
+	}
+
+	/**
+	 * Takes the referenced file from the part cache of the importer or loads it.
+	 * @return Referenced file
+	 */
+	private ReferencedFile loadReferencedFile(){
+		PartCache partCache = _jtImporter.getPartCache();
+		if(partCache == null){
+			return _jtImporter.loadExternalReference(_externalReference);
+		}
+
+		String fileKey = _jtImporter.getPartCacheKey(_externalReference);
+		ReferencedFile referencedFile = partCache.getReferencedFile(fileKey);
+		if(referencedFile == null){
+			referencedFile = _jtImporter.loadExternalReference(_externalReference);
+			if(referencedFile.isLoaded()){
+				partCache.putReferencedFile(fileKey, referencedFile);
+			}
+		}
+		return referencedFile;
+	}
+}
@@ -0,0 +1,186 @@
+//################################################################################
+//	The MIT License
+//
+//	Copyright (c) 2014 Johannes Raida
+//
+//	Permission is hereby granted, free of charge, to any person obtaining a copy
+//	of this software and associated documentation files (the "Software"), to deal
+//	in the Software without restriction, including without limitation the rights
+//	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+//	copies of the Software, and to permit persons to whom the Software is
+//	furnished to do so, subject to the following conditions:
+//
+//	The above copyright notice and this permission notice shall be included in
+//	all copies or substantial portions of the Software.
+//
+//	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+//	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+//	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+//	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+//	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+//	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+//	THE SOFTWARE.
+//################################################################################
+
+package de.raida.jcadlib.cadimport.jt;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Geometry visitor, recording the geometry of a referenced file, which is loaded ahead
+ * of the LSG walk, to pass it on in the order of the walk later on, once per reference.
+ * The geometry isn't copied, as the importer doesn't reuse the geometry of released shapes.
+ * <br>(c) 2014 by <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @author  <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @version 1.0
+ */
+class GeometryRecorder implements GeometryVisitor {
+	/** Estimated memory of a recorded instance in bytes (entry, transformation and color) */
+	private final static long RECORDED_INSTANCE_BYTE_SIZE = 32 + (16 + (16 * 8)) + (16 + (3 * 4));
+
+	/** Geometry of a recorded event of entering a node */
+	private final static Object ENTER_NODE = new Object();
+
+	/** Geometry of a recorded event of leaving a node */
+	private final static Object LEAVE_NODE = new Object();
+
+	/** Recorded shape instances and node events, in the order of the callbacks */
+	private List<RecordedInstance> _recordedInstances;
+
+	/**
+	 * Constructor.
+	 */
+	public GeometryRecorder(){
+		_recordedInstances = new ArrayList<RecordedInstance>();
+	}
+
+	/**
+	 * Records a triangle shape instance.
+	 * @param triangleMesh   Triangle mesh in local coordinates
+	 * @param transformation World transformation (4x4 matrix, row by row)
+	 * @param color          Color of the instance (r, g, b)
+	 * @param layerName      Layer name
+	 */
+	public void onMesh(TriangleMesh triangleMesh, double[] transformation, float[] color, String layerName){
+		_recordedInstances.add(new RecordedInstance(triangleMesh, transformation, color, layerName));
+	}
+
+	/**
+	 * Records a polyline shape instance.
+	 * @param polylineSet    Polylines in local coordinates
+	 * @param transformation World transformation (4x4 matrix, row by row)
+	 * @param color          Color of the instance (r, g, b)
+	 * @param layerName      Layer name
+	 */
+	public void onPolyline(PolylineSet polylineSet, double[] transformation, float[] color, String layerName){
+		_recordedInstances.add(new RecordedInstance(polylineSet, transformation, color, layerName));
+	}
+
+	/**
+	 * Records a point shape instance.
+	 * @param pointSet       Points in local coordinates
+	 * @param transformation World transformation (4x4 matrix, row by row)
+	 * @param color          Color of the instance (r, g, b)
+	 * @param layerName      Layer name
+	 */
+	public void onPoints(PointSet pointSet, double[] transformation, float[] color, String layerName){
+		_recordedInstances.add(new RecordedInstance(pointSet, transformation, color, layerName));
+	}
+
+	/**
+	 * Records the entering of a node.
+	 * @param nodeName       Name of the node or null
+	 * @param transformation Transformation of the node, relative to its parent node (4x4 matrix, row by row) or null
+	 */
+	public void onEnterNode(String nodeName, double[] transformation){
+		_recordedInstances.add(new RecordedInstance(ENTER_NODE, transformation, null, nodeName));
+	}
+
+	/**
+	 * Records the leaving of a node.
+	 */
+	public void onLeaveNode(){
+		_recordedInstances.add(new RecordedInstance(LEAVE_NODE, null, null, null));
+	}
+
+	/**
+	 * Passes the recorded shape instances and node events on to the given visitor. The recording can be
+	 * replayed any number of times, e.g. for every reference of a file.
+	 * @param geometryVisitor Visitor, receiving the geometry
+	 */
+	public void replay(GeometryVisitor geometryVisitor){
+		for(RecordedInstance recordedInstance : _recordedInstances){
+			Object geometry = recordedInstance._geometry;
+			if(geometry instanceof TriangleMesh){
+				geometryVisitor.onMesh((TriangleMesh)geometry, recordedInstance._transformation, recordedInstance._color, recordedInstance._layerName);
+			} else if(geometry instanceof PolylineSet){
+				geometryVisitor.onPolyline((PolylineSet)geometry, recordedInstance._transformation, recordedInstance._color, recordedInstance._layerName);
+			} else if(geometry == ENTER_NODE){
+				geometryVisitor.onEnterNode(recordedInstance._layerName, recordedInstance._transformation);
+			} else if(geometry == LEAVE_NODE){
+				geometryVisitor.onLeaveNode();
+			} else {
+				geometryVisitor.onPoints((PointSet)geometry, recordedInstance._transformation, recordedInstance._color, recordedInstance._layerName);
+			}
+		}
+	}
+
+	/**
+	 * Estimates the memory held by the recorded geometry. Geometry, which is shared by
+	 * several instances, is counted once.
+	 * @return Size in bytes
+	 */
+	long getByteSize(){
+		long byteSize = 0;
+		Set<Object> countedGeometry = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+		for(RecordedInstance recordedInstance : _recordedInstances){
+			byteSize += RECORDED_INSTANCE_BYTE_SIZE;
+			Object geometry = recordedInstance._geometry;
+			if(countedGeometry.add(geometry)){
+				if(geometry instanceof TriangleMesh){
+					byteSize += ((TriangleMesh)geometry).getByteSize();
+				} else if(geometry instanceof PolylineSet){
+					byteSize += ((PolylineSet)geometry).getByteSize();
+				} else if(geometry instanceof PointSet){
+					byteSize += ((PointSet)geometry).getByteSize();
+				}
+			}
+		}
+		return byteSize;
+	}
+
+	/**
+	 * Recorded shape instance.
+	 */
+	private static class RecordedInstance {
+		/** Geometry in local coordinates (TriangleMesh, PolylineSet or PointSet) or the node event */
+		private Object _geometry;
+
+		/** World transformation (4x4 matrix, row by row) */
+		private double[] _transformation;
+
+		/** Color of the instance (r, g, b) */
+		private float[] _color;
+
+		/** Layer name (name of the node for entered nodes) */
+		private String _layerName;
+
+		/**
+		 * Constructor.
+		 * @param geometry       Geometry in local coordinates
+		 * @param transformation World transformation (4x4 matrix, row by row)
+		 * @param color          Color of the instance (r, g, b)
+		 * @param layerName      Layer name
+		 */
+		private RecordedInstance(Object geometry, double[] transformation, float[] color, String layerName){
+			_geometry = geometry;
+			_transformation = transformation;
+			_color = color;
+			_layerName = layerName;
+		}
+	}
+}
@@ -0,0 +1,82 @@
+//################################################################################
+//	The MIT License
+//
+//	Copyright (c) 2014 Johannes Raida
+//
+//	Permission is hereby granted, free of charge, to any person obtaining a copy
+//	of this software and associated documentation files (the "Software"), to deal
+//	in the Software without restriction, including without limitation the rights
+//	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+//	copies of the Software, and to permit persons to whom the Software is
+//	furnished to do so, subject to the following conditions:
+//
+//	The above copyright notice and this permission notice shall be included in
+//	all copies or substantial portions of the Software.
+//
+//	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+//	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+//	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+//	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+//	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+//	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+//	THE SOFTWARE.
+//################################################################################
+
+package de.raida.jcadlib.cadimport.jt;
+
+/**
+ * Receives the geometry of a JT file shape by shape, in the order of the LSG walk.
+ * All callbacks are invoked on the thread calling the importer.
+ * <br>The shapes are enclosed by the calls of entering and leaving their LSG nodes, so the
+ * visitor can rebuild the node hierarchy; visitors, which only need the geometry, ignore them.
+ * <br>The geometry is passed in the local coordinate system of the shape together with
+ * its world transformation. It may be shared by several instances and is released by the
+ * importer after the callback returns, so it must neither be modified nor referenced
+ * afterwards; copy what needs to be kept.
+ * <br>(c) 2014 by <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @author  <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @version 1.0
+ */
+public interface GeometryVisitor {
+	/**
+	 * Called for each triangle shape instance.
+	 * @param triangleMesh   Triangle mesh in local coordinates; its colors are null, if the instance color applies
+	 * @param transformation World transformation (4x4 matrix, row by row)
+	 * @param color          Color of the instance (r, g, b)
+	 * @param layerName      Layer name
+	 */
+	public void onMesh(TriangleMesh triangleMesh, double[] transformation, float[] color, String layerName);
+
+	/**
+	 * Called for each polyline shape instance.
+	 * @param polylineSet    Polylines in local coordinates; their colors are null, if the instance color applies
+	 * @param transformation World transformation (4x4 matrix, row by row)
+	 * @param color          Color of the instance (r, g, b)
+	 * @param layerName      Layer name
+	 */
+	public void onPolyline(PolylineSet polylineSet, double[] transformation, float[] color, String layerName);
+
+	/**
+	 * Called for each point shape instance.
+	 * @param pointSet       Points in local coordinates; their colors are null, if the instance color applies
+	 * @param transformation World transformation (4x4 matrix, row by row)
+	 * @param color          Color of the instance (r, g, b)
+	 * @param layerName      Layer name
+	 */
+	public void onPoints(PointSet pointSet, double[] transformation, float[] color, String layerName);
+
+	/**
+	 * Called when the LSG walk enters a (non shape) node. The shapes and nodes up to the matching
+	 * call of onLeaveNode() are below this node; the nodes of external referenced files are
+	 * entered below the referencing partition node.
+	 * @param nodeName       Name of the node or null
+	 * @param transformation Transformation of the node, relative to its parent node (4x4 matrix, row by row) or<br>
+	 *                       <b>null</b>, if the node isn't transformed
+	 */
+	public void onEnterNode(String nodeName, double[] transformation);
+
+	/**
+	 * Called when the LSG walk leaves the node, entered last.
+	 */
+	public void onLeaveNode();
+}
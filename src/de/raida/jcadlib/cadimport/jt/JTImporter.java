@@ -35,20 +35,29 @@ import java.net.URLConnection;
 import java.net.UnknownHostException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
 import java.util.regex.Pattern;
 
 import javax.vecmath.Matrix4d;
-import javax.vecmath.Point3d;
-import javax.vecmath.Vector3d;
 
+import de.raida.jcadlib.cadimport.jt.Diagnostics.Severity;
+import de.raida.jcadlib.cadimport.jt.LoadStatistics.Phase;
 import de.raida.jcadlib.cadimport.jt.model.ElementHeader;
 import de.raida.jcadlib.cadimport.jt.model.GUID;
+import de.raida.jcadlib.cadimport.jt.model.IntIntMap;
+import de.raida.jcadlib.cadimport.jt.model.IntObjectMap;
 import de.raida.jcadlib.cadimport.jt.model.JTNode;
 import de.raida.jcadlib.cadimport.jt.model.LSGNode;
 import de.raida.jcadlib.cadimport.jt.model.PointSetShapeLODElement;
@@ -62,7 +71,6 @@ import de.raida.jcadlib.cadimport.jt.model.VertexBasedShapeCompressedRepData;
 import de.raida.jcadlib.cadimport.jt.model.VertexShapeLODData;
 import de.raida.jcadlib.cadimport.jt.model.VertexShapeLODElement;
 import de.raida.jcadlib.cadimport.jt.model.lsg.GeometricTransformAttributeElement;
-import de.raida.jcadlib.cadimport.jt.model.lsg.GroupNodeElement;
 import de.raida.jcadlib.cadimport.jt.model.lsg.InstanceNodeElement;
 import de.raida.jcadlib.cadimport.jt.model.lsg.MaterialAttributeElement;
 import de.raida.jcadlib.cadimport.jt.model.lsg.MetaDataNodeElement;
@@ -72,17 +80,13 @@ import de.raida.jcadlib.cadimport.jt.model.lsg.PointSetShapeNodeElement;
 import de.raida.jcadlib.cadimport.jt.model.lsg.PolylineSetShapeNodeElement;
 import de.raida.jcadlib.cadimport.jt.model.lsg.RangeLODNodeElement;
 import de.raida.jcadlib.cadimport.jt.model.lsg.TriStripSetShapeNodeElement;
-import de.raida.jcadlib.cadimport.jt.model.property.DatePropertyAtomElement;
-import de.raida.jcadlib.cadimport.jt.model.property.FloatingPointPropertyAtomElement;
-import de.raida.jcadlib.cadimport.jt.model.property.IntegerPropertyAtomElement;
 import de.raida.jcadlib.cadimport.jt.model.property.LateLoadedPropertyAtomElement;
 import de.raida.jcadlib.cadimport.jt.model.property.NodePropertyTable;
+import de.raida.jcadlib.cadimport.jt.model.property.PropertyKey;
 import de.raida.jcadlib.cadimport.jt.model.property.PropertyTable;
-import de.raida.jcadlib.cadimport.jt.model.property.StringPropertyAtomElement;
 import de.raida.jcadlib.cadimport.jt.reader.Helper;
 import de.raida.jcadlib.cadimport.jt.reader.UnsupportedCodecException;
 import de.raida.jcadlib.cadimport.jt.reader.WorkingContext;
-import de.raida.progress.ProgressEvent;
 import de.raida.progress.ProgressListenerInterface;
 
 
@@ -108,60 +112,110 @@ public class JTImporter {
 	/** Layer name */
 	public final static String DEFAULT_LAYER = "0";
 
-	/** List of load informations */
-	private static ArrayList<String[]> _loadInformation;
+	/** Number of shapes per thread, which are decoded ahead of the geometry visitor */
+	private final static int DECODE_JOBS_AHEAD_PER_THREAD = 4;
 
-	/** List of unsupported entities */
-	private ArrayList<String> _unsupportedEntities;
+	/** Maximal nesting depth of external referenced files */
+	private final static int MAX_REFERENCE_DEPTH = 16;
+
+	/** Minimal time between two progress notifications in milliseconds */
+	private final static int PROGRESS_NOTIFICATION_INTERVAL = 100;
+
+	/** Maximal number of distinct stored load information messages per severity */
+	private final static int MAX_LOAD_INFORMATION_COUNT = 1000;
+
+	/** Object type ID of the TriStripSetShapeLODElement */
+	private final static GUID TRI_STRIP_SET_SHAPE_LOD_ELEMENT_ID = new GUID(TriStripSetShapeLODElement.ID);
+
+	/** Object type ID of the PolylineSetShapeLODElement */
+	private final static GUID POLYLINE_SET_SHAPE_LOD_ELEMENT_ID = new GUID(PolylineSetShapeLODElement.ID);
+
+	/** Object type ID of the PointSetShapeLODElement */
+	private final static GUID POINT_SET_SHAPE_LOD_ELEMENT_ID = new GUID(PointSetShapeLODElement.ID);
+
+	/** Object type ID of the PartitionNodeElement */
+	private final static GUID PARTITION_NODE_ELEMENT_ID = new GUID(PartitionNodeElement.ID);
+
+	/** Load information messages (shared with the importers of the referenced files) */
+	private Diagnostics _diagnostics;
+
+	/** Unsupported entities */
+	private LinkedHashSet<String> _unsupportedEntities;
 
 	/** JT model */
 	private JTModel _jtModel;
 
-	/** List of progress listener */
-	private static ArrayList<ProgressListenerInterface> _progressListener;
+	/** Progress of the current import */
+	private ProgressTracker _progressTracker;
 
 	/** Root node of the LSG */
 	private LSGNode _rootNode;
 
 	/** JT nodes, indices by their object ID's */
-	private HashMap<Integer, JTNode> _jtNodes;
+	private IntObjectMap<JTNode> _jtNodes;
 
 	/** List of all XSetShapeLODElements bytebuffer positions */
-	private HashMap<String, Integer> _xSetShapeLODElements;
+	private HashMap<GUID, Integer> _xSetShapeLODElements;
 
 	/** Property table */
 	private PropertyTable _propertyTable;
 
-	/** Base URL name */
-	private static URL _baseURLName;
+	/** URL of the top level file, against which external references are resolved */
+	private URL _baseURLName;
 
-	/** Current URL name */
-	private static URL _currentURLName;
+	/** Mapping of unsupported GUID's: GUID -> Name */
+	private HashMap<String, String> _guidMapping;
 
-	/** Length of file in bytes */
-	private static HashMap<URL, Integer> _fileLength;
+	/** Decoded shapes of the current import, indexed by their segment ID's */
+	private DecodedShapeCache _decodedShapeCache;
 
-	/** Number of read bytes */
-	private static HashMap<URL, Integer> _readBytes;
+	/** Number of threads used for decoding the shapes */
+	private int _parallelism;
 
-	/** Number of read bytes for progress intervall */
-	private static HashMap<URL, Integer> _progressIntervall;
+	/** Store the geometry in single precision? */
+	private boolean _singlePrecision;
 
-	/** Mapping of unsupported GUID's: GUID -> Name */
-	private HashMap<String, String> _guidMapping;
+	/** Share the vertices of JT v9 triangles through an index buffer? */
+	private boolean _indexedTriangles;
+
+	/** Store each triangle mesh once and reference it by mesh instances? */
+	private boolean _instancedMeshes;
+
+	/** Readers of the graph elements and property atom elements */
+	private ElementReaderRegistry _elementReaderRegistry;
+
+	/** Nesting depth of the loaded file (0 for the file, loaded by the user) */
+	private int _referenceDepth;
+
+	/** External referenced files of the current import, shared with the importers of referenced files */
+	private ReferencedFileCache _referencedFileCache;
+
+	/** Cache of decoded part geometry, shared across imports (null, if disabled) */
+	private PartCache _partCache;
+
+	/** Key of the loaded file in the part cache (null, if the shapes aren't cached) */
+	private String _partCacheFileKey;
+
+	/** Persistent cache of decoded shapes (null, if disabled) */
+	private DiskShapeCache _diskShapeCache;
+
+	/** Key of the loaded file in the persistent cache (null, if the shapes aren't cached) */
+	private String _diskCacheFileKey;
+
+	/** Timings and counters of the import phases (null, if disabled) */
+	private LoadStatistics _loadStatistics;
 
 	/**
 	 * Constructor.
 	 */
 	public JTImporter(){
-		_progressIntervall = new HashMap<URL, Integer>();
-		_readBytes = new HashMap<URL, Integer>();
-		_fileLength = new HashMap<URL, Integer>();
-
-		_loadInformation = new ArrayList<String[]>();
-		_unsupportedEntities = new ArrayList<String>();
-		_jtNodes = new HashMap<Integer, JTNode>();
-		_xSetShapeLODElements = new HashMap<String, Integer>();
+		_progressTracker = new ProgressTracker(PROGRESS_NOTIFICATION_INTERVAL);
+		_diagnostics = new Diagnostics(MAX_LOAD_INFORMATION_COUNT);
+		_unsupportedEntities = new LinkedHashSet<String>();
+		_jtNodes = new IntObjectMap<JTNode>();
+		_xSetShapeLODElements = new HashMap<GUID, Integer>();
+		_parallelism = Runtime.getRuntime().availableProcessors();
+		_elementReaderRegistry = ElementReaderRegistry.createDefault();
 		_guidMapping = new HashMap<String, String>();
 		_guidMapping.put("873a70c0-2ac8-11d1-9b-6b-0-80-c7-bb-59-97", "JT B-Rep Element");
 		_guidMapping.put("ce357249-38fb-11d1-a5-6-0-60-97-bd-c6-e1",  "PMI Manager Meta Data");
@@ -174,6 +228,131 @@ public class JTImporter {
 		_guidMapping.put("873a70d0-2ac8-11d1-9b-6b-0-80-c7-bb-59-97", "Wireframe Rep Element");
 	}
 
+	/**
+	 * Constructor for the importer of an external referenced file. The importer uses the
+	 * settings of the referencing importer and shares its load information. If it runs on a
+	 * worker thread, the file is loaded single threaded, as the references are already
+	 * loaded in parallel. Its progress is reported as part of a reference to the tracker of
+	 * the referencing importer.
+	 * @param referencingJTImporter Importer of the referencing file
+	 */
+	private JTImporter(JTImporter referencingJTImporter){
+		_progressTracker = new ProgressTracker(PROGRESS_NOTIFICATION_INTERVAL, referencingJTImporter._progressTracker);
+		_diagnostics = referencingJTImporter._diagnostics;
+		_unsupportedEntities = new LinkedHashSet<String>();
+		_jtNodes = new IntObjectMap<JTNode>();
+		_xSetShapeLODElements = new HashMap<GUID, Integer>();
+		_guidMapping = referencingJTImporter._guidMapping;
+		_baseURLName = referencingJTImporter._baseURLName;
+		_parallelism = (Thread.currentThread() instanceof ForkJoinWorkerThread) ? 1 : referencingJTImporter._parallelism;
+		_singlePrecision = referencingJTImporter._singlePrecision;
+		_indexedTriangles = referencingJTImporter._indexedTriangles;
+		_instancedMeshes = referencingJTImporter._instancedMeshes;
+		_elementReaderRegistry = referencingJTImporter._elementReaderRegistry;
+		_referenceDepth = referencingJTImporter._referenceDepth + 1;
+		_referencedFileCache = referencingJTImporter._referencedFileCache;
+		_partCache = referencingJTImporter._partCache;
+		_diskShapeCache = referencingJTImporter._diskShapeCache;
+		_loadStatistics = referencingJTImporter._loadStatistics;
+	}
+
+	/**
+	 * Sets the number of threads used for decoding the shapes and loading the external
+	 * referenced files. A value of 1 decodes all shapes and loads all referenced files
+	 * sequentially on the calling thread.
+	 * @param parallelism Number of decoding threads
+	 */
+	public void setParallelism(int parallelism){
+		if(parallelism < 1){
+			throw new IllegalArgumentException("Found invalid parallelism: " + parallelism);
+		}
+		_parallelism = parallelism;
+	}
+
+	/**
+	 * Sets whether the vertices, normals and colors are stored in single precision. The
+	 * transformations are still applied in double precision; single precision vertices
+	 * are stored relative to the center of their shape.
+	 * @param singlePrecision Store the geometry in single precision?
+	 */
+	public void setSinglePrecision(boolean singlePrecision){
+		_singlePrecision = singlePrecision;
+	}
+
+	/**
+	 * Sets whether the triangles of JT v9 files are returned with shared vertices. Each
+	 * unique combination of vertex and normal is stored once and referenced by the
+	 * indices, which are stored as 16 bit values for meshes with up to 65536 vertices.
+	 * Otherwise each triangle gets three vertices of its own.
+	 * @param indexedTriangles Share the vertices through an index buffer?
+	 */
+	public void setIndexedTriangles(boolean indexedTriangles){
+		_indexedTriangles = indexedTriangles;
+	}
+
+	/**
+	 * Sets whether each triangle mesh is stored only once in local coordinates and placed
+	 * by mesh instances (mesh ID, transformation, color, layer), instead of transforming a
+	 * copy of the mesh for every instance. The instances are available by
+	 * getModel().getMeshInstances() and are not contained in getFaces().
+	 * @param instancedMeshes Store each mesh once and reference it by instances?
+	 */
+	public void setInstancedMeshes(boolean instancedMeshes){
+		_instancedMeshes = instancedMeshes;
+	}
+
+	/**
+	 * Sets a cache of decoded part geometry, which may be shared by several importers.
+	 * The decoded shapes of the loaded file and the geometry of referenced files are
+	 * taken from the cache, if the same file has been loaded before with the same
+	 * geometry settings.
+	 * @param partCache Part cache or<br>
+	 *                  <b>null</b> to decode all geometry
+	 */
+	public void setPartCache(PartCache partCache){
+		_partCache = partCache;
+	}
+
+	/**
+	 * Sets a persistent cache of decoded shapes. The shapes of local files are stored in
+	 * the cache directory and read from there, as long as the file is unchanged.
+	 * @param diskShapeCache Persistent cache or<br>
+	 *                       <b>null</b> to decode all geometry
+	 */
+	public void setDiskShapeCache(DiskShapeCache diskShapeCache){
+		_diskShapeCache = diskShapeCache;
+	}
+
+	/**
+	 * Sets the statistics, collecting the timings and counters of the import phases. The
+	 * values of the following imports (including their referenced files) are added up,
+	 * until the statistics are reset.
+	 * @param loadStatistics Statistics or<br>
+	 *                       <b>null</b> to disable the measuring
+	 */
+	public void setLoadStatistics(LoadStatistics loadStatistics){
+		_loadStatistics = loadStatistics;
+	}
+
+	/**
+	 * Returns the statistics, collecting the timings and counters of the import phases.
+	 * @return Statistics or<br>
+	 *         <b>null</b>, if disabled
+	 */
+	public LoadStatistics getLoadStatistics(){
+		return _loadStatistics;
+	}
+
+	/**
+	 * Registers a reader for a graph element or property atom element type, replacing
+	 * the built-in reader, if the type is already supported.
+	 * @param elementID     Object type ID of the element
+	 * @param elementReader Element reader
+	 */
+	public void registerElementReader(String elementID, ElementReader elementReader){
+		_elementReaderRegistry.register(elementID, elementReader);
+	}
+
 	/**
 	 * Imports the given file and creates the model.
 	 * @param  fileName  Name of the file to load
@@ -193,41 +372,73 @@ public class JTImporter {
 	 * @throws Exception Thrown if something failed
 	 */
 	public void loadFile(URL url) throws Exception {
-		loadFile(url, false);
+		loadFile(url, false, null);
+	}
+
+	/**
+	 * Loads the given url and streams its geometry shape by shape to the given visitor,
+	 * instead of collecting it in the model. Decoded shapes are released as soon as their
+	 * last instance has been visited, so the memory doesn't grow with the model size.
+	 * The model only holds the file information and references afterwards.
+	 * @param  url             Name of the file to load
+	 * @param  geometryVisitor Visitor, receiving the geometry
+	 * @throws Exception       Thrown if something failed
+	 */
+	public void loadFile(URL url, GeometryVisitor geometryVisitor) throws Exception {
+		loadFile(url, false, geometryVisitor);
 	}
 
 	/**
 	 * Parses the given file and creates the model.
-	 * @param  url            URL of the file to load
-	 * @param  referencedFile Is it a referenced file?
-	 * @throws Exception      Thrown if something failed
+	 * @param  url             URL of the file to load
+	 * @param  referencedFile  Is it a referenced file?
+	 * @param  geometryVisitor Visitor, receiving the geometry or<br>
+	 *                         <b>null</b> to collect the geometry in the model
+	 * @throws Exception       Thrown if something failed
 	 */
-	private void loadFile(URL url, boolean referencedFile) throws Exception {
+	private void loadFile(URL url, boolean referencedFile, GeometryVisitor geometryVisitor) throws Exception {
 		if(!referencedFile){
 			_baseURLName = url;
+			_referencedFileCache = new ReferencedFileCache();
 		}
 
-		_currentURLName = url;
+		// The shapes of referenced files are cached with the whole file
+		_partCacheFileKey = ((_partCache != null) && !referencedFile) ? getPartCacheKey(url) : null;
+
+		// Only local files can be checked for modifications
+		_diskCacheFileKey = ((_diskShapeCache != null) && url.getProtocol().equals("file")) ? getPartCacheKey(url) : null;
+
 		_jtModel = new JTModel();
+		_decodedShapeCache = new DecodedShapeCache();
+		if(geometryVisitor == null){
+			geometryVisitor = new ModelBuilder(_jtModel, _singlePrecision, _indexedTriangles, _instancedMeshes);
+		}
 
-		_progressIntervall.put(_currentURLName, 0);
-		_readBytes.put(_currentURLName, 0);
-		_fileLength.put(_currentURLName, url.openConnection().getContentLength());
+		int fileLength = url.openConnection().getContentLength();
+		_progressTracker.start();
+		_progressTracker.setTotal(ProgressTracker.Phase.READ, fileLength);
 
+		LoadStatistics.Attachment attachment = LoadStatistics.attach(_loadStatistics);
 		try {
+			int statisticsFrame = LoadStatistics.startPhase();
 			InputStream inputStream = url.openStream();
 
-			ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(_fileLength.get(_currentURLName));
+			ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(Math.max(fileLength, 1024));
 			byte[] buffer = new byte[1024];
 			int readBytes = 0;
 			while((readBytes = inputStream.read(buffer)) != -1){
 				byteArrayOutputStream.write(buffer, 0, readBytes);
+				_progressTracker.advance(ProgressTracker.Phase.READ, readBytes);
 			}
 			ByteBuffer byteBuffer = ByteBuffer.wrap(byteArrayOutputStream.toByteArray());
 			inputStream.close();
+			_progressTracker.complete(ProgressTracker.Phase.READ);
+			LoadStatistics.stopPhase(statisticsFrame, Phase.FILE_READ, byteBuffer.limit(), 0, 0);
+			statisticsFrame = LoadStatistics.startPhase();
 
 			WorkingContext workingContext = new WorkingContext();
 			workingContext.setByteBuffer(byteBuffer);
+			workingContext.setDiagnostics(_diagnostics);
 
 			// Check the signature
 			String signature = Helper.readStringByLength(byteBuffer, 80);
@@ -244,6 +455,7 @@ public class JTImporter {
 			// Continue only if the major version is supported
 			if((_jtModel.getJTFileVersion() < 8.0) || (_jtModel.getJTFileVersion() >= 10.0)){
 				addLoadInformation("ERROR", "Found unsupported JT major version: " + signature.substring(8, 11));
+				LoadStatistics.stopPhase(statisticsFrame, Phase.HEADER, byteBuffer.position(), 0, 0);
 				return;
 			}
 
@@ -265,6 +477,7 @@ public class JTImporter {
 			}
 
 			// Go to the TOC
+			int headerLength = byteBuffer.position();
 			byteBuffer.position(tocOffset);
 
 			// Get all TOC entries
@@ -273,6 +486,9 @@ public class JTImporter {
 			for(int i = 0; i < tocEntryCount; i++){
 				tocEntries.add(TOCEntry.read(workingContext));				
 			}
+			_progressTracker.setTotal(ProgressTracker.Phase.PARSE, tocEntries.size());
+			LoadStatistics.stopPhase(statisticsFrame, Phase.HEADER, headerLength + (byteBuffer.position() - tocOffset), 0, 0);
+			statisticsFrame = LoadStatistics.startPhase();
 
 			// Iterate over elements referenced from TOC
 			for(Iterator<TOCEntry> tocIterator = tocEntries.iterator(); tocIterator.hasNext();){
@@ -283,23 +499,23 @@ public class JTImporter {
 
 				SegmentHeader segmentHeader = SegmentHeader.read(workingContext);
 
-				String segmentID = segmentHeader.getSegmentID().toString();
+				GUID segmentID = segmentHeader.getSegmentID();
 				workingContext.setSegmentType(segmentHeader.getSegmentType());
 
 				ElementHeader elementHeader = ElementHeader.read(workingContext, true);
-				String elementID = elementHeader.getElementID().toString();
+				GUID elementID = elementHeader.getElementID();
 				workingContext.setByteBuffer(elementHeader.getByteBuffer());
 
 				// Extract the geometry information
-				if(elementID.equals(TriStripSetShapeLODElement.ID)){
+				if(elementID.equals(TRI_STRIP_SET_SHAPE_LOD_ELEMENT_ID)){
 					// Store the position for later reading
 					_xSetShapeLODElements.put(segmentID, workingContext.getByteBuffer().position());
 
 				// Extract the assembly information
-				} else if(elementID.equals(PartitionNodeElement.ID)){
+				} else if(elementID.equals(PARTITION_NODE_ELEMENT_ID)){
 					PartitionNodeElement y = PartitionNodeElement.read(workingContext);
 					_jtNodes.put(y.getObjectID(), y);
-					if(segmentID.equals(rootLSG.toString())){
+					if(segmentID.equals(rootLSG)){
 						_rootNode = y;
 					}
 
@@ -309,55 +525,15 @@ public class JTImporter {
 						int beforeHeader = workingContext.getByteBuffer().position();
 						ElementHeader elementHeader2 = ElementHeader.read(workingContext, false);
 						int headerSize = workingContext.getByteBuffer().position() - beforeHeader;
-						String elementID2 = elementHeader2.getElementID().toString();
-
-						if(elementID2.equals(PartNodeElement.ID)){
-							PartNodeElement x = PartNodeElement.read(workingContext);
-							_jtNodes.put(x.getObjectID(), x);
+						ElementReader elementReader = _elementReaderRegistry.get(elementHeader2.getElementID());
 
-						} else if(elementID2.equals(RangeLODNodeElement.ID)){
-							RangeLODNodeElement x = RangeLODNodeElement.read(workingContext);
-							_jtNodes.put(x.getObjectID(), x);
-
-						} else if(elementID2.equals(GroupNodeElement.ID)){
-							GroupNodeElement x = GroupNodeElement.read(workingContext);
-							_jtNodes.put(x.getObjectID(), x);
-
-						} else if(elementID2.equals(TriStripSetShapeNodeElement.ID)){
-							TriStripSetShapeNodeElement x = TriStripSetShapeNodeElement.read(workingContext);
-							_jtNodes.put(x.getObjectID(), x);
-
-						} else if(elementID2.equals(MaterialAttributeElement.ID)){
-							MaterialAttributeElement x = MaterialAttributeElement.read(workingContext);
-							_jtNodes.put(x.getObjectID(), x);
-
-						} else if(elementID2.equals(MetaDataNodeElement.ID)){
-							MetaDataNodeElement x = MetaDataNodeElement.read(workingContext);
-							_jtNodes.put(x.getObjectID(), x);
-
-						} else if(elementID2.equals(InstanceNodeElement.ID)){
-							InstanceNodeElement x = InstanceNodeElement.read(workingContext);
-							_jtNodes.put(x.getObjectID(), x);
-
-						} else if(elementID2.equals(GeometricTransformAttributeElement.ID)){
-							GeometricTransformAttributeElement x = GeometricTransformAttributeElement.read(workingContext, elementHeader2.getElementLength() - headerSize + 4);
-							_jtNodes.put(x.getObjectID(), x);
-
-						} else if(elementID2.equals(PartitionNodeElement.ID)){
-							PartitionNodeElement x = PartitionNodeElement.read(workingContext);
-							_jtNodes.put(x.getObjectID(), x);
-
-						} else if(elementID2.equals(PolylineSetShapeNodeElement.ID)){
-							PolylineSetShapeNodeElement x = PolylineSetShapeNodeElement.read(workingContext);
-							_jtNodes.put(x.getObjectID(), x);
-
-						} else if(elementID2.equals(PointSetShapeNodeElement.ID)){
-							PointSetShapeNodeElement x = PointSetShapeNodeElement.read(workingContext);
+						if(elementReader != null){
+							JTNode x = elementReader.read(workingContext, elementHeader2.getElementLength() - headerSize + 4);
 							_jtNodes.put(x.getObjectID(), x);
 
 						// Skip unevaluated element
 						} else {
-							addUnsupportedEntity(elementID2);
+							addUnsupportedEntity(elementHeader2.getElementID(), tocEntry.getSegmentOffSet());
 							int bytesToSkip = elementHeader2.getElementLength() - headerSize + 4;
 							Helper.readBytes(workingContext.getByteBuffer(), bytesToSkip);
 						}
@@ -376,7 +552,7 @@ public class JTImporter {
 
 						// Possibly break endless loop
 						GUID nextGUID = GUID.read(workingContext);
-						if(nextGUID.toString().equals(GUID.END_OF_ELEMENTS)){
+						if(nextGUID.equals(GUID.END_OF_ELEMENTS_GUID)){
 							break;
 						}
 
@@ -389,31 +565,15 @@ public class JTImporter {
 						int beforeHeader = workingContext.getByteBuffer().position();
 						ElementHeader elementHeader2 = ElementHeader.read(workingContext, false);
 						int headerSize = workingContext.getByteBuffer().position() - beforeHeader;
-						String elementID2 = elementHeader2.getElementID().toString();
-
-						if(elementID2.equals(StringPropertyAtomElement.ID)){
-							StringPropertyAtomElement x = StringPropertyAtomElement.read(workingContext);
-							_jtNodes.put(x.getObjectID(), x);
-
-						} else if(elementID2.equals(FloatingPointPropertyAtomElement.ID)){
-							FloatingPointPropertyAtomElement x = FloatingPointPropertyAtomElement.read(workingContext);
-							_jtNodes.put(x.getObjectID(), x);
-
-						} else if(elementID2.equals(LateLoadedPropertyAtomElement.ID)){
-							LateLoadedPropertyAtomElement x = LateLoadedPropertyAtomElement.read(workingContext);
-							_jtNodes.put(x.getObjectID(), x);
-
-						} else if(elementID2.equals(DatePropertyAtomElement.ID)){
-							DatePropertyAtomElement x = DatePropertyAtomElement.read(workingContext);
-							_jtNodes.put(x.getObjectID(), x);
+						ElementReader elementReader = _elementReaderRegistry.get(elementHeader2.getElementID());
 
-						} else if(elementID2.equals(IntegerPropertyAtomElement.ID)){
-							IntegerPropertyAtomElement x = IntegerPropertyAtomElement.read(workingContext);
+						if(elementReader != null){
+							JTNode x = elementReader.read(workingContext, elementHeader2.getElementLength() - headerSize + 4);
 							_jtNodes.put(x.getObjectID(), x);
 
 						// Skip unevaluated element
 						} else {
-							addUnsupportedEntity(elementID2);
+							addUnsupportedEntity(elementHeader2.getElementID(), tocEntry.getSegmentOffSet());
 							int bytesToSkip = elementHeader2.getElementLength() - headerSize + 4;
 							Helper.readBytes(workingContext.getByteBuffer(), bytesToSkip);
 						}
@@ -426,7 +586,7 @@ public class JTImporter {
 
 						// Possibly break endless loop
 						GUID nextGUID = GUID.read(workingContext);
-						if(nextGUID.toString().equals(GUID.END_OF_ELEMENTS)){
+						if(nextGUID.equals(GUID.END_OF_ELEMENTS_GUID)){
 							break;
 						}
 
@@ -438,107 +598,176 @@ public class JTImporter {
 					_propertyTable = PropertyTable.read(workingContext);
 
 				// Extract the point shape definition data
-				} else if(elementID.equals(PointSetShapeLODElement.ID)){
+				} else if(elementID.equals(POINT_SET_SHAPE_LOD_ELEMENT_ID)){
 					// Store the position for later reading
 					_xSetShapeLODElements.put(segmentID, workingContext.getByteBuffer().position());
 
 				// Extract the polyline shape definition data
-				} else if(elementID.equals(PolylineSetShapeLODElement.ID)){
+				} else if(elementID.equals(POLYLINE_SET_SHAPE_LOD_ELEMENT_ID)){
 					// Store the position for later reading
 					_xSetShapeLODElements.put(segmentID, workingContext.getByteBuffer().position());
 
 				// Skip unevaluated element
 				} else {
-					addUnsupportedEntity(elementID);
+					addUnsupportedEntity(elementID, tocEntry.getSegmentOffSet());
 				}
+
+				_progressTracker.advance(ProgressTracker.Phase.PARSE, 1);
 			}
 
 			// Create the LSG tree
 			createLSG(_rootNode.getObjectID(), _jtNodes);
 
-			// Extract the geometry and fill the JTModel
-			walkLSGTree(null, byteBuffer, workingContext);
+			// Collect the decode jobs of all shapes and external references, enclosed by the node events
+			List<Callable<DecodedShape>> decodeJobs = new ArrayList<Callable<DecodedShape>>();
+			walkLSGTree(null, null, byteBuffer, workingContext, decodeJobs);
+			LoadStatistics.stopPhase(statisticsFrame, Phase.LSG, 0, 0, _jtNodes.size());
+			_progressTracker.complete(ProgressTracker.Phase.PARSE);
+
+			// Count the shapes and references to process
+			int shapeCount = 0;
+			int referenceCount = 0;
+			for(Callable<DecodedShape> decodeJob : decodeJobs){
+				if(decodeJob instanceof ShapeDecodeJob){
+					shapeCount++;
+				} else if(decodeJob instanceof ExternalReferenceJob){
+					referenceCount++;
+				}
+			}
+			_progressTracker.setTotal(ProgressTracker.Phase.DECODE, shapeCount);
+			_progressTracker.setTotal(ProgressTracker.Phase.REFERENCES, referenceCount);
+
+			// Extract the geometry and pass it on to the visitor
+			runDecodeJobs(decodeJobs, geometryVisitor);
+			_progressTracker.finish();
+			_decodedShapeCache = null;
+			if(!referencedFile){
+				_referencedFileCache = null;
+			}
 
 		} catch(Exception exception){
+			_progressTracker.cancel();
 			addLoadInformation("ERROR", exception.getMessage());
 			throw exception;
+
+		} finally {
+			attachment.detach();
 		}
 	}
 
 	/**
-	 * Create the tree structure.
+	 * Create the tree structure. The tree is built depth first with an explicit stack,
+	 * so the depth of the tree isn't limited by the call stack. Nodes with multiple parents
+	 * (instances) are linked into each parent without copying their sub tree, as the LSG walk
+	 * accumulates the transformation, color and layer per path (see LSGNodeState).
 	 * @param objectID LSG root node ID
 	 * @param nodes    Map of all nodes (object ID -> node)
 	 */
-	private void createLSG(int objectID, HashMap<Integer, JTNode> nodes){
-		LSGNode parentNode = (LSGNode)nodes.get(objectID);
-
-		// Attach attributes to node
-		int[] attributeObjectIDs = parentNode.getAttributeObjectIDs();
-		for(int i = 0; i < attributeObjectIDs.length; i++){
-			JTNode attributeNode = nodes.get(attributeObjectIDs[i]);
-			parentNode.addAttributeNode(attributeNode);
-		}
-
-		// Attach properties to node
-		NodePropertyTable nodePropertyTable = _propertyTable.getNodePropertyTable(objectID);
-		if(nodePropertyTable != null){
-			HashMap<Integer, Integer> keyValuePairs = nodePropertyTable.getKeyValuePairs();
-			for(Iterator<Entry<Integer, Integer>> iterator = keyValuePairs.entrySet().iterator(); iterator.hasNext();){
-				Map.Entry<Integer, Integer> entry = iterator.next();
-				parentNode.addPropertyNode(nodes.get(entry.getKey()), nodes.get(entry.getValue()));
+	private void createLSG(int objectID, IntObjectMap<JTNode> nodes){
+		LSGNode rootNode = (LSGNode)nodes.get(objectID);
+		attachAttributesAndProperties(rootNode, nodes);
+
+		// Parent nodes and the index of their next child node to process
+		ArrayDeque<LSGNode> parentNodes = new ArrayDeque<LSGNode>();
+		ArrayDeque<int[]> childIndices = new ArrayDeque<int[]>();
+		parentNodes.push(rootNode);
+		childIndices.push(new int[1]);
+
+		while(!parentNodes.isEmpty()){
+			LSGNode parentNode = parentNodes.peek();
+			int[] childIndex = childIndices.peek();
+			int[] childNodeIDs = parentNode.getChildNodeObjectIDs();
+			if(childIndex[0] >= childNodeIDs.length){
+				parentNodes.pop();
+				childIndices.pop();
+				continue;
 			}
-		}
 
-		// Attach child nodes to node
-		int[] childNodeIDs = parentNode.getChildNodeObjectIDs();
-		for(int i = 0; i < childNodeIDs.length; i++){
-			LSGNode childNode = (LSGNode)nodes.get(childNodeIDs[i]);
+			// Attach child nodes to node
+			int childNodeID = childNodeIDs[childIndex[0]++];
+			LSGNode childNode = (LSGNode)nodes.get(childNodeID);
 			if(childNode == null){
-				addLoadInformation("WARNING", "Object " + parentNode.getObjectID() + " (" + parentNode.getClass().getName() + ") references a not existing / unsupported child node: " + childNodeIDs[i]);
+				addLoadInformation(Severity.WARNING, "Object " + parentNode.getObjectID() + " (" + parentNode.getClass().getName() + ") references a not existing / unsupported child node: " + childNodeID, null, parentNode.getObjectID(), -1);
 				continue;
 			}
 
-			// For multiple instances, add a copy of the sub tree
+			// Reject cycles, which would make the LSG walk endless
+			if(parentNodes.contains(childNode)){
+				addLoadInformation(Severity.WARNING, "Object " + parentNode.getObjectID() + " (" + parentNode.getClass().getName() + ") references its own parent node: " + childNodeID, null, parentNode.getObjectID(), -1);
+				continue;
+			}
+
+			// For multiple instances, share the sub tree, which has been built for the first parent
 			if(childNode.getParentLSGNode() != null){
-				LSGNode clonedChildNode = childNode.copy(parentNode);
-				parentNode.addChildLSGNode(clonedChildNode);
-				break;
+				parentNode.addChildLSGNode(childNode);
+				continue;
 			}
 
 			parentNode.addChildLSGNode(childNode);
 			childNode.setParentLSGNode(parentNode);
 
-			// Continue the recursion
-			createLSG(childNodeIDs[i], nodes);
+			// Continue with the child nodes of the child
+			attachAttributesAndProperties(childNode, nodes);
+			parentNodes.push(childNode);
+			childIndices.push(new int[1]);
 		}
 	}
 
 	/**
-	 * Walks down the LSG and creates the geometry.
+	 * Attaches the attribute and property nodes to the given node.
+	 * @param lsgNode LSG node
+	 * @param nodes   Map of all nodes (object ID -> node)
+	 */
+	private void attachAttributesAndProperties(LSGNode lsgNode, IntObjectMap<JTNode> nodes){
+		// Attach attributes to node
+		int[] attributeObjectIDs = lsgNode.getAttributeObjectIDs();
+		for(int i = 0; i < attributeObjectIDs.length; i++){
+			JTNode attributeNode = nodes.get(attributeObjectIDs[i]);
+			lsgNode.addAttributeNode(attributeNode);
+		}
+
+		// Attach properties to node
+		NodePropertyTable nodePropertyTable = _propertyTable.getNodePropertyTable(lsgNode.getObjectID());
+		if(nodePropertyTable != null){
+			IntIntMap keyValuePairs = nodePropertyTable.getKeyValuePairs();
+			for(int i = 0; i < keyValuePairs.size(); i++){
+				lsgNode.addPropertyNode(nodes.get(keyValuePairs.getKeyAt(i)), nodes.get(keyValuePairs.getValueAt(i)));
+			}
+		}
+	}
+
+	/**
+	 * Walks down the LSG and collects the decode jobs of the shapes and external references.
+	 * The transformation, color and layer name are accumulated on the way down, so every
+	 * node is evaluated only once. The jobs below each non shape node are enclosed by the
+	 * events of entering and leaving the node.
 	 * @param lsgNode        LSG node to process
+	 * @param parentState    Accumulated state of the parent node (null for the root node)
 	 * @param byteBuffer     Byte buffer
 	 * @param workingContext Working context
+	 * @param decodeJobs     List of decode jobs, in LSG order
 	 */
-	private void walkLSGTree(LSGNode lsgNode, ByteBuffer byteBuffer, WorkingContext workingContext){
+	private void walkLSGTree(LSGNode lsgNode, LSGNodeState parentState, ByteBuffer byteBuffer, WorkingContext workingContext, List<Callable<DecodedShape>> decodeJobs){
 		if(lsgNode == null){
 			lsgNode = _rootNode;
 		}
 
-		// Create local defined geometry
-		String nodeName = "";
-		if(	(lsgNode instanceof TriStripSetShapeNodeElement) ||
-			(lsgNode instanceof PolylineSetShapeNodeElement) ||
-			(lsgNode instanceof PointSetShapeNodeElement)){
-			// Get the color
-			Color color = getColorFromParentNodes(lsgNode);
-
-			// Get the transformation matrix
-			Matrix4d transformation = getTransformationFromParentNodes(lsgNode);
-
-			// Get the layer name
-			nodeName = getLayerName(lsgNode);
+		// Accumulate the state of the node (the transformation of the root node isn't applied)
+		String nodeName = getLayerNodeName(lsgNode);
+		LSGNodeState lsgNodeState = (parentState == null) ? new LSGNodeState() : parentState;
+		double[] localTransformation = (parentState == null) ? null : getLocalTransformation(lsgNode);
+		lsgNodeState = lsgNodeState.createChild(localTransformation, getMaterialColor(lsgNode), nodeName, stripLayerNodeName(lsgNode, nodeName));
+
+		// Enclose the shapes and nodes below this node by the node events
+		boolean shapeNode = (lsgNode instanceof TriStripSetShapeNodeElement) ||
+							(lsgNode instanceof PolylineSetShapeNodeElement) ||
+							(lsgNode instanceof PointSetShapeNodeElement);
+		if(!shapeNode){
+			decodeJobs.add(new NodeEventJob(getNodeName(lsgNode), toMatrix4(localTransformation)));
+		}
 
+		// Create local defined geometry
+		if(shapeNode){
 			// Get the geometry
 			boolean foundLateLoadedPropertyAtomElement = false;
 			Map<JTNode, JTNode> keyValuePairs = lsgNode.getPropertyNodes();
@@ -548,73 +777,27 @@ public class JTImporter {
 					if(!foundLateLoadedPropertyAtomElement){
 						foundLateLoadedPropertyAtomElement = true;
 						LateLoadedPropertyAtomElement lateLoadedPropertyAtomElement = (LateLoadedPropertyAtomElement)entry.getValue();
-						String segmentID = lateLoadedPropertyAtomElement.getSegmentID();
-
-						// Faces
-						if(lsgNode instanceof TriStripSetShapeNodeElement){
-							int currentPosition = byteBuffer.position();
-							byteBuffer.position(_xSetShapeLODElements.get(segmentID));
-							TriStripSetShapeLODElement triStripSetShapeLODElement = null;
-							try {
-								workingContext.setByteBuffer(byteBuffer);
-								triStripSetShapeLODElement = TriStripSetShapeLODElement.read(workingContext);
-	
-							} catch(UnsupportedCodecException exception){
-								addLoadInformation("WARNING", exception.getMessage());
-							}
-							byteBuffer.position(currentPosition);
-	
-							if(triStripSetShapeLODElement != null){
-								prepareGeometry(lsgNode.getObjectID(), triStripSetShapeLODElement, null, null, transformation, color, nodeName);
-							}
-
-						// Polylines
-						} else if(lsgNode instanceof PolylineSetShapeNodeElement){
-							int currentPosition = byteBuffer.position();
-							byteBuffer.position(_xSetShapeLODElements.get(segmentID));
-							PolylineSetShapeLODElement polylineSetShapeLODElement = null;
-							try {
-								workingContext.setByteBuffer(byteBuffer);
-								polylineSetShapeLODElement = PolylineSetShapeLODElement.read(workingContext);
-	
-							} catch(UnsupportedCodecException exception){
-								addLoadInformation("WARNING", exception.getMessage());
-							}
-							byteBuffer.position(currentPosition);
-	
-							if(polylineSetShapeLODElement != null){
-								prepareGeometry(lsgNode.getObjectID(), null, polylineSetShapeLODElement, null, transformation, color, nodeName);
-							}
+						GUID segmentID = lateLoadedPropertyAtomElement.getSegmentGUID();
 
-						// Points
-						} else if(lsgNode instanceof PointSetShapeNodeElement){
-							int currentPosition = byteBuffer.position();
-							byteBuffer.position(_xSetShapeLODElements.get(segmentID));
-							PointSetShapeLODElement pointSetShapeLODElement = null;
-							try {
-								workingContext.setByteBuffer(byteBuffer);
-								pointSetShapeLODElement = PointSetShapeLODElement.read(workingContext);
-	
-							} catch(UnsupportedCodecException exception){
-								addLoadInformation("WARNING", exception.getMessage());
-							}
-							byteBuffer.position(currentPosition);
-	
-							if(pointSetShapeLODElement != null){
-								prepareGeometry(lsgNode.getObjectID(), null, null, pointSetShapeLODElement, transformation, color, nodeName);
-							}
+						Integer segmentPosition = _xSetShapeLODElements.get(segmentID);
+						if(segmentPosition == null){
+							addLoadInformation(Severity.WARNING, "Object " + lsgNode.getObjectID() + " references a not existing / unsupported shape segment: " + segmentID, segmentID, lsgNode.getObjectID(), -1);
+							continue;
 						}
 
+						// Decode the shape later on
+						decodeJobs.add(new ShapeDecodeJob(this, lsgNode, byteBuffer, workingContext, segmentID, segmentPosition, _decodedShapeCache, lsgNodeState.getTransformation(), lsgNodeState.getColor().getColorComponents(null), lsgNodeState.getLayerName()));
+
 					} else {
-						addLoadInformation("WARNING", "Object " + lsgNode.getObjectID() + " has multiple LateLoadedPropertyAtomElement assignments!");
+						addLoadInformation(Severity.WARNING, "Object " + lsgNode.getObjectID() + " has multiple LateLoadedPropertyAtomElement assignments!", null, lsgNode.getObjectID(), -1);
 					}
 				}
 			}
 
 		// Load external referenced geometry
 		} else if(lsgNode instanceof PartitionNodeElement){
-			PartitionNodeElement partitionNodeElement = (PartitionNodeElement)lsgNode;
-			if(lsgNode.getParentLSGNode() != null){
+			final PartitionNodeElement partitionNodeElement = (PartitionNodeElement)lsgNode;
+			if(parentState != null){
 				String urlAsString = _baseURLName.toString();
 
 				// Get the absolute external reference file name
@@ -627,86 +810,226 @@ public class JTImporter {
 					addLoadInformation("WARNING", "Found malformed external reference: " + urlAsString);
 				}
 
-				if(!existsURL(externalReference.toString())){
+				// Check the existence only once per import
+				Boolean exists = _referencedFileCache.getExistence(externalReference);
+				if(exists == null){
+					exists = existsURL(externalReference.toString());
+					_referencedFileCache.putExistence(externalReference, exists);
+				}
+
+				if(!exists){
 					_jtModel.addExternalReference(partitionNodeElement.getFileName(), false);
 					addLoadInformation("WARNING", "Found missing external reference: " + externalReference);
 
+				} else if(_referenceDepth >= MAX_REFERENCE_DEPTH){
+					_jtModel.addExternalReference(partitionNodeElement.getFileName(), true);
+					addLoadInformation("WARNING", "Skipped external reference, nested deeper than " + MAX_REFERENCE_DEPTH + " files: " + externalReference);
+
 				} else {
 					_jtModel.addExternalReference(partitionNodeElement.getFileName(), true);
 
-					// Get the transformation matrix
-					Matrix4d transformation = getTransformationFromParentNodes(lsgNode);
+					// Load the referenced file later on (possibly ahead, in parallel to other references)
+					decodeJobs.add(new ExternalReferenceJob(this, externalReference, lsgNodeState.getTransformation(), _referencedFileCache));
+				}
+			}
+		}
 
-					// Extract the rotation from the transformation
-					Matrix4d rotation = (Matrix4d)transformation.clone();
-					rotation.setTranslation(new Vector3d());
+		for(LSGNode childNode : lsgNode.getChildLSGNodes()){
+			walkLSGTree(childNode, lsgNodeState, byteBuffer, workingContext, decodeJobs);
 
-					// Load the referenced file
-					try {
-						URL oldURLName = _currentURLName;
-						JTImporter jtImporter = new JTImporter();
-						jtImporter.loadFile(externalReference, true);
+			// Skip all other LOD's
+			if(lsgNode instanceof RangeLODNodeElement){
+				break;
+			}
+		}
 
-						// Transfer the load information
-						for(String[] loadInformation : jtImporter.getLoadInformation()){
-							addLoadInformation(loadInformation[0], loadInformation[1]);
-						}
+		if(!shapeNode){
+			decodeJobs.add(NodeEventJob.LEAVE_NODE);
+		}
+	}
 
-						// Transfer the unsupported entities
-						for(String unsupportedEntity : jtImporter.getUnsupportedEntities()){
-							addUnsupportedEntity(unsupportedEntity);
-						}
+	/**
+	 * Converts an affine transformation into a 4x4 matrix.
+	 * @param  transformation Transformation (3x4 affine matrix, row by row) or null
+	 * @return                Transformation (4x4 matrix, row by row) or<br>
+	 *                        <b>null</b>, if no transformation is given
+	 */
+	private static double[] toMatrix4(double[] transformation){
+		if(transformation == null){
+			return null;
+		}
+		double[] matrix = new double[16];
+		System.arraycopy(transformation, 0, matrix, 0, 12);
+		matrix[15] = 1.0;
+		return matrix;
+	}
 
-						HashMap<String, ArrayList<Object[]>> jtEntities = jtImporter.getFaces();
-						for(Iterator<String> iterator = jtEntities.keySet().iterator(); iterator.hasNext();){
-							String layerName = iterator.next();
-							ArrayList<Object[]> faces = jtEntities.get(layerName);
-							for(Object[] faceList : faces){
-								double[] vertices = (double[])faceList[0];
-								int[] indices = (int[])faceList[1];
-								double[] colors = (double[])faceList[2];
-								double[] normals = (double[])faceList[3];
-
-								// Apply the transformation to all vertices
-								for(int i = 0; i < vertices.length; i += 3){
-									Point3d vertex = new Point3d(vertices[i], vertices[i + 1], vertices[i + 2]);
-									transformation.transform(vertex);
-									vertices[i]     = vertex.getX();
-									vertices[i + 1] = vertex.getY();
-									vertices[i + 2] = vertex.getZ();
-								}
-
-								// Apply the transformation to all normals
-								for(int i = 0; i < normals.length; i += 3){
-									Point3d normal = new Point3d(normals[i], normals[i + 1], normals[i + 2]);
-									rotation.transform(normal);
-									normals[i]     = normal.getX();
-									normals[i + 1] = normal.getY();
-									normals[i + 2] = normal.getZ();
-								}
-
-								// Add the new positioned face
-								_jtModel.addTriangles(vertices, indices, colors, normals, layerName);
-							}
-						}
+	/**
+	 * Runs the collected decode jobs and passes the geometry on to the visitor. Shapes are
+	 * decoded and external references are loaded concurrently, at most a few jobs ahead of
+	 * the visitor, while the visitor is called on this thread in the order of the LSG walk.
+	 * @param  decodeJobs      List of decode jobs, in LSG order
+	 * @param  geometryVisitor Visitor, receiving the geometry
+	 * @throws Exception       Thrown if something failed
+	 */
+	private void runDecodeJobs(List<Callable<DecodedShape>> decodeJobs, GeometryVisitor geometryVisitor) throws Exception {
+		ForkJoinPool forkJoinPool = null;
+		if(_parallelism > 1){
+			forkJoinPool = new ForkJoinPool(_parallelism);
+		}
 
-						_currentURLName = oldURLName;
+		try {
+			List<Future<DecodedShape>> results = new ArrayList<Future<DecodedShape>>(decodeJobs.size());
+			int submittedJobs = 0;
+			int maximumJobsAhead = _parallelism * DECODE_JOBS_AHEAD_PER_THREAD;
+
+			for(int i = 0; i < decodeJobs.size(); i++){
+				// Start decoding the next shapes
+				while((submittedJobs < decodeJobs.size()) && (submittedJobs <= (i + maximumJobsAhead))){
+					Callable<DecodedShape> decodeJob = decodeJobs.get(submittedJobs++);
+					if((forkJoinPool != null) && !(decodeJob instanceof NodeEventJob)){
+						results.add(forkJoinPool.submit(decodeJob));
+					} else {
+						results.add(null);
+					}
+				}
 
-					} catch(Exception exception){
-						addLoadInformation("WARNING", "Failed loading external reference: " + externalReference.toString());
+				// Visit the results in a deterministic order
+				Callable<DecodedShape> decodeJob = decodeJobs.get(i);
+				Future<DecodedShape> result = results.set(i, null);
+				DecodedShape decodedShape = null;
+				if(result == null){
+					// External references, which haven't been loaded ahead, are loaded by visit()
+					if(!(decodeJob instanceof ExternalReferenceJob)){
+						decodedShape = decodeJob.call();
 					}
+				} else {
+					try {
+						decodedShape = result.get();
+					} catch(ExecutionException exception){
+						if(exception.getCause() instanceof Exception){
+							throw (Exception)exception.getCause();
+						}
+						throw exception;
+					}
+				}
+
+				if(decodeJob instanceof ShapeDecodeJob){
+					((ShapeDecodeJob)decodeJob).visit(decodedShape, geometryVisitor);
+					_progressTracker.advance(ProgressTracker.Phase.DECODE, 1);
+				} else if(decodeJob instanceof ExternalReferenceJob){
+					((ExternalReferenceJob)decodeJob).visit(geometryVisitor);
+					_progressTracker.advance(ProgressTracker.Phase.REFERENCES, 1);
+				} else if(decodeJob instanceof NodeEventJob){
+					((NodeEventJob)decodeJob).visit(geometryVisitor);
 				}
 			}
+
+		} finally {
+			if(forkJoinPool != null){
+				forkJoinPool.shutdownNow();
+			}
 		}
+	}
 
-		for(LSGNode childNode : lsgNode.getChildLSGNodes()){
-			walkLSGTree(childNode, byteBuffer, workingContext);
+	/**
+	 * Loads the given external reference and records its geometry.
+	 * @param  externalReference URL of the referenced file
+	 * @return                   Referenced file
+	 */
+	ReferencedFileCache.ReferencedFile loadExternalReference(URL externalReference){
+		GeometryRecorder geometryRecorder = new GeometryRecorder();
+		JTImporter jtImporter = new JTImporter(this);
 
-			// Skip all other LOD's
-			if(lsgNode instanceof RangeLODNodeElement){
-				break;
-			}
+		// Load the referenced file
+		boolean loaded = false;
+		try {
+			jtImporter.loadFile(externalReference, true, geometryRecorder);
+			loaded = true;
+
+		} catch(Exception exception){
+			addLoadInformation("WARNING", "Failed loading external reference: " + externalReference.toString());
 		}
+
+		return new ReferencedFileCache.ReferencedFile(geometryRecorder, new ArrayList<String>(jtImporter._unsupportedEntities), loaded);
+	}
+
+	/**
+	 * Loads the given external reference and streams its geometry to the given visitor,
+	 * without recording it.
+	 * @param externalReference URL of the referenced file
+	 * @param geometryVisitor   Visitor, receiving the geometry in the coordinate system of the referenced file
+	 */
+	void streamExternalReference(URL externalReference, GeometryVisitor geometryVisitor){
+		JTImporter jtImporter = new JTImporter(this);
+		try {
+			jtImporter.loadFile(externalReference, true, geometryVisitor);
+		} catch(Exception exception){
+			addLoadInformation("WARNING", "Failed loading external reference: " + externalReference.toString());
+		}
+		addUnsupportedEntities(new ArrayList<String>(jtImporter._unsupportedEntities));
+	}
+
+	/**
+	 * Transfers the unsupported entities of a referenced file.
+	 * @param unsupportedEntities Unsupported entities of the referenced file
+	 */
+	void addUnsupportedEntities(List<String> unsupportedEntities){
+		_unsupportedEntities.addAll(unsupportedEntities);
+	}
+
+	/**
+	 * Returns the part cache.
+	 * @return Part cache or<br>
+	 *         <b>null</b>, if disabled
+	 */
+	PartCache getPartCache(){
+		return _partCache;
+	}
+
+	/**
+	 * Returns the key of the loaded file in the part cache.
+	 * @return Key of the file or<br>
+	 *         <b>null</b>, if the shapes of the file aren't cached
+	 */
+	String getPartCacheFileKey(){
+		return _partCacheFileKey;
+	}
+
+	/**
+	 * Returns the persistent cache of decoded shapes.
+	 * @return Persistent cache or<br>
+	 *         <b>null</b>, if disabled
+	 */
+	DiskShapeCache getDiskShapeCache(){
+		return _diskShapeCache;
+	}
+
+	/**
+	 * Returns the key of the loaded file in the persistent cache.
+	 * @return Key of the file or<br>
+	 *         <b>null</b>, if the shapes of the file aren't cached
+	 */
+	String getDiskCacheFileKey(){
+		return _diskCacheFileKey;
+	}
+
+	/**
+	 * Creates the key of the given file in the part cache: the identity of the file and
+	 * the settings, the decoded geometry depends on.
+	 * @param  url URL of the file
+	 * @return     Key of the file
+	 */
+	String getPartCacheKey(URL url){
+		return ReferencedFileCache.getKey(url) + "|" + (_singlePrecision ? "f" : "d") + (_indexedTriangles ? "i" : "") + (_instancedMeshes ? "m" : "");
+	}
+
+	/**
+	 * Returns the nesting depth of the loaded file.
+	 * @return Nesting depth (0 for the file, loaded by the user)
+	 */
+	int getReferenceDepth(){
+		return _referenceDepth;
 	}
 
 	/**
@@ -749,95 +1072,71 @@ public class JTImporter {
 	}
 
 	/**
-	 * Detects the color for the given node.
+	 * Detects the material color, assigned to the given node.
 	 * @param  lsgNode LSG node to examine
 	 * @return         Detected color or<br>
-	 *                 <b>null</b> if the color couldn't be found
+	 *                 <b>null</b> if the node has no material assigned
 	 */
-	private Color getColorFromParentNodes(LSGNode lsgNode){
-		Color color = null;
-		boolean foundMaterialAttributeElement = false;
+	private Color getMaterialColor(LSGNode lsgNode){
 		for(JTNode jtNode : lsgNode.getAttributeNodes()){
 			if(jtNode instanceof MaterialAttributeElement){
-				if(!foundMaterialAttributeElement){
-					foundMaterialAttributeElement = true;
-					color = ((MaterialAttributeElement)jtNode).getDiffuseColor();
-				}
+				return ((MaterialAttributeElement)jtNode).getDiffuseColor();
 			}
 		}
-		if(color == null){
-			if(lsgNode.getParentLSGNode() != null){
-				color = getColorFromParentNodes(lsgNode.getParentLSGNode());
-			}
-		}
-		if(color == null){
-			color = DEFAULT_COLOR;
-		}
-		return color;
+		return null;
 	}
 
 	/**
-	 * Transformation of the given node.
+	 * Transformation, assigned to the given node.
 	 * @param  lsgNode LSG node to examine
-	 * @return         Detected transformation
+	 * @return         Detected transformation (3x4 affine matrix, row by row) or<br>
+	 *                 <b>null</b> if the node isn't transformed
 	 */
-	private Matrix4d getTransformationFromParentNodes(LSGNode lsgNode){
-		Matrix4d transformation = new Matrix4d();
-		transformation.setIdentity();
-
-		do {
-			for(JTNode jtNode : lsgNode.getAttributeNodes()){
-				if(jtNode instanceof GeometricTransformAttributeElement){
-					Matrix4d tmp = (Matrix4d)((GeometricTransformAttributeElement)jtNode).getTransformationMatrix().clone();
-					tmp.mul(transformation);
-					transformation = tmp;
-				}
+	private double[] getLocalTransformation(LSGNode lsgNode){
+		double[] transformation = null;
+		for(JTNode jtNode : lsgNode.getAttributeNodes()){
+			if(jtNode instanceof GeometricTransformAttributeElement){
+				Matrix4d matrix = ((GeometricTransformAttributeElement)jtNode).getTransformationMatrix();
+				double[] tmp = new double[]{matrix.m00, matrix.m01, matrix.m02, matrix.m03,
+											matrix.m10, matrix.m11, matrix.m12, matrix.m13,
+											matrix.m20, matrix.m21, matrix.m22, matrix.m23};
+				transformation = (transformation == null) ? tmp : LSGNodeState.multiply(tmp, transformation);
 			}
-			lsgNode = lsgNode.getParentLSGNode();
-		} while(lsgNode.getParentLSGNode() != null);
-
+		}
 		return transformation;
 	}
 
 	/**
-	 * Layer name of the given node.
+	 * Name of the given node, contributing to the layer name.
 	 * @param  lsgNode LSG node to examine
-	 * @return         Detected layer name or<br>
-	 *                 <b>JTImporter.DEFAULT_LAYER</b> if the layer name couldn't be found
+	 * @return         Detected name or<br>
+	 *                 <b>null</b> if the node doesn't contribute to the layer name
 	 */
-	private String getLayerName(LSGNode lsgNode){
-		List<String> nodeNameList = new ArrayList<String>();
-		while(lsgNode != null){
-			if(	(lsgNode instanceof MetaDataNodeElement) || (lsgNode instanceof InstanceNodeElement) ||
-				(lsgNode instanceof PartNodeElement) || (lsgNode instanceof PartitionNodeElement)){
-				String nodeName = getNodeName(lsgNode);
-				if(nodeName != null){
-					if((nodeNameList.size() == 0) || !nodeNameList.get(0).equals(nodeName)){
-						if(lsgNode instanceof InstanceNodeElement){
-							if(nodeName.endsWith("_SOLIDS")){
-								nodeName = nodeName.substring(0, nodeName.length() - 7);
-							} else if(nodeName.endsWith("_FACETS")){
-								nodeName = nodeName.substring(0, nodeName.length() - 7);
-							} else if(nodeName.endsWith("_WF")){
-								nodeName = nodeName.substring(0, nodeName.length() - 3);
-							}
-						}
-						nodeNameList.add(0, nodeName);
-					}
-				}
-			}
-			lsgNode = lsgNode.getParentLSGNode();
+	private String getLayerNodeName(LSGNode lsgNode){
+		if(	(lsgNode instanceof MetaDataNodeElement) || (lsgNode instanceof InstanceNodeElement) ||
+			(lsgNode instanceof PartNodeElement) || (lsgNode instanceof PartitionNodeElement)){
+			return getNodeName(lsgNode);
 		}
+		return null;
+	}
 
-		StringBuffer stringBuffer = new StringBuffer();
-		Iterator<String> iterator = nodeNameList.iterator();
-		while(iterator.hasNext()){
-			stringBuffer.append(iterator.next());
-			if(iterator.hasNext()){
-				stringBuffer.append("#");
+	/**
+	 * Removes the geometry type suffix from the name of an instance node.
+	 * @param  lsgNode  LSG node
+	 * @param  nodeName Name of the node
+	 * @return          Name of the node, as used in the layer name
+	 */
+	private String stripLayerNodeName(LSGNode lsgNode, String nodeName){
+		if((nodeName != null) && (lsgNode instanceof InstanceNodeElement)){
+			if(nodeName.endsWith("_SOLIDS")){
+				return nodeName.substring(0, nodeName.length() - 7);
+			} else if(nodeName.endsWith("_FACETS")){
+				return nodeName.substring(0, nodeName.length() - 7);
+			} else if(nodeName.endsWith("_WF")){
+				return nodeName.substring(0, nodeName.length() - 3);
 			}
 		}
-		return stringBuffer.length() > 0 ? stringBuffer.toString() : JTImporter.DEFAULT_LAYER;
+		return nodeName;
 	}
 
 	/**
@@ -846,34 +1145,22 @@ public class JTImporter {
 	 * @return         Name of the node
 	 */
 	private String getNodeName(LSGNode lsgNode){
-		String layerName = null;
-
-		if(lsgNode != null){
-			Map<JTNode, JTNode> propertyNodes = lsgNode.getPropertyNodes();
-			for(Iterator<JTNode> iterator = propertyNodes.keySet().iterator(); iterator.hasNext();){
-				JTNode propertyNode = iterator.next();
-				if(propertyNode instanceof StringPropertyAtomElement){
-					String value = ((StringPropertyAtomElement)propertyNode).getValue();
-					if(value.equals("JT_PROP_NAME")){
-
-						if((layerName == null) || layerName.equals(JTImporter.DEFAULT_LAYER)){
-							layerName = ((StringPropertyAtomElement)propertyNodes.get(propertyNode)).getValue();
-							int index = layerName.indexOf(".part");
-							if(index != -1){
-								layerName = layerName.substring(0, index);
-
-							}
-							index = layerName.indexOf(".asm");
-							if(index != -1){
-								layerName = layerName.substring(0, index);
-							}
-						}
-
+		if(lsgNode == null){
+			return null;
+		}
 
-					// If set, overwrite the JT_PROP_NAME
-					} else if(value.equals("Name::")){
-						layerName = ((StringPropertyAtomElement)propertyNodes.get(propertyNode)).getValue();
-					}
+		// If set, the user defined name overwrites the JT_PROP_NAME
+		String layerName = lsgNode.getStringProperty(PropertyKey.NAME);
+		if(layerName == null){
+			layerName = lsgNode.getStringProperty(PropertyKey.JT_PROP_NAME);
+			if(layerName != null){
+				int index = layerName.indexOf(".part");
+				if(index != -1){
+					layerName = layerName.substring(0, index);
+				}
+				index = layerName.indexOf(".asm");
+				if(index != -1){
+					layerName = layerName.substring(0, index);
 				}
 			}
 		}
@@ -882,16 +1169,16 @@ public class JTImporter {
 	}
 
 	/**
-	 * Fills the JT models with the triangulated faces.
-	 * @param parentNodeObjectID         Object ID of the parent LSG node
-	 * @param triStripSetShapeLODElement TriStripSetShapeLODElement
-	 * @param polylineSetShapeLODElement PolylineSetShapeLODElement
-	 * @param pointSetShapeLODElement    PointSetShapeLODElement
-	 * @param transformation             Transformation
-	 * @param globalColor                Default color
-	 * @param layerName                  Layer name
+	 * Decodes the geometry of a shape LOD element into its local coordinate system.
+	 * @param  parentNodeObjectID         Object ID of the parent LSG node
+	 * @param  triStripSetShapeLODElement TriStripSetShapeLODElement
+	 * @param  polylineSetShapeLODElement PolylineSetShapeLODElement
+	 * @param  pointSetShapeLODElement    PointSetShapeLODElement
+	 * @param  layerName                  Layer name
+	 * @return                            Decoded shape or<br>
+	 *                                    <b>null</b> if the element is empty or couldn't be decoded
 	 */
-	private void prepareGeometry(int parentNodeObjectID, TriStripSetShapeLODElement triStripSetShapeLODElement, PolylineSetShapeLODElement polylineSetShapeLODElement, PointSetShapeLODElement pointSetShapeLODElement, Matrix4d transformation, Color globalColor, String layerName){
+	DecodedShape decodeGeometry(int parentNodeObjectID, TriStripSetShapeLODElement triStripSetShapeLODElement, PolylineSetShapeLODElement polylineSetShapeLODElement, PointSetShapeLODElement pointSetShapeLODElement, String layerName){
 		try {
 			if(_jtModel.getJTFileVersion() < 9.0){
 				if(triStripSetShapeLODElement != null){
@@ -901,13 +1188,8 @@ public class JTImporter {
 					List<Integer> indicesAsList = vertexBasedShapeCompressedRepData.getIndices();
 					List<Double> verticesAsList = vertexBasedShapeCompressedRepData.getVertices();
 					if((verticesAsList == null) || (verticesAsList.size() == 0)){
-						return;
+						return null;
 					}
-					
-
-					// Extract the rotation from the transformation
-					Matrix4d rotation = (Matrix4d)transformation.clone();
-					rotation.setTranslation(new Vector3d());
 
 					// Calculate the number of vertices and faces
 					int vertexCount = 0;
@@ -919,17 +1201,9 @@ public class JTImporter {
 						faceCount += (endIndex - startIndex - 2);
 					}
 
-					// Possibly create color list
+					// Possibly take the color list
 					double[] colors = null;
-					if((colorsAsList == null) || (colorsAsList.size() == 0)){
-						float[] color = globalColor.getColorComponents(null);
-						colors = new double[faceCount * 3];
-						for(int i = 0; i < colors.length; i += 3){
-							colors[i]     = color[0];
-							colors[i + 1] = color[1];
-							colors[i + 2] = color[2];
-						}
-					} else {
+					if((colorsAsList != null) && (colorsAsList.size() > 0)){
 						colors = new double[colorsAsList.size()];
 						for(int i = 0; i < colors.length; i++){
 							colors[i] = colorsAsList.get(i);
@@ -948,51 +1222,46 @@ public class JTImporter {
 						// Fill the vertex list
 						for(int j = startIndex; j < endIndex; j++){
 							int k = j * 3;
+							vertices[k]     = verticesAsList.get(k);
+							vertices[k + 1] = verticesAsList.get(k + 1);
+							vertices[k + 2] = verticesAsList.get(k + 2);
 
-							// Apply the transformation to each vertex
-							Point3d vertex = new Point3d(verticesAsList.get(k), verticesAsList.get(k + 1), verticesAsList.get(k + 2));
-							transformation.transform(vertex);
-							vertices[k]     = vertex.getX();
-							vertices[k + 1] = vertex.getY();
-							vertices[k + 2] = vertex.getZ();
-							
-							
-							// Apply the rotation to each normal 
-							Point3d normal = new Point3d(normalsAsList.get(k), normalsAsList.get(k + 1), normalsAsList.get(k + 2));
-							rotation.transform(normal);
-							normals[k]     = normal.getX();
-							normals[k + 1] = normal.getY();
-							normals[k + 2] = normal.getZ();
+							normals[k]     = normalsAsList.get(k);
+							normals[k + 1] = normalsAsList.get(k + 1);
+							normals[k + 2] = normalsAsList.get(k + 2);
 						}
-						
-						
 
 						// Fill the index list
 						for(int j = startIndex; j < (endIndex - 2); j++){
 							faceIndices[l]     = j;
 							faceIndices[l + 1] = j + 1;
-							faceIndices[l + 2] = j + 2;							
-							
+							faceIndices[l + 2] = j + 2;
+
 							l += 3;
 						}
 					}
-					
-					_jtModel.addTriangles(vertices, faceIndices, colors, normals, layerName);
+
+					return DecodedShape.createFaces(new TriangleMesh(vertices, faceIndices, colors, normals));
 
 				} else if(pointSetShapeLODElement != null){
 					VertexBasedShapeCompressedRepData vertexBasedShapeCompressedRepData = pointSetShapeLODElement.getVertexBasedShapeCompressedRepData();
-					List<Double> vertices = vertexBasedShapeCompressedRepData.getVertices();
-					List<Float> colors = vertexBasedShapeCompressedRepData.getColors();
-					if((colors == null) || (colors.size() == 0)){
-						colors = new ArrayList<Float>();
-						float[] color = globalColor.getColorComponents(null);
-						for(int i = 0; i < vertices.size(); i += 3){
-							colors.add(color[0]);
-							colors.add(color[1]);
-							colors.add(color[2]);
+					List<Double> verticesAsList = vertexBasedShapeCompressedRepData.getVertices();
+					List<Float> colorsAsList = vertexBasedShapeCompressedRepData.getColors();
+
+					double[] vertices = new double[verticesAsList.size()];
+					for(int i = 0; i < vertices.length; i++){
+						vertices[i] = verticesAsList.get(i);
+					}
+
+					// Possibly take the color list
+					float[] colors = null;
+					if((colorsAsList != null) && (colorsAsList.size() > 0)){
+						colors = new float[colorsAsList.size()];
+						for(int i = 0; i < colors.length; i++){
+							colors[i] = colorsAsList.get(i);
 						}
 					}
-					_jtModel.addPoints(vertices, colors, layerName);
+					return DecodedShape.createPoints(new PointSet(vertices, colors));
 				}
 
 			// JT version 9+
@@ -1006,118 +1275,58 @@ public class JTImporter {
 					List<Double> verticesAsList = vertexShapeLODElement.getVertices();
 
 					if((verticesAsList == null) || (verticesAsList.size() == 0) || (indexLists.get(0).size() == 0)){
-						addLoadInformation("WARNING", "Found empty element!");
-						return;
+						addLoadInformation(Severity.WARNING, "Found empty element!", null, parentNodeObjectID, -1);
+						return null;
 					}
 
-					// Extract the rotation from the transformation
-					Matrix4d rotation = (Matrix4d)transformation.clone();
-					rotation.setTranslation(new Vector3d());
-
 					List<Integer> vertexIndicesList = indexLists.get(0);
 					List<Integer> normalIndicesList = indexLists.get(1);
 
+					// Possibly take the color list
+					double[] colors = null;
+					if((colorsAsList != null) && (colorsAsList.size() > 0)){
+						colors = new double[colorsAsList.size()];
+						for(int i = 0; i < colors.length; i++){
+							colors[i] = colorsAsList.get(i);
+						}
+					}
+
+					if(_indexedTriangles){
+						return decodeIndexedTriangles(vertexIndicesList, normalIndicesList, verticesAsList, normalsAsList, colors);
+					}
+
 					double[] verticesNew = new double[vertexIndicesList.size() * 3];
 					int[] indicesNew = new int[vertexIndicesList.size()];
 					double[] normalsNew = new double[vertexIndicesList.size() * 3];
+					double[] colorsNew = (colors != null) ? new double[normalsNew.length] : null;
 					int lastNormalIndex = -1;
-					for(int i = 0, vertexCount = 0, normalCount = 0; i < (vertexIndicesList.size() / 3); i++){
-						int baseIndex = (i * 3);
+					for(int i = 0, vertexCount = 0, normalCount = 0; i < vertexIndicesList.size(); i++){
+						int faceIndex = vertexIndicesList.get(i);
+						int normalIndex = normalIndicesList.get(i);
+						if(normalIndex == -1){
+							normalIndex = lastNormalIndex;
+						}
+						lastNormalIndex = normalIndex;
 
-						int faceIndex1 = vertexIndicesList.get(baseIndex);
-						int faceIndex2 = vertexIndicesList.get(baseIndex + 1);
-						int faceIndex3 = vertexIndicesList.get(baseIndex + 2);
+						indicesNew[i] = i;
 
-						int normalIndex1 = normalIndicesList.get(baseIndex);
-						int normalIndex2 = normalIndicesList.get(baseIndex + 1);
-						int normalIndex3 = normalIndicesList.get(baseIndex + 2);
+						verticesNew[vertexCount++] = verticesAsList.get((faceIndex * 3));
+						verticesNew[vertexCount++] = verticesAsList.get((faceIndex * 3) + 1);
+						verticesNew[vertexCount++] = verticesAsList.get((faceIndex * 3) + 2);
 
-						if(normalIndex1 == -1){
-							normalIndex1 = lastNormalIndex;
-						}
-						lastNormalIndex = normalIndex1;
-						if(normalIndex2 == -1){
-							normalIndex2 = lastNormalIndex;
-						}
-						lastNormalIndex = normalIndex2;
-						if(normalIndex3 == -1){
-							normalIndex3 = lastNormalIndex;
+						// The colors are bound to the same vertex attribute records as the normals
+						if(colorsNew != null){
+							colorsNew[normalCount]     = colors[(normalIndex * 3)];
+							colorsNew[normalCount + 1] = colors[(normalIndex * 3) + 1];
+							colorsNew[normalCount + 2] = colors[(normalIndex * 3) + 2];
 						}
-						lastNormalIndex = normalIndex3;
-
-						indicesNew[baseIndex]     = baseIndex;
-						indicesNew[baseIndex + 1] = baseIndex + 1;
-						indicesNew[baseIndex + 2] = baseIndex + 2;
-
-						// Apply the transformation to each vertex
-						Point3d vertex = new Point3d(	verticesAsList.get((faceIndex1 * 3)),
-														verticesAsList.get((faceIndex1 * 3) + 1),
-														verticesAsList.get((faceIndex1 * 3) + 2));
-						transformation.transform(vertex);
-						verticesNew[vertexCount++] = vertex.getX();
-						verticesNew[vertexCount++] = vertex.getY();
-						verticesNew[vertexCount++] = vertex.getZ();
-
-						vertex = new Point3d(	verticesAsList.get((faceIndex2 * 3)),
-												verticesAsList.get((faceIndex2 * 3) + 1),
-												verticesAsList.get((faceIndex2 * 3) + 2));
-						transformation.transform(vertex);
-						verticesNew[vertexCount++] = vertex.getX();
-						verticesNew[vertexCount++] = vertex.getY();
-						verticesNew[vertexCount++] = vertex.getZ();
-
-						vertex = new Point3d(	verticesAsList.get((faceIndex3 * 3)),
-												verticesAsList.get((faceIndex3 * 3) + 1),
-												verticesAsList.get((faceIndex3 * 3) + 2));
-						transformation.transform(vertex);
-						verticesNew[vertexCount++] = vertex.getX();
-						verticesNew[vertexCount++] = vertex.getY();
-						verticesNew[vertexCount++] = vertex.getZ();
-
-						// Apply the rotation to each normal 
-						Point3d normal = new Point3d(	normalsAsList.get((normalIndex1 * 3)),
-														normalsAsList.get((normalIndex1 * 3) + 1),
-														normalsAsList.get((normalIndex1 * 3) + 2));
-						rotation.transform(normal);
-						normalsNew[normalCount++] = normal.getX();
-						normalsNew[normalCount++] = normal.getY();
-						normalsNew[normalCount++] = normal.getZ();
-
-						normal = new Point3d(	normalsAsList.get((normalIndex2 * 3)),
-												normalsAsList.get((normalIndex2 * 3) + 1),
-												normalsAsList.get((normalIndex2 * 3) + 2));
-						rotation.transform(normal);
-						normalsNew[normalCount++] = normal.getX();
-						normalsNew[normalCount++] = normal.getY();
-						normalsNew[normalCount++] = normal.getZ();
-
-						normal = new Point3d(	normalsAsList.get((normalIndex3 * 3)),
-												normalsAsList.get((normalIndex3 * 3) + 1),
-												normalsAsList.get((normalIndex3 * 3) + 2));
-						rotation.transform(normal);
-						normalsNew[normalCount++] = normal.getX();
-						normalsNew[normalCount++] = normal.getY();
-						normalsNew[normalCount++] = normal.getZ();
-					}
 
-					// Possibly create color list
-					double[] colors = null;
-					if((colorsAsList == null) || (colorsAsList.size() == 0)){
-						float[] color = globalColor.getColorComponents(null);
-						colors = new double[vertexIndicesList.size()];
-						for(int i = 0; i < colors.length; i += 3){
-							colors[i]     = color[0];
-							colors[i + 1] = color[1];
-							colors[i + 2] = color[2];
-						}
-					} else {
-						colors = new double[colorsAsList.size()];
-						for(int i = 0; i < colors.length; i++){
-							colors[i] = colorsAsList.get(i);
-						}
+						normalsNew[normalCount++] = normalsAsList.get((normalIndex * 3));
+						normalsNew[normalCount++] = normalsAsList.get((normalIndex * 3) + 1);
+						normalsNew[normalCount++] = normalsAsList.get((normalIndex * 3) + 2);
 					}
 
-					_jtModel.addTriangles(verticesNew, indicesNew, colors, normalsNew, layerName);
+					return DecodedShape.createFaces(new TriangleMesh(verticesNew, indicesNew, colorsNew, normalsNew));
 
 				} else if(polylineSetShapeLODElement != null) {
 					VertexShapeLODData vertexShapeLODData = polylineSetShapeLODElement.getVertexShapeLODData();
@@ -1135,83 +1344,142 @@ public class JTImporter {
 					List<Integer> vertexIndicesList = topoMeshCompressedRepDataV1.getVertexListIndices();
 					List<Integer> primitiveIndicesList = topoMeshCompressedRepDataV1.getPrimitiveListIndices();
 					if(topoMeshCompressedRepDataV1.getCompressedVertexCoordinateArray() == null){
-						return;
+						return null;
 					}
 					List<Double> verticesAsList = topoMeshCompressedRepDataV1.getCompressedVertexCoordinateArray().getVertices();
 
-					if(colorsAsList == null){
-						colorsAsList = new ArrayList<Double>();
-						float[] color = globalColor.getColorComponents(null);
-						for(int i = 0; i < verticesAsList.size(); i += 3){
-							colorsAsList.add((double)color[0]);
-							colorsAsList.add((double)color[1]);
-							colorsAsList.add((double)color[2]);
-						}
+					// Calculate the polyline offsets
+					int polylineCount = Math.max(primitiveIndicesList.size() - 1, 0);
+					int[] offsets = new int[polylineCount + 1];
+					for(int i = 0; i < polylineCount; i++){
+						offsets[i + 1] = offsets[i] + (primitiveIndicesList.get(i + 1) - primitiveIndicesList.get(i));
 					}
 
-					// Extract the rotation from the transformation
-					Matrix4d rotation = (Matrix4d)transformation.clone();
-					rotation.setTranslation(new Vector3d());
-
-					for(int i = 0; i < (primitiveIndicesList.size() - 1); i++){
+					// Fill the vertex list
+					double[] vertices = new double[offsets[polylineCount] * 3];
+					double[] colors = (colorsAsList == null) ? null : new double[vertices.length];
+					for(int i = 0, k = 0; i < polylineCount; i++){
 						int startIndex = primitiveIndicesList.get(i);
 						int endIndex = primitiveIndicesList.get(i + 1);
-
-						// Fill the vertex list
-						List<Double[]> polylineVertices = new ArrayList<Double[]>();
-						List<Double[]> polylineColors = new ArrayList<Double[]>();
-						for(int j = startIndex; j < endIndex; j++){
+						for(int j = startIndex; j < endIndex; j++, k += 3){
 							int vertexIndex = vertexIndicesList.get(j) * 3;
-							double x = verticesAsList.get(vertexIndex);
-							double y = verticesAsList.get(vertexIndex + 1);
-							double z = verticesAsList.get(vertexIndex + 2);
-
-							// Apply the transformation to each vertex
-							Point3d vertex = new Point3d(x, y, z);
-							transformation.transform(vertex);
-
-							// Add the transformed vertex
-							polylineVertices.add(new Double[]{vertex.getX(), vertex.getY(), vertex.getZ()});
-							polylineColors.add(new Double[]{colorsAsList.get(vertexIndex),
-															colorsAsList.get(vertexIndex + 1),
-															colorsAsList.get(vertexIndex + 2)});
+							vertices[k]     = verticesAsList.get(vertexIndex);
+							vertices[k + 1] = verticesAsList.get(vertexIndex + 1);
+							vertices[k + 2] = verticesAsList.get(vertexIndex + 2);
+
+							if(colors != null){
+								colors[k]     = colorsAsList.get(vertexIndex);
+								colors[k + 1] = colorsAsList.get(vertexIndex + 1);
+								colors[k + 2] = colorsAsList.get(vertexIndex + 2);
+							}
 						}
-						_jtModel.addPolyline(polylineVertices, polylineColors, layerName);
 					}
+
+					return DecodedShape.createPolylines(new PolylineSet(vertices, colors, offsets));
 				}
 			}
 		} catch(Exception exception){
 			exception.printStackTrace();
-			addLoadInformation("WARNING", "Failed decoding node element: " + layerName + " (" + exception.getMessage() + ")");
+			addLoadInformation(Severity.WARNING, "Failed decoding node element: " + layerName + " (" + exception.getMessage() + ")", null, parentNodeObjectID, -1);
 		}
+
+		return null;
 	}
 
 	/**
-	 * Adds an unique load information message.
-	 * @param type    Message type
-	 * @param message Message text
+	 * Creates triangles with shared vertices from the output of the topological decoder. Each
+	 * unique (vertex index, normal index) tuple becomes one vertex; the colors are bound to the
+	 * same vertex attribute records as the normals and therefore need no index of their own.
+	 * @param  vertexIndicesList Vertex indices, three per triangle
+	 * @param  normalIndicesList Normal indices, three per triangle (-1: reuse the previous one)
+	 * @param  verticesAsList    Unique vertices
+	 * @param  normalsAsList     Normals of the vertex attribute records
+	 * @param  colors            Color components or null, if the color of the instance has to be used
+	 * @return                   Decoded shape
 	 */
-	public static void addLoadInformation(String type, String message){
-		for(String[] information : _loadInformation){
-			if(information[0].equals(type) && information[1].equals(message)){
-				return;
+	private DecodedShape decodeIndexedTriangles(List<Integer> vertexIndicesList, List<Integer> normalIndicesList, List<Double> verticesAsList, List<Double> normalsAsList, double[] colors){
+		VertexTupleIndex vertexTupleIndex = new VertexTupleIndex(verticesAsList.size() / 3);
+		int[] indices = new int[vertexIndicesList.size()];
+		int lastNormalIndex = -1;
+		for(int i = 0; i < indices.length; i++){
+			int normalIndex = normalIndicesList.get(i);
+			if(normalIndex == -1){
+				normalIndex = lastNormalIndex;
 			}
+			lastNormalIndex = normalIndex;
+
+			indices[i] = vertexTupleIndex.getOrAdd(vertexIndicesList.get(i), normalIndex);
 		}
-		_loadInformation.add(new String[]{type, message});
+
+		double[] vertices = new double[vertexTupleIndex.size() * 3];
+		double[] normals = new double[vertices.length];
+		double[] tupleColors = (colors != null) ? new double[vertices.length] : null;
+		for(int i = 0, k = 0; i < vertexTupleIndex.size(); i++, k += 3){
+			int vertexIndex = vertexTupleIndex.getVertexIndex(i) * 3;
+			vertices[k]     = verticesAsList.get(vertexIndex);
+			vertices[k + 1] = verticesAsList.get(vertexIndex + 1);
+			vertices[k + 2] = verticesAsList.get(vertexIndex + 2);
+
+			int normalIndex = vertexTupleIndex.getAttributeIndex(i) * 3;
+			normals[k]     = normalsAsList.get(normalIndex);
+			normals[k + 1] = normalsAsList.get(normalIndex + 1);
+			normals[k + 2] = normalsAsList.get(normalIndex + 2);
+
+			if(tupleColors != null){
+				tupleColors[k]     = colors[normalIndex];
+				tupleColors[k + 1] = colors[normalIndex + 1];
+				tupleColors[k + 2] = colors[normalIndex + 2];
+			}
+		}
+
+		return DecodedShape.createFaces(new TriangleMesh(vertices, indices, tupleColors, normals));
 	}
 
 	/**
-	 * Adds an unique unsupprted element.
-	 * @param elementID Element ID
+	 * Replaces the triangles of a decoded shape by a mesh in the configured precision and
+	 * index format, if the meshes are instanced (the instances share this mesh).
+	 * @param decodedShape Decoded shape
 	 */
-	private void addUnsupportedEntity(String elementID){
-		String newUnsupportedEntityString = _guidMapping.containsKey(elementID) ? elementID + " (" + _guidMapping.get(elementID) + ")" : elementID;
-		for(String unsupportedEntityString : _unsupportedEntities){
-			if(unsupportedEntityString.equals(newUnsupportedEntityString)){
-				return;
-			}
+	void prepareTriangleMesh(DecodedShape decodedShape){
+		TriangleMesh triangleMesh = decodedShape.getTriangleMesh();
+		if(_instancedMeshes && (triangleMesh != null)){
+			decodedShape.setTriangleMesh(ModelBuilder.createTriangleMesh(	triangleMesh.getVertices(), triangleMesh.getIndices(),
+																			triangleMesh.getColors(), triangleMesh.getNormals(),
+																			_singlePrecision, _indexedTriangles));
 		}
-		_unsupportedEntities.add(newUnsupportedEntityString);
+	}
+
+	/**
+	 * Adds a load information message. Equal messages are counted.
+	 * @param type    Message type ("WARNING" or "ERROR")
+	 * @param message Message text
+	 */
+	public void addLoadInformation(String type, String message){
+		_diagnostics.add(type.equals("ERROR") ? Severity.ERROR : (type.equals("WARNING") ? Severity.WARNING : Severity.INFO), message);
+	}
+
+	/**
+	 * Adds a load information message, referencing the file. Equal messages are counted.
+	 * @param severity      Severity
+	 * @param message       Message text
+	 * @param guid          GUID of the element or segment or null
+	 * @param objectID      Object ID of the node or -1
+	 * @param segmentOffset Byte offset of the segment in the file or -1
+	 */
+	void addLoadInformation(Severity severity, String message, GUID guid, int objectID, long segmentOffset){
+		_diagnostics.add(severity, message, (guid == null) ? null : guid.toString(), objectID, segmentOffset);
+	}
+
+	/**
+	 * Adds an unique unsupported element and counts its occurrence.
+	 * @param elementID     Element ID
+	 * @param segmentOffset Byte offset of the segment in the file
+	 */
+	private void addUnsupportedEntity(GUID elementID, long segmentOffset){
+		String elementIDString = elementID.toString();
+		String unsupportedEntityString = _guidMapping.containsKey(elementIDString) ? elementIDString + " (" + _guidMapping.get(elementIDString) + ")" : elementIDString;
+		_unsupportedEntities.add(unsupportedEntityString);
+		addLoadInformation(Severity.INFO, "Skipped unsupported element: " + unsupportedEntityString, elementID, -1, segmentOffset);
 	}
 
 	/**
@@ -1238,6 +1506,14 @@ public class JTImporter {
 		return _jtModel.getPoints();
 	}
 
+	/**
+	 * Returns the loaded model with its typed geometry containers.
+	 * @return Loaded model
+	 */
+	public JTModel getModel(){
+		return _jtModel;
+	}
+
 	/**
 	 * Returns a list of layer names with their visibility. 
 	 * @return List of layer names with their visibility
@@ -1300,40 +1576,31 @@ public class JTImporter {
 	 * @return List of string[2] with the infos and errors
 	 */
 	public ArrayList<String[]> getLoadInformation(){
-		return _loadInformation;
+		// Entries are unique by severity and message
+		ArrayList<String[]> loadInformation = new ArrayList<String[]>();
+		for(Diagnostics.Entry entry : _diagnostics.getEntries()){
+			if(entry.getSeverity() != Severity.INFO){
+				loadInformation.add(new String[]{entry.getSeverity().name(), entry.getMessage()});
+			}
+		}
+		return loadInformation;
 	}
 
 	/**
-	 * Returns specific information about the file and the model.
-	 * @return List of string[2] containing all information
+	 * Returns all messages, occured while reading the files, with their number of
+	 * occurrences and their references to the file.
+	 * @return Messages of the last imports
 	 */
-	public ArrayList<String[]> getModelInformation(){
-		return _jtModel.getModelInformation();
+	public Diagnostics getDiagnostics(){
+		return _diagnostics;
 	}
 
 	/**
-	 * Called every time when a group code has been read.
-	 * @param readBytes Number of read bytes
+	 * Returns specific information about the file and the model.
+	 * @return List of string[2] containing all information
 	 */
-	public static void updateProgress(int readBytes){
-		if(_readBytes == null){
-			return;
-		}
-
-		_readBytes.put(_currentURLName, _readBytes.get(_currentURLName) + readBytes);
-		_progressIntervall.put(_currentURLName, _progressIntervall.get(_currentURLName) + readBytes);
-
-		if(_progressListener != null){
-			if(_progressIntervall.get(_currentURLName) > ProgressListenerInterface.PROGRESS_UPDATER_FREQUENCY_PARSER){
-				_progressIntervall.put(_currentURLName, _progressIntervall.get(_currentURLName) - ProgressListenerInterface.PROGRESS_UPDATER_FREQUENCY_PARSER);
-				for(int i = 0; i < _progressListener.size(); i++){
-					ProgressListenerInterface progressListenerInterface = _progressListener.get(i);
-					if(progressListenerInterface != null){
-						progressListenerInterface.progressChanged(new ProgressEvent((byte)((_readBytes.get(_currentURLName) * 100.0) / _fileLength.get(_currentURLName))));
-					}
-				}
-			}
-		}
+	public ArrayList<String[]> getModelInformation(){
+		return _jtModel.getModelInformation();
 	}
 
 	/**
@@ -1341,11 +1608,15 @@ public class JTImporter {
 	 * @param progressListenerInterface Progress listener
 	 */
 	public void addProgressListener(ProgressListenerInterface progressListenerInterface){
-		if(_progressListener == null){
-			_progressListener = new ArrayList<ProgressListenerInterface>();
-		}
+		_progressTracker.addProgressListener(progressListenerInterface);
+	}
 
-		_progressListener.add(progressListenerInterface);
+	/**
+	 * Returns the progress of the current (or last) import per phase.
+	 * @return Progress tracker
+	 */
+	public ProgressTracker getProgressTracker(){
+		return _progressTracker;
 	}
 
 	/**
@@ -1354,6 +1625,6 @@ public class JTImporter {
 	 * @throws Exception Thrown if something failed
 	 */
 	public ArrayList<String> getUnsupportedEntities() throws Exception {
-		return _unsupportedEntities;
+		return new ArrayList<String>(_unsupportedEntities);
 	}
 }
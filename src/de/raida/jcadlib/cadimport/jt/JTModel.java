@@ -26,7 +26,7 @@ package de.raida.jcadlib.cadimport.jt;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.IdentityHashMap;
 import java.util.List;
 
 /**
@@ -54,22 +54,42 @@ public class JTModel {
 	/** Coment of the JT file */
 	private String _comment;
 
-	/** List of faces, sorted by layer */
-	private HashMap<String, ArrayList<Object[]>> _coloredFacesOnLayers;
+	/** Layer names, indexed by their layer ID */
+	private ArrayList<String> _layerNames;
 
-	/** List of polylines, sorted by layer */
-	private HashMap<String, ArrayList<Object[]>> _coloredPolylinesOnLayers;
+	/** Layer IDs, mapped by their layer names */
+	private HashMap<String, Integer> _layerIDs;
 
-	/** List of points, sorted by layer */
-	private HashMap<String, ArrayList<Object[]>> _coloredPointsOnLayers;
+	/** Triangle meshes, indexed by layer ID */
+	private ArrayList<ArrayList<TriangleMesh>> _triangleMeshesOnLayers;
+
+	/** Polyline sets, indexed by layer ID */
+	private ArrayList<ArrayList<PolylineSet>> _polylineSetsOnLayers;
+
+	/** Point sets, indexed by layer ID */
+	private ArrayList<ArrayList<PointSet>> _pointSetsOnLayers;
+
+	/** Unique meshes of the mesh instances (in local coordinates), indexed by mesh ID */
+	private ArrayList<TriangleMesh> _instancedMeshes;
+
+	/** Mesh IDs, mapped by their unique meshes */
+	private IdentityHashMap<TriangleMesh, Integer> _instancedMeshIDs;
+
+	/** Mesh instances */
+	private ArrayList<MeshInstance> _meshInstances;
 
 	/**
 	 * Constructor.
 	 */
 	public JTModel(){
-		_coloredFacesOnLayers = new HashMap<String, ArrayList<Object[]>>();
-		_coloredPolylinesOnLayers = new HashMap<String, ArrayList<Object[]>>();
-		_coloredPointsOnLayers = new HashMap<String, ArrayList<Object[]>>();
+		_layerNames = new ArrayList<String>();
+		_layerIDs = new HashMap<String, Integer>();
+		_triangleMeshesOnLayers = new ArrayList<ArrayList<TriangleMesh>>();
+		_polylineSetsOnLayers = new ArrayList<ArrayList<PolylineSet>>();
+		_pointSetsOnLayers = new ArrayList<ArrayList<PointSet>>();
+		_instancedMeshes = new ArrayList<TriangleMesh>();
+		_instancedMeshIDs = new IdentityHashMap<TriangleMesh, Integer>();
+		_meshInstances = new ArrayList<MeshInstance>();
 		_existingReferences = new ArrayList<String>();
 		_missingReferences = new ArrayList<String>();
 	}
@@ -102,36 +122,26 @@ public class JTModel {
 	 * Returns specific information about the file and the model.
 	 * @return List of string[2] containing all information
 	 */
-	@SuppressWarnings("unchecked")
 	public ArrayList<String[]> getModelInformation(){
 		if(_modelInformation == null){
 			int faceCount = 0;
 			int polylineCount = 0;
 			int pointCount = 0;
 
-			for(Iterator<String> iterator = _coloredFacesOnLayers.keySet().iterator(); iterator.hasNext();){
-				String layerName = iterator.next();
-				ArrayList<Object[]> faces = _coloredFacesOnLayers.get(layerName);
-				for(Object[] faceList : faces){
-					int[] indices = (int[])faceList[1];
-					faceCount += (indices.length / 3);
+			for(int layerID = 0; layerID < _layerNames.size(); layerID++){
+				for(TriangleMesh triangleMesh : _triangleMeshesOnLayers.get(layerID)){
+					faceCount += triangleMesh.getTriangleCount();
 				}
-			}
-
-			for(Iterator<String> iterator = _coloredPolylinesOnLayers.keySet().iterator(); iterator.hasNext();){
-				String layerName = iterator.next();
-				ArrayList<Object[]> polylines = _coloredPolylinesOnLayers.get(layerName);
-				polylineCount += polylines.size();
-			}
-
-			for(Iterator<String> iterator = _coloredPointsOnLayers.keySet().iterator(); iterator.hasNext();){
-				String layerName = iterator.next();
-				ArrayList<Object[]> points = _coloredPointsOnLayers.get(layerName);
-				for(Object[] point : points){
-					List<Double> vertices = (List<Double>)point[0];
-					pointCount += (vertices.size() / 3);
+				for(PolylineSet polylineSet : _polylineSetsOnLayers.get(layerID)){
+					polylineCount += polylineSet.getPolylineCount();
+				}
+				for(PointSet pointSet : _pointSetsOnLayers.get(layerID)){
+					pointCount += pointSet.getPointCount();
 				}
 			}
+			for(MeshInstance meshInstance : _meshInstances){
+				faceCount += _instancedMeshes.get(meshInstance.getMeshID()).getTriangleCount();
+			}
 
 			_modelInformation = new ArrayList<String[]>();
 			_modelInformation.add(new String[]{"File format", "Jupiter Tesselation (JT)"});
@@ -141,6 +151,10 @@ public class JTModel {
 			_modelInformation.add(new String[]{"Number of faces", Integer.toString(faceCount)});
 			_modelInformation.add(new String[]{"Number of polylines", Integer.toString(polylineCount)});
 			_modelInformation.add(new String[]{"Number of points", Integer.toString(pointCount)});
+			if(_meshInstances.size() > 0){
+				_modelInformation.add(new String[]{"Number of instanced meshes", Integer.toString(_instancedMeshes.size())});
+				_modelInformation.add(new String[]{"Number of mesh instances", Integer.toString(_meshInstances.size())});
+			}
 			_modelInformation.add(new String[]{"Number of existing references", Integer.toString(_existingReferences.size())});
 			for(String reference : _existingReferences){
 				_modelInformation.add(new String[]{"", reference});
@@ -160,18 +174,40 @@ public class JTModel {
 	 */
 	public HashMap<String, Boolean> getLayerMetaData(){
 		HashMap<String, Boolean> layerMetaData = new HashMap<String, Boolean>();
-		for(Iterator<String> iterator = _coloredFacesOnLayers.keySet().iterator(); iterator.hasNext();){
-			layerMetaData.put(iterator.next(), Boolean.TRUE);
-		}
-		for(Iterator<String> iterator = _coloredPolylinesOnLayers.keySet().iterator(); iterator.hasNext();){
-			layerMetaData.put(iterator.next(), Boolean.TRUE);
-		}
-		for(Iterator<String> iterator = _coloredPointsOnLayers.keySet().iterator(); iterator.hasNext();){
-			layerMetaData.put(iterator.next(), Boolean.TRUE);
+		for(String layerName : _layerNames){
+			layerMetaData.put(layerName, Boolean.TRUE);
 		}
 		return layerMetaData;
 	}
 
+	/**
+	 * Returns the number of layers.
+	 * @return Number of layers (the layer IDs range from 0 to this number - 1)
+	 */
+	public int getLayerCount(){
+		return _layerNames.size();
+	}
+
+	/**
+	 * Returns the name of a layer.
+	 * @param  layerID Layer ID
+	 * @return         Layer name
+	 */
+	public String getLayerName(int layerID){
+		return _layerNames.get(layerID);
+	}
+
+	/**
+	 * Returns the ID of a layer.
+	 * @param  layerName Layer name
+	 * @return           Layer ID or<br>
+	 *                   <b>-1</b> if the layer doesn't exist
+	 */
+	public int getLayerID(String layerName){
+		Integer layerID = _layerIDs.get(layerName);
+		return (layerID == null) ? -1 : layerID;
+	}
+
 	/**
 	 * Returns the extreme values.
 	 * @return Extreme values (double[2][3] [x1, y1, z1] and [x2, y2, z2])
@@ -181,27 +217,142 @@ public class JTModel {
 	}
 
 	/**
-	 * Returns the list of faces.
+	 * Returns the triangle meshes of a layer.
+	 * @param  layerID Layer ID
+	 * @return         Triangle meshes of the layer
+	 */
+	public List<TriangleMesh> getTriangleMeshes(int layerID){
+		return _triangleMeshesOnLayers.get(layerID);
+	}
+
+	/**
+	 * Returns the polyline sets of a layer.
+	 * @param  layerID Layer ID
+	 * @return         Polyline sets of the layer
+	 */
+	public List<PolylineSet> getPolylineSets(int layerID){
+		return _polylineSetsOnLayers.get(layerID);
+	}
+
+	/**
+	 * Returns the point sets of a layer.
+	 * @param  layerID Layer ID
+	 * @return         Point sets of the layer
+	 */
+	public List<PointSet> getPointSets(int layerID){
+		return _pointSetsOnLayers.get(layerID);
+	}
+
+	/**
+	 * Returns the number of unique meshes referenced by the mesh instances.
+	 * @return Number of instanced meshes (the mesh IDs range from 0 to this number - 1)
+	 */
+	public int getInstancedMeshCount(){
+		return _instancedMeshes.size();
+	}
+
+	/**
+	 * Returns a unique mesh referenced by the mesh instances.
+	 * @param  meshID Mesh ID
+	 * @return        Triangle mesh in local coordinates; its colors are null, if the color of the instances applies
+	 */
+	public TriangleMesh getInstancedMesh(int meshID){
+		return _instancedMeshes.get(meshID);
+	}
+
+	/**
+	 * Returns the mesh instances. They are not contained in getFaces() and getTriangleMeshes().
+	 * @return Mesh instances
+	 */
+	public List<MeshInstance> getMeshInstances(){
+		return _meshInstances;
+	}
+
+	/**
+	 * Returns the list of faces. The list is created on each call from the triangle meshes
+	 * and shares their arrays; use getTriangleMeshes() to avoid the conversion.
 	 * @return List of faces, sorted by their layers
 	 */
 	public HashMap<String, ArrayList<Object[]>> getFaces(){
-		return _coloredFacesOnLayers;
+		HashMap<String, ArrayList<Object[]>> coloredFacesOnLayers = new HashMap<String, ArrayList<Object[]>>();
+		for(int layerID = 0; layerID < _layerNames.size(); layerID++){
+			ArrayList<TriangleMesh> triangleMeshes = _triangleMeshesOnLayers.get(layerID);
+			if(triangleMeshes.size() == 0){
+				continue;
+			}
+
+			ArrayList<Object[]> faces = new ArrayList<Object[]>(triangleMeshes.size());
+			for(TriangleMesh triangleMesh : triangleMeshes){
+				faces.add(new Object[]{triangleMesh.getVertices(), triangleMesh.getIndices(), triangleMesh.getColors(), triangleMesh.getNormals()});
+			}
+			coloredFacesOnLayers.put(_layerNames.get(layerID), faces);
+		}
+		return coloredFacesOnLayers;
 	}
 
 	/**
-	 * Returns the list of polylines.
+	 * Returns the list of polylines. The list is created on each call from the polyline sets;
+	 * use getPolylineSets() to avoid the conversion.
 	 * @return List of polylines sorted by their layers
 	 */
 	public HashMap<String, ArrayList<Object[]>> getPolylines(){
-		return _coloredPolylinesOnLayers;
+		HashMap<String, ArrayList<Object[]>> coloredPolylinesOnLayers = new HashMap<String, ArrayList<Object[]>>();
+		for(int layerID = 0; layerID < _layerNames.size(); layerID++){
+			ArrayList<PolylineSet> polylineSets = _polylineSetsOnLayers.get(layerID);
+			if(polylineSets.size() == 0){
+				continue;
+			}
+
+			ArrayList<Object[]> polylines = new ArrayList<Object[]>();
+			for(PolylineSet polylineSet : polylineSets){
+				double[] vertices = polylineSet.getVertices();
+				double[] colors = polylineSet.getColors();
+				for(int i = 0; i < polylineSet.getPolylineCount(); i++){
+					int vertexCount = polylineSet.getVertexCount(i);
+					List<Double[]> polylineVertices = new ArrayList<Double[]>(vertexCount);
+					List<Double[]> polylineColors = new ArrayList<Double[]>(vertexCount);
+					for(int j = polylineSet.getStartVertex(i) * 3, k = 0; k < vertexCount; j += 3, k++){
+						polylineVertices.add(new Double[]{vertices[j], vertices[j + 1], vertices[j + 2]});
+						polylineColors.add(new Double[]{colors[j], colors[j + 1], colors[j + 2]});
+					}
+					polylines.add(new Object[]{polylineVertices, polylineColors});
+				}
+			}
+			coloredPolylinesOnLayers.put(_layerNames.get(layerID), polylines);
+		}
+		return coloredPolylinesOnLayers;
 	}
 
 	/**
-	 * Returns the list of points.
+	 * Returns the list of points. The list is created on each call from the point sets;
+	 * use getPointSets() to avoid the conversion.
 	 * @return List of points sorted by their layers
 	 */
 	public HashMap<String, ArrayList<Object[]>> getPoints(){
-		return _coloredPointsOnLayers;
+		HashMap<String, ArrayList<Object[]>> coloredPointsOnLayers = new HashMap<String, ArrayList<Object[]>>();
+		for(int layerID = 0; layerID < _layerNames.size(); layerID++){
+			ArrayList<PointSet> pointSets = _pointSetsOnLayers.get(layerID);
+			if(pointSets.size() == 0){
+				continue;
+			}
+
+			ArrayList<Object[]> points = new ArrayList<Object[]>(pointSets.size());
+			for(PointSet pointSet : pointSets){
+				double[] vertices = pointSet.getVertices();
+				float[] colors = pointSet.getColors();
+				List<Double> pointVertices = new ArrayList<Double>(vertices.length);
+				List<Float> pointColors = new ArrayList<Float>(colors.length);
+				for(int i = 0; i < vertices.length; i++){
+					pointVertices.add(vertices[i]);
+				}
+				for(int i = 0; i < colors.length; i++){
+					pointColors.add(colors[i]);
+				}
+				points.add(new Object[]{pointVertices, pointColors});
+			}
+			coloredPointsOnLayers.put(_layerNames.get(layerID), points);
+		}
+		return coloredPointsOnLayers;
 	}
 
 	/**
@@ -213,17 +364,23 @@ public class JTModel {
 	 * @param layerName Layer name
 	 */
 	public void addTriangles(double[] vertices, int[] indices, double[] colors, double[] normals, String layerName){
-		for(int i = 0; i < vertices.length; i += 3){
-			registerVertex(vertices[i + 0], vertices[i + 1], vertices[i + 2]);
-		}
+		addTriangleMesh(new TriangleMesh(vertices, indices, colors, normals), layerName);
+	}
 
-		// Possibly create layer
-		if(!_coloredFacesOnLayers.containsKey(layerName)){
-			_coloredFacesOnLayers.put(layerName, new ArrayList<Object[]>());
+	/**
+	 * Adds a triangle mesh.
+	 * @param triangleMesh Triangle mesh
+	 * @param layerName    Layer name
+	 */
+	public void addTriangleMesh(TriangleMesh triangleMesh, String layerName){
+		if(triangleMesh.isSinglePrecision()){
+			registerVertices(triangleMesh.getFloatVertices(), triangleMesh.getOrigin());
+		} else {
+			registerVertices(triangleMesh.getVertices());
 		}
 
 		// Add the colored faces to their layer
-		_coloredFacesOnLayers.get(layerName).add(new Object[]{vertices, indices, colors, normals});
+		_triangleMeshesOnLayers.get(getOrCreateLayerID(layerName)).add(triangleMesh);
 	}
 
 	/**
@@ -233,37 +390,152 @@ public class JTModel {
 	 * @param layerName Layer name
 	 */
 	public void addPolyline(List<Double[]> vertices, List<Double[]> colors, String layerName){
-		for(Double[] vertex : vertices){
-			registerVertex(vertex[0], vertex[1], vertex[2]);
+		double[] polylineVertices = new double[vertices.size() * 3];
+		double[] polylineColors = new double[vertices.size() * 3];
+		for(int i = 0, j = 0; i < vertices.size(); i++, j += 3){
+			Double[] vertex = vertices.get(i);
+			polylineVertices[j]     = vertex[0];
+			polylineVertices[j + 1] = vertex[1];
+			polylineVertices[j + 2] = vertex[2];
+
+			Double[] color = colors.get(i);
+			polylineColors[j]     = color[0];
+			polylineColors[j + 1] = color[1];
+			polylineColors[j + 2] = color[2];
 		}
+		addPolylineSet(new PolylineSet(polylineVertices, polylineColors, new int[]{0, vertices.size()}), layerName);
+	}
 
-		// Possibly create layer
-		if(!_coloredPolylinesOnLayers.containsKey(layerName)){
-			_coloredPolylinesOnLayers.put(layerName, new ArrayList<Object[]>());
+	/**
+	 * Adds a polyline set.
+	 * @param polylineSet Polyline set
+	 * @param layerName   Layer name
+	 */
+	public void addPolylineSet(PolylineSet polylineSet, String layerName){
+		if(polylineSet.isSinglePrecision()){
+			registerVertices(polylineSet.getFloatVertices(), polylineSet.getOrigin());
+		} else {
+			registerVertices(polylineSet.getVertices());
 		}
 
-		// Add the colored polyline to it's layer
-		_coloredPolylinesOnLayers.get(layerName).add(new Object[]{vertices, colors});
+		// Add the colored polylines to their layer
+		_polylineSetsOnLayers.get(getOrCreateLayerID(layerName)).add(polylineSet);
 	}
 
 	/**
-	 * Adds many triangles.
+	 * Adds many points.
 	 * @param vertices  List of vertices
 	 * @param colors    List of color components
 	 * @param layerName Layer name
 	 */
 	public void addPoints(List<Double> vertices, List<Float> colors, String layerName){
-		for(int i = 0; i < vertices.size(); i += 3){
-			registerVertex(vertices.get(i), vertices.get(i + 1), vertices.get(i + 2));
+		double[] pointVertices = new double[vertices.size()];
+		for(int i = 0; i < pointVertices.length; i++){
+			pointVertices[i] = vertices.get(i);
 		}
+		float[] pointColors = new float[colors.size()];
+		for(int i = 0; i < pointColors.length; i++){
+			pointColors[i] = colors.get(i);
+		}
+		addPointSet(new PointSet(pointVertices, pointColors), layerName);
+	}
 
-		// Possibly create layer
-		if(!_coloredPointsOnLayers.containsKey(layerName)){
-			_coloredPointsOnLayers.put(layerName, new ArrayList<Object[]>());
+	/**
+	 * Adds a point set.
+	 * @param pointSet  Point set
+	 * @param layerName Layer name
+	 */
+	public void addPointSet(PointSet pointSet, String layerName){
+		if(pointSet.isSinglePrecision()){
+			registerVertices(pointSet.getFloatVertices(), pointSet.getOrigin());
+		} else {
+			registerVertices(pointSet.getVertices());
 		}
 
 		// Add the colored points to their layer
-		_coloredPointsOnLayers.get(layerName).add(new Object[]{vertices, colors});
+		_pointSetsOnLayers.get(getOrCreateLayerID(layerName)).add(pointSet);
+	}
+
+	/**
+	 * Adds an instance of a triangle mesh. Instances of the same mesh object share one mesh ID.
+	 * @param triangleMesh   Triangle mesh in local coordinates
+	 * @param transformation Transformation (4x4 matrix, row by row)
+	 * @param color          Color components (r, g, b)
+	 * @param layerName      Layer name
+	 */
+	public void addMeshInstance(TriangleMesh triangleMesh, double[] transformation, float[] color, String layerName){
+		double[] vertices = triangleMesh.getVertices();
+		double[] t = transformation;
+		for(int i = 0; i < vertices.length; i += 3){
+			double x = vertices[i];
+			double y = vertices[i + 1];
+			double z = vertices[i + 2];
+			registerVertex(	(t[0] * x) + (t[1] * y) + (t[2]  * z) + t[3],
+							(t[4] * x) + (t[5] * y) + (t[6]  * z) + t[7],
+							(t[8] * x) + (t[9] * y) + (t[10] * z) + t[11]);
+		}
+
+		addMeshInstance(triangleMesh, transformation, color, getOrCreateLayerID(layerName));
+	}
+
+	/**
+	 * Adds an instance of a triangle mesh without registering its vertices.
+	 * @param triangleMesh   Triangle mesh in local coordinates
+	 * @param transformation Transformation (4x4 matrix, row by row)
+	 * @param color          Color components (r, g, b)
+	 * @param layerID        Layer ID
+	 */
+	private void addMeshInstance(TriangleMesh triangleMesh, double[] transformation, float[] color, int layerID){
+		Integer meshID = _instancedMeshIDs.get(triangleMesh);
+		if(meshID == null){
+			meshID = _instancedMeshes.size();
+			_instancedMeshes.add(triangleMesh);
+			_instancedMeshIDs.put(triangleMesh, meshID);
+		}
+
+		_meshInstances.add(new MeshInstance(meshID, transformation, color, layerID));
+	}
+
+	/**
+	 * Adds all faces, polylines, points and mesh instances of the given model, keeping their order.
+	 * @param jtModel Model to add
+	 */
+	public void addModel(JTModel jtModel){
+		for(int layerID = 0; layerID < jtModel.getLayerCount(); layerID++){
+			int ownLayerID = getOrCreateLayerID(jtModel.getLayerName(layerID));
+			_triangleMeshesOnLayers.get(ownLayerID).addAll(jtModel.getTriangleMeshes(layerID));
+			_polylineSetsOnLayers.get(ownLayerID).addAll(jtModel.getPolylineSets(layerID));
+			_pointSetsOnLayers.get(ownLayerID).addAll(jtModel.getPointSets(layerID));
+		}
+
+		for(MeshInstance meshInstance : jtModel.getMeshInstances()){
+			addMeshInstance(jtModel.getInstancedMesh(meshInstance.getMeshID()), meshInstance.getTransformation(),
+					meshInstance.getColor(), getOrCreateLayerID(jtModel.getLayerName(meshInstance.getLayerID())));
+		}
+
+		double[][] extremeValues = jtModel.getExtremeValues();
+		if(extremeValues != null){
+			registerVertex(extremeValues[0][0], extremeValues[0][1], extremeValues[0][2]);
+			registerVertex(extremeValues[1][0], extremeValues[1][1], extremeValues[1][2]);
+		}
+	}
+
+	/**
+	 * Returns the ID of the given layer, creating the layer if it doesn't exist yet.
+	 * @param  layerName Layer name
+	 * @return           Layer ID
+	 */
+	private int getOrCreateLayerID(String layerName){
+		Integer layerID = _layerIDs.get(layerName);
+		if(layerID == null){
+			layerID = _layerNames.size();
+			_layerNames.add(layerName);
+			_layerIDs.put(layerName, layerID);
+			_triangleMeshesOnLayers.add(new ArrayList<TriangleMesh>());
+			_polylineSetsOnLayers.add(new ArrayList<PolylineSet>());
+			_pointSetsOnLayers.add(new ArrayList<PointSet>());
+		}
+		return layerID;
 	}
 
 	/**
@@ -283,6 +555,27 @@ public class JTModel {
 		}
 	}
 
+	/**
+	 * Registers all vertices of an array (x, y, z) for detecting the extreme values.
+	 * @param vertices Vertices
+	 */
+	private void registerVertices(double[] vertices){
+		for(int i = 0; i < vertices.length; i += 3){
+			registerVertex(vertices[i], vertices[i + 1], vertices[i + 2]);
+		}
+	}
+
+	/**
+	 * Registers all single precision vertices of an array (x, y, z) for detecting the extreme values.
+	 * @param vertices Vertices, relative to the origin
+	 * @param origin   Origin (x, y, z)
+	 */
+	private void registerVertices(float[] vertices, double[] origin){
+		for(int i = 0; i < vertices.length; i += 3){
+			registerVertex(vertices[i] + origin[0], vertices[i + 1] + origin[1], vertices[i + 2] + origin[2]);
+		}
+	}
+
 	/**
 	 * Register a vertex for detecting the extreme values.
 	 * @param x X value
@@ -321,8 +614,6 @@ public class JTModel {
 	 * @return           Is the layer name already used?
 	 */
 	public boolean isLayerAvailable(String layerName){
-		return (	_coloredFacesOnLayers.containsKey(layerName) ||
-					_coloredPolylinesOnLayers.containsKey(layerName) ||
-					_coloredPointsOnLayers.containsKey(layerName));
+		return _layerIDs.containsKey(layerName);
 	}
 }
@@ -0,0 +1,173 @@
+//################################################################################
+//	The MIT License
+//
+//	Copyright (c) 2014 Johannes Raida
+//
+//	Permission is hereby granted, free of charge, to any person obtaining a copy
+//	of this software and associated documentation files (the "Software"), to deal
+//	in the Software without restriction, including without limitation the rights
+//	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+//	copies of the Software, and to permit persons to whom the Software is
+//	furnished to do so, subject to the following conditions:
+//
+//	The above copyright notice and this permission notice shall be included in
+//	all copies or substantial portions of the Software.
+//
+//	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+//	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+//	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+//	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+//	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+//	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+//	THE SOFTWARE.
+//################################################################################
+
+package de.raida.jcadlib.cadimport.jt;
+
+import java.awt.Color;
+
+/**
+ * State, accumulated while walking down the LSG: the world transformation, the inherited
+ * material color and the layer path of a node. Every state is derived once from the state
+ * of the parent node and shares all values, the node doesn't override.
+ * <br>(c) 2014 by <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @author  <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @version 1.0
+ */
+class LSGNodeState {
+	/** Identity transformation (3x4 affine matrix, row by row) */
+	private final static double[] IDENTITY = new double[]{	1.0, 0.0, 0.0, 0.0,
+															0.0, 1.0, 0.0, 0.0,
+															0.0, 0.0, 1.0, 0.0};
+
+	/** World transformation (3x4 affine matrix, row by row) */
+	private double[] _transformation;
+
+	/** Inherited material color (null, if no material has been assigned) */
+	private Color _color;
+
+	/** Layer path of the nearest named node (null, if no node has been named) */
+	private LayerPath _layerPath;
+
+	/**
+	 * Constructor for the state above the LSG root node.
+	 */
+	LSGNodeState(){
+		this(IDENTITY, null, null);
+	}
+
+	/**
+	 * Constructor.
+	 * @param transformation World transformation (3x4 affine matrix, row by row)
+	 * @param color          Inherited material color
+	 * @param layerPath      Layer path of the nearest named node
+	 */
+	private LSGNodeState(double[] transformation, Color color, LayerPath layerPath){
+		_transformation = transformation;
+		_color = color;
+		_layerPath = layerPath;
+	}
+
+	/**
+	 * Derives the state of a child node.
+	 * @param  localTransformation Transformation of the child node (3x4 affine matrix, row by row) or<br>
+	 *                             <b>null</b>, if the node isn't transformed
+	 * @param  color               Material color of the child node or<br>
+	 *                             <b>null</b>, if the color is inherited
+	 * @param  nodeName            Name of the child node or<br>
+	 *                             <b>null</b>, if the node doesn't contribute to the layer name
+	 * @param  layerName           Name of the child node, as used in the layer name
+	 * @return                     State of the child node
+	 */
+	LSGNodeState createChild(double[] localTransformation, Color color, String nodeName, String layerName){
+		double[] transformation = (localTransformation == null) ? _transformation : multiply(_transformation, localTransformation);
+
+		LayerPath layerPath = _layerPath;
+		if(nodeName != null){
+			// Parent names, matching the name of this node, are collapsed into this node
+			LayerPath parentLayerPath = _layerPath;
+			while((parentLayerPath != null) && parentLayerPath._nodeName.equals(layerName)){
+				parentLayerPath = parentLayerPath._parent;
+			}
+			String path = (parentLayerPath == null) ? layerName : (parentLayerPath._path + "#" + layerName);
+			layerPath = new LayerPath(nodeName, path, _layerPath);
+		}
+
+		return new LSGNodeState(transformation, (color == null) ? _color : color, layerPath);
+	}
+
+	/**
+	 * Returns the world transformation.
+	 * @return World transformation (4x4 matrix, row by row)
+	 */
+	double[] getTransformation(){
+		double[] transformation = new double[16];
+		System.arraycopy(_transformation, 0, transformation, 0, 12);
+		transformation[15] = 1.0;
+		return transformation;
+	}
+
+	/**
+	 * Returns the inherited material color.
+	 * @return Material color or<br>
+	 *         <b>JTImporter.DEFAULT_COLOR</b>, if no material has been assigned
+	 */
+	Color getColor(){
+		return (_color == null) ? JTImporter.DEFAULT_COLOR : _color;
+	}
+
+	/**
+	 * Returns the layer name.
+	 * @return Layer name or<br>
+	 *         <b>JTImporter.DEFAULT_LAYER</b>, if no node has been named
+	 */
+	String getLayerName(){
+		return (_layerPath == null) ? JTImporter.DEFAULT_LAYER : _layerPath._path;
+	}
+
+	/**
+	 * Multiplies two affine transformations.
+	 * @param  a First matrix (3x4 affine matrix, row by row)
+	 * @param  b Second matrix (3x4 affine matrix, row by row)
+	 * @return   Product a * b (3x4 affine matrix, row by row)
+	 */
+	static double[] multiply(double[] a, double[] b){
+		double[] product = new double[12];
+		for(int row = 0; row < 12; row += 4){
+			double a0 = a[row];
+			double a1 = a[row + 1];
+			double a2 = a[row + 2];
+			product[row]     = (a0 * b[0]) + (a1 * b[4]) + (a2 * b[8]);
+			product[row + 1] = (a0 * b[1]) + (a1 * b[5]) + (a2 * b[9]);
+			product[row + 2] = (a0 * b[2]) + (a1 * b[6]) + (a2 * b[10]);
+			product[row + 3] = (a0 * b[3]) + (a1 * b[7]) + (a2 * b[11]) + a[row + 3];
+		}
+		return product;
+	}
+
+	/**
+	 * Layer path, ending at a named node.
+	 */
+	private static class LayerPath {
+		/** Name of the node */
+		private String _nodeName;
+
+		/** Layer path, ending at the node */
+		private String _path;
+
+		/** Layer path of the nearest named parent node */
+		private LayerPath _parent;
+
+		/**
+		 * Constructor.
+		 * @param nodeName Name of the node
+		 * @param path     Layer path, ending at the node
+		 * @param parent   Layer path of the nearest named parent node
+		 */
+		private LayerPath(String nodeName, String path, LayerPath parent){
+			_nodeName = nodeName;
+			_path = path;
+			_parent = parent;
+		}
+	}
+}
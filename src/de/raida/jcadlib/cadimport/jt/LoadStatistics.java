@@ -0,0 +1,398 @@
+//################################################################################
+//	The MIT License
+//
+//	Copyright (c) 2014 Johannes Raida
+//
+//	Permission is hereby granted, free of charge, to any person obtaining a copy
+//	of this software and associated documentation files (the "Software"), to deal
+//	in the Software without restriction, including without limitation the rights
+//	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+//	copies of the Software, and to permit persons to whom the Software is
+//	furnished to do so, subject to the following conditions:
+//
+//	The above copyright notice and this permission notice shall be included in
+//	all copies or substantial portions of the Software.
+//
+//	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+//	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+//	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+//	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+//	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+//	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+//	THE SOFTWARE.
+//################################################################################
+
+package de.raida.jcadlib.cadimport.jt;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Timings and counters of the import phases, collected while loading files (see
+ * JTImporter.setLoadStatistics()). For each phase, the number of runs, the wall time, the
+ * CPU time, the consumed and produced bytes, the decoded symbols and the allocated bytes
+ * are summed up over all threads and all loaded files, until the statistics are reset.
+ * <br>Phases nest: e.g. the time of the LSG phase includes the segment inflation, the time
+ * of a codec includes nested codecs. CPU time and allocated bytes stay 0, if the JVM
+ * doesn't measure them per thread. Each phase is measured by a pair of calls:
+ * <pre>
+ * int statisticsFrame = LoadStatistics.startPhase();
+ * ...
+ * LoadStatistics.stopPhase(statisticsFrame, Phase.DEQUANTIZATION, bytesIn, bytesOut, symbolCount);
+ * </pre>
+ * Stopping a phase also discards the nested phases, which haven't been stopped, because an
+ * exception has been thrown (and caught) in between.
+ * The calls only count for the statistics of the importer, running on the current thread,
+ * and cost a thread local lookup, if the statistics are disabled.
+ * <br>(c) 2014 by <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @author  <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @version 1.0
+ */
+public class LoadStatistics {
+	/**
+	 * Import phases.
+	 */
+	public static enum Phase {
+		/** Reading the file into memory (bytes in: file size) */
+		FILE_READ,
+
+		/** Parsing the file header and the TOC (bytes in: header and TOC size) */
+		HEADER,
+
+		/** Inflating ZLIB compressed elements and vertex data (bytes in/out: compressed/uncompressed size) */
+		SEGMENT_INFLATE,
+
+		/** Reading the LSG elements, building and walking the LSG (symbols: JT nodes) */
+		LSG,
+
+		/** Null codec (bytes in: code text, bytes out: values, symbols: values) */
+		CODEC_NULL,
+
+		/** Bitlength codec (bytes in: code text, bytes out: values, symbols: values) */
+		CODEC_BITLENGTH,
+
+		/** Huffman codec (bytes in: code text, bytes out: values, symbols: values) */
+		CODEC_HUFFMAN,
+
+		/** Arithmetic codec (bytes in: code text, bytes out: values, symbols: values) */
+		CODEC_ARITHMETIC,
+
+		/** Chopper codec, including its nested codecs (bytes out: values, symbols: values) */
+		CODEC_CHOPPER,
+
+		/** Decoding the topology of JT v9 meshes (symbols: indices) */
+		MESH_TOPOLOGY,
+
+		/** Dequantizing coordinates, texture coordinates and colors (bytes in/out: codes/values, symbols: values) */
+		DEQUANTIZATION,
+
+		/** Transforming the geometry into world coordinates (bytes in/out: coordinates, symbols: vertices) */
+		TRANSFORMATION,
+
+		/** Preparing the meshes and passing the geometry on to the visitor */
+		MODEL_ASSEMBLY
+	}
+
+	/** Index of the number of runs in the values of a phase */
+	private final static int COUNT = 0;
+
+	/** Index of the wall time */
+	private final static int WALL_TIME = 1;
+
+	/** Index of the CPU time */
+	private final static int CPU_TIME = 2;
+
+	/** Index of the consumed bytes */
+	private final static int BYTES_IN = 3;
+
+	/** Index of the produced bytes */
+	private final static int BYTES_OUT = 4;
+
+	/** Index of the decoded symbols */
+	private final static int SYMBOL_COUNT = 5;
+
+	/** Index of the allocated bytes */
+	private final static int ALLOCATED_BYTES = 6;
+
+	/** Number of values per phase */
+	private final static int VALUE_COUNT = 7;
+
+	/** Thread bean, measuring the CPU time (null, if not supported) */
+	private final static ThreadMXBean CPU_TIME_BEAN = getCpuTimeBean();
+
+	/** Thread bean, measuring the allocated bytes (null, if not supported) */
+	private final static com.sun.management.ThreadMXBean ALLOCATION_BEAN = getAllocationBean();
+
+	/** Measuring state of the threads */
+	private final static ThreadLocal<ThreadState> THREAD_STATE = new ThreadLocal<ThreadState>(){
+		protected ThreadState initialValue(){
+			return new ThreadState();
+		}
+	};
+
+	/** Values of all phases, VALUE_COUNT per phase */
+	private AtomicLongArray _values;
+
+	/**
+	 * Constructor.
+	 */
+	public LoadStatistics(){
+		_values = new AtomicLongArray(Phase.values().length * VALUE_COUNT);
+	}
+
+	/**
+	 * Starts measuring a phase on the current thread.
+	 * @return Frame of the phase, to pass on to stopPhase() or<br>
+	 *         <b>-1</b>, if the statistics are disabled
+	 */
+	public static int startPhase(){
+		ThreadState threadState = THREAD_STATE.get();
+		if(threadState._loadStatistics == null){
+			return -1;
+		}
+
+		if(threadState._depth == threadState._startValues.length){
+			long[] startValues = new long[threadState._startValues.length * 2];
+			System.arraycopy(threadState._startValues, 0, startValues, 0, threadState._startValues.length);
+			threadState._startValues = startValues;
+		}
+		threadState._startValues[threadState._depth++] = System.nanoTime();
+		threadState._startValues[threadState._depth++] = getCpuTime();
+		threadState._startValues[threadState._depth++] = getAllocatedBytes();
+		return threadState._depth - 3;
+	}
+
+	/**
+	 * Stops measuring a phase on the current thread. Nested phases, which haven't been stopped,
+	 * are discarded.
+	 * @param frame       Frame of the phase, returned by startPhase()
+	 * @param phase       Phase
+	 * @param bytesIn     Number of consumed bytes
+	 * @param bytesOut    Number of produced bytes
+	 * @param symbolCount Number of decoded symbols
+	 */
+	public static void stopPhase(int frame, Phase phase, long bytesIn, long bytesOut, long symbolCount){
+		ThreadState threadState = THREAD_STATE.get();
+		if((threadState._loadStatistics == null) || (frame < 0) || ((frame + 3) > threadState._depth)){
+			return;
+		}
+
+		threadState._depth = frame;
+		long wallTime = System.nanoTime() - threadState._startValues[frame];
+		long cpuTime = getCpuTime() - threadState._startValues[frame + 1];
+		long allocatedBytes = getAllocatedBytes() - threadState._startValues[frame + 2];
+
+		AtomicLongArray values = threadState._loadStatistics._values;
+		int offset = phase.ordinal() * VALUE_COUNT;
+		values.incrementAndGet(offset + COUNT);
+		values.addAndGet(offset + WALL_TIME, wallTime);
+		values.addAndGet(offset + CPU_TIME, cpuTime);
+		values.addAndGet(offset + BYTES_IN, bytesIn);
+		values.addAndGet(offset + BYTES_OUT, bytesOut);
+		values.addAndGet(offset + SYMBOL_COUNT, symbolCount);
+		values.addAndGet(offset + ALLOCATED_BYTES, allocatedBytes);
+	}
+
+	/**
+	 * Lets the following phases on the current thread count for the given statistics, until
+	 * the returned attachment is detached.
+	 * @param  loadStatistics Statistics or null
+	 * @return                Attachment, restoring the previous statistics
+	 */
+	static Attachment attach(LoadStatistics loadStatistics){
+		ThreadState threadState = THREAD_STATE.get();
+		Attachment attachment = new Attachment(threadState, threadState._loadStatistics, threadState._depth);
+		threadState._loadStatistics = loadStatistics;
+		return attachment;
+	}
+
+	/**
+	 * Returns the number of runs of a phase.
+	 * @param  phase Phase
+	 * @return       Number of runs
+	 */
+	public long getCount(Phase phase){
+		return _values.get((phase.ordinal() * VALUE_COUNT) + COUNT);
+	}
+
+	/**
+	 * Returns the wall time of a phase.
+	 * @param  phase Phase
+	 * @return       Wall time in nanoseconds
+	 */
+	public long getWallTime(Phase phase){
+		return _values.get((phase.ordinal() * VALUE_COUNT) + WALL_TIME);
+	}
+
+	/**
+	 * Returns the CPU time of a phase.
+	 * @param  phase Phase
+	 * @return       CPU time in nanoseconds
+	 */
+	public long getCpuTime(Phase phase){
+		return _values.get((phase.ordinal() * VALUE_COUNT) + CPU_TIME);
+	}
+
+	/**
+	 * Returns the number of bytes, consumed by a phase.
+	 * @param  phase Phase
+	 * @return       Number of consumed bytes
+	 */
+	public long getBytesIn(Phase phase){
+		return _values.get((phase.ordinal() * VALUE_COUNT) + BYTES_IN);
+	}
+
+	/**
+	 * Returns the number of bytes, produced by a phase.
+	 * @param  phase Phase
+	 * @return       Number of produced bytes
+	 */
+	public long getBytesOut(Phase phase){
+		return _values.get((phase.ordinal() * VALUE_COUNT) + BYTES_OUT);
+	}
+
+	/**
+	 * Returns the number of symbols, decoded by a phase.
+	 * @param  phase Phase
+	 * @return       Number of decoded symbols
+	 */
+	public long getSymbolCount(Phase phase){
+		return _values.get((phase.ordinal() * VALUE_COUNT) + SYMBOL_COUNT);
+	}
+
+	/**
+	 * Returns the number of bytes, allocated by a phase.
+	 * @param  phase Phase
+	 * @return       Number of allocated bytes
+	 */
+	public long getAllocatedBytes(Phase phase){
+		return _values.get((phase.ordinal() * VALUE_COUNT) + ALLOCATED_BYTES);
+	}
+
+	/**
+	 * Resets all values.
+	 */
+	public void reset(){
+		for(int i = 0; i < _values.length(); i++){
+			_values.set(i, 0);
+		}
+	}
+
+	/**
+	 * Returns the statistics as table, one line per phase.
+	 * @return Statistics as table
+	 */
+	public String toString(){
+		StringBuilder stringBuilder = new StringBuilder();
+		stringBuilder.append(String.format(Locale.ENGLISH, "%-16s %10s %12s %12s %14s %14s %14s %14s%n",
+				"Phase", "Count", "Wall [ms]", "CPU [ms]", "Bytes in", "Bytes out", "Symbols", "Allocated"));
+		for(Phase phase : Phase.values()){
+			stringBuilder.append(String.format(Locale.ENGLISH, "%-16s %10d %12.3f %12.3f %14d %14d %14d %14d%n",
+					phase, getCount(phase), getWallTime(phase) / 1e6, getCpuTime(phase) / 1e6,
+					getBytesIn(phase), getBytesOut(phase), getSymbolCount(phase), getAllocatedBytes(phase)));
+		}
+		return stringBuilder.toString();
+	}
+
+	/**
+	 * Returns the CPU time of the current thread.
+	 * @return CPU time in nanoseconds or 0, if not supported
+	 */
+	private static long getCpuTime(){
+		return (CPU_TIME_BEAN != null) ? CPU_TIME_BEAN.getCurrentThreadCpuTime() : 0;
+	}
+
+	/**
+	 * Returns the number of bytes, allocated by the current thread.
+	 * @return Number of allocated bytes or 0, if not supported
+	 */
+	private static long getAllocatedBytes(){
+		return (ALLOCATION_BEAN != null) ? ALLOCATION_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+	}
+
+	/**
+	 * Returns the thread bean, if it measures the CPU time of the current thread.
+	 * @return Thread bean or null
+	 */
+	private static ThreadMXBean getCpuTimeBean(){
+		try {
+			ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+			if(threadMXBean.isCurrentThreadCpuTimeSupported() && threadMXBean.isThreadCpuTimeEnabled()){
+				return threadMXBean;
+			}
+		} catch(Throwable throwable){
+			// Management isn't available
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the thread bean, if it measures the allocated bytes of the threads.
+	 * @return Thread bean or null
+	 */
+	private static com.sun.management.ThreadMXBean getAllocationBean(){
+		try {
+			ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+			if(threadMXBean instanceof com.sun.management.ThreadMXBean){
+				com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean)threadMXBean;
+				if(allocationBean.isThreadAllocatedMemorySupported() && allocationBean.isThreadAllocatedMemoryEnabled()){
+					return allocationBean;
+				}
+			}
+		} catch(Throwable throwable){
+			// Management or the JDK extension isn't available
+		}
+		return null;
+	}
+
+	/**
+	 * Measuring state of a thread.
+	 */
+	private static class ThreadState {
+		/** Statistics, the phases count for (null, if disabled) */
+		private LoadStatistics _loadStatistics;
+
+		/** Start values of the running phases (wall time, CPU time, allocated bytes) */
+		private long[] _startValues = new long[3 * 16];
+
+		/** Number of used start values */
+		private int _depth;
+	}
+
+	/**
+	 * Attachment of statistics to a thread.
+	 */
+	static class Attachment {
+		/** Measuring state of the thread */
+		private ThreadState _threadState;
+
+		/** Previous statistics of the thread */
+		private LoadStatistics _previousLoadStatistics;
+
+		/** Previous number of used start values */
+		private int _previousDepth;
+
+		/**
+		 * Constructor.
+		 * @param threadState            Measuring state of the thread
+		 * @param previousLoadStatistics Previous statistics of the thread
+		 * @param previousDepth          Previous number of used start values
+		 */
+		private Attachment(ThreadState threadState, LoadStatistics previousLoadStatistics, int previousDepth){
+			_threadState = threadState;
+			_previousLoadStatistics = previousLoadStatistics;
+			_previousDepth = previousDepth;
+		}
+
+		/**
+		 * Restores the previous statistics of the thread. Phases, which have not been
+		 * stopped (e.g. due to an exception), are dropped.
+		 */
+		void detach(){
+			_threadState._loadStatistics = _previousLoadStatistics;
+			_threadState._depth = _previousDepth;
+		}
+	}
+}
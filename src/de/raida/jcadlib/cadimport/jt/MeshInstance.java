@@ -0,0 +1,91 @@
+//################################################################################
+//	The MIT License
+//
+//	Copyright (c) 2014 Johannes Raida
+//
+//	Permission is hereby granted, free of charge, to any person obtaining a copy
+//	of this software and associated documentation files (the "Software"), to deal
+//	in the Software without restriction, including without limitation the rights
+//	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+//	copies of the Software, and to permit persons to whom the Software is
+//	furnished to do so, subject to the following conditions:
+//
+//	The above copyright notice and this permission notice shall be included in
+//	all copies or substantial portions of the Software.
+//
+//	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+//	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+//	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+//	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+//	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+//	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+//	THE SOFTWARE.
+//################################################################################
+
+package de.raida.jcadlib.cadimport.jt;
+
+/**
+ * Instance of a unique triangle mesh of a JTModel, placed by its own transformation.
+ * <br>(c) 2014 by <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @author  <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @version 1.0
+ */
+public class MeshInstance {
+	/** ID of the instanced mesh */
+	private int _meshID;
+
+	/** Transformation (4x4 matrix, row by row) */
+	private double[] _transformation;
+
+	/** Color components (r, g, b) */
+	private float[] _color;
+
+	/** Layer ID */
+	private int _layerID;
+
+	/**
+	 * Constructor.
+	 * @param meshID         ID of the instanced mesh
+	 * @param transformation Transformation (4x4 matrix, row by row)
+	 * @param color          Color components (r, g, b)
+	 * @param layerID        Layer ID
+	 */
+	public MeshInstance(int meshID, double[] transformation, float[] color, int layerID){
+		_meshID = meshID;
+		_transformation = transformation;
+		_color = color;
+		_layerID = layerID;
+	}
+
+	/**
+	 * Returns the ID of the instanced mesh.
+	 * @return ID of the instanced mesh
+	 */
+	public int getMeshID(){
+		return _meshID;
+	}
+
+	/**
+	 * Returns the transformation.
+	 * @return Transformation (4x4 matrix, row by row)
+	 */
+	public double[] getTransformation(){
+		return _transformation;
+	}
+
+	/**
+	 * Returns the color. It applies to all triangles, if the mesh has no colors of its own.
+	 * @return Color components (r, g, b)
+	 */
+	public float[] getColor(){
+		return _color;
+	}
+
+	/**
+	 * Returns the layer ID.
+	 * @return Layer ID
+	 */
+	public int getLayerID(){
+		return _layerID;
+	}
+}
@@ -0,0 +1,228 @@
+//################################################################################
+//	The MIT License
+//
+//	Copyright (c) 2014 Johannes Raida
+//
+//	Permission is hereby granted, free of charge, to any person obtaining a copy
+//	of this software and associated documentation files (the "Software"), to deal
+//	in the Software without restriction, including without limitation the rights
+//	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+//	copies of the Software, and to permit persons to whom the Software is
+//	furnished to do so, subject to the following conditions:
+//
+//	The above copyright notice and this permission notice shall be included in
+//	all copies or substantial portions of the Software.
+//
+//	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+//	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+//	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+//	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+//	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+//	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+//	THE SOFTWARE.
+//################################################################################
+
+package de.raida.jcadlib.cadimport.jt;
+
+import de.raida.jcadlib.cadimport.jt.LoadStatistics.Phase;
+
+/**
+ * Geometry visitor, accumulating the geometry in a JT model. Unless the meshes are
+ * instanced, each shape instance is transformed into world coordinates and stored in
+ * new arrays of the configured precision.
+ * <br>(c) 2014 by <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @author  <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @version 1.0
+ */
+class ModelBuilder implements GeometryVisitor {
+	/** JT model to fill */
+	private JTModel _jtModel;
+
+	/** Store the geometry in single precision? */
+	private boolean _singlePrecision;
+
+	/** Store the triangle indices as 16 bit values where possible? */
+	private boolean _compactIndices;
+
+	/** Store each triangle mesh once and reference it by mesh instances? */
+	private boolean _instancedMeshes;
+
+	/**
+	 * Constructor.
+	 * @param jtModel         JT model to fill
+	 * @param singlePrecision Store the geometry in single precision?
+	 * @param compactIndices  Store the triangle indices as 16 bit values where possible?
+	 * @param instancedMeshes Store each triangle mesh once and reference it by mesh instances?
+	 */
+	public ModelBuilder(JTModel jtModel, boolean singlePrecision, boolean compactIndices, boolean instancedMeshes){
+		_jtModel = jtModel;
+		_singlePrecision = singlePrecision;
+		_compactIndices = compactIndices;
+		_instancedMeshes = instancedMeshes;
+	}
+
+	/**
+	 * Adds a mesh instance or the transformed triangles to the model.
+	 * @param triangleMesh   Triangle mesh in local coordinates
+	 * @param transformation World transformation (4x4 matrix, row by row)
+	 * @param color          Color of the instance (r, g, b)
+	 * @param layerName      Layer name
+	 */
+	public void onMesh(TriangleMesh triangleMesh, double[] transformation, float[] color, String layerName){
+		if(_instancedMeshes){
+			_jtModel.addMeshInstance(triangleMesh, transformation, color, layerName);
+			return;
+		}
+
+		int[] indices = triangleMesh.getIndices();
+		double[] vertices = transformPoints(triangleMesh.getVertices(), transformation);
+		double[] normals = transformVectors(triangleMesh.getNormals(), transformation);
+
+		// Possibly create color list
+		double[] colors = triangleMesh.getColors();
+		if(colors == null){
+			colors = new double[triangleMesh.getVertexCount() * 3];
+			for(int i = 0; i < colors.length; i += 3){
+				colors[i]     = color[0];
+				colors[i + 1] = color[1];
+				colors[i + 2] = color[2];
+			}
+		}
+
+		_jtModel.addTriangleMesh(createTriangleMesh(vertices, indices, colors, normals, _singlePrecision, _compactIndices), layerName);
+	}
+
+	/**
+	 * Adds the transformed polylines to the model.
+	 * @param polylineSet    Polylines in local coordinates
+	 * @param transformation World transformation (4x4 matrix, row by row)
+	 * @param color          Color of the instance (r, g, b)
+	 * @param layerName      Layer name
+	 */
+	public void onPolyline(PolylineSet polylineSet, double[] transformation, float[] color, String layerName){
+		double[] vertices = transformPoints(polylineSet.getVertices(), transformation);
+
+		// Possibly create color list
+		double[] colors = polylineSet.getColors();
+		if(colors == null){
+			colors = new double[vertices.length];
+			for(int i = 0; i < colors.length; i += 3){
+				colors[i]     = color[0];
+				colors[i + 1] = color[1];
+				colors[i + 2] = color[2];
+			}
+		}
+
+		if(_singlePrecision){
+			_jtModel.addPolylineSet(PolylineSet.createSinglePrecision(vertices, colors, polylineSet.getOffsets()), layerName);
+		} else {
+			_jtModel.addPolylineSet(new PolylineSet(vertices, colors, polylineSet.getOffsets()), layerName);
+		}
+	}
+
+	/**
+	 * Adds the points to the model (points are not transformed).
+	 * @param pointSet       Points in local coordinates
+	 * @param transformation World transformation (4x4 matrix, row by row)
+	 * @param color          Color of the instance (r, g, b)
+	 * @param layerName      Layer name
+	 */
+	public void onPoints(PointSet pointSet, double[] transformation, float[] color, String layerName){
+		double[] vertices = pointSet.getVertices();
+
+		// Possibly create color list
+		float[] colors = pointSet.getColors();
+		if(colors == null){
+			colors = new float[vertices.length];
+			for(int i = 0; i < colors.length; i += 3){
+				colors[i]     = color[0];
+				colors[i + 1] = color[1];
+				colors[i + 2] = color[2];
+			}
+		}
+
+		if(_singlePrecision){
+			_jtModel.addPointSet(PointSet.createSinglePrecision(vertices, colors), layerName);
+		} else {
+			_jtModel.addPointSet(new PointSet(vertices, colors), layerName);
+		}
+	}
+
+	/**
+	 * Ignores the entering of a node, as the model is organized by layers.
+	 * @param nodeName       Name of the node or null
+	 * @param transformation Transformation of the node, relative to its parent node (4x4 matrix, row by row) or null
+	 */
+	public void onEnterNode(String nodeName, double[] transformation){
+	}
+
+	/**
+	 * Ignores the leaving of a node.
+	 */
+	public void onLeaveNode(){
+	}
+
+	/**
+	 * Creates a triangle mesh in the given precision and index format.
+	 * @param  vertices        Vertices (x, y, z)
+	 * @param  indices         Indices, three per triangle
+	 * @param  colors          Color components (r, g, b)
+	 * @param  normals         Normals (x, y, z)
+	 * @param  singlePrecision Store the mesh in single precision?
+	 * @param  compactIndices  Store the indices as 16 bit values where possible?
+	 * @return                 Triangle mesh
+	 */
+	static TriangleMesh createTriangleMesh(double[] vertices, int[] indices, double[] colors, double[] normals, boolean singlePrecision, boolean compactIndices){
+		TriangleMesh triangleMesh = null;
+		if(singlePrecision){
+			triangleMesh = TriangleMesh.createSinglePrecision(vertices, indices, colors, normals);
+		} else {
+			triangleMesh = new TriangleMesh(vertices, indices, colors, normals);
+		}
+		return compactIndices ? triangleMesh.compactIndices() : triangleMesh;
+	}
+
+	/**
+	 * Transforms points (x, y, z) into a new array.
+	 * @param  points         Points
+	 * @param  transformation Transformation (4x4 matrix, row by row)
+	 * @return                Transformed points
+	 */
+	static double[] transformPoints(double[] points, double[] transformation){
+		int statisticsFrame = LoadStatistics.startPhase();
+		double[] t = transformation;
+		double[] transformedPoints = new double[points.length];
+		for(int i = 0; i < points.length; i += 3){
+			double x = points[i];
+			double y = points[i + 1];
+			double z = points[i + 2];
+			transformedPoints[i]     = (t[0] * x) + (t[1] * y) + (t[2]  * z) + t[3];
+			transformedPoints[i + 1] = (t[4] * x) + (t[5] * y) + (t[6]  * z) + t[7];
+			transformedPoints[i + 2] = (t[8] * x) + (t[9] * y) + (t[10] * z) + t[11];
+		}
+		LoadStatistics.stopPhase(statisticsFrame, Phase.TRANSFORMATION, points.length * 8L, transformedPoints.length * 8L, points.length / 3);
+		return transformedPoints;
+	}
+
+	/**
+	 * Rotates vectors (x, y, z) into a new array, ignoring the translation.
+	 * @param  vectors        Vectors
+	 * @param  transformation Transformation (4x4 matrix, row by row)
+	 * @return                Rotated vectors
+	 */
+	static double[] transformVectors(double[] vectors, double[] transformation){
+		int statisticsFrame = LoadStatistics.startPhase();
+		double[] t = transformation;
+		double[] transformedVectors = new double[vectors.length];
+		for(int i = 0; i < vectors.length; i += 3){
+			double x = vectors[i];
+			double y = vectors[i + 1];
+			double z = vectors[i + 2];
+			transformedVectors[i]     = (t[0] * x) + (t[1] * y) + (t[2]  * z);
+			transformedVectors[i + 1] = (t[4] * x) + (t[5] * y) + (t[6]  * z);
+			transformedVectors[i + 2] = (t[8] * x) + (t[9] * y) + (t[10] * z);
+		}
+		LoadStatistics.stopPhase(statisticsFrame, Phase.TRANSFORMATION, vectors.length * 8L, transformedVectors.length * 8L, vectors.length / 3);
+		return transformedVectors;
+	}
+}
@@ -0,0 +1,91 @@
+//################################################################################
+//	The MIT License
+//
+//	Copyright (c) 2014 Johannes Raida
+//
+//	Permission is hereby granted, free of charge, to any person obtaining a copy
+//	of this software and associated documentation files (the "Software"), to deal
+//	in the Software without restriction, including without limitation the rights
+//	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+//	copies of the Software, and to permit persons to whom the Software is
+//	furnished to do so, subject to the following conditions:
+//
+//	The above copyright notice and this permission notice shall be included in
+//	all copies or substantial portions of the Software.
+//
+//	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+//	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+//	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+//	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+//	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+//	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+//	THE SOFTWARE.
+//################################################################################
+
+
+package de.raida.jcadlib.cadimport.jt;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Passes the entering or leaving of an LSG node on to a geometry visitor. The events are
+ * collected with the decode jobs, so the visitor receives them in the order of the LSG walk,
+ * around the shapes of the node.
+ * <br>(c) 2014 by <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @author  <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @version 1.0
+ */
+class NodeEventJob implements Callable<DecodedShape> {
+	/** Event of leaving the current node */
+	final static NodeEventJob LEAVE_NODE = new NodeEventJob(false, null, null);
+
+	/** Is the node entered (or left)? */
+	private boolean _enter;
+
+	/** Name of the entered node */
+	private String _nodeName;
+
+	/** Transformation of the entered node, relative to its parent node (4x4 matrix, row by row) */
+	private double[] _transformation;
+
+	/**
+	 * Constructor for the event of entering a node.
+	 * @param nodeName       Name of the node or null
+	 * @param transformation Transformation of the node, relative to its parent node (4x4 matrix, row by row) or null
+	 */
+	public NodeEventJob(String nodeName, double[] transformation){
+		this(true, nodeName, transformation);
+	}
+
+	/**
+	 * Constructor.
+	 * @param enter          Is the node entered (or left)?
+	 * @param nodeName       Name of the entered node
+	 * @param transformation Transformation of the entered node
+	 */
+	private NodeEventJob(boolean enter, String nodeName, double[] transformation){
+		_enter = enter;
+		_nodeName = nodeName;
+		_transformation = transformation;
+	}
+
+	/**
+	 * Nothing to decode.
+	 * @return <b>null</b>, as the event is passed on by visit()
+	 */
+	public DecodedShape call(){
+		return null;
+	}
+
+	/**
+	 * Passes the event on to the given visitor.
+	 * @param geometryVisitor Visitor, receiving the event
+	 */
+	public void visit(GeometryVisitor geometryVisitor){
+		if(_enter){
+			geometryVisitor.onEnterNode(_nodeName, _transformation);
+		} else {
+			geometryVisitor.onLeaveNode();
+		}
+	}
+}
@@ -0,0 +1,348 @@
+//################################################################################
+//	The MIT License
+//
+//	Copyright (c) 2014 Johannes Raida
+//
+//	Permission is hereby granted, free of charge, to any person obtaining a copy
+//	of this software and associated documentation files (the "Software"), to deal
+//	in the Software without restriction, including without limitation the rights
+//	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+//	copies of the Software, and to permit persons to whom the Software is
+//	furnished to do so, subject to the following conditions:
+//
+//	The above copyright notice and this permission notice shall be included in
+//	all copies or substantial portions of the Software.
+//
+//	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+//	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+//	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+//	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+//	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+//	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+//	THE SOFTWARE.
+//################################################################################
+
+package de.raida.jcadlib.cadimport.jt;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import de.raida.jcadlib.cadimport.jt.ReferencedFileCache.ReferencedFile;
+import de.raida.jcadlib.cadimport.jt.model.GUID;
+
+/**
+ * Cache of decoded part geometry, which can be shared by any number of importers (also
+ * concurrently) to avoid decoding the same files again. It holds the decoded shape LOD
+ * segments of the loaded files and the geometry of whole referenced files, keyed by the
+ * file identity (canonical path, modification time and size for local files, the URL
+ * otherwise), the segment ID and the geometry settings of the importer.
+ * <br>The least recently used entries are evicted, once the estimated size of the entries
+ * exceeds the byte budget. Evicted entries are kept by soft references, until the garbage
+ * collector needs the memory. The cached geometry is never modified by the importer; the
+ * geometry visitors must not modify it either.
+ * <br>(c) 2014 by <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @author  <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @version 1.0
+ */
+public class PartCache {
+	/** Maximal estimated size of the strongly held entries in bytes */
+	private long _byteBudget;
+
+	/** Strongly held entries, in the order of their last access */
+	private LinkedHashMap<String, CacheEntry> _entries;
+
+	/** Evicted entries, held by soft references */
+	private HashMap<String, SoftEntry> _softEntries;
+
+	/** Queue of the soft references, cleared by the garbage collector */
+	private ReferenceQueue<Object> _referenceQueue;
+
+	/** Estimated size of the strongly held entries in bytes */
+	private long _byteSize;
+
+	/** Number of cache hits */
+	private long _hitCount;
+
+	/** Number of cache hits, served by soft referenced entries */
+	private long _softHitCount;
+
+	/** Number of cache misses */
+	private long _missCount;
+
+	/** Number of evicted entries */
+	private long _evictionCount;
+
+	/**
+	 * Constructor.
+	 * @param byteBudget Maximal estimated size of the strongly held entries in bytes
+	 */
+	public PartCache(long byteBudget){
+		_byteBudget = byteBudget;
+		_entries = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true);
+		_softEntries = new HashMap<String, SoftEntry>();
+		_referenceQueue = new ReferenceQueue<Object>();
+	}
+
+	/**
+	 * Returns the decoded shape of a segment.
+	 * @param  fileKey   Key of the file, including the geometry settings
+	 * @param  segmentID Segment ID of the shape LOD element
+	 * @return           Decoded shape or<br>
+	 *                   <b>null</b>, if the shape isn't cached
+	 */
+	DecodedShape getShape(String fileKey, GUID segmentID){
+		return (DecodedShape)get(fileKey + "#" + segmentID);
+	}
+
+	/**
+	 * Stores the decoded shape of a segment.
+	 * @param fileKey      Key of the file, including the geometry settings
+	 * @param segmentID    Segment ID of the shape LOD element
+	 * @param decodedShape Decoded shape
+	 */
+	void putShape(String fileKey, GUID segmentID, DecodedShape decodedShape){
+		put(fileKey + "#" + segmentID, decodedShape, decodedShape.getByteSize());
+	}
+
+	/**
+	 * Returns the geometry of a referenced file.
+	 * @param  fileKey Key of the file, including the geometry settings
+	 * @return         Referenced file or<br>
+	 *                 <b>null</b>, if the file isn't cached
+	 */
+	ReferencedFile getReferencedFile(String fileKey){
+		return (ReferencedFile)get(fileKey);
+	}
+
+	/**
+	 * Stores the geometry of a referenced file.
+	 * @param fileKey        Key of the file, including the geometry settings
+	 * @param referencedFile Referenced file
+	 */
+	void putReferencedFile(String fileKey, ReferencedFile referencedFile){
+		put(fileKey, referencedFile, referencedFile.getGeometryRecorder().getByteSize());
+	}
+
+	/**
+	 * Returns a cached value.
+	 * @param  key Key of the value
+	 * @return     Cached value or<br>
+	 *             <b>null</b>, if the value isn't cached
+	 */
+	private synchronized Object get(String key){
+		purgeClearedEntries();
+
+		CacheEntry cacheEntry = _entries.get(key);
+		if(cacheEntry != null){
+			_hitCount++;
+			return cacheEntry._value;
+		}
+
+		SoftEntry softEntry = _softEntries.get(key);
+		Object value = (softEntry == null) ? null : softEntry.get();
+		if(value != null){
+			_hitCount++;
+			_softHitCount++;
+			_softEntries.remove(key);
+			put(key, value, softEntry._byteSize);
+			return value;
+		}
+
+		_missCount++;
+		return null;
+	}
+
+	/**
+	 * Stores a value and evicts the least recently used values, which exceed the byte budget.
+	 * @param key      Key of the value
+	 * @param value    Value
+	 * @param byteSize Estimated size of the value in bytes
+	 */
+	private synchronized void put(String key, Object value, long byteSize){
+		CacheEntry oldCacheEntry = _entries.remove(key);
+		if(oldCacheEntry != null){
+			_byteSize -= oldCacheEntry._byteSize;
+		}
+		_softEntries.remove(key);
+
+		// Values exceeding the whole budget are only held softly
+		if(byteSize > _byteBudget){
+			_softEntries.put(key, new SoftEntry(key, value, byteSize, _referenceQueue));
+			_evictionCount++;
+			return;
+		}
+
+		_entries.put(key, new CacheEntry(value, byteSize));
+		_byteSize += byteSize;
+
+		for(Iterator<Map.Entry<String, CacheEntry>> iterator = _entries.entrySet().iterator(); (_byteSize > _byteBudget) && iterator.hasNext();){
+			Map.Entry<String, CacheEntry> entry = iterator.next();
+			iterator.remove();
+			_byteSize -= entry.getValue()._byteSize;
+			_softEntries.put(entry.getKey(), new SoftEntry(entry.getKey(), entry.getValue()._value, entry.getValue()._byteSize, _referenceQueue));
+			_evictionCount++;
+		}
+	}
+
+	/**
+	 * Removes the soft referenced entries, which have been cleared by the garbage collector.
+	 */
+	private void purgeClearedEntries(){
+		SoftEntry softEntry = null;
+		while((softEntry = (SoftEntry)_referenceQueue.poll()) != null){
+			if(_softEntries.get(softEntry._key) == softEntry){
+				_softEntries.remove(softEntry._key);
+			}
+		}
+	}
+
+	/**
+	 * Removes all entries.
+	 */
+	public synchronized void clear(){
+		_entries.clear();
+		_softEntries.clear();
+		_byteSize = 0;
+	}
+
+	/**
+	 * Returns the byte budget.
+	 * @return Maximal estimated size of the strongly held entries in bytes
+	 */
+	public long getByteBudget(){
+		return _byteBudget;
+	}
+
+	/**
+	 * Returns the estimated size of the strongly held entries.
+	 * @return Size in bytes
+	 */
+	public synchronized long getByteSize(){
+		return _byteSize;
+	}
+
+	/**
+	 * Returns the number of strongly held entries.
+	 * @return Number of entries
+	 */
+	public synchronized int getEntryCount(){
+		return _entries.size();
+	}
+
+	/**
+	 * Returns the number of cache hits.
+	 * @return Number of hits (including the soft hits)
+	 */
+	public synchronized long getHitCount(){
+		return _hitCount;
+	}
+
+	/**
+	 * Returns the number of cache hits, served by soft referenced (evicted) entries.
+	 * @return Number of soft hits
+	 */
+	public synchronized long getSoftHitCount(){
+		return _softHitCount;
+	}
+
+	/**
+	 * Returns the number of cache misses.
+	 * @return Number of misses
+	 */
+	public synchronized long getMissCount(){
+		return _missCount;
+	}
+
+	/**
+	 * Returns the number of entries, evicted from the byte budget.
+	 * @return Number of evictions
+	 */
+	public synchronized long getEvictionCount(){
+		return _evictionCount;
+	}
+
+	/**
+	 * Estimates the memory held by an array.
+	 * @param  array Array (may be null)
+	 * @return       Size in bytes
+	 */
+	static long sizeOf(double[] array){
+		return (array == null) ? 0 : (16 + (8L * array.length));
+	}
+
+	/**
+	 * Estimates the memory held by an array.
+	 * @param  array Array (may be null)
+	 * @return       Size in bytes
+	 */
+	static long sizeOf(float[] array){
+		return (array == null) ? 0 : (16 + (4L * array.length));
+	}
+
+	/**
+	 * Estimates the memory held by an array.
+	 * @param  array Array (may be null)
+	 * @return       Size in bytes
+	 */
+	static long sizeOf(int[] array){
+		return (array == null) ? 0 : (16 + (4L * array.length));
+	}
+
+	/**
+	 * Estimates the memory held by an array.
+	 * @param  array Array (may be null)
+	 * @return       Size in bytes
+	 */
+	static long sizeOf(short[] array){
+		return (array == null) ? 0 : (16 + (2L * array.length));
+	}
+
+	/**
+	 * Strongly held cache entry.
+	 */
+	private static class CacheEntry {
+		/** Cached value */
+		private Object _value;
+
+		/** Estimated size of the value in bytes */
+		private long _byteSize;
+
+		/**
+		 * Constructor.
+		 * @param value    Cached value
+		 * @param byteSize Estimated size of the value in bytes
+		 */
+		private CacheEntry(Object value, long byteSize){
+			_value = value;
+			_byteSize = byteSize;
+		}
+	}
+
+	/**
+	 * Soft referenced cache entry.
+	 */
+	private static class SoftEntry extends SoftReference<Object> {
+		/** Key of the value */
+		private String _key;
+
+		/** Estimated size of the value in bytes */
+		private long _byteSize;
+
+		/**
+		 * Constructor.
+		 * @param key            Key of the value
+		 * @param value          Cached value
+		 * @param byteSize       Estimated size of the value in bytes
+		 * @param referenceQueue Queue, receiving the cleared reference
+		 */
+		private SoftEntry(String key, Object value, long byteSize, ReferenceQueue<Object> referenceQueue){
+			super(value, referenceQueue);
+			_key = key;
+			_byteSize = byteSize;
+		}
+	}
+}
@@ -0,0 +1,136 @@
+//################################################################################
+//	The MIT License
+//
+//	Copyright (c) 2014 Johannes Raida
+//
+//	Permission is hereby granted, free of charge, to any person obtaining a copy
+//	of this software and associated documentation files (the "Software"), to deal
+//	in the Software without restriction, including without limitation the rights
+//	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+//	copies of the Software, and to permit persons to whom the Software is
+//	furnished to do so, subject to the following conditions:
+//
+//	The above copyright notice and this permission notice shall be included in
+//	all copies or substantial portions of the Software.
+//
+//	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+//	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+//	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+//	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+//	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+//	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+//	THE SOFTWARE.
+//################################################################################
+
+package de.raida.jcadlib.cadimport.jt;
+
+/**
+ * Points of a single shape, stored in primitive arrays. The vertices are either held in
+ * double precision or in single precision, relative to a double precision origin.
+ * <br>(c) 2014 by <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @author  <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @version 1.0
+ */
+public class PointSet {
+	/** Vertices (x, y, z) in double precision */
+	private double[] _vertices;
+
+	/** Vertices (x, y, z) in single precision, relative to the origin */
+	private float[] _floatVertices;
+
+	/** Origin of the single precision vertices */
+	private double[] _origin;
+
+	/** Color components (r, g, b) */
+	private float[] _colors;
+
+	/**
+	 * Constructor for a double precision point set.
+	 * @param vertices Vertices (x, y, z)
+	 * @param colors   Color components (r, g, b)
+	 */
+	public PointSet(double[] vertices, float[] colors){
+		_vertices = vertices;
+		_colors = colors;
+	}
+
+	/**
+	 * Constructor for a single precision point set.
+	 * @param vertices Vertices (x, y, z), relative to the origin
+	 * @param origin   Origin of the vertices (x, y, z)
+	 * @param colors   Color components (r, g, b)
+	 */
+	public PointSet(float[] vertices, double[] origin, float[] colors){
+		_floatVertices = vertices;
+		_origin = origin;
+		_colors = colors;
+	}
+
+	/**
+	 * Creates a single precision point set from double precision vertices. The origin is set
+	 * to the center of the vertices.
+	 * @param  vertices Vertices (x, y, z)
+	 * @param  colors   Color components (r, g, b)
+	 * @return          Single precision point set
+	 */
+	public static PointSet createSinglePrecision(double[] vertices, float[] colors){
+		double[] origin = SinglePrecision.getOrigin(vertices);
+		return new PointSet(SinglePrecision.toFloat(vertices, origin), origin, colors);
+	}
+
+	/**
+	 * Is the point set stored in single precision?
+	 * @return Is the point set stored in single precision?
+	 */
+	public boolean isSinglePrecision(){
+		return (_floatVertices != null);
+	}
+
+	/**
+	 * Returns the vertices in double precision.
+	 * @return Vertices (x, y, z); a new array, if the set is stored in single precision
+	 */
+	public double[] getVertices(){
+		return isSinglePrecision() ? SinglePrecision.toDouble(_floatVertices, _origin) : _vertices;
+	}
+
+	/**
+	 * Returns the vertices in single precision, relative to the origin.
+	 * @return Vertices (x, y, z); a new array, if the set is stored in double precision
+	 */
+	public float[] getFloatVertices(){
+		return isSinglePrecision() ? _floatVertices : SinglePrecision.toFloat(_vertices, null);
+	}
+
+	/**
+	 * Returns the origin of the single precision vertices.
+	 * @return Origin (x, y, z)
+	 */
+	public double[] getOrigin(){
+		return isSinglePrecision() ? _origin : new double[]{0.0, 0.0, 0.0};
+	}
+
+	/**
+	 * Returns the color components.
+	 * @return Color components (r, g, b)
+	 */
+	public float[] getColors(){
+		return _colors;
+	}
+
+	/**
+	 * Returns the number of points.
+	 * @return Number of points
+	 */
+	public int getPointCount(){
+		return ((isSinglePrecision() ? _floatVertices.length : _vertices.length) / 3);
+	}
+
+	/**
+	 * Estimates the memory held by the arrays of the points.
+	 * @return Size in bytes
+	 */
+	long getByteSize(){
+		return PartCache.sizeOf(_vertices) + PartCache.sizeOf(_floatVertices) + PartCache.sizeOf(_origin) + PartCache.sizeOf(_colors);
+	}
+}
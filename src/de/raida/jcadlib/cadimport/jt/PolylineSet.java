@@ -0,0 +1,184 @@
+//################################################################################
+//	The MIT License
+//
+//	Copyright (c) 2014 Johannes Raida
+//
+//	Permission is hereby granted, free of charge, to any person obtaining a copy
+//	of this software and associated documentation files (the "Software"), to deal
+//	in the Software without restriction, including without limitation the rights
+//	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+//	copies of the Software, and to permit persons to whom the Software is
+//	furnished to do so, subject to the following conditions:
+//
+//	The above copyright notice and this permission notice shall be included in
+//	all copies or substantial portions of the Software.
+//
+//	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+//	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+//	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+//	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+//	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+//	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+//	THE SOFTWARE.
+//################################################################################
+
+package de.raida.jcadlib.cadimport.jt;
+
+/**
+ * Polylines of a single shape. The vertices and colors of all polylines are stored
+ * consecutively in primitive arrays; the offsets mark where each polyline starts. The
+ * vertices and colors are either held in double precision or in single precision; single
+ * precision vertices are relative to a double precision origin.
+ * <br>(c) 2014 by <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @author  <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @version 1.0
+ */
+public class PolylineSet {
+	/** Vertices of all polylines (x, y, z) in double precision */
+	private double[] _vertices;
+
+	/** Color components of all polyline vertices (r, g, b) in double precision */
+	private double[] _colors;
+
+	/** Vertices of all polylines (x, y, z) in single precision, relative to the origin */
+	private float[] _floatVertices;
+
+	/** Origin of the single precision vertices */
+	private double[] _origin;
+
+	/** Color components of all polyline vertices (r, g, b) in single precision */
+	private float[] _floatColors;
+
+	/** Index of the first vertex of each polyline, followed by the total number of vertices */
+	private int[] _offsets;
+
+	/**
+	 * Constructor for a double precision polyline set.
+	 * @param vertices Vertices of all polylines (x, y, z)
+	 * @param colors   Color components of all polyline vertices (r, g, b)
+	 * @param offsets  Index of the first vertex of each polyline, followed by the total number of vertices
+	 */
+	public PolylineSet(double[] vertices, double[] colors, int[] offsets){
+		_vertices = vertices;
+		_colors = colors;
+		_offsets = offsets;
+	}
+
+	/**
+	 * Constructor for a single precision polyline set.
+	 * @param vertices Vertices of all polylines (x, y, z), relative to the origin
+	 * @param origin   Origin of the vertices (x, y, z)
+	 * @param colors   Color components of all polyline vertices (r, g, b)
+	 * @param offsets  Index of the first vertex of each polyline, followed by the total number of vertices
+	 */
+	public PolylineSet(float[] vertices, double[] origin, float[] colors, int[] offsets){
+		_floatVertices = vertices;
+		_origin = origin;
+		_floatColors = colors;
+		_offsets = offsets;
+	}
+
+	/**
+	 * Creates a single precision polyline set from double precision arrays. The origin is set
+	 * to the center of the vertices.
+	 * @param  vertices Vertices of all polylines (x, y, z)
+	 * @param  colors   Color components of all polyline vertices (r, g, b)
+	 * @param  offsets  Index of the first vertex of each polyline, followed by the total number of vertices
+	 * @return          Single precision polyline set
+	 */
+	public static PolylineSet createSinglePrecision(double[] vertices, double[] colors, int[] offsets){
+		double[] origin = SinglePrecision.getOrigin(vertices);
+		return new PolylineSet(SinglePrecision.toFloat(vertices, origin), origin, SinglePrecision.toFloat(colors, null), offsets);
+	}
+
+	/**
+	 * Is the polyline set stored in single precision?
+	 * @return Is the polyline set stored in single precision?
+	 */
+	public boolean isSinglePrecision(){
+		return (_floatVertices != null);
+	}
+
+	/**
+	 * Returns the vertices of all polylines in double precision.
+	 * @return Vertices of all polylines (x, y, z); a new array, if the set is stored in single precision
+	 */
+	public double[] getVertices(){
+		return isSinglePrecision() ? SinglePrecision.toDouble(_floatVertices, _origin) : _vertices;
+	}
+
+	/**
+	 * Returns the color components of all polyline vertices in double precision.
+	 * @return Color components of all polyline vertices (r, g, b); a new array, if the set is stored in single precision
+	 */
+	public double[] getColors(){
+		return isSinglePrecision() ? SinglePrecision.toDouble(_floatColors, null) : _colors;
+	}
+
+	/**
+	 * Returns the vertices of all polylines in single precision, relative to the origin.
+	 * @return Vertices of all polylines (x, y, z); a new array, if the set is stored in double precision
+	 */
+	public float[] getFloatVertices(){
+		return isSinglePrecision() ? _floatVertices : SinglePrecision.toFloat(_vertices, null);
+	}
+
+	/**
+	 * Returns the origin of the single precision vertices.
+	 * @return Origin (x, y, z)
+	 */
+	public double[] getOrigin(){
+		return isSinglePrecision() ? _origin : new double[]{0.0, 0.0, 0.0};
+	}
+
+	/**
+	 * Returns the color components of all polyline vertices in single precision.
+	 * @return Color components of all polyline vertices (r, g, b); a new array, if the set is stored in double precision
+	 */
+	public float[] getFloatColors(){
+		return isSinglePrecision() ? _floatColors : SinglePrecision.toFloat(_colors, null);
+	}
+
+	/**
+	 * Returns the polyline offsets.
+	 * @return Index of the first vertex of each polyline, followed by the total number of vertices
+	 */
+	public int[] getOffsets(){
+		return _offsets;
+	}
+
+	/**
+	 * Returns the number of polylines.
+	 * @return Number of polylines
+	 */
+	public int getPolylineCount(){
+		return (_offsets.length - 1);
+	}
+
+	/**
+	 * Returns the index of the first vertex of the given polyline.
+	 * @param  polylineIndex Index of the polyline
+	 * @return               Index of the first vertex
+	 */
+	public int getStartVertex(int polylineIndex){
+		return _offsets[polylineIndex];
+	}
+
+	/**
+	 * Returns the number of vertices of the given polyline.
+	 * @param  polylineIndex Index of the polyline
+	 * @return               Number of vertices
+	 */
+	public int getVertexCount(int polylineIndex){
+		return (_offsets[polylineIndex + 1] - _offsets[polylineIndex]);
+	}
+
+	/**
+	 * Estimates the memory held by the arrays of the polylines.
+	 * @return Size in bytes
+	 */
+	long getByteSize(){
+		return	PartCache.sizeOf(_vertices) + PartCache.sizeOf(_colors) + PartCache.sizeOf(_floatVertices) +
+				PartCache.sizeOf(_origin) + PartCache.sizeOf(_floatColors) + PartCache.sizeOf(_offsets);
+	}
+}
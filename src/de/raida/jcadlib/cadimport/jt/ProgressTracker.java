@@ -0,0 +1,351 @@
+//################################################################################
+//	The MIT License
+//
+//	Copyright (c) 2014 Johannes Raida
+//
+//	Permission is hereby granted, free of charge, to any person obtaining a copy
+//	of this software and associated documentation files (the "Software"), to deal
+//	in the Software without restriction, including without limitation the rights
+//	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+//	copies of the Software, and to permit persons to whom the Software is
+//	furnished to do so, subject to the following conditions:
+//
+//	The above copyright notice and this permission notice shall be included in
+//	all copies or substantial portions of the Software.
+//
+//	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+//	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+//	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+//	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+//	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+//	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+//	THE SOFTWARE.
+//################################################################################
+
+package de.raida.jcadlib.cadimport.jt;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import de.raida.progress.ProgressEvent;
+import de.raida.progress.ProgressListenerInterface;
+
+/**
+ * Progress of a single import, weighted by its phases: reading the file, parsing its
+ * segments, decoding the shapes and loading the external references. Each phase counts
+ * its work done against its total work (bytes, segments, shapes or references), so the
+ * progress keeps moving while the shapes are decoded. The weight of a phase without work
+ * is shared out among the phases, which still have work, so e.g. a pure assembly file
+ * doesn't jump ahead when it turns out to have no shapes.
+ * <br>The tracker of a nested importer reports its progress to the tracker of the
+ * referencing importer as part of a reference there, so loading a large referenced file
+ * moves the progress of the referencing import as well.
+ * <br>The counters are atomic, so any thread may advance them. The listeners are
+ * notified by the advancing thread, at most once per notification interval and only if
+ * the percentage has grown.
+ * <br>(c) 2014 by <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @author  <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @version 1.0
+ */
+public class ProgressTracker {
+	/**
+	 * Import phases with their share of the whole progress.
+	 */
+	public static enum Phase {
+		/** Reading the file (work: bytes) */
+		READ(10),
+
+		/** Parsing the segments and building the LSG (work: segments) */
+		PARSE(25),
+
+		/** Decoding the shapes (work: shape instances) */
+		DECODE(55),
+
+		/** Loading the external references (work: references) */
+		REFERENCES(10);
+
+		/** Share of the whole progress in percent */
+		private int _weight;
+
+		/**
+		 * Constructor.
+		 * @param weight Share of the whole progress in percent
+		 */
+		private Phase(int weight){
+			_weight = weight;
+		}
+
+		/**
+		 * Returns the share of the whole progress.
+		 * @return Share of the whole progress in percent
+		 */
+		public int getWeight(){
+			return _weight;
+		}
+	}
+
+	/** Scale of the progress of a nested import, reported as part of a reference */
+	private final static long NESTED_PROGRESS_SCALE = 1000000L;
+
+	/** Minimal time between two notifications in nanoseconds */
+	private long _notificationInterval;
+
+	/** Work done per phase */
+	private AtomicLongArray _done;
+
+	/** Total work per phase (-1, if not yet known) */
+	private AtomicLongArray _total;
+
+	/** Share of the whole progress per phase in percent, including the shared weight of empty phases */
+	private volatile double[] _weights;
+
+	/** Tracker of the referencing import (null, if this is the top level import) */
+	private ProgressTracker _parentTracker;
+
+	/** Progress reported to the tracker of the referencing import (scaled by NESTED_PROGRESS_SCALE) */
+	private AtomicLong _reportedProgress;
+
+	/** Progress of the running nested imports (scaled by NESTED_PROGRESS_SCALE per reference) */
+	private AtomicLong _nestedProgress;
+
+	/** Earliest time of the next notification (System.nanoTime()) */
+	private AtomicLong _nextNotification;
+
+	/** Last notified percentage */
+	private AtomicInteger _notifiedPercentage;
+
+	/** Progress listeners */
+	private CopyOnWriteArrayList<ProgressListenerInterface> _progressListeners;
+
+	/**
+	 * Constructor.
+	 * @param notificationInterval Minimal time between two notifications in milliseconds
+	 */
+	public ProgressTracker(long notificationInterval){
+		this(notificationInterval, null);
+	}
+
+	/**
+	 * Constructor for the tracker of a nested import.
+	 * @param notificationInterval Minimal time between two notifications in milliseconds
+	 * @param parentTracker        Tracker of the referencing import (null, if this is the top level import)
+	 */
+	public ProgressTracker(long notificationInterval, ProgressTracker parentTracker){
+		_notificationInterval = notificationInterval * 1000000L;
+		_parentTracker = parentTracker;
+		_done = new AtomicLongArray(Phase.values().length);
+		_total = new AtomicLongArray(Phase.values().length);
+		_reportedProgress = new AtomicLong();
+		_nestedProgress = new AtomicLong();
+		_nextNotification = new AtomicLong();
+		_notifiedPercentage = new AtomicInteger();
+		_progressListeners = new CopyOnWriteArrayList<ProgressListenerInterface>();
+		start();
+	}
+
+	/**
+	 * Adds a progress listener.
+	 * @param progressListenerInterface Progress listener
+	 */
+	public void addProgressListener(ProgressListenerInterface progressListenerInterface){
+		_progressListeners.add(progressListenerInterface);
+	}
+
+	/**
+	 * Resets the progress for a new import.
+	 */
+	public synchronized void start(){
+		double[] weights = new double[Phase.values().length];
+		for(Phase phase : Phase.values()){
+			_done.set(phase.ordinal(), 0);
+			_total.set(phase.ordinal(), -1);
+			weights[phase.ordinal()] = phase.getWeight();
+		}
+		_weights = weights;
+		_nestedProgress.set(0);
+		reportProgress(0);
+		_notifiedPercentage.set(-1);
+		_nextNotification.set(System.nanoTime());
+	}
+
+	/**
+	 * Sets the total work of a phase. If the phase has no work, its weight is shared out
+	 * among the phases, which still have work, in proportion to their weights.
+	 * @param phase Phase
+	 * @param total Total work or<br>
+	 *              <b>-1</b>, if unknown
+	 */
+	public synchronized void setTotal(Phase phase, long total){
+		_total.set(phase.ordinal(), total);
+		if(total != 0){
+			return;
+		}
+
+		double[] weights = _weights.clone();
+		double pendingWeight = 0;
+		for(Phase pendingPhase : Phase.values()){
+			if((pendingPhase != phase) && isPending(pendingPhase)){
+				pendingWeight += weights[pendingPhase.ordinal()];
+			}
+		}
+		if(pendingWeight == 0){
+			return;
+		}
+
+		double emptyWeight = weights[phase.ordinal()];
+		for(Phase pendingPhase : Phase.values()){
+			if((pendingPhase != phase) && isPending(pendingPhase)){
+				weights[pendingPhase.ordinal()] += emptyWeight * weights[pendingPhase.ordinal()] / pendingWeight;
+			}
+		}
+		weights[phase.ordinal()] = 0;
+		_weights = weights;
+	}
+
+	/**
+	 * Checks, whether a phase still has work to do.
+	 * @param  phase Phase
+	 * @return       Is the total work unknown or not yet done?
+	 */
+	private boolean isPending(Phase phase){
+		long total = _total.get(phase.ordinal());
+		return (total < 0) || (_done.get(phase.ordinal()) < total);
+	}
+
+	/**
+	 * Adds work done to a phase and notifies the listeners, if the notification interval
+	 * has passed.
+	 * @param phase  Phase
+	 * @param amount Work done
+	 */
+	public void advance(Phase phase, long amount){
+		_done.addAndGet(phase.ordinal(), amount);
+		progressChanged();
+	}
+
+	/**
+	 * Adds progress of a nested import, which is reported as part of a reference.
+	 * @param amount Progress (scaled by NESTED_PROGRESS_SCALE per reference)
+	 */
+	private void advanceNested(long amount){
+		_nestedProgress.addAndGet(amount);
+		progressChanged();
+	}
+
+	/**
+	 * Reports the progress to the tracker of the referencing import and notifies the
+	 * listeners, if the notification interval has passed.
+	 */
+	private void progressChanged(){
+		if(_parentTracker != null){
+			reportProgress((long)(getProgress() * NESTED_PROGRESS_SCALE));
+		}
+		if(_progressListeners.isEmpty()){
+			return;
+		}
+
+		// Only the thread, which claims the next notification time, notifies
+		long now = System.nanoTime();
+		long nextNotification = _nextNotification.get();
+		if(((now - nextNotification) >= 0) && _nextNotification.compareAndSet(nextNotification, now + _notificationInterval)){
+			notifyListeners();
+		}
+	}
+
+	/**
+	 * Marks a phase as completed.
+	 * @param phase Phase
+	 */
+	public void complete(Phase phase){
+		long total = Math.max(_total.get(phase.ordinal()), _done.get(phase.ordinal()));
+		_total.set(phase.ordinal(), total);
+		_done.set(phase.ordinal(), total);
+	}
+
+	/**
+	 * Marks all phases as completed and notifies the listeners. The progress, reported to
+	 * the tracker of the referencing import, is withdrawn, as the referencing importer
+	 * counts the completed reference itself.
+	 */
+	public void finish(){
+		for(Phase phase : Phase.values()){
+			complete(phase);
+		}
+		reportProgress(0);
+		notifyListeners();
+	}
+
+	/**
+	 * Withdraws the progress, reported to the tracker of the referencing import, after the
+	 * import failed.
+	 */
+	public void cancel(){
+		reportProgress(0);
+	}
+
+	/**
+	 * Reports the progress to the tracker of the referencing import. Only the difference
+	 * to the last reported progress is passed on, so the reports of several threads sum
+	 * up to the last reported progress.
+	 * @param progress Progress (scaled by NESTED_PROGRESS_SCALE)
+	 */
+	private void reportProgress(long progress){
+		if(_parentTracker == null){
+			return;
+		}
+		long reportedProgress = _reportedProgress.getAndSet(progress);
+		if(progress != reportedProgress){
+			_parentTracker.advanceNested(progress - reportedProgress);
+		}
+	}
+
+	/**
+	 * Returns the progress of a phase. The references include the progress of the running
+	 * nested imports.
+	 * @param  phase Phase
+	 * @return       Progress between 0 and 1
+	 */
+	public double getProgress(Phase phase){
+		long total = _total.get(phase.ordinal());
+		if(total < 0){
+			return 0;
+		} else if(total == 0){
+			return 1;
+		}
+		double done = _done.get(phase.ordinal());
+		if(phase == Phase.REFERENCES){
+			done += (double)_nestedProgress.get() / NESTED_PROGRESS_SCALE;
+		}
+		return Math.min(1, done / total);
+	}
+
+	/**
+	 * Returns the weighted progress of all phases.
+	 * @return Progress between 0 and 1
+	 */
+	public double getProgress(){
+		double[] weights = _weights;
+		double progress = 0;
+		for(Phase phase : Phase.values()){
+			progress += getProgress(phase) * weights[phase.ordinal()];
+		}
+		return progress / 100;
+	}
+
+	/**
+	 * Notifies the listeners about the current percentage, if it has grown.
+	 */
+	private void notifyListeners(){
+		int percentage = (int)(getProgress() * 100);
+		int notifiedPercentage = _notifiedPercentage.get();
+		if((percentage <= notifiedPercentage) || !_notifiedPercentage.compareAndSet(notifiedPercentage, percentage)){
+			return;
+		}
+
+		for(ProgressListenerInterface progressListenerInterface : _progressListeners){
+			progressListenerInterface.progressChanged(new ProgressEvent((byte)percentage));
+		}
+	}
+}
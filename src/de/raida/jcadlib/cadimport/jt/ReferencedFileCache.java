@@ -0,0 +1,224 @@
+//################################################################################
+//	The MIT License
+//
+//	Copyright (c) 2014 Johannes Raida
+//
+//	Permission is hereby granted, free of charge, to any person obtaining a copy
+//	of this software and associated documentation files (the "Software"), to deal
+//	in the Software without restriction, including without limitation the rights
+//	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+//	copies of the Software, and to permit persons to whom the Software is
+//	furnished to do so, subject to the following conditions:
+//
+//	The above copyright notice and this permission notice shall be included in
+//	all copies or substantial portions of the Software.
+//
+//	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+//	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+//	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+//	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+//	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+//	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+//	THE SOFTWARE.
+//################################################################################
+
+package de.raida.jcadlib.cadimport.jt;
+
+import java.io.File;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Cache of the external referenced files of one import (including the files referenced
+ * by referenced files). Every file is loaded only once, however many partition nodes
+ * reference it; the references become instances of the recorded geometry. Files are
+ * identified by their canonical URL and, for local files, their modification time and
+ * size. Once the last registered reference of a file has been released, its geometry
+ * is dropped. Files with a single reference needn't be cached at all (see isReferencedOnce()).
+ * The results of the existence checks are kept for the whole import.
+ * <br>(c) 2014 by <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @author  <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @version 1.0
+ */
+class ReferencedFileCache {
+	/** Loaded files (or files being loaded), indexed by their keys */
+	private ConcurrentHashMap<String, FutureTask<ReferencedFile>> _referencedFiles;
+
+	/** Number of not yet released references, indexed by the file keys */
+	private HashMap<String, Integer> _referenceCounts;
+
+	/** Results of the existence checks, indexed by the URL's */
+	private ConcurrentHashMap<String, Boolean> _existingURLs;
+
+	/**
+	 * Constructor.
+	 */
+	public ReferencedFileCache(){
+		_referencedFiles = new ConcurrentHashMap<String, FutureTask<ReferencedFile>>();
+		_referenceCounts = new HashMap<String, Integer>();
+		_existingURLs = new ConcurrentHashMap<String, Boolean>();
+	}
+
+	/**
+	 * Returns the cached result of an existence check.
+	 * @param  url URL of the file
+	 * @return     Does the file exist or<br>
+	 *             <b>null</b>, if the URL hasn't been checked yet
+	 */
+	public Boolean getExistence(URL url){
+		return _existingURLs.get(url.toString());
+	}
+
+	/**
+	 * Stores the result of an existence check.
+	 * @param url    URL of the file
+	 * @param exists Does the file exist?
+	 */
+	public void putExistence(URL url, boolean exists){
+		_existingURLs.put(url.toString(), exists);
+	}
+
+	/**
+	 * Creates the key of the given file: the canonical path, modification time and size
+	 * for local files, the URL otherwise.
+	 * @param  url URL of the file
+	 * @return     Key of the file
+	 */
+	public static String getKey(URL url){
+		String urlAsString = url.toString();
+		if(urlAsString.startsWith("file:")){
+			File file = new File(urlAsString.substring(5));
+			try {
+				return file.getCanonicalPath() + "|" + file.lastModified() + "|" + file.length();
+			} catch(Exception exception){
+				return file.getAbsolutePath() + "|" + file.lastModified() + "|" + file.length();
+			}
+		}
+		return urlAsString;
+	}
+
+	/**
+	 * Registers a reference of the given file.
+	 * @param key Key of the file
+	 */
+	public synchronized void retain(String key){
+		Integer referenceCount = _referenceCounts.get(key);
+		_referenceCounts.put(key, (referenceCount == null) ? 1 : referenceCount + 1);
+	}
+
+	/**
+	 * Releases a reference of the given file. The geometry is dropped with the last reference.
+	 * @param key Key of the file
+	 */
+	public synchronized void release(String key){
+		Integer referenceCount = _referenceCounts.get(key);
+		if((referenceCount == null) || (referenceCount <= 1)){
+			_referenceCounts.remove(key);
+			_referencedFiles.remove(key);
+		} else {
+			_referenceCounts.put(key, referenceCount - 1);
+		}
+	}
+
+	/**
+	 * Checks, whether the given file has a single registered reference and hasn't been loaded
+	 * (or isn't being loaded). Its geometry is used only once then, so it can be streamed
+	 * instead of being recorded.
+	 * @param  key Key of the file
+	 * @return     Is the file referenced once and not cached?
+	 */
+	public synchronized boolean isReferencedOnce(String key){
+		Integer referenceCount = _referenceCounts.get(key);
+		return ((referenceCount == null) || (referenceCount <= 1)) && !_referencedFiles.containsKey(key);
+	}
+
+	/**
+	 * Returns the given file, loading it if necessary. Files, which are referenced from
+	 * within a referenced file, don't wait for another thread loading the same file, but
+	 * load a private copy, so reference cycles between files loaded in parallel can't block.
+	 * @param  key               Key of the file
+	 * @param  loader            Loader, called if the file hasn't been loaded yet
+	 * @param  waitForOtherLoads Wait, if another thread is loading the file?
+	 * @return                   Loaded file
+	 * @throws Exception         Thrown if loading failed
+	 */
+	public ReferencedFile get(String key, Callable<ReferencedFile> loader, boolean waitForOtherLoads) throws Exception {
+		FutureTask<ReferencedFile> futureTask = _referencedFiles.get(key);
+		if(futureTask == null){
+			FutureTask<ReferencedFile> newFutureTask = new FutureTask<ReferencedFile>(loader);
+			futureTask = _referencedFiles.putIfAbsent(key, newFutureTask);
+			if(futureTask == null){
+				futureTask = newFutureTask;
+				futureTask.run();
+			}
+		}
+
+		if(!futureTask.isDone() && !waitForOtherLoads){
+			return loader.call();
+		}
+
+		try {
+			return futureTask.get();
+		} catch(ExecutionException exception){
+			if(exception.getCause() instanceof Exception){
+				throw (Exception)exception.getCause();
+			}
+			throw exception;
+		}
+	}
+
+	/**
+	 * Loaded referenced file.
+	 */
+	static class ReferencedFile {
+		/** Geometry of the file in its own coordinate system */
+		private GeometryRecorder _geometryRecorder;
+
+		/** Unsupported entities of the file */
+		private List<String> _unsupportedEntities;
+
+		/** Has the file been loaded completely? */
+		private boolean _loaded;
+
+		/**
+		 * Constructor.
+		 * @param geometryRecorder    Geometry of the file in its own coordinate system
+		 * @param unsupportedEntities Unsupported entities of the file
+		 * @param loaded              Has the file been loaded completely?
+		 */
+		ReferencedFile(GeometryRecorder geometryRecorder, List<String> unsupportedEntities, boolean loaded){
+			_geometryRecorder = geometryRecorder;
+			_unsupportedEntities = unsupportedEntities;
+			_loaded = loaded;
+		}
+
+		/**
+		 * Returns the geometry of the file.
+		 * @return Geometry of the file in its own coordinate system
+		 */
+		GeometryRecorder getGeometryRecorder(){
+			return _geometryRecorder;
+		}
+
+		/**
+		 * Returns the unsupported entities of the file.
+		 * @return Unsupported entities
+		 */
+		List<String> getUnsupportedEntities(){
+			return _unsupportedEntities;
+		}
+
+		/**
+		 * Returns whether the file has been loaded completely.
+		 * @return Has the file been loaded completely?
+		 */
+		boolean isLoaded(){
+			return _loaded;
+		}
+	}
+}
@@ -0,0 +1,243 @@
+//################################################################################
+//	The MIT License
+//
+//	Copyright (c) 2014 Johannes Raida
+//
+//	Permission is hereby granted, free of charge, to any person obtaining a copy
+//	of this software and associated documentation files (the "Software"), to deal
+//	in the Software without restriction, including without limitation the rights
+//	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+//	copies of the Software, and to permit persons to whom the Software is
+//	furnished to do so, subject to the following conditions:
+//
+//	The above copyright notice and this permission notice shall be included in
+//	all copies or substantial portions of the Software.
+//
+//	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+//	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+//	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+//	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+//	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+//	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+//	THE SOFTWARE.
+//################################################################################
+
+package de.raida.jcadlib.cadimport.jt;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.Callable;
+
+import de.raida.jcadlib.cadimport.jt.LoadStatistics.Phase;
+import de.raida.jcadlib.cadimport.jt.model.GUID;
+import de.raida.jcadlib.cadimport.jt.model.LSGNode;
+import de.raida.jcadlib.cadimport.jt.model.PointSetShapeLODElement;
+import de.raida.jcadlib.cadimport.jt.model.PolylineSetShapeLODElement;
+import de.raida.jcadlib.cadimport.jt.model.TriStripSetShapeLODElement;
+import de.raida.jcadlib.cadimport.jt.model.lsg.PointSetShapeNodeElement;
+import de.raida.jcadlib.cadimport.jt.model.lsg.PolylineSetShapeNodeElement;
+import de.raida.jcadlib.cadimport.jt.model.lsg.TriStripSetShapeNodeElement;
+import de.raida.jcadlib.cadimport.jt.reader.UnsupportedCodecException;
+import de.raida.jcadlib.cadimport.jt.reader.WorkingContext;
+
+/**
+ * Decodes the shape of a single shape instance and passes it on to a geometry visitor.
+ * The referenced shape LOD segment is decoded only once per import (see DecodedShapeCache).
+ * Each decoder reads from a private duplicate of the file buffer, so jobs can run concurrently.
+ * <br>(c) 2014 by <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @author  <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @version 1.0
+ */
+class ShapeDecodeJob implements Callable<DecodedShape> {
+	/** JT importer, preparing the geometry */
+	private JTImporter _jtImporter;
+
+	/** Shape node referencing the segment */
+	private LSGNode _lsgNode;
+
+	/** Byte buffer of the whole file */
+	private ByteBuffer _byteBuffer;
+
+	/** Working context of the file */
+	private WorkingContext _workingContext;
+
+	/** Segment ID of the shape LOD element */
+	private GUID _segmentID;
+
+	/** Byte buffer position of the shape LOD element */
+	private int _segmentPosition;
+
+	/** Cache of the decoded shapes */
+	private DecodedShapeCache _decodedShapeCache;
+
+	/** Transformation (4x4 matrix, row by row) */
+	private double[] _transformation;
+
+	/** Color components (r, g, b) */
+	private float[] _color;
+
+	/** Layer name */
+	private String _layerName;
+
+	/**
+	 * Constructor.
+	 * @param jtImporter      JT importer, preparing the geometry
+	 * @param lsgNode         Shape node referencing the segment
+	 * @param byteBuffer      Byte buffer of the whole file
+	 * @param workingContext  Working context of the file
+	 * @param segmentID         Segment ID of the shape LOD element
+	 * @param segmentPosition   Byte buffer position of the shape LOD element
+	 * @param decodedShapeCache Cache of the decoded shapes
+	 * @param transformation    Transformation (4x4 matrix, row by row)
+	 * @param color             Color components (r, g, b)
+	 * @param layerName         Layer name
+	 */
+	public ShapeDecodeJob(JTImporter jtImporter, LSGNode lsgNode, ByteBuffer byteBuffer, WorkingContext workingContext, GUID segmentID, int segmentPosition, DecodedShapeCache decodedShapeCache, double[] transformation, float[] color, String layerName){
+		_jtImporter = jtImporter;
+		_lsgNode = lsgNode;
+		_byteBuffer = byteBuffer;
+		_workingContext = workingContext.clone();
+		_segmentID = segmentID;
+		_segmentPosition = segmentPosition;
+		_decodedShapeCache = decodedShapeCache;
+		_transformation = transformation;
+		_color = color;
+		_layerName = layerName;
+
+		_decodedShapeCache.retain(segmentID);
+	}
+
+	/**
+	 * Returns the decoded shape of this instance.
+	 * @return           Decoded shape or<br>
+	 *                   <b>null</b> if the shape is empty or couldn't be decoded
+	 * @throws Exception Thrown if decoding failed
+	 */
+	public DecodedShape call() throws Exception {
+		LoadStatistics.Attachment attachment = LoadStatistics.attach(_jtImporter.getLoadStatistics());
+		try {
+			return _decodedShapeCache.get(_segmentID, new Callable<DecodedShape>(){
+				public DecodedShape call(){
+					return decodeCached();
+				}
+			});
+
+		} finally {
+			attachment.detach();
+		}
+	}
+
+	/**
+	 * Passes the decoded shape with the transformation, color and layer of this instance on to
+	 * the geometry visitor and releases the instance from the cache.
+	 * @param decodedShape    Decoded shape or null
+	 * @param geometryVisitor Geometry visitor
+	 */
+	public void visit(DecodedShape decodedShape, GeometryVisitor geometryVisitor){
+		try {
+			if(decodedShape == null){
+				return;
+			}
+
+			int statisticsFrame = LoadStatistics.startPhase();
+			if(decodedShape.getTriangleMesh() != null){
+				geometryVisitor.onMesh(decodedShape.getTriangleMesh(), _transformation, _color, _layerName);
+			} else if(decodedShape.getPolylineSet() != null){
+				geometryVisitor.onPolyline(decodedShape.getPolylineSet(), _transformation, _color, _layerName);
+			} else if(decodedShape.getPointSet() != null){
+				geometryVisitor.onPoints(decodedShape.getPointSet(), _transformation, _color, _layerName);
+			}
+			LoadStatistics.stopPhase(statisticsFrame, Phase.MODEL_ASSEMBLY, 0, 0, 0);
+
+		} finally {
+			_decodedShapeCache.release(_segmentID);
+		}
+	}
+
+	/**
+	 * Takes the decoded shape from the part cache of the importer or decodes it.
+	 * @return Decoded shape or<br>
+	 *         <b>null</b> if the shape is empty or couldn't be decoded
+	 */
+	private DecodedShape decodeCached(){
+		String fileKey = _jtImporter.getPartCacheFileKey();
+		if(fileKey == null){
+			return decodePersistent();
+		}
+
+		PartCache partCache = _jtImporter.getPartCache();
+		DecodedShape decodedShape = partCache.getShape(fileKey, _segmentID);
+		if(decodedShape == null){
+			decodedShape = decodePersistent();
+			if(decodedShape != null){
+				partCache.putShape(fileKey, _segmentID, decodedShape);
+			}
+		}
+		return decodedShape;
+	}
+
+	/**
+	 * Takes the decoded shape from the persistent cache of the importer or decodes it.
+	 * @return Decoded shape or<br>
+	 *         <b>null</b> if the shape is empty or couldn't be decoded
+	 */
+	private DecodedShape decodePersistent(){
+		String fileKey = _jtImporter.getDiskCacheFileKey();
+		if(fileKey == null){
+			return decode();
+		}
+
+		DiskShapeCache diskShapeCache = _jtImporter.getDiskShapeCache();
+		DecodedShape decodedShape = diskShapeCache.getShape(fileKey, _segmentID);
+		if(decodedShape == null){
+			decodedShape = decode();
+			if(decodedShape != null){
+				diskShapeCache.putShape(fileKey, _segmentID, decodedShape);
+			}
+		}
+		return decodedShape;
+	}
+
+	/**
+	 * Reads the shape LOD element and decodes its geometry.
+	 * @return Decoded shape or<br>
+	 *         <b>null</b> if the shape is empty or couldn't be decoded
+	 */
+	private DecodedShape decode(){
+		// Use a private view of the buffer (duplicate() doesn't keep the byte order)
+		ByteBuffer byteBuffer = _byteBuffer.duplicate();
+		byteBuffer.order(_byteBuffer.order());
+		byteBuffer.position(_segmentPosition);
+
+		WorkingContext workingContext = _workingContext.clone();
+		workingContext.setByteBuffer(byteBuffer);
+
+		try {
+			// Faces
+			if(_lsgNode instanceof TriStripSetShapeNodeElement){
+				TriStripSetShapeLODElement triStripSetShapeLODElement = TriStripSetShapeLODElement.read(workingContext);
+				DecodedShape decodedShape = _jtImporter.decodeGeometry(_lsgNode.getObjectID(), triStripSetShapeLODElement, null, null, _layerName);
+				if(decodedShape != null){
+					int statisticsFrame = LoadStatistics.startPhase();
+					_jtImporter.prepareTriangleMesh(decodedShape);
+					LoadStatistics.stopPhase(statisticsFrame, Phase.MODEL_ASSEMBLY, 0, 0, 0);
+				}
+				return decodedShape;
+
+			// Polylines
+			} else if(_lsgNode instanceof PolylineSetShapeNodeElement){
+				PolylineSetShapeLODElement polylineSetShapeLODElement = PolylineSetShapeLODElement.read(workingContext);
+				return _jtImporter.decodeGeometry(_lsgNode.getObjectID(), null, polylineSetShapeLODElement, null, _layerName);
+
+			// Points
+			} else if(_lsgNode instanceof PointSetShapeNodeElement){
+				PointSetShapeLODElement pointSetShapeLODElement = PointSetShapeLODElement.read(workingContext);
+				return _jtImporter.decodeGeometry(_lsgNode.getObjectID(), null, null, pointSetShapeLODElement, _layerName);
+			}
+
+		} catch(UnsupportedCodecException exception){
+			_jtImporter.addLoadInformation("WARNING", exception.getMessage());
+		}
+
+		return null;
+	}
+}
@@ -0,0 +1,112 @@
+//################################################################################
+//	The MIT License
+//
+//	Copyright (c) 2014 Johannes Raida
+//
+//	Permission is hereby granted, free of charge, to any person obtaining a copy
+//	of this software and associated documentation files (the "Software"), to deal
+//	in the Software without restriction, including without limitation the rights
+//	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+//	copies of the Software, and to permit persons to whom the Software is
+//	furnished to do so, subject to the following conditions:
+//
+//	The above copyright notice and this permission notice shall be included in
+//	all copies or substantial portions of the Software.
+//
+//	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+//	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+//	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+//	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+//	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+//	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+//	THE SOFTWARE.
+//################################################################################
+
+package de.raida.jcadlib.cadimport.jt;
+
+/**
+ * Conversions between double and single precision geometry arrays. Single precision
+ * vertices are stored relative to a double precision origin, so that large world
+ * coordinates don't lose the precision of the float mantissa.
+ * <br>(c) 2014 by <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @author  <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @version 1.0
+ */
+final class SinglePrecision {
+	/** Origin used for arrays without offset */
+	private final static double[] NO_ORIGIN = new double[]{0.0, 0.0, 0.0};
+
+	/**
+	 * Constructor.
+	 */
+	private SinglePrecision(){
+	}
+
+	/**
+	 * Returns the center of the bounding box of the given vertices.
+	 * @param  vertices Vertices (x, y, z)
+	 * @return          Center (x, y, z)
+	 */
+	static double[] getOrigin(double[] vertices){
+		if(vertices.length == 0){
+			return new double[]{0.0, 0.0, 0.0};
+		}
+
+		double[] min = new double[]{vertices[0], vertices[1], vertices[2]};
+		double[] max = new double[]{vertices[0], vertices[1], vertices[2]};
+		for(int i = 3; i < vertices.length; i += 3){
+			for(int j = 0; j < 3; j++){
+				if(vertices[i + j] < min[j]){
+					min[j] = vertices[i + j];
+				} else if(vertices[i + j] > max[j]){
+					max[j] = vertices[i + j];
+				}
+			}
+		}
+		return new double[]{(min[0] + max[0]) / 2.0, (min[1] + max[1]) / 2.0, (min[2] + max[2]) / 2.0};
+	}
+
+	/**
+	 * Converts double values (x, y, z) to float values relative to the given origin.
+	 * @param  values Values (x, y, z) or null
+	 * @param  origin Origin (x, y, z) or null, if no offset has to be applied
+	 * @return        Float values or null, if the values are null
+	 */
+	static float[] toFloat(double[] values, double[] origin){
+		if(values == null){
+			return null;
+		}
+
+		if(origin == null){
+			origin = NO_ORIGIN;
+		}
+
+		float[] floatValues = new float[values.length];
+		for(int i = 0; i < values.length; i++){
+			floatValues[i] = (float)(values[i] - origin[i % 3]);
+		}
+		return floatValues;
+	}
+
+	/**
+	 * Converts float values (x, y, z), stored relative to the given origin, to double values.
+	 * @param  values Values (x, y, z) or null
+	 * @param  origin Origin (x, y, z) or null, if no offset has to be applied
+	 * @return        Double values or null, if the values are null
+	 */
+	static double[] toDouble(float[] values, double[] origin){
+		if(values == null){
+			return null;
+		}
+
+		if(origin == null){
+			origin = NO_ORIGIN;
+		}
+
+		double[] doubleValues = new double[values.length];
+		for(int i = 0; i < values.length; i++){
+			doubleValues[i] = values[i] + origin[i % 3];
+		}
+		return doubleValues;
+	}
+}
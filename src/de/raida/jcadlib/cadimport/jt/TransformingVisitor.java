@@ -0,0 +1,120 @@
+//################################################################################
+//	The MIT License
+//
+//	Copyright (c) 2014 Johannes Raida
+//
+//	Permission is hereby granted, free of charge, to any person obtaining a copy
+//	of this software and associated documentation files (the "Software"), to deal
+//	in the Software without restriction, including without limitation the rights
+//	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+//	copies of the Software, and to permit persons to whom the Software is
+//	furnished to do so, subject to the following conditions:
+//
+//	The above copyright notice and this permission notice shall be included in
+//	all copies or substantial portions of the Software.
+//
+//	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+//	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+//	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+//	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+//	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+//	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+//	THE SOFTWARE.
+//################################################################################
+
+package de.raida.jcadlib.cadimport.jt;
+
+/**
+ * Geometry visitor, placing the geometry of a referenced file by the transformation of
+ * the referencing partition node and passing it on to another visitor.
+ * <br>(c) 2014 by <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @author  <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @version 1.0
+ */
+class TransformingVisitor implements GeometryVisitor {
+	/** Transformation of the referencing node (4x4 matrix, row by row) */
+	private double[] _transformation;
+
+	/** Visitor receiving the transformed geometry */
+	private GeometryVisitor _geometryVisitor;
+
+	/**
+	 * Constructor.
+	 * @param transformation  Transformation of the referencing node (4x4 matrix, row by row)
+	 * @param geometryVisitor Visitor receiving the transformed geometry
+	 */
+	public TransformingVisitor(double[] transformation, GeometryVisitor geometryVisitor){
+		_transformation = transformation;
+		_geometryVisitor = geometryVisitor;
+	}
+
+	/**
+	 * Passes on the triangle mesh with the combined transformation.
+	 * @param triangleMesh   Triangle mesh in local coordinates
+	 * @param transformation Transformation within the referenced file (4x4 matrix, row by row)
+	 * @param color          Color of the instance (r, g, b)
+	 * @param layerName      Layer name
+	 */
+	public void onMesh(TriangleMesh triangleMesh, double[] transformation, float[] color, String layerName){
+		_geometryVisitor.onMesh(triangleMesh, multiply(_transformation, transformation), color, layerName);
+	}
+
+	/**
+	 * Passes on the polylines with the combined transformation.
+	 * @param polylineSet    Polylines in local coordinates
+	 * @param transformation Transformation within the referenced file (4x4 matrix, row by row)
+	 * @param color          Color of the instance (r, g, b)
+	 * @param layerName      Layer name
+	 */
+	public void onPolyline(PolylineSet polylineSet, double[] transformation, float[] color, String layerName){
+		_geometryVisitor.onPolyline(polylineSet, multiply(_transformation, transformation), color, layerName);
+	}
+
+	/**
+	 * Passes on the points with the combined transformation.
+	 * @param pointSet       Points in local coordinates
+	 * @param transformation Transformation within the referenced file (4x4 matrix, row by row)
+	 * @param color          Color of the instance (r, g, b)
+	 * @param layerName      Layer name
+	 */
+	public void onPoints(PointSet pointSet, double[] transformation, float[] color, String layerName){
+		_geometryVisitor.onPoints(pointSet, multiply(_transformation, transformation), color, layerName);
+	}
+
+	/**
+	 * Passes on the entering of a node. The nodes of the referenced file are placed below
+	 * the referencing partition node, so their transformations stay unchanged.
+	 * @param nodeName       Name of the node or null
+	 * @param transformation Transformation of the node, relative to its parent node (4x4 matrix, row by row) or null
+	 */
+	public void onEnterNode(String nodeName, double[] transformation){
+		_geometryVisitor.onEnterNode(nodeName, transformation);
+	}
+
+	/**
+	 * Passes on the leaving of a node.
+	 */
+	public void onLeaveNode(){
+		_geometryVisitor.onLeaveNode();
+	}
+
+	/**
+	 * Multiplies two 4x4 matrices.
+	 * @param  a First matrix, row by row
+	 * @param  b Second matrix, row by row
+	 * @return   Product a * b, row by row
+	 */
+	private static double[] multiply(double[] a, double[] b){
+		double[] product = new double[16];
+		for(int row = 0; row < 4; row++){
+			for(int column = 0; column < 4; column++){
+				double sum = 0.0;
+				for(int i = 0; i < 4; i++){
+					sum += a[(row * 4) + i] * b[(i * 4) + column];
+				}
+				product[(row * 4) + column] = sum;
+			}
+		}
+		return product;
+	}
+}
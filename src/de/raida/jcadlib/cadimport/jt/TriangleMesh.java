@@ -0,0 +1,254 @@
+//################################################################################
+//	The MIT License
+//
+//	Copyright (c) 2014 Johannes Raida
+//
+//	Permission is hereby granted, free of charge, to any person obtaining a copy
+//	of this software and associated documentation files (the "Software"), to deal
+//	in the Software without restriction, including without limitation the rights
+//	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+//	copies of the Software, and to permit persons to whom the Software is
+//	furnished to do so, subject to the following conditions:
+//
+//	The above copyright notice and this permission notice shall be included in
+//	all copies or substantial portions of the Software.
+//
+//	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+//	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+//	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+//	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+//	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+//	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+//	THE SOFTWARE.
+//################################################################################
+
+package de.raida.jcadlib.cadimport.jt;
+
+/**
+ * Triangles of a single shape, stored in primitive arrays. The vertices, normals and
+ * colors are either held in double precision or in single precision; single precision
+ * vertices are relative to a double precision origin. The getters of the other precision
+ * convert on each call.
+ * <br>(c) 2014 by <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @author  <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @version 1.0
+ */
+public class TriangleMesh {
+	/** Vertices (x, y, z) in double precision */
+	private double[] _vertices;
+
+	/** Indices, three per triangle */
+	private int[] _indices;
+
+	/** Indices, three per triangle, as unsigned 16 bit values (replacing the int indices) */
+	private short[] _shortIndices;
+
+	/** Color components (r, g, b) in double precision */
+	private double[] _colors;
+
+	/** Normals (x, y, z) in double precision */
+	private double[] _normals;
+
+	/** Vertices (x, y, z) in single precision, relative to the origin */
+	private float[] _floatVertices;
+
+	/** Origin of the single precision vertices */
+	private double[] _origin;
+
+	/** Color components (r, g, b) in single precision */
+	private float[] _floatColors;
+
+	/** Normals (x, y, z) in single precision */
+	private float[] _floatNormals;
+
+	/**
+	 * Constructor for a double precision mesh.
+	 * @param vertices Vertices (x, y, z)
+	 * @param indices  Indices, three per triangle
+	 * @param colors   Color components (r, g, b)
+	 * @param normals  Normals (x, y, z)
+	 */
+	public TriangleMesh(double[] vertices, int[] indices, double[] colors, double[] normals){
+		_vertices = vertices;
+		_indices = indices;
+		_colors = colors;
+		_normals = normals;
+	}
+
+	/**
+	 * Constructor for a single precision mesh.
+	 * @param vertices Vertices (x, y, z), relative to the origin
+	 * @param origin   Origin of the vertices (x, y, z)
+	 * @param indices  Indices, three per triangle
+	 * @param colors   Color components (r, g, b)
+	 * @param normals  Normals (x, y, z)
+	 */
+	public TriangleMesh(float[] vertices, double[] origin, int[] indices, float[] colors, float[] normals){
+		_floatVertices = vertices;
+		_origin = origin;
+		_indices = indices;
+		_floatColors = colors;
+		_floatNormals = normals;
+	}
+
+	/**
+	 * Creates a single precision mesh from double precision arrays. The origin is set to the
+	 * center of the vertices.
+	 * @param  vertices Vertices (x, y, z)
+	 * @param  indices  Indices, three per triangle
+	 * @param  colors   Color components (r, g, b)
+	 * @param  normals  Normals (x, y, z)
+	 * @return          Single precision mesh
+	 */
+	public static TriangleMesh createSinglePrecision(double[] vertices, int[] indices, double[] colors, double[] normals){
+		double[] origin = SinglePrecision.getOrigin(vertices);
+		return new TriangleMesh(SinglePrecision.toFloat(vertices, origin), origin, indices,
+				SinglePrecision.toFloat(colors, null), SinglePrecision.toFloat(normals, null));
+	}
+
+	/**
+	 * Is the mesh stored in single precision?
+	 * @return Is the mesh stored in single precision?
+	 */
+	public boolean isSinglePrecision(){
+		return (_floatVertices != null);
+	}
+
+	/**
+	 * Returns the vertices in double precision.
+	 * @return Vertices (x, y, z); a new array, if the mesh is stored in single precision
+	 */
+	public double[] getVertices(){
+		return isSinglePrecision() ? SinglePrecision.toDouble(_floatVertices, _origin) : _vertices;
+	}
+
+	/**
+	 * Returns the indices.
+	 * @return Indices, three per triangle; a new array, if the indices are stored as 16 bit values
+	 */
+	public int[] getIndices(){
+		if(_shortIndices != null){
+			int[] indices = new int[_shortIndices.length];
+			for(int i = 0; i < indices.length; i++){
+				indices[i] = _shortIndices[i] & 0xffff;
+			}
+			return indices;
+		}
+		return _indices;
+	}
+
+	/**
+	 * Are the indices stored as unsigned 16 bit values?
+	 * @return Are the indices stored as unsigned 16 bit values?
+	 */
+	public boolean hasShortIndices(){
+		return (_shortIndices != null);
+	}
+
+	/**
+	 * Returns the indices as unsigned 16 bit values (use <code>index &amp; 0xffff</code>).
+	 * @return Indices, three per triangle or<br>
+	 *         <b>null</b> if the indices are stored as int values
+	 */
+	public short[] getShortIndices(){
+		return _shortIndices;
+	}
+
+	/**
+	 * Stores the indices as unsigned 16 bit values, if the mesh has at most 65536 vertices.
+	 * @return This mesh
+	 */
+	TriangleMesh compactIndices(){
+		if((_indices != null) && (getVertexCount() <= 0x10000)){
+			_shortIndices = new short[_indices.length];
+			for(int i = 0; i < _indices.length; i++){
+				_shortIndices[i] = (short)_indices[i];
+			}
+			_indices = null;
+		}
+		return this;
+	}
+
+	/**
+	 * Replaces the indices by unsigned 16 bit values. Must be called before the mesh is shared.
+	 * @param shortIndices Indices, three per triangle
+	 */
+	void setShortIndices(short[] shortIndices){
+		_shortIndices = shortIndices;
+		_indices = null;
+	}
+
+	/**
+	 * Returns the color components in double precision.
+	 * @return Color components (r, g, b); a new array, if the mesh is stored in single precision
+	 */
+	public double[] getColors(){
+		return isSinglePrecision() ? SinglePrecision.toDouble(_floatColors, null) : _colors;
+	}
+
+	/**
+	 * Returns the normals in double precision.
+	 * @return Normals (x, y, z); a new array, if the mesh is stored in single precision
+	 */
+	public double[] getNormals(){
+		return isSinglePrecision() ? SinglePrecision.toDouble(_floatNormals, null) : _normals;
+	}
+
+	/**
+	 * Returns the vertices in single precision, relative to the origin.
+	 * @return Vertices (x, y, z); a new array, if the mesh is stored in double precision
+	 */
+	public float[] getFloatVertices(){
+		return isSinglePrecision() ? _floatVertices : SinglePrecision.toFloat(_vertices, null);
+	}
+
+	/**
+	 * Returns the origin of the single precision vertices.
+	 * @return Origin (x, y, z)
+	 */
+	public double[] getOrigin(){
+		return isSinglePrecision() ? _origin : new double[]{0.0, 0.0, 0.0};
+	}
+
+	/**
+	 * Returns the color components in single precision.
+	 * @return Color components (r, g, b); a new array, if the mesh is stored in double precision
+	 */
+	public float[] getFloatColors(){
+		return isSinglePrecision() ? _floatColors : SinglePrecision.toFloat(_colors, null);
+	}
+
+	/**
+	 * Returns the normals in single precision.
+	 * @return Normals (x, y, z); a new array, if the mesh is stored in double precision
+	 */
+	public float[] getFloatNormals(){
+		return isSinglePrecision() ? _floatNormals : SinglePrecision.toFloat(_normals, null);
+	}
+
+	/**
+	 * Returns the number of vertices.
+	 * @return Number of vertices
+	 */
+	public int getVertexCount(){
+		return ((isSinglePrecision() ? _floatVertices.length : _vertices.length) / 3);
+	}
+
+	/**
+	 * Returns the number of triangles.
+	 * @return Number of triangles
+	 */
+	public int getTriangleCount(){
+		return (((_shortIndices != null) ? _shortIndices.length : _indices.length) / 3);
+	}
+
+	/**
+	 * Estimates the memory held by the arrays of the mesh.
+	 * @return Size in bytes
+	 */
+	long getByteSize(){
+		return	PartCache.sizeOf(_vertices) + PartCache.sizeOf(_indices) + PartCache.sizeOf(_shortIndices) +
+				PartCache.sizeOf(_colors) + PartCache.sizeOf(_normals) + PartCache.sizeOf(_floatVertices) +
+				PartCache.sizeOf(_origin) + PartCache.sizeOf(_floatColors) + PartCache.sizeOf(_floatNormals);
+	}
+}
@@ -0,0 +1,155 @@
+//################################################################################
+//	The MIT License
+//
+//	Copyright (c) 2014 Johannes Raida
+//
+//	Permission is hereby granted, free of charge, to any person obtaining a copy
+//	of this software and associated documentation files (the "Software"), to deal
+//	in the Software without restriction, including without limitation the rights
+//	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+//	copies of the Software, and to permit persons to whom the Software is
+//	furnished to do so, subject to the following conditions:
+//
+//	The above copyright notice and this permission notice shall be included in
+//	all copies or substantial portions of the Software.
+//
+//	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+//	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+//	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+//	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+//	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+//	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+//	THE SOFTWARE.
+//################################################################################
+
+package de.raida.jcadlib.cadimport.jt;
+
+import java.util.Arrays;
+
+/**
+ * Assigns consecutive indices to unique (vertex index, attribute index) tuples. The
+ * tuples are kept in an open-addressing hash table with linear probing on primitive
+ * arrays, so no objects are created per tuple.
+ * <br>(c) 2014 by <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @author  <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @version 1.0
+ */
+class VertexTupleIndex {
+	/** Marker of an empty slot (not a valid key, as vertex indices are never negative) */
+	private final static long EMPTY = Long.MIN_VALUE;
+
+	/** Keys of the hash table */
+	private long[] _keys;
+
+	/** Unique indices of the hash table */
+	private int[] _values;
+
+	/** Vertex indices of the tuples, in the order of their unique indices */
+	private int[] _vertexIndices;
+
+	/** Attribute indices of the tuples, in the order of their unique indices */
+	private int[] _attributeIndices;
+
+	/** Number of unique tuples */
+	private int _size;
+
+	/**
+	 * Constructor.
+	 * @param expectedSize Expected maximal number of unique tuples
+	 */
+	public VertexTupleIndex(int expectedSize){
+		int capacity = 16;
+		while(capacity < (expectedSize * 2)){
+			capacity <<= 1;
+		}
+		_keys = new long[capacity];
+		Arrays.fill(_keys, EMPTY);
+		_values = new int[capacity];
+		_vertexIndices = new int[Math.max(expectedSize, 16)];
+		_attributeIndices = new int[_vertexIndices.length];
+	}
+
+	/**
+	 * Returns the unique index of the given tuple, adding the tuple if it is new.
+	 * @param  vertexIndex    Vertex index
+	 * @param  attributeIndex Attribute index
+	 * @return                Unique index of the tuple
+	 */
+	public int getOrAdd(int vertexIndex, int attributeIndex){
+		long key = ((long)vertexIndex << 32) | (attributeIndex & 0xffffffffL);
+		int mask = _keys.length - 1;
+		int slot = (int)((key * 0x9e3779b97f4a7c15L) >>> 32) & mask;
+		while(_keys[slot] != EMPTY){
+			if(_keys[slot] == key){
+				return _values[slot];
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		if(_size == _vertexIndices.length){
+			_vertexIndices = Arrays.copyOf(_vertexIndices, _size * 2);
+			_attributeIndices = Arrays.copyOf(_attributeIndices, _size * 2);
+		}
+		_vertexIndices[_size] = vertexIndex;
+		_attributeIndices[_size] = attributeIndex;
+
+		_keys[slot] = key;
+		_values[slot] = _size;
+		_size++;
+
+		if((_size * 2) > _keys.length){
+			rehash();
+		}
+		return (_size - 1);
+	}
+
+	/**
+	 * Returns the number of unique tuples.
+	 * @return Number of unique tuples
+	 */
+	public int size(){
+		return _size;
+	}
+
+	/**
+	 * Returns the vertex index of a unique tuple.
+	 * @param  index Unique index
+	 * @return       Vertex index
+	 */
+	public int getVertexIndex(int index){
+		return _vertexIndices[index];
+	}
+
+	/**
+	 * Returns the attribute index of a unique tuple.
+	 * @param  index Unique index
+	 * @return       Attribute index
+	 */
+	public int getAttributeIndex(int index){
+		return _attributeIndices[index];
+	}
+
+	/**
+	 * Doubles the capacity of the hash table.
+	 */
+	private void rehash(){
+		long[] oldKeys = _keys;
+		int[] oldValues = _values;
+
+		_keys = new long[oldKeys.length * 2];
+		Arrays.fill(_keys, EMPTY);
+		_values = new int[_keys.length];
+
+		int mask = _keys.length - 1;
+		for(int i = 0; i < oldKeys.length; i++){
+			if(oldKeys[i] != EMPTY){
+				int slot = (int)((oldKeys[i] * 0x9e3779b97f4a7c15L) >>> 32) & mask;
+				while(_keys[slot] != EMPTY){
+					slot = (slot + 1) & mask;
+				}
+				_keys[slot] = oldKeys[i];
+				_values[slot] = oldValues[i];
+			}
+		}
+	}
+}
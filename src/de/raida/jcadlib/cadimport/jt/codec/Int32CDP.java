@@ -29,6 +29,8 @@ import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.List;
 
+import de.raida.jcadlib.cadimport.jt.LoadStatistics;
+import de.raida.jcadlib.cadimport.jt.LoadStatistics.Phase;
 import de.raida.jcadlib.cadimport.jt.codec.arithmetic.ArithmeticDecoder;
 import de.raida.jcadlib.cadimport.jt.codec.bitlength.BitlengthDecoder;
 import de.raida.jcadlib.cadimport.jt.codec.huffman.HuffmanDecoder;
@@ -128,6 +130,7 @@ public class Int32CDP {
 
 		// Handle "null codec"
 		if(codecType == CODECTYPE_NULL){
+			int statisticsFrame = LoadStatistics.startPhase();
 			List<Integer> decodedSymbols = new ArrayList<Integer>();
 
 			int intsToRead = Helper.readI32(byteBuffer);
@@ -135,10 +138,12 @@ public class Int32CDP {
             	decodedSymbols.add(Helper.readI32(byteBuffer));
             }
 
+            LoadStatistics.stopPhase(statisticsFrame, Phase.CODEC_NULL, intsToRead * 4L, intsToRead * 4L, intsToRead);
             return decodedSymbols;
 		}
 
 		// Read the compressed and encoded code text
+		int statisticsFrame = LoadStatistics.startPhase();
 		int intsToRead = Helper.readI32(byteBuffer);
 		byte[] codeText = new byte[intsToRead * 4];
 		for(int i = 0; i < intsToRead; i++){
@@ -160,6 +165,7 @@ public class Int32CDP {
 
 		// Decode the bytes
 		List<Integer> decodedSymbols = new ArrayList<Integer>();
+		Phase phase = Phase.CODEC_BITLENGTH;
 		switch(codecType){
 			case CODECTYPE_BITLENGTH:
 				decodedSymbols = BitlengthDecoder.decode(codecDriver);
@@ -167,12 +173,15 @@ public class Int32CDP {
 
 			case CODECTYPE_HUFFMAN:
 				decodedSymbols = HuffmanDecoder.decode(codecDriver);
+				phase = Phase.CODEC_HUFFMAN;
 				break;
 
 			case CODECTYPE_ARITHMETIC:
 				decodedSymbols = ArithmeticDecoder.decode(codecDriver);
+				phase = Phase.CODEC_ARITHMETIC;
 				break;
 		}
+		LoadStatistics.stopPhase(statisticsFrame, phase, codeText.length, decodedSymbols.size() * 4L, decodedSymbols.size());
 
 		if(decodedSymbols.size() != valueElementCount){
 			throw new IllegalArgumentException("Codec produced wrong number of symbols: " + decodedSymbols.size() + " / " + valueElementCount);
@@ -29,6 +29,8 @@ import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.List;
 
+import de.raida.jcadlib.cadimport.jt.LoadStatistics;
+import de.raida.jcadlib.cadimport.jt.LoadStatistics.Phase;
 import de.raida.jcadlib.cadimport.jt.codec.arithmetic.ArithmeticDecoder;
 import de.raida.jcadlib.cadimport.jt.codec.bitlength.BitlengthDecoder;
 import de.raida.jcadlib.cadimport.jt.reader.Helper;
@@ -125,6 +127,7 @@ public class Int32CDP2 {
 				return decodeBytes(workingContext);
 
 			} else {
+				int statisticsFrame = LoadStatistics.startPhase();
 				int valueBias = Helper.readI32(byteBuffer);
 				int valueSpanBits = Helper.readU8(byteBuffer);
 				List<Integer> choppedMSBData = decodeBytes(workingContext);
@@ -134,12 +137,14 @@ public class Int32CDP2 {
 				for(int i = 0; i < choppedMSBData.size(); i++){
 					decodedSymbols.add((choppedLSBData.get(i) | (choppedMSBData.get(i) << (valueSpanBits - chopBits))) + valueBias);
 				}
+				LoadStatistics.stopPhase(statisticsFrame, Phase.CODEC_CHOPPER, 0, decodedSymbols.size() * 4L, decodedSymbols.size());
 				return decodedSymbols;
 			}
 		}
 
 		// Handle "null codec"
 		if(codecType == CODECTYPE_NULL){
+			int statisticsFrame = LoadStatistics.startPhase();
 			List<Integer> decodedSymbols = new ArrayList<Integer>();
 
 			int intsToRead = Helper.readI32(byteBuffer) / 4;
@@ -147,9 +152,11 @@ public class Int32CDP2 {
             	decodedSymbols.add(Helper.readI32(byteBuffer));
             }
 
+            LoadStatistics.stopPhase(statisticsFrame, Phase.CODEC_NULL, intsToRead * 4L, intsToRead * 4L, intsToRead);
             return decodedSymbols;
 		}
 
+		int statisticsFrame = LoadStatistics.startPhase();
 		int codeTextLength = Helper.readI32(byteBuffer);
 		int intsToRead = (int)((codeTextLength / 32.0) + 0.99);
 
@@ -176,6 +183,7 @@ public class Int32CDP2 {
 			int32ProbabilityContexts = Int32ProbabilityContexts.read(workingContext);
 			outOfBandValues = Int32CDP2.decodeBytes(workingContext);
 			if((codeTextLength == 0) && (outOfBandValues.size() == valueCount)){
+				LoadStatistics.stopPhase(statisticsFrame, Phase.CODEC_ARITHMETIC, codeTextWords.length, valueCount * 4L, valueCount);
 				return outOfBandValues;
 			}
 		}
@@ -184,6 +192,7 @@ public class Int32CDP2 {
 
 		// Decode the bytes
 		List<Integer> decodedSymbols = new ArrayList<Integer>();
+		Phase phase = Phase.CODEC_BITLENGTH;
 		switch(codecType){
 			case CODECTYPE_BITLENGTH:
 				decodedSymbols = BitlengthDecoder.decode2(codecDriver);
@@ -191,8 +200,10 @@ public class Int32CDP2 {
 
 			case CODECTYPE_ARITHMETIC:
 				decodedSymbols = ArithmeticDecoder.decode(codecDriver);
+				phase = Phase.CODEC_ARITHMETIC;
 				break;
 		}
+		LoadStatistics.stopPhase(statisticsFrame, phase, codeTextWords.length, decodedSymbols.size() * 4L, decodedSymbols.size());
 
 		if(decodedSymbols.size() != valueCount){
 			throw new IllegalArgumentException("Codec produced wrong number of symbols: " + decodedSymbols.size() + " / " + valueCount);
@@ -29,7 +29,6 @@ import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.HashMap;
 
-import de.raida.jcadlib.cadimport.jt.JTImporter;
 import de.raida.jcadlib.cadimport.jt.reader.BitBuffer;
 import de.raida.jcadlib.cadimport.jt.reader.Helper;
 import de.raida.jcadlib.cadimport.jt.reader.WorkingContext;
@@ -184,11 +183,8 @@ public class Int32ProbabilityContexts {
 				bitBuffer.readAsUnsignedInt((8 - bitsToSkip));
 			}
 
-			// Update progress of bytes
-			int readBytes = (int)((bitBuffer.getPosition() >> 3) - byteBuffer.position());
-			JTImporter.updateProgress(readBytes);
-
 			// Update byte buffer position
+			int readBytes = (int)((bitBuffer.getPosition() >> 3) - byteBuffer.position());
 			byteBuffer.position(byteBuffer.position() + readBytes);
 
 			return new Int32ProbabilityContexts(int32ProbabilityContextTableEntries);
@@ -227,11 +223,8 @@ public class Int32ProbabilityContexts {
 				bitBuffer.readAsUnsignedInt((8 - bitsToSkip));
 			}
 
-			// Update progress of bytes
-			int readBytes = (int)((bitBuffer.getPosition() >> 3) - byteBuffer.position());
-			JTImporter.updateProgress(readBytes);
-
 			// Update byte buffer position
+			int readBytes = (int)((bitBuffer.getPosition() >> 3) - byteBuffer.position());
 			byteBuffer.position(byteBuffer.position() + readBytes);
 
 			return new Int32ProbabilityContexts(int32ProbabilityContextTableEntries);
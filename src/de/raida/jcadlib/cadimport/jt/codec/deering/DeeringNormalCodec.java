@@ -37,16 +37,13 @@ public class DeeringNormalCodec {
 	private long _numberOfBits;
 
 	/** Deering normal lookup table */
-	private static DeeringNormalLookupTable _deeringNormalLookupTable;
+	private final static DeeringNormalLookupTable _deeringNormalLookupTable = new DeeringNormalLookupTable();
 
 	/**
 	 * Constructor.
 	 * @param numberOfBits Number of bits
 	 */
 	public DeeringNormalCodec(long numberOfBits){
-		if(_deeringNormalLookupTable == null){
-			_deeringNormalLookupTable = new DeeringNormalLookupTable();
-		}
 		_numberOfBits = numberOfBits;
 	}
 
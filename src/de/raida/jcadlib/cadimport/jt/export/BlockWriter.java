@@ -0,0 +1,228 @@
+//################################################################################
+//	The MIT License
+//
+//	Copyright (c) 2014 Johannes Raida
+//
+//	Permission is hereby granted, free of charge, to any person obtaining a copy
+//	of this software and associated documentation files (the "Software"), to deal
+//	in the Software without restriction, including without limitation the rights
+//	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+//	copies of the Software, and to permit persons to whom the Software is
+//	furnished to do so, subject to the following conditions:
+//
+//	The above copyright notice and this permission notice shall be included in
+//	all copies or substantial portions of the Software.
+//
+//	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+//	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+//	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+//	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+//	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+//	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+//	THE SOFTWARE.
+//################################################################################
+
+package de.raida.jcadlib.cadimport.jt.export;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Writes little endian blocks through a buffer into a file channel.
+ * <br>(c) 2014 by <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @author  <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @version 1.0
+ */
+class BlockWriter {
+	/** Size of the write buffer in bytes */
+	private final static int BUFFER_SIZE = 1 << 16;
+
+	/** Output stream of the file */
+	private FileOutputStream _fileOutputStream;
+
+	/** Channel of the file */
+	private FileChannel _fileChannel;
+
+	/** Write buffer */
+	private ByteBuffer _byteBuffer;
+
+	/** Number of bytes written to the channel */
+	private long _writtenBytes;
+
+	/**
+	 * Constructor.
+	 * @param  file        File to write; replaced, if existing
+	 * @throws IOException Thrown if the file can't be created
+	 */
+	public BlockWriter(File file) throws IOException {
+		_fileOutputStream = new FileOutputStream(file);
+		_fileChannel = _fileOutputStream.getChannel();
+		_byteBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * Writes a byte value.
+	 * @param  value       Value
+	 * @throws IOException Thrown if the file can't be written
+	 */
+	public void putByte(int value) throws IOException {
+		if(!_byteBuffer.hasRemaining()){
+			flush();
+		}
+		_byteBuffer.put((byte)value);
+	}
+
+	/**
+	 * Writes an int value.
+	 * @param  value       Value
+	 * @throws IOException Thrown if the file can't be written
+	 */
+	public void putInt(int value) throws IOException {
+		if(_byteBuffer.remaining() < 4){
+			flush();
+		}
+		_byteBuffer.putInt(value);
+	}
+
+	/**
+	 * Writes a short value.
+	 * @param  value       Value
+	 * @throws IOException Thrown if the file can't be written
+	 */
+	public void putShort(short value) throws IOException {
+		if(_byteBuffer.remaining() < 2){
+			flush();
+		}
+		_byteBuffer.putShort(value);
+	}
+
+	/**
+	 * Writes a float value.
+	 * @param  value       Value
+	 * @throws IOException Thrown if the file can't be written
+	 */
+	public void putFloat(float value) throws IOException {
+		if(_byteBuffer.remaining() < 4){
+			flush();
+		}
+		_byteBuffer.putFloat(value);
+	}
+
+	/**
+	 * Writes a double value.
+	 * @param  value       Value
+	 * @throws IOException Thrown if the file can't be written
+	 */
+	public void putDouble(double value) throws IOException {
+		if(_byteBuffer.remaining() < 8){
+			flush();
+		}
+		_byteBuffer.putDouble(value);
+	}
+
+	/**
+	 * Writes an unsigned value as variable length quantity (7 bits per byte, least significant first).
+	 * @param  value       Value (interpreted as unsigned)
+	 * @throws IOException Thrown if the file can't be written
+	 */
+	public void putVarInt(int value) throws IOException {
+		while((value & ~0x7f) != 0){
+			putByte((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		putByte(value);
+	}
+
+	/**
+	 * Writes a text in UTF-8.
+	 * @param  text        Text
+	 * @throws IOException Thrown if the file can't be written
+	 */
+	public void putText(String text) throws IOException {
+		putBytes(text.getBytes("UTF-8"));
+	}
+
+	/**
+	 * Writes bytes.
+	 * @param  bytes       Bytes
+	 * @throws IOException Thrown if the file can't be written
+	 */
+	public void putBytes(byte[] bytes) throws IOException {
+		for(int offset = 0; offset < bytes.length;){
+			if(!_byteBuffer.hasRemaining()){
+				flush();
+			}
+			int length = Math.min(bytes.length - offset, _byteBuffer.remaining());
+			_byteBuffer.put(bytes, offset, length);
+			offset += length;
+		}
+	}
+
+	/**
+	 * Writes the whole content of another file, without copying it through the heap.
+	 * @param  file        File to copy
+	 * @throws IOException Thrown if a file can't be read or written
+	 */
+	public void putFile(File file) throws IOException {
+		flush();
+		FileInputStream fileInputStream = new FileInputStream(file);
+		try {
+			FileChannel fileChannel = fileInputStream.getChannel();
+			long size = fileChannel.size();
+			for(long position = 0; position < size;){
+				position += fileChannel.transferTo(position, size - position, _fileChannel);
+			}
+			_writtenBytes += size;
+		} finally {
+			fileInputStream.close();
+		}
+	}
+
+	/**
+	 * Writes zero bytes, until the position is a multiple of the given alignment.
+	 * @param  alignment   Alignment in bytes
+	 * @throws IOException Thrown if the file can't be written
+	 */
+	public void align(int alignment) throws IOException {
+		while((getPosition() % alignment) != 0){
+			putBytes(new byte[1]);
+		}
+	}
+
+	/**
+	 * Returns the number of bytes written so far (including the buffered bytes).
+	 * @return Position in the file
+	 */
+	public long getPosition(){
+		return _writtenBytes + _byteBuffer.position();
+	}
+
+	/**
+	 * Writes the buffered bytes to the file.
+	 * @throws IOException Thrown if the file can't be written
+	 */
+	private void flush() throws IOException {
+		_byteBuffer.flip();
+		while(_byteBuffer.hasRemaining()){
+			_writtenBytes += _fileChannel.write(_byteBuffer);
+		}
+		_byteBuffer.clear();
+	}
+
+	/**
+	 * Writes the buffered bytes and closes the file.
+	 * @throws IOException Thrown if the file can't be written
+	 */
+	public void close() throws IOException {
+		try {
+			flush();
+		} finally {
+			_fileOutputStream.close();
+		}
+	}
+}
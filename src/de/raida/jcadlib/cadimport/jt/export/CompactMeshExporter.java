@@ -0,0 +1,332 @@
+//################################################################################
+//	The MIT License
+//
+//	Copyright (c) 2014 Johannes Raida
+//
+//	Permission is hereby granted, free of charge, to any person obtaining a copy
+//	of this software and associated documentation files (the "Software"), to deal
+//	in the Software without restriction, including without limitation the rights
+//	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+//	copies of the Software, and to permit persons to whom the Software is
+//	furnished to do so, subject to the following conditions:
+//
+//	The above copyright notice and this permission notice shall be included in
+//	all copies or substantial portions of the Software.
+//
+//	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+//	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+//	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+//	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+//	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+//	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+//	THE SOFTWARE.
+//################################################################################
+
+package de.raida.jcadlib.cadimport.jt.export;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import de.raida.jcadlib.cadimport.jt.JTModel;
+import de.raida.jcadlib.cadimport.jt.TriangleMesh;
+import de.raida.jcadlib.cadimport.jt.model.quantize.PointQuantizerData;
+import de.raida.jcadlib.cadimport.jt.model.quantize.UniformQuantizerData;
+
+/**
+ * Exports the triangles of a model in a compact, quantized interchange format, which is
+ * read by CompactMeshReader. The vertices of each mesh are quantized uniformly within the
+ * bounding box of the mesh (16 or 24 bits per component), the normals are octahedral
+ * encoded (2 x 16 bits), colors, which vary per vertex, are stored with 8 bits per
+ * component and the indices are stored as zigzag encoded differences to the previous index
+ * in variable length quantities. Meshes, which are colored uniformly, store their color
+ * once. Mesh instances keep their transformation and reference the geometry of the first
+ * instance of the same mesh.
+ * <br>File layout (little endian):
+ * <ul>
+ * <li>Header: magic number "JTQM" (int), format version (byte)</li>
+ * <li>Layer: tag 1 (byte), name (varint length, UTF-8 bytes), number of meshes (varint), meshes;
+ *     the file ends with tag 0</li>
+ * <li>Mesh: flags (byte: 1 normals, 2 transformation, 4 color, 8 geometry reference,
+ *     16 vertex colors), [transformation: 12 doubles, rows 1 to 3], [color: 3 floats],
+ *     geometry reference (varint index of the geometry) or geometry; the color of the mesh
+ *     takes precedence over the vertex colors of its geometry</li>
+ * <li>Geometry: number of vertices (varint), number of triangles (varint), point quantizer
+ *     (3 x min float, max float, number of bits byte; as in the JT file format), quantized
+ *     vertices, [normals], [vertex colors: 3 bytes per vertex], length of the index block
+ *     (varint), index block</li>
+ * </ul>
+ * <br>(c) 2014 by <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @author  <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @version 1.0
+ */
+public class CompactMeshExporter {
+	/** Magic number of the file ("JTQM") */
+	public final static int MAGIC_NUMBER = 0x4D51544A;
+
+	/** Version of the file format */
+	public final static int FORMAT_VERSION = 2;
+
+	/** Tag of the end of the file */
+	final static int END_TAG = 0;
+
+	/** Tag of a layer section */
+	final static int LAYER_TAG = 1;
+
+	/** Mesh flag: The geometry has normals */
+	final static int NORMALS = 1;
+
+	/** Mesh flag: The mesh has a transformation */
+	final static int TRANSFORMATION = 2;
+
+	/** Mesh flag: The mesh has a color */
+	final static int COLOR = 4;
+
+	/** Mesh flag: The mesh references a geometry written before */
+	final static int GEOMETRY_REFERENCE = 8;
+
+	/** Mesh flag: The geometry has colors per vertex */
+	final static int VERTEX_COLORS = 16;
+
+	/** Quantization range of the octahedral normal components */
+	final static int NORMAL_RANGE = 0xffff;
+
+	/** Quantization range of the vertex color components */
+	final static int COLOR_RANGE = 0xff;
+
+	/** Number of bits per vertex component */
+	private int _bitsPerVertex;
+
+	/**
+	 * Constructor.
+	 * @param bitsPerVertex Number of bits per vertex component (16 or 24)
+	 */
+	public CompactMeshExporter(int bitsPerVertex){
+		if((bitsPerVertex != 16) && (bitsPerVertex != 24)){
+			throw new IllegalArgumentException("Unsupported number of bits per vertex: " + bitsPerVertex);
+		}
+		_bitsPerVertex = bitsPerVertex;
+	}
+
+	/**
+	 * Exports the triangles of all layers. An existing file is replaced.
+	 * @param  jtModel     Model to export
+	 * @param  file        Output file
+	 * @throws IOException Thrown if the file can't be written
+	 */
+	public void export(JTModel jtModel, File file) throws IOException {
+		IdentityHashMap<TriangleMesh, Integer> geometryIndices = new IdentityHashMap<TriangleMesh, Integer>();
+
+		BlockWriter blockWriter = new BlockWriter(file);
+		try {
+			blockWriter.putInt(MAGIC_NUMBER);
+			blockWriter.putByte(FORMAT_VERSION);
+
+			List<LayerMeshes> layers = LayerMeshes.collect(jtModel);
+			for(LayerMeshes layerMeshes : layers){
+				byte[] layerName = layerMeshes.getLayerName().getBytes("UTF-8");
+				blockWriter.putByte(LAYER_TAG);
+				blockWriter.putVarInt(layerName.length);
+				blockWriter.putBytes(layerName);
+				blockWriter.putVarInt(layerMeshes.getMeshCount());
+
+				for(int meshIndex = 0; meshIndex < layerMeshes.getMeshCount(); meshIndex++){
+					TriangleMesh triangleMesh = layerMeshes.getTriangleMesh(meshIndex);
+					double[] transformation = layerMeshes.getTransformation(meshIndex);
+					float[] color = layerMeshes.getColor(meshIndex);
+					double[] colors = triangleMesh.getColors();
+					double[] normals = triangleMesh.getNormals();
+					boolean hasNormals = (normals != null) && (normals.length == triangleMesh.getVertexCount() * 3);
+					boolean hasVertexColors = (colors != null) && (colors.length == triangleMesh.getVertexCount() * 3) && !isUniform(colors);
+					Integer geometryIndex = geometryIndices.get(triangleMesh);
+
+					int flags = (hasNormals ? NORMALS : 0) | ((transformation != null) ? TRANSFORMATION : 0);
+					flags |= (((color != null) || (!hasVertexColors && (colors != null) && (colors.length >= 3))) ? COLOR : 0);
+					flags |= ((geometryIndex != null) ? GEOMETRY_REFERENCE : 0);
+					flags |= (hasVertexColors ? VERTEX_COLORS : 0);
+					blockWriter.putByte(flags);
+
+					if(transformation != null){
+						for(int i = 0; i < 12; i++){
+							blockWriter.putDouble(transformation[i]);
+						}
+					}
+					if(color != null){
+						blockWriter.putFloat(color[0]);
+						blockWriter.putFloat(color[1]);
+						blockWriter.putFloat(color[2]);
+					} else if((flags & COLOR) != 0){
+						// Uniform colors of the mesh are stored once
+						blockWriter.putFloat((float)colors[0]);
+						blockWriter.putFloat((float)colors[1]);
+						blockWriter.putFloat((float)colors[2]);
+					}
+
+					if(geometryIndex != null){
+						blockWriter.putVarInt(geometryIndex);
+					} else {
+						geometryIndices.put(triangleMesh, geometryIndices.size());
+						writeGeometry(blockWriter, triangleMesh.getVertices(), hasNormals ? normals : null, hasVertexColors ? colors : null, triangleMesh.getIndices());
+					}
+				}
+			}
+			blockWriter.putByte(END_TAG);
+
+		} finally {
+			blockWriter.close();
+		}
+	}
+
+	/**
+	 * Writes the quantized geometry of a mesh.
+	 * @param  blockWriter Writer of the file
+	 * @param  vertices    Vertices (x, y, z)
+	 * @param  normals     Normals (x, y, z) or null
+	 * @param  colors      Colors per vertex (r, g, b) or null
+	 * @param  indices     Indices, three per triangle
+	 * @throws IOException Thrown if the file can't be written
+	 */
+	private void writeGeometry(BlockWriter blockWriter, double[] vertices, double[] normals, double[] colors, int[] indices) throws IOException {
+		blockWriter.putVarInt(vertices.length / 3);
+		blockWriter.putVarInt(indices.length / 3);
+
+		// Bounding box of the part as point quantizer
+		PointQuantizerData pointQuantizerData = createPointQuantizerData(vertices);
+		float[][] ranges = {pointQuantizerData.getXRange(), pointQuantizerData.getYRange(), pointQuantizerData.getZRange()};
+		for(float[] range : ranges){
+			blockWriter.putFloat(range[0]);
+			blockWriter.putFloat(range[1]);
+			blockWriter.putByte(pointQuantizerData.getNumberOfBits());
+		}
+
+		long maximalCode = (1L << _bitsPerVertex) - 1;
+		for(int i = 0; i < vertices.length; i++){
+			float[] range = ranges[i % 3];
+			double extent = (double)range[1] - range[0];
+			long code = (extent > 0) ? Math.round((vertices[i] - range[0]) / extent * maximalCode) : 0;
+			code = Math.max(0, Math.min(maximalCode, code));
+			blockWriter.putShort((short)code);
+			if(_bitsPerVertex == 24){
+				blockWriter.putByte((int)(code >>> 16));
+			}
+		}
+
+		if(normals != null){
+			for(int i = 0; i < normals.length; i += 3){
+				writeOctahedralNormal(blockWriter, normals[i], normals[i + 1], normals[i + 2]);
+			}
+		}
+
+		if(colors != null){
+			for(double component : colors){
+				blockWriter.putByte((int)Math.round(Math.max(0, Math.min(1, component)) * COLOR_RANGE));
+			}
+		}
+
+		// Length of the index block first, so readers can skip it
+		int byteLength = 0;
+		int previousIndex = 0;
+		for(int index : indices){
+			byteLength += getVarIntLength(zigzag(index - previousIndex));
+			previousIndex = index;
+		}
+		blockWriter.putVarInt(byteLength);
+
+		previousIndex = 0;
+		for(int index : indices){
+			blockWriter.putVarInt(zigzag(index - previousIndex));
+			previousIndex = index;
+		}
+	}
+
+	/**
+	 * Creates the point quantizer of a part: its bounding box, rounded outwards to float values.
+	 * @param  vertices Vertices (x, y, z)
+	 * @return          Point quantizer
+	 */
+	private PointQuantizerData createPointQuantizerData(double[] vertices){
+		double[] min = {Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE};
+		double[] max = {-Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE};
+		for(int i = 0; i < vertices.length; i++){
+			min[i % 3] = Math.min(min[i % 3], vertices[i]);
+			max[i % 3] = Math.max(max[i % 3], vertices[i]);
+		}
+
+		UniformQuantizerData[] uniformQuantizerData = new UniformQuantizerData[3];
+		for(int i = 0; i < 3; i++){
+			if(min[i] > max[i]){
+				min[i] = max[i] = 0;
+			}
+			float floatMin = (float)min[i];
+			if(floatMin > min[i]){
+				floatMin = Math.nextAfter(floatMin, Double.NEGATIVE_INFINITY);
+			}
+			float floatMax = (float)max[i];
+			if(floatMax < max[i]){
+				floatMax = Math.nextAfter(floatMax, Double.POSITIVE_INFINITY);
+			}
+			uniformQuantizerData[i] = new UniformQuantizerData(floatMin, floatMax, _bitsPerVertex);
+		}
+		return new PointQuantizerData(uniformQuantizerData[0], uniformQuantizerData[1], uniformQuantizerData[2]);
+	}
+
+	/**
+	 * Checks, whether all vertices have the same color.
+	 * @param  colors Colors per vertex (r, g, b)
+	 * @return        Are all colors equal?
+	 */
+	private static boolean isUniform(double[] colors){
+		for(int i = 3; i < colors.length; i++){
+			if(colors[i] != colors[i % 3]){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Writes a normal in octahedral encoding: the normal is projected onto the octahedron
+	 * |x| + |y| + |z| = 1, whose lower half is folded onto the upper half.
+	 * @param  blockWriter Writer of the file
+	 * @param  x           X component of the normal
+	 * @param  y           Y component of the normal
+	 * @param  z           Z component of the normal
+	 * @throws IOException Thrown if the file can't be written
+	 */
+	private static void writeOctahedralNormal(BlockWriter blockWriter, double x, double y, double z) throws IOException {
+		double length = Math.abs(x) + Math.abs(y) + Math.abs(z);
+		double u = (length > 0) ? (x / length) : 0;
+		double v = (length > 0) ? (y / length) : 0;
+		if(z < 0){
+			double foldedU = (1 - Math.abs(v)) * ((u >= 0) ? 1 : -1);
+			v = (1 - Math.abs(u)) * ((v >= 0) ? 1 : -1);
+			u = foldedU;
+		}
+		blockWriter.putShort((short)Math.round(((u * 0.5) + 0.5) * NORMAL_RANGE));
+		blockWriter.putShort((short)Math.round(((v * 0.5) + 0.5) * NORMAL_RANGE));
+	}
+
+	/**
+	 * Maps a signed value to an unsigned value (0, -1, 1, -2, ... to 0, 1, 2, 3, ...).
+	 * @param  value Signed value
+	 * @return       Unsigned value
+	 */
+	private static int zigzag(int value){
+		return (value << 1) ^ (value >> 31);
+	}
+
+	/**
+	 * Returns the number of bytes of a variable length quantity.
+	 * @param  value Unsigned value
+	 * @return       Number of bytes
+	 */
+	private static int getVarIntLength(int value){
+		int length = 1;
+		while((value & ~0x7f) != 0){
+			value >>>= 7;
+			length++;
+		}
+		return length;
+	}
+}
@@ -0,0 +1,392 @@
+//################################################################################
+//	The MIT License
+//
+//	Copyright (c) 2014 Johannes Raida
+//
+//	Permission is hereby granted, free of charge, to any person obtaining a copy
+//	of this software and associated documentation files (the "Software"), to deal
+//	in the Software without restriction, including without limitation the rights
+//	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+//	copies of the Software, and to permit persons to whom the Software is
+//	furnished to do so, subject to the following conditions:
+//
+//	The above copyright notice and this permission notice shall be included in
+//	all copies or substantial portions of the Software.
+//
+//	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+//	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+//	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+//	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+//	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+//	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+//	THE SOFTWARE.
+//################################################################################
+
+package de.raida.jcadlib.cadimport.jt.export;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+
+/**
+ * Reads files of the compact, quantized interchange format, written by CompactMeshExporter.
+ * The reader iterates over the layers and meshes of a byte buffer (e.g. a memory mapped
+ * file) and decodes the geometry into arrays of the caller, which can be reused for all
+ * meshes; apart from the layer names, no objects are created while reading.
+ * <br>Geometry shared by several mesh instances is stored only once: a mesh either has
+ * geometry of its own or references the geometry of a previous mesh by its geometry index.
+ * <br>(c) 2014 by <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @author  <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @version 1.0
+ */
+public class CompactMeshReader {
+	/** Character set of the layer names */
+	private final static Charset UTF_8 = Charset.forName("UTF-8");
+
+	/** Byte buffer of the file */
+	private ByteBuffer _byteBuffer;
+
+	/** Position of the name of the current layer */
+	private int _layerNamePosition;
+
+	/** Length of the name of the current layer in bytes */
+	private int _layerNameLength;
+
+	/** Number of meshes of the current layer */
+	private int _meshCount;
+
+	/** Number of meshes of the current layer, which haven't been read yet */
+	private int _remainingMeshes;
+
+	/** Position of the next mesh */
+	private int _nextMeshPosition;
+
+	/** Flags of the current mesh */
+	private int _flags;
+
+	/** Transformation of the current mesh (rows 1 to 3 of the 4x4 matrix) */
+	private double[] _transformation;
+
+	/** Color of the current mesh (r, g, b) */
+	private float[] _color;
+
+	/** Geometry index of the current mesh */
+	private int _geometryIndex;
+
+	/** Number of geometries read so far */
+	private int _geometryCount;
+
+	/** Number of vertices of the current geometry */
+	private int _vertexCount;
+
+	/** Number of triangles of the current geometry */
+	private int _triangleCount;
+
+	/** Minimum of the quantization range of the vertex components (x, y, z) */
+	private double[] _min;
+
+	/** Maximum of the quantization range of the vertex components (x, y, z) */
+	private double[] _max;
+
+	/** Number of bits per vertex component */
+	private int _bitsPerVertex;
+
+	/** Position of the vertices of the current geometry */
+	private int _vertexPosition;
+
+	/** Position of the normals of the current geometry */
+	private int _normalPosition;
+
+	/** Position of the vertex colors of the current geometry */
+	private int _colorPosition;
+
+	/** Position of the indices of the current geometry */
+	private int _indexPosition;
+
+	/**
+	 * Constructor.
+	 * @param  byteBuffer  Content of the file, from its current position on (not modified)
+	 * @throws IOException Thrown if the content isn't in the expected format
+	 */
+	public CompactMeshReader(ByteBuffer byteBuffer) throws IOException {
+		_byteBuffer = byteBuffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+		_transformation = new double[12];
+		_color = new float[3];
+		_min = new double[3];
+		_max = new double[3];
+
+		if((_byteBuffer.remaining() < 5) || (_byteBuffer.getInt() != CompactMeshExporter.MAGIC_NUMBER)){
+			throw new IOException("Not a compact mesh file");
+		}
+		// Files of version 1 only lack the vertex colors
+		int formatVersion = _byteBuffer.get() & 0xff;
+		if((formatVersion < 1) || (formatVersion > CompactMeshExporter.FORMAT_VERSION)){
+			throw new IOException("Unsupported format version: " + formatVersion);
+		}
+		_nextMeshPosition = _byteBuffer.position();
+	}
+
+	/**
+	 * Moves to the next layer, skipping the unread meshes of the current layer.
+	 * @return Is there another layer?
+	 */
+	public boolean nextLayer(){
+		while(nextMesh()){
+		}
+
+		_byteBuffer.position(_nextMeshPosition);
+		if(_byteBuffer.get() != CompactMeshExporter.LAYER_TAG){
+			_byteBuffer.position(_byteBuffer.position() - 1);
+			_nextMeshPosition = _byteBuffer.position();
+			return false;
+		}
+
+		_layerNameLength = getVarInt();
+		_layerNamePosition = _byteBuffer.position();
+		_byteBuffer.position(_layerNamePosition + _layerNameLength);
+		_meshCount = _remainingMeshes = getVarInt();
+		_nextMeshPosition = _byteBuffer.position();
+		return true;
+	}
+
+	/**
+	 * Returns the name of the current layer.
+	 * @return Layer name
+	 */
+	public String getLayerName(){
+		ByteBuffer layerName = _byteBuffer.duplicate();
+		layerName.limit(_layerNamePosition + _layerNameLength).position(_layerNamePosition);
+		return UTF_8.decode(layerName).toString();
+	}
+
+	/**
+	 * Returns the number of meshes of the current layer.
+	 * @return Number of meshes
+	 */
+	public int getMeshCount(){
+		return _meshCount;
+	}
+
+	/**
+	 * Moves to the next mesh of the current layer.
+	 * @return Is there another mesh in the current layer?
+	 */
+	public boolean nextMesh(){
+		if(_remainingMeshes == 0){
+			return false;
+		}
+		_remainingMeshes--;
+
+		_byteBuffer.position(_nextMeshPosition);
+		_flags = _byteBuffer.get() & 0xff;
+		if((_flags & CompactMeshExporter.TRANSFORMATION) != 0){
+			for(int i = 0; i < 12; i++){
+				_transformation[i] = _byteBuffer.getDouble();
+			}
+		}
+		if((_flags & CompactMeshExporter.COLOR) != 0){
+			for(int i = 0; i < 3; i++){
+				_color[i] = _byteBuffer.getFloat();
+			}
+		}
+
+		if((_flags & CompactMeshExporter.GEOMETRY_REFERENCE) != 0){
+			_geometryIndex = getVarInt();
+			_nextMeshPosition = _byteBuffer.position();
+			return true;
+		}
+
+		_geometryIndex = _geometryCount++;
+		_vertexCount = getVarInt();
+		_triangleCount = getVarInt();
+		for(int i = 0; i < 3; i++){
+			_min[i] = _byteBuffer.getFloat();
+			_max[i] = _byteBuffer.getFloat();
+			_bitsPerVertex = _byteBuffer.get() & 0xff;
+		}
+
+		_vertexPosition = _byteBuffer.position();
+		_normalPosition = _vertexPosition + (_vertexCount * 3 * (_bitsPerVertex / 8));
+		int normalLength = hasNormals() ? (_vertexCount * 4) : 0;
+		_colorPosition = _normalPosition + normalLength;
+		int colorLength = hasVertexColors() ? (_vertexCount * 3) : 0;
+		_byteBuffer.position(_colorPosition + colorLength);
+		int indexLength = getVarInt();
+		_indexPosition = _byteBuffer.position();
+		_nextMeshPosition = _indexPosition + indexLength;
+		return true;
+	}
+
+	/**
+	 * Does the current mesh reference the geometry of a previous mesh?
+	 * @return Does the mesh reference previous geometry (the geometry getters don't apply)?
+	 */
+	public boolean isGeometryReference(){
+		return ((_flags & CompactMeshExporter.GEOMETRY_REFERENCE) != 0);
+	}
+
+	/**
+	 * Returns the index of the geometry of the current mesh. Geometries are numbered in the
+	 * order of their appearance in the file.
+	 * @return Geometry index
+	 */
+	public int getGeometryIndex(){
+		return _geometryIndex;
+	}
+
+	/**
+	 * Has the current mesh a transformation? Meshes without transformation are in world coordinates.
+	 * @return Has the mesh a transformation?
+	 */
+	public boolean hasTransformation(){
+		return ((_flags & CompactMeshExporter.TRANSFORMATION) != 0);
+	}
+
+	/**
+	 * Copies the transformation of the current mesh.
+	 * @param transformation Target array for the 4x4 matrix, row by row (identity, if the mesh has no transformation)
+	 */
+	public void getTransformation(double[] transformation){
+		for(int i = 0; i < 12; i++){
+			transformation[i] = hasTransformation() ? _transformation[i] : (((i % 5) == 0) ? 1 : 0);
+		}
+		transformation[12] = transformation[13] = transformation[14] = 0;
+		transformation[15] = 1;
+	}
+
+	/**
+	 * Has the current mesh a color?
+	 * @return Has the mesh a color?
+	 */
+	public boolean hasColor(){
+		return ((_flags & CompactMeshExporter.COLOR) != 0);
+	}
+
+	/**
+	 * Has the current geometry colors per vertex? The color of the mesh, if any, takes
+	 * precedence.
+	 * @return Has the geometry vertex colors?
+	 */
+	public boolean hasVertexColors(){
+		return ((_flags & CompactMeshExporter.VERTEX_COLORS) != 0);
+	}
+
+	/**
+	 * Copies the color of the current mesh.
+	 * @param color Target array for the color components (r, g, b)
+	 */
+	public void getColor(float[] color){
+		System.arraycopy(_color, 0, color, 0, 3);
+	}
+
+	/**
+	 * Returns the number of vertices of the current geometry.
+	 * @return Number of vertices
+	 */
+	public int getVertexCount(){
+		return _vertexCount;
+	}
+
+	/**
+	 * Returns the number of triangles of the current geometry.
+	 * @return Number of triangles
+	 */
+	public int getTriangleCount(){
+		return _triangleCount;
+	}
+
+	/**
+	 * Has the current geometry normals?
+	 * @return Has the geometry normals?
+	 */
+	public boolean hasNormals(){
+		return ((_flags & CompactMeshExporter.NORMALS) != 0);
+	}
+
+	/**
+	 * Decodes the vertices of the current geometry.
+	 * @param vertices Target array for the vertices (x, y, z); at least 3 * getVertexCount() values
+	 */
+	public void readVertices(double[] vertices){
+		int bytesPerComponent = _bitsPerVertex / 8;
+		double maximalCode = (1L << _bitsPerVertex) - 1;
+		int position = _vertexPosition;
+		for(int i = 0; i < _vertexCount * 3; i++){
+			long code = _byteBuffer.getShort(position) & 0xffffL;
+			if(bytesPerComponent == 3){
+				code |= (_byteBuffer.get(position + 2) & 0xffL) << 16;
+			}
+			position += bytesPerComponent;
+
+			int component = i % 3;
+			vertices[i] = _min[component] + ((_max[component] - _min[component]) * (code / maximalCode));
+		}
+	}
+
+	/**
+	 * Decodes the normals of the current geometry.
+	 * @param normals Target array for the normals (x, y, z); at least 3 * getVertexCount() values
+	 */
+	public void readNormals(float[] normals){
+		int position = _normalPosition;
+		for(int i = 0; i < _vertexCount * 3; i += 3){
+			double u = (((_byteBuffer.getShort(position) & 0xffff) / (double)CompactMeshExporter.NORMAL_RANGE) * 2) - 1;
+			double v = (((_byteBuffer.getShort(position + 2) & 0xffff) / (double)CompactMeshExporter.NORMAL_RANGE) * 2) - 1;
+			position += 4;
+
+			// Unfold the lower half of the octahedron
+			double z = 1 - Math.abs(u) - Math.abs(v);
+			if(z < 0){
+				double unfoldedU = (1 - Math.abs(v)) * ((u >= 0) ? 1 : -1);
+				v = (1 - Math.abs(u)) * ((v >= 0) ? 1 : -1);
+				u = unfoldedU;
+			}
+
+			double length = Math.sqrt((u * u) + (v * v) + (z * z));
+			normals[i]     = (float)(u / length);
+			normals[i + 1] = (float)(v / length);
+			normals[i + 2] = (float)(z / length);
+		}
+	}
+
+	/**
+	 * Decodes the vertex colors of the current geometry.
+	 * @param colors Target array for the colors (r, g, b); at least 3 * getVertexCount() values
+	 */
+	public void readVertexColors(float[] colors){
+		int position = _colorPosition;
+		for(int i = 0; i < _vertexCount * 3; i++){
+			colors[i] = (_byteBuffer.get(position++) & 0xff) / (float)CompactMeshExporter.COLOR_RANGE;
+		}
+	}
+
+	/**
+	 * Decodes the indices of the current geometry.
+	 * @param indices Target array for the indices; at least 3 * getTriangleCount() values
+	 */
+	public void readIndices(int[] indices){
+		_byteBuffer.position(_indexPosition);
+		int index = 0;
+		for(int i = 0; i < _triangleCount * 3; i++){
+			int difference = getVarInt();
+			index += (difference >>> 1) ^ -(difference & 1);
+			indices[i] = index;
+		}
+	}
+
+	/**
+	 * Reads an unsigned variable length quantity at the current position.
+	 * @return Value
+	 */
+	private int getVarInt(){
+		int value = 0;
+		for(int shift = 0; ; shift += 7){
+			int data = _byteBuffer.get();
+			value |= (data & 0x7f) << shift;
+			if((data & 0x80) == 0){
+				return value;
+			}
+		}
+	}
+}
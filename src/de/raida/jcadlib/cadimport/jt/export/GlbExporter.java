@@ -0,0 +1,787 @@
+//################################################################################
+//	The MIT License
+//
+//	Copyright (c) 2014 Johannes Raida
+//
+//	Permission is hereby granted, free of charge, to any person obtaining a copy
+//	of this software and associated documentation files (the "Software"), to deal
+//	in the Software without restriction, including without limitation the rights
+//	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+//	copies of the Software, and to permit persons to whom the Software is
+//	furnished to do so, subject to the following conditions:
+//
+//	The above copyright notice and this permission notice shall be included in
+//	all copies or substantial portions of the Software.
+//
+//	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+//	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+//	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+//	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+//	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+//	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+//	THE SOFTWARE.
+//################################################################################
+
+package de.raida.jcadlib.cadimport.jt.export;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import de.raida.jcadlib.cadimport.jt.GeometryVisitor;
+import de.raida.jcadlib.cadimport.jt.JTModel;
+import de.raida.jcadlib.cadimport.jt.MeshInstance;
+import de.raida.jcadlib.cadimport.jt.PointSet;
+import de.raida.jcadlib.cadimport.jt.PolylineSet;
+import de.raida.jcadlib.cadimport.jt.TriangleMesh;
+
+/**
+ * Exports geometry into a binary glTF 2.0 file (.glb). The exporter is a geometry visitor,
+ * so it can be passed to JTImporter.loadFile(URL, GeometryVisitor) to stream the shapes of
+ * an assembly into the file without building a model; addModel() exports a loaded model.
+ * <br>The arrays of each shape are written once, directly into a temporary binary file, and
+ * are referenced by all of its instances; only the (small) glTF description is held in
+ * memory until close() assembles the .glb file. The LSG nodes, entered by the importer,
+ * become nodes with their transformations and names; each shape instance becomes a child node
+ * of the node, entered last. Instances outside of any node (e.g. of addModel()) are collected
+ * in one node per layer. The instance colors become materials; shapes with vertex colors use
+ * a white material.
+ * <br>(c) 2014 by <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @author  <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @version 1.0
+ */
+public class GlbExporter implements GeometryVisitor {
+	/** Magic number of the .glb file ("glTF") */
+	private final static int GLB_MAGIC_NUMBER = 0x46546C67;
+
+	/** Chunk type of the JSON chunk ("JSON") */
+	private final static int JSON_CHUNK_TYPE = 0x4E4F534A;
+
+	/** Chunk type of the binary chunk ("BIN") */
+	private final static int BIN_CHUNK_TYPE = 0x004E4942;
+
+	/** Component type of unsigned shorts */
+	private final static int UNSIGNED_SHORT = 5123;
+
+	/** Component type of unsigned ints */
+	private final static int UNSIGNED_INT = 5125;
+
+	/** Component type of floats */
+	private final static int FLOAT = 5126;
+
+	/** Buffer view target of vertex attributes */
+	private final static int ARRAY_BUFFER = 34962;
+
+	/** Buffer view target of indices */
+	private final static int ELEMENT_ARRAY_BUFFER = 34963;
+
+	/** Primitive mode of points */
+	private final static int POINTS = 0;
+
+	/** Primitive mode of lines */
+	private final static int LINES = 1;
+
+	/** Primitive mode of triangles */
+	private final static int TRIANGLES = 4;
+
+	/** Identity transformation (4x4 matrix, row by row) */
+	private final static double[] IDENTITY = {1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1};
+
+	/** Color of shapes without any color (r, g, b) */
+	private final static float[] DEFAULT_COLOR = {0.8f, 0.8f, 0.8f};
+
+	/** Color of the material of shapes with vertex colors (r, g, b) */
+	private final static float[] WHITE = {1.0f, 1.0f, 1.0f};
+
+	/** Output file */
+	private File _file;
+
+	/** Temporary file of the binary chunk */
+	private File _binaryFile;
+
+	/** Writer of the binary chunk */
+	private BlockWriter _binaryWriter;
+
+	/** JSON of the accessors */
+	private StringBuilder _accessors;
+
+	/** JSON of the buffer views */
+	private StringBuilder _bufferViews;
+
+	/** JSON of the meshes */
+	private StringBuilder _meshes;
+
+	/** JSON of the materials */
+	private StringBuilder _materials;
+
+	/** JSON of the nodes */
+	private StringBuilder _nodes;
+
+	/** Number of the accessors */
+	private int _accessorCount;
+
+	/** Number of the buffer views */
+	private int _bufferViewCount;
+
+	/** Number of the meshes */
+	private int _meshCount;
+
+	/** Number of the materials */
+	private int _materialCount;
+
+	/** Number of the nodes */
+	private int _nodeCount;
+
+	/** Material indices, mapped by their colors */
+	private HashMap<String, Integer> _materialIndices;
+
+	/** Written geometry, mapped by the (shared) geometry objects */
+	private WeakHashMap<Object, Geometry> _geometries;
+
+	/** Instance node indices outside of any entered node, mapped by their layer names */
+	private LinkedHashMap<String, List<Integer>> _layerNodes;
+
+	/** Entered nodes, which haven't been left yet (innermost first) */
+	private ArrayDeque<EnteredNode> _enteredNodes;
+
+	/** Indices of the written nodes without parent node */
+	private List<Integer> _rootNodes;
+
+	/** First exception, thrown while writing the binary chunk */
+	private IOException _exception;
+
+	/**
+	 * Constructor.
+	 * @param  file        Output file; replaced, if existing
+	 * @throws IOException Thrown if the temporary file can't be created
+	 */
+	public GlbExporter(File file) throws IOException {
+		_file = file;
+		_binaryFile = File.createTempFile("glb", ".bin", file.getAbsoluteFile().getParentFile());
+		_binaryWriter = new BlockWriter(_binaryFile);
+		_accessors = new StringBuilder();
+		_bufferViews = new StringBuilder();
+		_meshes = new StringBuilder();
+		_materials = new StringBuilder();
+		_nodes = new StringBuilder();
+		_materialIndices = new HashMap<String, Integer>();
+		_geometries = new WeakHashMap<Object, Geometry>();
+		_layerNodes = new LinkedHashMap<String, List<Integer>>();
+		_enteredNodes = new ArrayDeque<EnteredNode>();
+		_rootNodes = new ArrayList<Integer>();
+	}
+
+	/**
+	 * Exports all faces, polylines, points and mesh instances of a loaded model.
+	 * @param jtModel Model to export
+	 */
+	public void addModel(JTModel jtModel){
+		for(int layerID = 0; layerID < jtModel.getLayerCount(); layerID++){
+			String layerName = jtModel.getLayerName(layerID);
+			for(TriangleMesh triangleMesh : jtModel.getTriangleMeshes(layerID)){
+				onMesh(triangleMesh, IDENTITY, null, layerName);
+			}
+			for(PolylineSet polylineSet : jtModel.getPolylineSets(layerID)){
+				onPolyline(polylineSet, IDENTITY, null, layerName);
+			}
+			for(PointSet pointSet : jtModel.getPointSets(layerID)){
+				onPoints(pointSet, IDENTITY, null, layerName);
+			}
+		}
+
+		for(MeshInstance meshInstance : jtModel.getMeshInstances()){
+			onMesh(jtModel.getInstancedMesh(meshInstance.getMeshID()), meshInstance.getTransformation(), meshInstance.getColor(), jtModel.getLayerName(meshInstance.getLayerID()));
+		}
+	}
+
+	/**
+	 * Exports a triangle shape instance.
+	 * @param triangleMesh   Triangle mesh in local coordinates
+	 * @param transformation World transformation (4x4 matrix, row by row)
+	 * @param color          Color of the instance (r, g, b) or null
+	 * @param layerName      Layer name
+	 */
+	public void onMesh(TriangleMesh triangleMesh, double[] transformation, float[] color, String layerName){
+		if(_exception != null){
+			return;
+		}
+
+		try {
+			Geometry geometry = _geometries.get(triangleMesh);
+			if(geometry == null){
+				int vertexCount = triangleMesh.getVertexCount();
+				if(vertexCount == 0){
+					return;
+				}
+
+				boolean singlePrecision = triangleMesh.isSinglePrecision();
+				geometry = new Geometry(TRIANGLES, singlePrecision ? triangleMesh.getOrigin() : null);
+				geometry._positionAccessor = writeVectors(singlePrecision ? triangleMesh.getFloatVertices() : null, singlePrecision ? null : triangleMesh.getVertices(), vertexCount, true);
+				geometry._normalAccessor = writeVectors(singlePrecision ? triangleMesh.getFloatNormals() : null, singlePrecision ? null : triangleMesh.getNormals(), vertexCount, false);
+				geometry._colorAccessor = writeVectors(singlePrecision ? triangleMesh.getFloatColors() : null, singlePrecision ? null : triangleMesh.getColors(), vertexCount, false);
+				if(triangleMesh.hasShortIndices()){
+					geometry._indexAccessor = writeIndices(null, triangleMesh.getShortIndices());
+				} else if(triangleMesh.getIndices() != null){
+					geometry._indexAccessor = writeIndices(triangleMesh.getIndices(), null);
+				}
+				_geometries.put(triangleMesh, geometry);
+			}
+			addInstance(geometry, transformation, color, layerName);
+
+		} catch(IOException exception){
+			_exception = exception;
+		}
+	}
+
+	/**
+	 * Exports a polyline shape instance as line segments.
+	 * @param polylineSet    Polylines in local coordinates
+	 * @param transformation World transformation (4x4 matrix, row by row)
+	 * @param color          Color of the instance (r, g, b) or null
+	 * @param layerName      Layer name
+	 */
+	public void onPolyline(PolylineSet polylineSet, double[] transformation, float[] color, String layerName){
+		if(_exception != null){
+			return;
+		}
+
+		try {
+			Geometry geometry = _geometries.get(polylineSet);
+			if(geometry == null){
+				int[] offsets = polylineSet.getOffsets();
+				int vertexCount = offsets[offsets.length - 1];
+				int segmentCount = 0;
+				for(int i = 0; i < polylineSet.getPolylineCount(); i++){
+					segmentCount += Math.max(polylineSet.getVertexCount(i) - 1, 0);
+				}
+				if(segmentCount == 0){
+					return;
+				}
+
+				int[] indices = new int[segmentCount * 2];
+				for(int i = 0, j = 0; i < polylineSet.getPolylineCount(); i++){
+					for(int vertex = offsets[i]; vertex < offsets[i + 1] - 1; vertex++){
+						indices[j++] = vertex;
+						indices[j++] = vertex + 1;
+					}
+				}
+
+				boolean singlePrecision = polylineSet.isSinglePrecision();
+				geometry = new Geometry(LINES, singlePrecision ? polylineSet.getOrigin() : null);
+				geometry._positionAccessor = writeVectors(singlePrecision ? polylineSet.getFloatVertices() : null, singlePrecision ? null : polylineSet.getVertices(), vertexCount, true);
+				geometry._colorAccessor = writeVectors(singlePrecision ? polylineSet.getFloatColors() : null, singlePrecision ? null : polylineSet.getColors(), vertexCount, false);
+				geometry._indexAccessor = writeIndices(indices, null);
+				_geometries.put(polylineSet, geometry);
+			}
+			addInstance(geometry, transformation, color, layerName);
+
+		} catch(IOException exception){
+			_exception = exception;
+		}
+	}
+
+	/**
+	 * Exports a point shape instance.
+	 * @param pointSet       Points in local coordinates
+	 * @param transformation World transformation (4x4 matrix, row by row)
+	 * @param color          Color of the instance (r, g, b) or null
+	 * @param layerName      Layer name
+	 */
+	public void onPoints(PointSet pointSet, double[] transformation, float[] color, String layerName){
+		if(_exception != null){
+			return;
+		}
+
+		try {
+			Geometry geometry = _geometries.get(pointSet);
+			if(geometry == null){
+				int vertexCount = pointSet.getPointCount();
+				if(vertexCount == 0){
+					return;
+				}
+
+				boolean singlePrecision = pointSet.isSinglePrecision();
+				geometry = new Geometry(POINTS, singlePrecision ? pointSet.getOrigin() : null);
+				geometry._positionAccessor = writeVectors(singlePrecision ? pointSet.getFloatVertices() : null, singlePrecision ? null : pointSet.getVertices(), vertexCount, true);
+				geometry._colorAccessor = writeVectors(pointSet.getColors(), null, vertexCount, false);
+				_geometries.put(pointSet, geometry);
+			}
+			addInstance(geometry, transformation, color, layerName);
+
+		} catch(IOException exception){
+			_exception = exception;
+		}
+	}
+
+	/**
+	 * Enters a node; the following instances and nodes become its children.
+	 * @param nodeName       Name of the node or null
+	 * @param transformation Transformation of the node, relative to its parent node (4x4 matrix, row by row) or null
+	 */
+	public void onEnterNode(String nodeName, double[] transformation){
+		EnteredNode parentNode = _enteredNodes.peek();
+		double[] parentTransformation = (parentNode != null) ? parentNode._worldTransformation : IDENTITY;
+		double[] worldTransformation = (transformation != null) ? multiply(parentTransformation, transformation) : parentTransformation;
+		_enteredNodes.push(new EnteredNode(nodeName, transformation, worldTransformation));
+	}
+
+	/**
+	 * Leaves the node, entered last, and writes it. Nodes without any instances below are omitted.
+	 */
+	public void onLeaveNode(){
+		EnteredNode enteredNode = _enteredNodes.poll();
+		if((enteredNode == null) || enteredNode._children.isEmpty()){
+			return;
+		}
+
+		appendSeparator(_nodes);
+		_nodes.append('{');
+		if(enteredNode._name != null){
+			_nodes.append("\"name\":").append(toJSONString(enteredNode._name)).append(',');
+		}
+		if(enteredNode._transformation != null){
+			_nodes.append("\"matrix\":[");
+			appendMatrix(_nodes, enteredNode._transformation, null);
+			_nodes.append("],");
+		}
+		_nodes.append("\"children\":[");
+		appendIndices(_nodes, enteredNode._children);
+		_nodes.append("]}");
+
+		EnteredNode parentNode = _enteredNodes.peek();
+		((parentNode != null) ? parentNode._children : _rootNodes).add(_nodeCount++);
+	}
+
+	/**
+	 * Adds a node for an instance of the written geometry.
+	 * @param geometry       Written geometry
+	 * @param transformation World transformation (4x4 matrix, row by row)
+	 * @param color          Color of the instance (r, g, b) or null
+	 * @param layerName      Layer name
+	 */
+	private void addInstance(Geometry geometry, double[] transformation, float[] color, String layerName){
+		float[] materialColor = (geometry._colorAccessor >= 0) ? WHITE : ((color != null) ? color : DEFAULT_COLOR);
+		int materialIndex = getMaterialIndex(materialColor);
+
+		Integer meshIndex = geometry._meshIndices.get(materialIndex);
+		if(meshIndex == null){
+			meshIndex = _meshCount++;
+			geometry._meshIndices.put(materialIndex, meshIndex);
+
+			appendSeparator(_meshes);
+			_meshes.append("{\"primitives\":[{\"attributes\":{\"POSITION\":").append(geometry._positionAccessor);
+			if(geometry._normalAccessor >= 0){
+				_meshes.append(",\"NORMAL\":").append(geometry._normalAccessor);
+			}
+			if(geometry._colorAccessor >= 0){
+				_meshes.append(",\"COLOR_0\":").append(geometry._colorAccessor);
+			}
+			_meshes.append('}');
+			if(geometry._indexAccessor >= 0){
+				_meshes.append(",\"indices\":").append(geometry._indexAccessor);
+			}
+			_meshes.append(",\"material\":").append(materialIndex).append(",\"mode\":").append(geometry._mode).append("}]}");
+		}
+
+		// Within an entered node, the instance is placed relative to the node
+		double[] t = (transformation != null) ? transformation : IDENTITY;
+		EnteredNode parentNode = _enteredNodes.peek();
+		if(parentNode != null){
+			double[] inverse = invert(parentNode._worldTransformation);
+			if(inverse != null){
+				t = multiply(inverse, t);
+			}
+		}
+
+		appendSeparator(_nodes);
+		_nodes.append("{\"mesh\":").append(meshIndex).append(",\"matrix\":[");
+		appendMatrix(_nodes, t, geometry._origin);
+		_nodes.append("]}");
+
+		if(parentNode != null){
+			parentNode._children.add(_nodeCount++);
+			return;
+		}
+
+		List<Integer> layerNodes = _layerNodes.get(layerName);
+		if(layerNodes == null){
+			layerNodes = new ArrayList<Integer>();
+			_layerNodes.put(layerName, layerNodes);
+		}
+		layerNodes.add(_nodeCount++);
+	}
+
+	/**
+	 * Appends a transformation as glTF matrix (column by column).
+	 * @param stringBuilder  JSON array content
+	 * @param transformation Transformation (4x4 matrix, row by row)
+	 * @param origin         Origin of single precision vertices, which are relative to it, or null
+	 */
+	private static void appendMatrix(StringBuilder stringBuilder, double[] transformation, double[] origin){
+		double[] t = transformation;
+		for(int column = 0; column < 4; column++){
+			for(int row = 0; row < 4; row++){
+				double value = t[(row * 4) + column];
+				if((column == 3) && (origin != null)){
+					value += (t[row * 4] * origin[0]) + (t[(row * 4) + 1] * origin[1]) + (t[(row * 4) + 2] * origin[2]);
+				}
+				stringBuilder.append((column + row == 0) ? "" : ",").append(toJSONNumber(value));
+			}
+		}
+	}
+
+	/**
+	 * Appends node indices, separated by commas.
+	 * @param stringBuilder JSON array content
+	 * @param indices       Node indices
+	 */
+	private static void appendIndices(StringBuilder stringBuilder, List<Integer> indices){
+		for(int i = 0; i < indices.size(); i++){
+			stringBuilder.append((i == 0) ? "" : ",").append(indices.get(i));
+		}
+	}
+
+	/**
+	 * Multiplies two 4x4 matrices.
+	 * @param  a First matrix, row by row
+	 * @param  b Second matrix, row by row
+	 * @return   Product a * b, row by row
+	 */
+	private static double[] multiply(double[] a, double[] b){
+		double[] product = new double[16];
+		for(int row = 0; row < 4; row++){
+			for(int column = 0; column < 4; column++){
+				double sum = 0.0;
+				for(int i = 0; i < 4; i++){
+					sum += a[(row * 4) + i] * b[(i * 4) + column];
+				}
+				product[(row * 4) + column] = sum;
+			}
+		}
+		return product;
+	}
+
+	/**
+	 * Inverts an affine transformation.
+	 * @param  m Affine transformation (4x4 matrix, row by row)
+	 * @return   Inverse transformation (4x4 matrix, row by row) or<br>
+	 *           <b>null</b>, if the transformation is singular
+	 */
+	private static double[] invert(double[] m){
+		// Cofactors of the 3x3 part
+		double c00 = (m[5] * m[10]) - (m[6] * m[9]);
+		double c01 = (m[6] * m[8]) - (m[4] * m[10]);
+		double c02 = (m[4] * m[9]) - (m[5] * m[8]);
+		double determinant = (m[0] * c00) + (m[1] * c01) + (m[2] * c02);
+		if(determinant == 0.0){
+			return null;
+		}
+
+		double[] inverse = new double[16];
+		inverse[0]  = c00 / determinant;
+		inverse[1]  = ((m[2] * m[9]) - (m[1] * m[10])) / determinant;
+		inverse[2]  = ((m[1] * m[6]) - (m[2] * m[5])) / determinant;
+		inverse[4]  = c01 / determinant;
+		inverse[5]  = ((m[0] * m[10]) - (m[2] * m[8])) / determinant;
+		inverse[6]  = ((m[2] * m[4]) - (m[0] * m[6])) / determinant;
+		inverse[8]  = c02 / determinant;
+		inverse[9]  = ((m[1] * m[8]) - (m[0] * m[9])) / determinant;
+		inverse[10] = ((m[0] * m[5]) - (m[1] * m[4])) / determinant;
+
+		// Translation: -R^-1 * t
+		for(int row = 0; row < 12; row += 4){
+			inverse[row + 3] = -((inverse[row] * m[3]) + (inverse[row + 1] * m[7]) + (inverse[row + 2] * m[11]));
+		}
+		inverse[15] = 1.0;
+		return inverse;
+	}
+
+	/**
+	 * Returns the index of the material of the given color; creates the material, if needed.
+	 * @param  color Color (r, g, b)
+	 * @return       Material index
+	 */
+	private int getMaterialIndex(float[] color){
+		String key = color[0] + "," + color[1] + "," + color[2];
+		Integer materialIndex = _materialIndices.get(key);
+		if(materialIndex == null){
+			materialIndex = _materialCount++;
+			_materialIndices.put(key, materialIndex);
+
+			appendSeparator(_materials);
+			_materials.append("{\"pbrMetallicRoughness\":{\"baseColorFactor\":[").append(toJSONNumber(color[0])).append(',').append(toJSONNumber(color[1])).append(',');
+			_materials.append(toJSONNumber(color[2])).append(",1.0],\"metallicFactor\":0.0,\"roughnessFactor\":1.0},\"doubleSided\":true}");
+		}
+		return materialIndex;
+	}
+
+	/**
+	 * Writes vectors (x, y, z) as float values into the binary chunk.
+	 * @param  floatValues  Vectors in single precision or null
+	 * @param  doubleValues Vectors in double precision or null
+	 * @param  vectorCount  Expected number of vectors
+	 * @param  bounds       Add the bounds of the values to the accessor (required for positions)?
+	 * @return              Accessor index or<br>
+	 *                      <b>-1</b>, if there are no vectors or their number doesn't match
+	 * @throws IOException  Thrown if the binary chunk can't be written
+	 */
+	private int writeVectors(float[] floatValues, double[] doubleValues, int vectorCount, boolean bounds) throws IOException {
+		int length = (floatValues != null) ? floatValues.length : ((doubleValues != null) ? doubleValues.length : 0);
+		if((length == 0) || (length != vectorCount * 3)){
+			return -1;
+		}
+
+		float[] min = {Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE};
+		float[] max = {-Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE};
+		long byteOffset = _binaryWriter.getPosition();
+		for(int i = 0; i < length; i++){
+			float value = (floatValues != null) ? floatValues[i] : (float)doubleValues[i];
+			_binaryWriter.putFloat(value);
+			min[i % 3] = Math.min(min[i % 3], value);
+			max[i % 3] = Math.max(max[i % 3], value);
+		}
+
+		int bufferView = addBufferView(byteOffset, length * 4L, ARRAY_BUFFER);
+		appendSeparator(_accessors);
+		_accessors.append("{\"bufferView\":").append(bufferView).append(",\"componentType\":").append(FLOAT).append(",\"count\":").append(vectorCount).append(",\"type\":\"VEC3\"");
+		if(bounds){
+			_accessors.append(",\"min\":[").append(toJSONNumber(min[0])).append(',').append(toJSONNumber(min[1])).append(',').append(toJSONNumber(min[2])).append(']');
+			_accessors.append(",\"max\":[").append(toJSONNumber(max[0])).append(',').append(toJSONNumber(max[1])).append(',').append(toJSONNumber(max[2])).append(']');
+		}
+		_accessors.append('}');
+		return _accessorCount++;
+	}
+
+	/**
+	 * Writes vertex indices into the binary chunk.
+	 * @param  indices      Indices as int values or null
+	 * @param  shortIndices Indices as unsigned 16 bit values or null
+	 * @return              Accessor index
+	 * @throws IOException  Thrown if the binary chunk can't be written
+	 */
+	private int writeIndices(int[] indices, short[] shortIndices) throws IOException {
+		long byteOffset = _binaryWriter.getPosition();
+		int count;
+		if(indices != null){
+			count = indices.length;
+			for(int index : indices){
+				_binaryWriter.putInt(index);
+			}
+		} else {
+			count = shortIndices.length;
+			for(short index : shortIndices){
+				_binaryWriter.putShort(index);
+			}
+		}
+
+		int bufferView = addBufferView(byteOffset, _binaryWriter.getPosition() - byteOffset, ELEMENT_ARRAY_BUFFER);
+		_binaryWriter.align(4);
+
+		appendSeparator(_accessors);
+		_accessors.append("{\"bufferView\":").append(bufferView).append(",\"componentType\":").append((indices != null) ? UNSIGNED_INT : UNSIGNED_SHORT);
+		_accessors.append(",\"count\":").append(count).append(",\"type\":\"SCALAR\"}");
+		return _accessorCount++;
+	}
+
+	/**
+	 * Adds a buffer view of the binary chunk.
+	 * @param  byteOffset Offset of the view
+	 * @param  byteLength Length of the view
+	 * @param  target     Target of the view
+	 * @return            Buffer view index
+	 */
+	private int addBufferView(long byteOffset, long byteLength, int target){
+		appendSeparator(_bufferViews);
+		_bufferViews.append("{\"buffer\":0,\"byteOffset\":").append(byteOffset).append(",\"byteLength\":").append(byteLength).append(",\"target\":").append(target).append('}');
+		return _bufferViewCount++;
+	}
+
+	/**
+	 * Writes the .glb file and deletes the temporary file.
+	 * @throws IOException Thrown if the file can't be written or a previous write failed
+	 */
+	public void close() throws IOException {
+		try {
+			_binaryWriter.close();
+			if(_exception != null){
+				throw _exception;
+			}
+
+			// Nodes, which haven't been left
+			while(!_enteredNodes.isEmpty()){
+				onLeaveNode();
+			}
+
+			// Layer nodes with the remaining instance nodes as children
+			for(Map.Entry<String, List<Integer>> entry : _layerNodes.entrySet()){
+				appendSeparator(_nodes);
+				_nodes.append("{\"name\":").append(toJSONString(entry.getKey())).append(",\"children\":[");
+				appendIndices(_nodes, entry.getValue());
+				_nodes.append("]}");
+				_rootNodes.add(_nodeCount++);
+			}
+			StringBuilder sceneNodes = new StringBuilder();
+			appendIndices(sceneNodes, _rootNodes);
+
+			long binaryLength = _binaryFile.length();
+			StringBuilder json = new StringBuilder();
+			json.append("{\"asset\":{\"version\":\"2.0\",\"generator\":\"jCADlib\"},\"scene\":0");
+			if(_nodeCount > 0){
+				json.append(",\"scenes\":[{\"nodes\":[").append(sceneNodes).append("]}]");
+				json.append(",\"nodes\":[").append(_nodes).append(']');
+			} else {
+				json.append(",\"scenes\":[{}]");
+			}
+			if(_meshCount > 0){
+				json.append(",\"meshes\":[").append(_meshes).append(']');
+				json.append(",\"materials\":[").append(_materials).append(']');
+				json.append(",\"accessors\":[").append(_accessors).append(']');
+				json.append(",\"bufferViews\":[").append(_bufferViews).append(']');
+				json.append(",\"buffers\":[{\"byteLength\":").append(binaryLength).append("}]");
+			}
+			json.append('}');
+			byte[] jsonBytes = json.toString().getBytes("UTF-8");
+			int jsonLength = (jsonBytes.length + 3) & ~3;
+
+			long totalLength = 12 + 8 + jsonLength + ((_meshCount > 0) ? 8 + binaryLength : 0);
+			if(totalLength > 0xffffffffL){
+				throw new IOException("The .glb file exceeds 4 GB: " + totalLength + " bytes");
+			}
+
+			BlockWriter blockWriter = new BlockWriter(_file);
+			try {
+				blockWriter.putInt(GLB_MAGIC_NUMBER);
+				blockWriter.putInt(2);
+				blockWriter.putInt((int)totalLength);
+				blockWriter.putInt(jsonLength);
+				blockWriter.putInt(JSON_CHUNK_TYPE);
+				blockWriter.putBytes(jsonBytes);
+				while(blockWriter.getPosition() % 4 != 0){
+					blockWriter.putBytes(new byte[]{' '});
+				}
+				if(_meshCount > 0){
+					blockWriter.putInt((int)binaryLength);
+					blockWriter.putInt(BIN_CHUNK_TYPE);
+					blockWriter.putFile(_binaryFile);
+				}
+			} finally {
+				blockWriter.close();
+			}
+
+		} finally {
+			_binaryFile.delete();
+		}
+	}
+
+	/**
+	 * Appends a comma, if the JSON array isn't empty.
+	 * @param stringBuilder JSON array content
+	 */
+	private static void appendSeparator(StringBuilder stringBuilder){
+		if(stringBuilder.length() > 0){
+			stringBuilder.append(',');
+		}
+	}
+
+	/**
+	 * Converts a number to JSON (which doesn't allow NaN and infinite values).
+	 * @param  value Value
+	 * @return       JSON number
+	 */
+	private static String toJSONNumber(double value){
+		return (Double.isNaN(value) || Double.isInfinite(value)) ? "0" : Double.toString(value);
+	}
+
+	/**
+	 * Converts a text to a JSON string.
+	 * @param  text Text
+	 * @return      Quoted and escaped JSON string
+	 */
+	private static String toJSONString(String text){
+		StringBuilder stringBuilder = new StringBuilder(text.length() + 2).append('"');
+		for(int i = 0; i < text.length(); i++){
+			char character = text.charAt(i);
+			if((character == '"') || (character == '\\')){
+				stringBuilder.append('\\').append(character);
+			} else if(character < 0x20){
+				stringBuilder.append(String.format("\\u%04x", (int)character));
+			} else {
+				stringBuilder.append(character);
+			}
+		}
+		return stringBuilder.append('"').toString();
+	}
+
+	/**
+	 * Node, which has been entered and not yet left.
+	 */
+	private static class EnteredNode {
+		/** Name of the node or null */
+		private String _name;
+
+		/** Transformation, relative to the parent node (4x4 matrix, row by row) or null */
+		private double[] _transformation;
+
+		/** World transformation (4x4 matrix, row by row) */
+		private double[] _worldTransformation;
+
+		/** Indices of the written child nodes */
+		private List<Integer> _children;
+
+		/**
+		 * Constructor.
+		 * @param name                Name of the node or null
+		 * @param transformation      Transformation, relative to the parent node (4x4 matrix, row by row) or null
+		 * @param worldTransformation World transformation (4x4 matrix, row by row)
+		 */
+		public EnteredNode(String name, double[] transformation, double[] worldTransformation){
+			_name = name;
+			_transformation = transformation;
+			_worldTransformation = worldTransformation;
+			_children = new ArrayList<Integer>();
+		}
+	}
+
+	/**
+	 * Accessors of a written shape geometry and its meshes per material.
+	 */
+	private static class Geometry {
+		/** Primitive mode */
+		private int _mode;
+
+		/** Origin of single precision vertices or null */
+		private double[] _origin;
+
+		/** Accessor index of the positions */
+		private int _positionAccessor = -1;
+
+		/** Accessor index of the normals (-1, if not available) */
+		private int _normalAccessor = -1;
+
+		/** Accessor index of the colors (-1, if not available) */
+		private int _colorAccessor = -1;
+
+		/** Accessor index of the indices (-1, if not available) */
+		private int _indexAccessor = -1;
+
+		/** Mesh indices, mapped by their material indices */
+		private HashMap<Integer, Integer> _meshIndices;
+
+		/**
+		 * Constructor.
+		 * @param mode   Primitive mode
+		 * @param origin Origin of single precision vertices or null
+		 */
+		public Geometry(int mode, double[] origin){
+			_mode = mode;
+			_origin = origin;
+			_meshIndices = new HashMap<Integer, Integer>();
+		}
+	}
+}
@@ -0,0 +1,192 @@
+//################################################################################
+//	The MIT License
+//
+//	Copyright (c) 2014 Johannes Raida
+//
+//	Permission is hereby granted, free of charge, to any person obtaining a copy
+//	of this software and associated documentation files (the "Software"), to deal
+//	in the Software without restriction, including without limitation the rights
+//	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+//	copies of the Software, and to permit persons to whom the Software is
+//	furnished to do so, subject to the following conditions:
+//
+//	The above copyright notice and this permission notice shall be included in
+//	all copies or substantial portions of the Software.
+//
+//	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+//	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+//	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+//	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+//	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+//	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+//	THE SOFTWARE.
+//################################################################################
+
+package de.raida.jcadlib.cadimport.jt.export;
+
+import java.io.File;
+import java.io.IOException;
+
+import de.raida.jcadlib.cadimport.jt.JTModel;
+import de.raida.jcadlib.cadimport.jt.TriangleMesh;
+
+/**
+ * Exports the triangles of a model layer by layer into a directory: a text file "layers"
+ * with the names of the exported layers (one per line, UTF-8) and for each layer a file
+ * "vert_&lt;layer&gt;" with the vertices and a file "face_&lt;layer&gt;" with the vertex
+ * indices of the triangles. The meshes and mesh instances of a layer are merged.
+ * <br>Binary files start with a header of four little endian int values (magic number,
+ * format version, number of vertices or triangles, number of components: 3), followed by
+ * the vertices as little endian float values or the indices as little endian int values.
+ * Text files hold one vertex ("x,y,z") or triangle ("i1,i2,i3") per line.
+ * <br>(c) 2014 by <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @author  <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @version 1.0
+ */
+public class LayerExporter {
+	/** Magic number of the vertex files ("JTVX") */
+	public final static int VERTEX_MAGIC_NUMBER = 0x5856544A;
+
+	/** Magic number of the index files ("JTFC") */
+	public final static int FACE_MAGIC_NUMBER = 0x4346544A;
+
+	/** Version of the binary format */
+	public final static int FORMAT_VERSION = 1;
+
+	/** Output directory */
+	private File _directory;
+
+	/** Write binary files instead of text files? */
+	private boolean _binary;
+
+	/**
+	 * Constructor.
+	 * @param directory Output directory; created, if missing
+	 * @param binary    Write binary files instead of text files?
+	 */
+	public LayerExporter(File directory, boolean binary){
+		_directory = directory;
+		_binary = binary;
+	}
+
+	/**
+	 * Exports the triangles of all layers. Existing files are replaced.
+	 * @param  jtModel     Model to export
+	 * @throws IOException Thrown if a file can't be written
+	 */
+	public void export(JTModel jtModel) throws IOException {
+		_directory.mkdirs();
+
+		StringBuilder layerNames = new StringBuilder();
+		for(LayerMeshes layerMeshes : LayerMeshes.collect(jtModel)){
+			exportLayer(layerMeshes);
+			layerNames.append(layerMeshes.getLayerName()).append('\n');
+		}
+
+		BlockWriter blockWriter = new BlockWriter(new File(_directory, "layers"));
+		try {
+			blockWriter.putText(layerNames.toString());
+		} finally {
+			blockWriter.close();
+		}
+	}
+
+	/**
+	 * Exports the triangles of a single layer.
+	 * @param  layerMeshes Meshes of the layer
+	 * @throws IOException Thrown if a file can't be written
+	 */
+	private void exportLayer(LayerMeshes layerMeshes) throws IOException {
+		String fileName = getFileName(layerMeshes.getLayerName());
+
+		BlockWriter blockWriter = new BlockWriter(new File(_directory, "vert_" + fileName));
+		try {
+			writeHeader(blockWriter, VERTEX_MAGIC_NUMBER, layerMeshes.getVertexCount());
+			for(int meshIndex = 0; meshIndex < layerMeshes.getMeshCount(); meshIndex++){
+				writeVertices(blockWriter, layerMeshes.getVertices(meshIndex));
+			}
+		} finally {
+			blockWriter.close();
+		}
+
+		blockWriter = new BlockWriter(new File(_directory, "face_" + fileName));
+		try {
+			writeHeader(blockWriter, FACE_MAGIC_NUMBER, (int)layerMeshes.getTriangleCount());
+			int indexOffset = 0;
+			for(int meshIndex = 0; meshIndex < layerMeshes.getMeshCount(); meshIndex++){
+				writeIndices(blockWriter, layerMeshes.getTriangleMesh(meshIndex), indexOffset);
+				indexOffset += layerMeshes.getTriangleMesh(meshIndex).getVertexCount();
+			}
+		} finally {
+			blockWriter.close();
+		}
+	}
+
+	/**
+	 * Writes the header of a binary file.
+	 * @param  blockWriter Writer of the file
+	 * @param  magicNumber Magic number of the file
+	 * @param  count       Number of vertices or triangles
+	 * @throws IOException Thrown if the file can't be written
+	 */
+	private void writeHeader(BlockWriter blockWriter, int magicNumber, int count) throws IOException {
+		if(_binary){
+			blockWriter.putInt(magicNumber);
+			blockWriter.putInt(FORMAT_VERSION);
+			blockWriter.putInt(count);
+			blockWriter.putInt(3);
+		}
+	}
+
+	/**
+	 * Writes the vertices of a triangle mesh.
+	 * @param  blockWriter Writer of the vertex file
+	 * @param  vertices    Vertices (x, y, z) in world coordinates
+	 * @throws IOException Thrown if the file can't be written
+	 */
+	private void writeVertices(BlockWriter blockWriter, double[] vertices) throws IOException {
+		for(int i = 0; i < vertices.length; i += 3){
+			if(_binary){
+				blockWriter.putFloat((float)vertices[i]);
+				blockWriter.putFloat((float)vertices[i + 1]);
+				blockWriter.putFloat((float)vertices[i + 2]);
+			} else {
+				blockWriter.putText(vertices[i] + "," + vertices[i + 1] + "," + vertices[i + 2] + "\n");
+			}
+		}
+	}
+
+	/**
+	 * Writes the indices of a triangle mesh.
+	 * @param  blockWriter  Writer of the index file
+	 * @param  triangleMesh Triangle mesh
+	 * @param  indexOffset  Index of the first vertex of the mesh in the layer
+	 * @throws IOException  Thrown if the file can't be written
+	 */
+	private void writeIndices(BlockWriter blockWriter, TriangleMesh triangleMesh, int indexOffset) throws IOException {
+		int[] indices = triangleMesh.hasShortIndices() ? null : triangleMesh.getIndices();
+		short[] shortIndices = triangleMesh.getShortIndices();
+		int indexCount = (indices != null) ? indices.length : shortIndices.length;
+		for(int i = 0; i < indexCount - 2; i += 3){
+			if(_binary){
+				for(int j = i; j < i + 3; j++){
+					blockWriter.putInt(indexOffset + ((indices != null) ? indices[j] : (shortIndices[j] & 0xffff)));
+				}
+			} else if(indices != null){
+				blockWriter.putText((indexOffset + indices[i]) + "," + (indexOffset + indices[i + 1]) + "," + (indexOffset + indices[i + 2]) + "\n");
+			} else {
+				blockWriter.putText((indexOffset + (shortIndices[i] & 0xffff)) + "," + (indexOffset + (shortIndices[i + 1] & 0xffff)) + "," + (indexOffset + (shortIndices[i + 2] & 0xffff)) + "\n");
+			}
+		}
+	}
+
+	/**
+	 * Returns the file name of a layer: the layer name with the characters, which aren't
+	 * allowed in file names, replaced by '_'.
+	 * @param  layerName Layer name
+	 * @return           File name
+	 */
+	public static String getFileName(String layerName){
+		return layerName.replaceAll("[\\\\/:*?\"<>|\\x00-\\x1f]", "_");
+	}
+}
@@ -0,0 +1,205 @@
+//################################################################################
+//	The MIT License
+//
+//	Copyright (c) 2014 Johannes Raida
+//
+//	Permission is hereby granted, free of charge, to any person obtaining a copy
+//	of this software and associated documentation files (the "Software"), to deal
+//	in the Software without restriction, including without limitation the rights
+//	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+//	copies of the Software, and to permit persons to whom the Software is
+//	furnished to do so, subject to the following conditions:
+//
+//	The above copyright notice and this permission notice shall be included in
+//	all copies or substantial portions of the Software.
+//
+//	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+//	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+//	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+//	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+//	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+//	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+//	THE SOFTWARE.
+//################################################################################
+
+package de.raida.jcadlib.cadimport.jt.export;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.raida.jcadlib.cadimport.jt.JTModel;
+import de.raida.jcadlib.cadimport.jt.MeshInstance;
+import de.raida.jcadlib.cadimport.jt.TriangleMesh;
+
+/**
+ * Triangle meshes and mesh instances of a single layer, merged into one vertex list with
+ * consecutive vertex indices.
+ * <br>(c) 2014 by <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @author  <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @version 1.0
+ */
+class LayerMeshes {
+	/** Layer name */
+	private String _layerName;
+
+	/** Triangle meshes */
+	private List<TriangleMesh> _triangleMeshes;
+
+	/** Transformations of the meshes (4x4 matrix, row by row; null for untransformed meshes) */
+	private List<double[]> _transformations;
+
+	/** Colors of the mesh instances (r, g, b; null for meshes with their own colors) */
+	private List<float[]> _colors;
+
+	/** Number of vertices of all meshes */
+	private int _vertexCount;
+
+	/** Number of triangles of all meshes */
+	private long _triangleCount;
+
+	/**
+	 * Constructor.
+	 * @param layerName Layer name
+	 */
+	private LayerMeshes(String layerName){
+		_layerName = layerName;
+		_triangleMeshes = new ArrayList<TriangleMesh>();
+		_transformations = new ArrayList<double[]>();
+		_colors = new ArrayList<float[]>();
+	}
+
+	/**
+	 * Collects the triangle meshes and mesh instances of all layers with triangles.
+	 * @param  jtModel Model
+	 * @return         Meshes of the layers, in the order of the layer IDs
+	 */
+	public static List<LayerMeshes> collect(JTModel jtModel){
+		List<LayerMeshes> layers = new ArrayList<LayerMeshes>(jtModel.getLayerCount());
+		for(int layerID = 0; layerID < jtModel.getLayerCount(); layerID++){
+			LayerMeshes layerMeshes = new LayerMeshes(jtModel.getLayerName(layerID));
+			for(TriangleMesh triangleMesh : jtModel.getTriangleMeshes(layerID)){
+				layerMeshes.add(triangleMesh, null, null);
+			}
+			layers.add(layerMeshes);
+		}
+		for(MeshInstance meshInstance : jtModel.getMeshInstances()){
+			layers.get(meshInstance.getLayerID()).add(jtModel.getInstancedMesh(meshInstance.getMeshID()), meshInstance.getTransformation(), meshInstance.getColor());
+		}
+
+		List<LayerMeshes> layersWithTriangles = new ArrayList<LayerMeshes>(layers.size());
+		for(LayerMeshes layerMeshes : layers){
+			if(layerMeshes._triangleMeshes.size() > 0){
+				layersWithTriangles.add(layerMeshes);
+			}
+		}
+		return layersWithTriangles;
+	}
+
+	/**
+	 * Adds a mesh.
+	 * @param triangleMesh   Triangle mesh
+	 * @param transformation Transformation (4x4 matrix, row by row) or null
+	 * @param color          Color of the mesh instance (r, g, b) or null
+	 */
+	private void add(TriangleMesh triangleMesh, double[] transformation, float[] color){
+		_triangleMeshes.add(triangleMesh);
+		_transformations.add(transformation);
+		_colors.add(color);
+		_vertexCount += triangleMesh.getVertexCount();
+		_triangleCount += triangleMesh.getTriangleCount();
+	}
+
+	/**
+	 * Returns the layer name.
+	 * @return Layer name
+	 */
+	public String getLayerName(){
+		return _layerName;
+	}
+
+	/**
+	 * Returns the number of meshes.
+	 * @return Number of meshes
+	 */
+	public int getMeshCount(){
+		return _triangleMeshes.size();
+	}
+
+	/**
+	 * Returns a mesh.
+	 * @param  meshIndex Index of the mesh
+	 * @return           Triangle mesh (in local coordinates for mesh instances)
+	 */
+	public TriangleMesh getTriangleMesh(int meshIndex){
+		return _triangleMeshes.get(meshIndex);
+	}
+
+	/**
+	 * Returns the transformation of a mesh.
+	 * @param  meshIndex Index of the mesh
+	 * @return           Transformation of the mesh instance (4x4 matrix, row by row) or<br>
+	 *                   <b>null</b>, if the mesh is in world coordinates
+	 */
+	public double[] getTransformation(int meshIndex){
+		return _transformations.get(meshIndex);
+	}
+
+	/**
+	 * Returns the color of a mesh instance.
+	 * @param  meshIndex Index of the mesh
+	 * @return           Color of the mesh instance (r, g, b) or<br>
+	 *                   <b>null</b>, if the mesh has its own colors
+	 */
+	public float[] getColor(int meshIndex){
+		return _colors.get(meshIndex);
+	}
+
+	/**
+	 * Returns the vertices of a mesh in world coordinates.
+	 * @param  meshIndex Index of the mesh
+	 * @return           Vertices (x, y, z); must not be modified
+	 */
+	public double[] getVertices(int meshIndex){
+		double[] vertices = _triangleMeshes.get(meshIndex).getVertices();
+		double[] t = _transformations.get(meshIndex);
+		if(t == null){
+			return vertices;
+		}
+
+		double[] transformedVertices = new double[vertices.length];
+		for(int i = 0; i < vertices.length; i += 3){
+			double x = vertices[i];
+			double y = vertices[i + 1];
+			double z = vertices[i + 2];
+			transformedVertices[i]     = (t[0] * x) + (t[1] * y) + (t[2]  * z) + t[3];
+			transformedVertices[i + 1] = (t[4] * x) + (t[5] * y) + (t[6]  * z) + t[7];
+			transformedVertices[i + 2] = (t[8] * x) + (t[9] * y) + (t[10] * z) + t[11];
+		}
+		return transformedVertices;
+	}
+
+	/**
+	 * Returns the vertex indices of a mesh.
+	 * @param  meshIndex Index of the mesh
+	 * @return           Indices, three per triangle; relative to the first vertex of the mesh
+	 */
+	public int[] getIndices(int meshIndex){
+		return _triangleMeshes.get(meshIndex).getIndices();
+	}
+
+	/**
+	 * Returns the number of vertices of all meshes.
+	 * @return Number of vertices
+	 */
+	public int getVertexCount(){
+		return _vertexCount;
+	}
+
+	/**
+	 * Returns the number of triangles of all meshes.
+	 * @return Number of triangles
+	 */
+	public long getTriangleCount(){
+		return _triangleCount;
+	}
+}
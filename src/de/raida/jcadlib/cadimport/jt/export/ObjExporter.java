@@ -0,0 +1,330 @@
+//################################################################################
+//	The MIT License
+//
+//	Copyright (c) 2014 Johannes Raida
+//
+//	Permission is hereby granted, free of charge, to any person obtaining a copy
+//	of this software and associated documentation files (the "Software"), to deal
+//	in the Software without restriction, including without limitation the rights
+//	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+//	copies of the Software, and to permit persons to whom the Software is
+//	furnished to do so, subject to the following conditions:
+//
+//	The above copyright notice and this permission notice shall be included in
+//	all copies or substantial portions of the Software.
+//
+//	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+//	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+//	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+//	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+//	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+//	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+//	THE SOFTWARE.
+//################################################################################
+
+package de.raida.jcadlib.cadimport.jt.export;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import de.raida.jcadlib.cadimport.jt.JTModel;
+
+/**
+ * Exports the triangles of a model into a Wavefront OBJ file with one object per layer.
+ * The layers are encoded concurrently into growing text buffers (the vertex numbers of each
+ * layer are known in advance from the vertex counts) and are written in the order of the
+ * layers by positional writes. At most one layer per thread is encoded ahead of the layer to
+ * write, and each buffer is released once written, so only a few layers are held in memory.
+ * The numbers are formatted directly into the buffers, without creating strings; coordinates
+ * are written with up to six decimal places.
+ * <br>(c) 2014 by <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @author  <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @version 1.0
+ */
+public class ObjExporter {
+	/** Initial capacity of the text buffer of a layer in bytes */
+	private final static int INITIAL_BUFFER_CAPACITY = 64 * 1024;
+
+	/** Number of threads, encoding the layers */
+	private int _parallelism;
+
+	/**
+	 * Constructor.
+	 * @param parallelism Number of threads, encoding the layers
+	 */
+	public ObjExporter(int parallelism){
+		_parallelism = parallelism;
+	}
+
+	/**
+	 * Exports the triangles of all layers. An existing file is replaced.
+	 * @param  jtModel     Model to export
+	 * @param  file        OBJ file
+	 * @throws IOException Thrown if the file can't be written
+	 */
+	public void export(JTModel jtModel, File file) throws IOException {
+		List<LayerMeshes> layers = LayerMeshes.collect(jtModel);
+
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+		ForkJoinPool forkJoinPool = (_parallelism > 1) ? new ForkJoinPool(_parallelism) : null;
+		try {
+			FileChannel fileChannel = randomAccessFile.getChannel();
+			fileChannel.truncate(0);
+
+			TextBuffer header = new TextBuffer(64);
+			header.append("# Exported by jCADlib\n");
+			long position = write(fileChannel, header, 0);
+
+			// Jobs, encoding the layers
+			List<Callable<TextBuffer>> layerJobs = new ArrayList<Callable<TextBuffer>>(layers.size());
+			long firstVertex = 1;
+			for(final LayerMeshes layerMeshes : layers){
+				final long layerFirstVertex = firstVertex;
+				layerJobs.add(new Callable<TextBuffer>(){
+					public TextBuffer call(){
+						return encodeLayer(layerMeshes, layerFirstVertex);
+					}
+				});
+				firstVertex += layerMeshes.getVertexCount();
+			}
+
+			// Encode the next layers concurrently, while writing them in the order of the layers
+			List<Future<TextBuffer>> results = new ArrayList<Future<TextBuffer>>(layerJobs.size());
+			int submittedJobs = 0;
+			for(int i = 0; i < layerJobs.size(); i++){
+				while((forkJoinPool != null) && (submittedJobs < layerJobs.size()) && (submittedJobs < (i + _parallelism))){
+					results.add(forkJoinPool.submit(layerJobs.get(submittedJobs++)));
+				}
+
+				// Drop the references to the layer, so its buffer is released once written
+				Callable<TextBuffer> layerJob = layerJobs.set(i, null);
+				try {
+					TextBuffer textBuffer = (forkJoinPool != null) ? results.set(i, null).get() : layerJob.call();
+					position += write(fileChannel, textBuffer, position);
+				} catch(ExecutionException exception){
+					throw new IOException(exception.getCause());
+				} catch(InterruptedException exception){
+					throw new IOException(exception);
+				}
+			}
+
+		} catch(IOException exception){
+			throw exception;
+		} catch(Exception exception){
+			throw new IOException(exception);
+		} finally {
+			if(forkJoinPool != null){
+				forkJoinPool.shutdownNow();
+			}
+			randomAccessFile.close();
+		}
+	}
+
+	/**
+	 * Encodes the vertices and triangles of a layer.
+	 * @param  layerMeshes Meshes of the layer
+	 * @param  firstVertex Number of the first vertex of the layer in the file (starting with 1)
+	 * @return             Text of the layer
+	 */
+	private static TextBuffer encodeLayer(LayerMeshes layerMeshes, long firstVertex){
+		TextBuffer textBuffer = new TextBuffer(INITIAL_BUFFER_CAPACITY);
+		textBuffer.append("o ").append(layerMeshes.getLayerName().replace('\n', ' ')).append('\n');
+
+		for(int meshIndex = 0; meshIndex < layerMeshes.getMeshCount(); meshIndex++){
+			double[] vertices = layerMeshes.getVertices(meshIndex);
+			for(int i = 0; i < vertices.length; i += 3){
+				textBuffer.append("v ").append(vertices[i]).append(' ').append(vertices[i + 1]).append(' ').append(vertices[i + 2]).append('\n');
+			}
+		}
+
+		long vertexOffset = firstVertex;
+		for(int meshIndex = 0; meshIndex < layerMeshes.getMeshCount(); meshIndex++){
+			int[] indices = layerMeshes.getIndices(meshIndex);
+			for(int i = 0; i < indices.length - 2; i += 3){
+				textBuffer.append("f ").append(vertexOffset + indices[i]).append(' ').append(vertexOffset + indices[i + 1]).append(' ').append(vertexOffset + indices[i + 2]).append('\n');
+			}
+			vertexOffset += layerMeshes.getTriangleMesh(meshIndex).getVertexCount();
+		}
+		return textBuffer;
+	}
+
+	/**
+	 * Writes a text buffer at the given file position.
+	 * @param  fileChannel File channel
+	 * @param  textBuffer  Text to write
+	 * @param  position    File position
+	 * @return             Number of written bytes
+	 * @throws IOException Thrown if the file can't be written
+	 */
+	private static long write(FileChannel fileChannel, TextBuffer textBuffer, long position) throws IOException {
+		ByteBuffer byteBuffer = textBuffer.toByteBuffer();
+		long writtenBytes = 0;
+		while(byteBuffer.hasRemaining()){
+			writtenBytes += fileChannel.write(byteBuffer, position + writtenBytes);
+		}
+		return writtenBytes;
+	}
+
+	/**
+	 * Growing buffer of ASCII text with number formatting, which doesn't create any objects.
+	 */
+	private static class TextBuffer {
+		/** Scale of the decimal places */
+		private final static double DECIMAL_SCALE = 1e6;
+
+		/** Number of decimal places */
+		private final static int DECIMAL_PLACES = 6;
+
+		/** Largest value, formatted with decimal places (larger values use Double.toString()) */
+		private final static double MAXIMAL_FIXED_VALUE = 1e12;
+
+		/** Maximal capacity of a byte array */
+		private final static int MAXIMAL_CAPACITY = Integer.MAX_VALUE - 8;
+
+		/** Text bytes */
+		private byte[] _bytes;
+
+		/** Number of used bytes */
+		private int _length;
+
+		/**
+		 * Constructor.
+		 * @param capacity Initial capacity in bytes
+		 */
+		public TextBuffer(int capacity){
+			_bytes = new byte[Math.max(capacity, 16)];
+		}
+
+		/**
+		 * Appends a character.
+		 * @param  character ASCII character
+		 * @return           This buffer
+		 */
+		public TextBuffer append(char character){
+			ensureCapacity(1);
+			_bytes[_length++] = (byte)character;
+			return this;
+		}
+
+		/**
+		 * Appends a text; characters outside of ASCII are replaced by '?'.
+		 * @param  text Text
+		 * @return      This buffer
+		 */
+		public TextBuffer append(String text){
+			ensureCapacity(text.length());
+			for(int i = 0; i < text.length(); i++){
+				char character = text.charAt(i);
+				_bytes[_length++] = (byte)((character < 0x80) ? character : '?');
+			}
+			return this;
+		}
+
+		/**
+		 * Appends an integer number.
+		 * @param  value Value
+		 * @return       This buffer
+		 */
+		public TextBuffer append(long value){
+			if(value == Long.MIN_VALUE){
+				return append(Long.toString(value));
+			}
+
+			ensureCapacity(20);
+			if(value < 0){
+				_bytes[_length++] = '-';
+				value = -value;
+			}
+
+			// Write the digits backwards
+			int start = _length;
+			do {
+				_bytes[_length++] = (byte)('0' + (value % 10));
+				value /= 10;
+			} while(value != 0);
+			reverse(start, _length - 1);
+			return this;
+		}
+
+		/**
+		 * Appends a floating point number with up to six decimal places.
+		 * @param  value Value
+		 * @return       This buffer
+		 */
+		public TextBuffer append(double value){
+			if(Double.isNaN(value) || Double.isInfinite(value) || (Math.abs(value) >= MAXIMAL_FIXED_VALUE)){
+				return append(Double.toString(value));
+			}
+
+			long scaledValue = Math.round(Math.abs(value) * DECIMAL_SCALE);
+			if((value < 0) && (scaledValue != 0)){
+				append('-');
+			}
+			append(scaledValue / (long)DECIMAL_SCALE);
+
+			// Decimal places without trailing zeros
+			long decimals = scaledValue % (long)DECIMAL_SCALE;
+			if(decimals != 0){
+				int places = DECIMAL_PLACES;
+				while((decimals % 10) == 0){
+					decimals /= 10;
+					places--;
+				}
+				ensureCapacity(places + 1);
+				_bytes[_length++] = '.';
+				for(int i = _length + places - 1; i >= _length; i--){
+					_bytes[i] = (byte)('0' + (decimals % 10));
+					decimals /= 10;
+				}
+				_length += places;
+			}
+			return this;
+		}
+
+		/**
+		 * Reverses a range of the bytes.
+		 * @param start First index
+		 * @param end   Last index
+		 */
+		private void reverse(int start, int end){
+			for(; start < end; start++, end--){
+				byte value = _bytes[start];
+				_bytes[start] = _bytes[end];
+				_bytes[end] = value;
+			}
+		}
+
+		/**
+		 * Grows the buffer, if the given number of bytes doesn't fit.
+		 * @param additionalBytes Number of bytes to append
+		 */
+		private void ensureCapacity(int additionalBytes){
+			long requiredCapacity = (long)_length + additionalBytes;
+			if(requiredCapacity > _bytes.length){
+				if(requiredCapacity > MAXIMAL_CAPACITY){
+					throw new IllegalStateException("The text of the layer exceeds " + MAXIMAL_CAPACITY + " bytes");
+				}
+				byte[] bytes = new byte[(int)Math.min(Math.max(_bytes.length * 2L, requiredCapacity), MAXIMAL_CAPACITY)];
+				System.arraycopy(_bytes, 0, bytes, 0, _length);
+				_bytes = bytes;
+			}
+		}
+
+		/**
+		 * Returns the text as byte buffer.
+		 * @return Byte buffer, wrapping the text bytes
+		 */
+		public ByteBuffer toByteBuffer(){
+			return ByteBuffer.wrap(_bytes, 0, _length);
+		}
+	}
+}
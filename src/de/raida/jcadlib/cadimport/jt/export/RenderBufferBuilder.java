@@ -0,0 +1,299 @@
+//################################################################################
+//	The MIT License
+//
+//	Copyright (c) 2014 Johannes Raida
+//
+//	Permission is hereby granted, free of charge, to any person obtaining a copy
+//	of this software and associated documentation files (the "Software"), to deal
+//	in the Software without restriction, including without limitation the rights
+//	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+//	copies of the Software, and to permit persons to whom the Software is
+//	furnished to do so, subject to the following conditions:
+//
+//	The above copyright notice and this permission notice shall be included in
+//	all copies or substantial portions of the Software.
+//
+//	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+//	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+//	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+//	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+//	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+//	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+//	THE SOFTWARE.
+//################################################################################
+
+package de.raida.jcadlib.cadimport.jt.export;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import de.raida.jcadlib.cadimport.jt.JTModel;
+import de.raida.jcadlib.cadimport.jt.TriangleMesh;
+import de.raida.jcadlib.cadimport.jt.export.VertexLayout.ComponentFormat;
+
+/**
+ * Packs triangle meshes into interleaved vertex buffers and index buffers (see RenderBuffers),
+ * so a viewer can upload them without converting the data on its render thread. Vertices
+ * take the vertex colors of the mesh or else the color of the instance. Index buffers hold
+ * 16 bit indices, if there are at most 65536 vertices.
+ * <br>(c) 2014 by <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @author  <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @version 1.0
+ */
+public class RenderBufferBuilder {
+	/** Color of meshes without any color (r, g, b) */
+	private final static float[] DEFAULT_COLOR = {0.8f, 0.8f, 0.8f};
+
+	/** Layout of the vertices */
+	private VertexLayout _vertexLayout;
+
+	/**
+	 * Constructor.
+	 * @param vertexLayout Layout of the vertices
+	 */
+	public RenderBufferBuilder(VertexLayout vertexLayout){
+		_vertexLayout = vertexLayout;
+	}
+
+	/**
+	 * Packs the triangle meshes and mesh instances of each layer into one pair of buffers
+	 * in world coordinates.
+	 * @param  jtModel Model
+	 * @return         Buffers of the layers with triangles
+	 */
+	public List<RenderBuffers> build(JTModel jtModel){
+		List<RenderBuffers> renderBuffers = new ArrayList<RenderBuffers>();
+		for(LayerMeshes layerMeshes : LayerMeshes.collect(jtModel)){
+			int vertexCount = layerMeshes.getVertexCount();
+			int indexCount = (int)(layerMeshes.getTriangleCount() * 3);
+			ByteBuffer vertexBuffer = allocate((long)vertexCount * _vertexLayout.getStride());
+			ByteBuffer indexBuffer = allocate((long)indexCount * ((vertexCount <= 0x10000) ? 2 : 4));
+
+			int firstVertex = 0;
+			for(int meshIndex = 0; meshIndex < layerMeshes.getMeshCount(); meshIndex++){
+				TriangleMesh triangleMesh = layerMeshes.getTriangleMesh(meshIndex);
+				putVertices(vertexBuffer, firstVertex, triangleMesh, layerMeshes.getVertices(meshIndex), layerMeshes.getTransformation(meshIndex), layerMeshes.getColor(meshIndex));
+				putIndices(indexBuffer, triangleMesh, firstVertex, vertexCount <= 0x10000);
+				firstVertex += triangleMesh.getVertexCount();
+			}
+
+			vertexBuffer.clear();
+			indexBuffer.flip();
+			renderBuffers.add(new RenderBuffers(layerMeshes.getLayerName(), _vertexLayout, vertexBuffer, vertexCount, indexBuffer, indexCount, vertexCount <= 0x10000));
+		}
+		return renderBuffers;
+	}
+
+	/**
+	 * Packs a single mesh in its local coordinates, e.g. a mesh of JTModel.getInstancedMesh()
+	 * to be drawn once per instance.
+	 * @param  triangleMesh Triangle mesh
+	 * @param  color        Color of the mesh (r, g, b), if it has no vertex colors, or null
+	 * @return              Buffers of the mesh
+	 */
+	public RenderBuffers build(TriangleMesh triangleMesh, float[] color){
+		int vertexCount = triangleMesh.getVertexCount();
+		int indexCount = triangleMesh.getTriangleCount() * 3;
+		ByteBuffer vertexBuffer = allocate((long)vertexCount * _vertexLayout.getStride());
+		ByteBuffer indexBuffer = allocate((long)indexCount * ((vertexCount <= 0x10000) ? 2 : 4));
+
+		putVertices(vertexBuffer, 0, triangleMesh, triangleMesh.getVertices(), null, color);
+		putIndices(indexBuffer, triangleMesh, 0, vertexCount <= 0x10000);
+
+		vertexBuffer.clear();
+		indexBuffer.flip();
+		return new RenderBuffers(null, _vertexLayout, vertexBuffer, vertexCount, indexBuffer, indexCount, vertexCount <= 0x10000);
+	}
+
+	/**
+	 * Writes the interleaved vertices of a mesh.
+	 * @param vertexBuffer   Vertex buffer
+	 * @param firstVertex    Index of the first vertex of the mesh in the buffer
+	 * @param triangleMesh   Triangle mesh
+	 * @param vertices       Vertices of the mesh (x, y, z), already transformed
+	 * @param transformation Transformation of the normals (4x4 matrix, row by row) or null
+	 * @param color          Color of the mesh instance (r, g, b) or null
+	 */
+	private void putVertices(ByteBuffer vertexBuffer, int firstVertex, TriangleMesh triangleMesh, double[] vertices, double[] transformation, float[] color){
+		int vertexCount = vertices.length / 3;
+		int stride = _vertexLayout.getStride();
+		int normalOffset = _vertexLayout.getNormalOffset();
+		int colorOffset = _vertexLayout.getColorOffset();
+
+		double[] normals = (normalOffset >= 0) ? triangleMesh.getNormals() : null;
+		if((normals != null) && (normals.length != vertices.length)){
+			normals = null;
+		}
+		double[] colors = (colorOffset >= 0) ? triangleMesh.getColors() : null;
+		if((colors != null) && (colors.length != vertices.length)){
+			colors = null;
+		}
+		if(color == null){
+			color = DEFAULT_COLOR;
+		}
+
+		double[] t = transformation;
+		for(int i = 0; i < vertexCount; i++){
+			int position = (firstVertex + i) * stride;
+			vertexBuffer.putFloat(position,     (float)vertices[i * 3]);
+			vertexBuffer.putFloat(position + 4, (float)vertices[(i * 3) + 1]);
+			vertexBuffer.putFloat(position + 8, (float)vertices[(i * 3) + 2]);
+
+			if(normalOffset >= 0){
+				double x = 0, y = 0, z = 0;
+				if(normals != null){
+					x = normals[i * 3];
+					y = normals[(i * 3) + 1];
+					z = normals[(i * 3) + 2];
+					if(t != null){
+						double rotatedX = (t[0] * x) + (t[1] * y) + (t[2]  * z);
+						double rotatedY = (t[4] * x) + (t[5] * y) + (t[6]  * z);
+						z               = (t[8] * x) + (t[9] * y) + (t[10] * z);
+						x = rotatedX;
+						y = rotatedY;
+						double length = Math.sqrt((x * x) + (y * y) + (z * z));
+						if(length > 0){
+							x /= length;
+							y /= length;
+							z /= length;
+						}
+					}
+				}
+				putComponents(vertexBuffer, position + normalOffset, _vertexLayout.getNormalFormat(), true, x, y, z);
+			}
+
+			if(colorOffset >= 0){
+				if(colors != null){
+					putComponents(vertexBuffer, position + colorOffset, _vertexLayout.getColorFormat(), false, colors[i * 3], colors[(i * 3) + 1], colors[(i * 3) + 2]);
+				} else {
+					putComponents(vertexBuffer, position + colorOffset, _vertexLayout.getColorFormat(), false, color[0], color[1], color[2]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes the indices of a mesh.
+	 * @param indexBuffer  Index buffer
+	 * @param triangleMesh Triangle mesh
+	 * @param firstVertex  Index of the first vertex of the mesh in the vertex buffer
+	 * @param shortIndices Write 16 bit indices (else 32 bit indices)?
+	 */
+	private static void putIndices(ByteBuffer indexBuffer, TriangleMesh triangleMesh, int firstVertex, boolean shortIndices){
+		short[] meshShortIndices = triangleMesh.getShortIndices();
+		int[] meshIndices = (meshShortIndices == null) ? triangleMesh.getIndices() : null;
+		int indexCount = (meshShortIndices != null) ? meshShortIndices.length : meshIndices.length;
+		for(int i = 0; i < indexCount; i++){
+			int index = firstVertex + ((meshShortIndices != null) ? (meshShortIndices[i] & 0xffff) : meshIndices[i]);
+			if(shortIndices){
+				indexBuffer.putShort((short)index);
+			} else {
+				indexBuffer.putInt(index);
+			}
+		}
+	}
+
+	/**
+	 * Writes the three components of an attribute.
+	 * @param vertexBuffer Vertex buffer
+	 * @param position     Byte position of the attribute
+	 * @param format       Component format
+	 * @param signed       Use signed normalized values (else unsigned)?
+	 * @param x            First component
+	 * @param y            Second component
+	 * @param z            Third component
+	 */
+	private static void putComponents(ByteBuffer vertexBuffer, int position, ComponentFormat format, boolean signed, double x, double y, double z){
+		putComponent(vertexBuffer, position, 0, format, signed, x);
+		putComponent(vertexBuffer, position, 1, format, signed, y);
+		putComponent(vertexBuffer, position, 2, format, signed, z);
+	}
+
+	/**
+	 * Writes a single component of an attribute.
+	 * @param vertexBuffer Vertex buffer
+	 * @param position     Byte position of the attribute
+	 * @param index        Index of the component
+	 * @param format       Component format
+	 * @param signed       Use signed normalized values (else unsigned)?
+	 * @param value        Component value
+	 */
+	private static void putComponent(ByteBuffer vertexBuffer, int position, int index, ComponentFormat format, boolean signed, double value){
+		switch(format){
+			case FLOAT:
+				vertexBuffer.putFloat(position + (index * 4), (float)value);
+				break;
+			case HALF_FLOAT:
+				vertexBuffer.putShort(position + (index * 2), toHalfFloat((float)value));
+				break;
+			case NORMALIZED_SHORT:
+				vertexBuffer.putShort(position + (index * 2), (short)(signed ? Math.round(clamp(value, -1) * 32767) : Math.round(clamp(value, 0) * 65535)));
+				break;
+			case NORMALIZED_BYTE:
+				vertexBuffer.put(position + index, (byte)(signed ? Math.round(clamp(value, -1) * 127) : Math.round(clamp(value, 0) * 255)));
+				break;
+			default:
+				break;
+		}
+	}
+
+	/**
+	 * Clamps a value to the range [min, 1].
+	 * @param  value Value
+	 * @param  min   Lower bound
+	 * @return       Clamped value
+	 */
+	private static double clamp(double value, double min){
+		return Math.max(min, Math.min(1, value));
+	}
+
+	/**
+	 * Converts a float into a 16 bit float (IEEE 754 half precision), rounding to the nearest value.
+	 * @param  value Float value
+	 * @return       Bits of the half precision value
+	 */
+	static short toHalfFloat(float value){
+		int bits = Float.floatToIntBits(value);
+		int sign = (bits >>> 16) & 0x8000;
+		int magnitude = bits & 0x7fffffff;
+
+		// NaN and infinity
+		if(magnitude >= 0x7f800000){
+			return (short)(sign | 0x7c00 | ((magnitude > 0x7f800000) ? 0x200 : 0));
+		}
+
+		// Overflow to infinity
+		int rounded = magnitude + 0x1000;
+		if(rounded >= 0x47800000){
+			return (short)(sign | 0x7c00);
+		}
+
+		// Normalized values
+		if(rounded >= 0x38800000){
+			return (short)(sign | ((rounded - 0x38000000) >>> 13));
+		}
+
+		// Underflow to zero
+		if(magnitude < 0x33000000){
+			return (short)sign;
+		}
+
+		// Denormalized values
+		int exponent = magnitude >>> 23;
+		return (short)(sign | ((((magnitude & 0x7fffff) | 0x800000) + (0x800000 >>> (exponent - 102))) >>> (126 - exponent)));
+	}
+
+	/**
+	 * Allocates a direct buffer in native byte order.
+	 * @param  size Size in bytes
+	 * @return      Direct buffer
+	 */
+	private static ByteBuffer allocate(long size){
+		if(size > Integer.MAX_VALUE){
+			throw new IllegalArgumentException("Buffer exceeds 2 GB: " + size + " bytes");
+		}
+		return ByteBuffer.allocateDirect((int)size).order(ByteOrder.nativeOrder());
+	}
+}
@@ -0,0 +1,135 @@
+//################################################################################
+//	The MIT License
+//
+//	Copyright (c) 2014 Johannes Raida
+//
+//	Permission is hereby granted, free of charge, to any person obtaining a copy
+//	of this software and associated documentation files (the "Software"), to deal
+//	in the Software without restriction, including without limitation the rights
+//	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+//	copies of the Software, and to permit persons to whom the Software is
+//	furnished to do so, subject to the following conditions:
+//
+//	The above copyright notice and this permission notice shall be included in
+//	all copies or substantial portions of the Software.
+//
+//	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+//	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+//	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+//	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+//	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+//	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+//	THE SOFTWARE.
+//################################################################################
+
+package de.raida.jcadlib.cadimport.jt.export;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Interleaved vertex buffer and index buffer of a mesh or layer, ready for the upload to
+ * a graphics API. Both are direct buffers in native byte order, positioned at 0 with the
+ * limit at their size.
+ * <br>(c) 2014 by <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @author  <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @version 1.0
+ */
+public class RenderBuffers {
+	/** Name of the layer or null */
+	private String _layerName;
+
+	/** Layout of the vertices */
+	private VertexLayout _vertexLayout;
+
+	/** Interleaved vertices */
+	private ByteBuffer _vertexBuffer;
+
+	/** Indices, three per triangle */
+	private ByteBuffer _indexBuffer;
+
+	/** Number of vertices */
+	private int _vertexCount;
+
+	/** Number of indices */
+	private int _indexCount;
+
+	/** Are the indices 16 bit values (else 32 bit values)? */
+	private boolean _shortIndices;
+
+	/**
+	 * Constructor.
+	 * @param layerName    Name of the layer or null
+	 * @param vertexLayout Layout of the vertices
+	 * @param vertexBuffer Interleaved vertices
+	 * @param vertexCount  Number of vertices
+	 * @param indexBuffer  Indices, three per triangle
+	 * @param indexCount   Number of indices
+	 * @param shortIndices Are the indices 16 bit values (else 32 bit values)?
+	 */
+	RenderBuffers(String layerName, VertexLayout vertexLayout, ByteBuffer vertexBuffer, int vertexCount, ByteBuffer indexBuffer, int indexCount, boolean shortIndices){
+		_layerName = layerName;
+		_vertexLayout = vertexLayout;
+		_vertexBuffer = vertexBuffer;
+		_vertexCount = vertexCount;
+		_indexBuffer = indexBuffer;
+		_indexCount = indexCount;
+		_shortIndices = shortIndices;
+	}
+
+	/**
+	 * Returns the name of the layer.
+	 * @return Layer name or<br>
+	 *         <b>null</b>, if the buffers hold a single mesh
+	 */
+	public String getLayerName(){
+		return _layerName;
+	}
+
+	/**
+	 * Returns the layout of the vertices.
+	 * @return Vertex layout
+	 */
+	public VertexLayout getVertexLayout(){
+		return _vertexLayout;
+	}
+
+	/**
+	 * Returns the interleaved vertices.
+	 * @return Direct buffer of getVertexCount() * stride bytes
+	 */
+	public ByteBuffer getVertexBuffer(){
+		return _vertexBuffer;
+	}
+
+	/**
+	 * Returns the number of vertices.
+	 * @return Number of vertices
+	 */
+	public int getVertexCount(){
+		return _vertexCount;
+	}
+
+	/**
+	 * Returns the indices.
+	 * @return Direct buffer of 16 or 32 bit indices, three per triangle
+	 */
+	public ByteBuffer getIndexBuffer(){
+		return _indexBuffer;
+	}
+
+	/**
+	 * Returns the number of indices.
+	 * @return Number of indices
+	 */
+	public int getIndexCount(){
+		return _indexCount;
+	}
+
+	/**
+	 * Are the indices 16 bit values?
+	 * @return Are the indices unsigned 16 bit values (else unsigned 32 bit values)?
+	 */
+	public boolean hasShortIndices(){
+		return _shortIndices;
+	}
+}
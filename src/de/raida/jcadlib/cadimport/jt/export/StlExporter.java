@@ -0,0 +1,221 @@
+//################################################################################
+//	The MIT License
+//
+//	Copyright (c) 2014 Johannes Raida
+//
+//	Permission is hereby granted, free of charge, to any person obtaining a copy
+//	of this software and associated documentation files (the "Software"), to deal
+//	in the Software without restriction, including without limitation the rights
+//	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+//	copies of the Software, and to permit persons to whom the Software is
+//	furnished to do so, subject to the following conditions:
+//
+//	The above copyright notice and this permission notice shall be included in
+//	all copies or substantial portions of the Software.
+//
+//	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+//	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+//	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+//	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+//	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+//	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+//	THE SOFTWARE.
+//################################################################################
+
+package de.raida.jcadlib.cadimport.jt.export;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import de.raida.jcadlib.cadimport.jt.JTModel;
+
+/**
+ * Exports the triangles of a model into a binary STL file. The layers are encoded
+ * concurrently; as every triangle takes 50 bytes, the file offset of each layer is known
+ * in advance, so each layer is written by positional writes from a buffer of its thread.
+ * The facet normals are calculated from the vertices.
+ * <br>(c) 2014 by <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @author  <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @version 1.0
+ */
+public class StlExporter {
+	/** Size of the header in bytes (80 bytes text, 4 bytes triangle count) */
+	private final static int HEADER_SIZE = 84;
+
+	/** Size of a triangle in bytes (normal, three vertices, attribute) */
+	private final static int TRIANGLE_SIZE = 50;
+
+	/** Number of triangles in a write buffer */
+	private final static int BUFFERED_TRIANGLES = 4096;
+
+	/** Number of threads, encoding the layers */
+	private int _parallelism;
+
+	/** Write buffer of each thread */
+	private ThreadLocal<ByteBuffer> _byteBuffers;
+
+	/**
+	 * Constructor.
+	 * @param parallelism Number of threads, encoding the layers
+	 */
+	public StlExporter(int parallelism){
+		_parallelism = parallelism;
+		_byteBuffers = new ThreadLocal<ByteBuffer>(){
+			protected ByteBuffer initialValue(){
+				return ByteBuffer.allocateDirect(BUFFERED_TRIANGLES * TRIANGLE_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			}
+		};
+	}
+
+	/**
+	 * Exports the triangles of all layers. An existing file is replaced.
+	 * @param  jtModel     Model to export
+	 * @param  file        STL file
+	 * @throws IOException Thrown if the file can't be written
+	 */
+	public void export(JTModel jtModel, File file) throws IOException {
+		List<LayerMeshes> layers = LayerMeshes.collect(jtModel);
+		long triangleCount = 0;
+		for(LayerMeshes layerMeshes : layers){
+			triangleCount += layerMeshes.getTriangleCount();
+		}
+		if(triangleCount > 0xffffffffL){
+			throw new IOException("Too many triangles for an STL file: " + triangleCount);
+		}
+
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+		ForkJoinPool forkJoinPool = (_parallelism > 1) ? new ForkJoinPool(_parallelism) : null;
+		try {
+			final FileChannel fileChannel = randomAccessFile.getChannel();
+			fileChannel.truncate(0);
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			header.put("Binary STL, exported by jCADlib".getBytes("US-ASCII"));
+			header.putInt(80, (int)triangleCount);
+			header.clear();
+			write(fileChannel, header, 0);
+
+			// Encode the layers at their precomputed offsets
+			List<Future<Object>> results = new ArrayList<Future<Object>>(layers.size());
+			long position = HEADER_SIZE;
+			for(final LayerMeshes layerMeshes : layers){
+				final long layerPosition = position;
+				Callable<Object> layerJob = new Callable<Object>(){
+					public Object call() throws IOException {
+						writeLayer(fileChannel, layerMeshes, layerPosition);
+						return null;
+					}
+				};
+				if(forkJoinPool != null){
+					results.add(forkJoinPool.submit(layerJob));
+				} else {
+					layerJob.call();
+				}
+				position += layerMeshes.getTriangleCount() * TRIANGLE_SIZE;
+			}
+
+			for(Future<Object> result : results){
+				try {
+					result.get();
+				} catch(ExecutionException exception){
+					if(exception.getCause() instanceof IOException){
+						throw (IOException)exception.getCause();
+					}
+					throw new IOException(exception.getCause());
+				} catch(InterruptedException exception){
+					throw new IOException(exception);
+				}
+			}
+
+		} catch(IOException exception){
+			throw exception;
+		} catch(Exception exception){
+			throw new IOException(exception);
+		} finally {
+			if(forkJoinPool != null){
+				forkJoinPool.shutdownNow();
+			}
+			randomAccessFile.close();
+		}
+	}
+
+	/**
+	 * Encodes the triangles of a layer and writes them at the given file position.
+	 * @param  fileChannel Channel of the STL file
+	 * @param  layerMeshes Meshes of the layer
+	 * @param  position    File position of the first triangle of the layer
+	 * @throws IOException Thrown if the file can't be written
+	 */
+	private void writeLayer(FileChannel fileChannel, LayerMeshes layerMeshes, long position) throws IOException {
+		ByteBuffer byteBuffer = _byteBuffers.get();
+		byteBuffer.clear();
+
+		for(int meshIndex = 0; meshIndex < layerMeshes.getMeshCount(); meshIndex++){
+			double[] vertices = layerMeshes.getVertices(meshIndex);
+			int[] indices = layerMeshes.getIndices(meshIndex);
+			for(int i = 0; i < indices.length - 2; i += 3){
+				int a = indices[i] * 3;
+				int b = indices[i + 1] * 3;
+				int c = indices[i + 2] * 3;
+
+				// Facet normal
+				double ux = vertices[b] - vertices[a];
+				double uy = vertices[b + 1] - vertices[a + 1];
+				double uz = vertices[b + 2] - vertices[a + 2];
+				double vx = vertices[c] - vertices[a];
+				double vy = vertices[c + 1] - vertices[a + 1];
+				double vz = vertices[c + 2] - vertices[a + 2];
+				double nx = (uy * vz) - (uz * vy);
+				double ny = (uz * vx) - (ux * vz);
+				double nz = (ux * vy) - (uy * vx);
+				double length = Math.sqrt((nx * nx) + (ny * ny) + (nz * nz));
+				if(length > 0){
+					nx /= length;
+					ny /= length;
+					nz /= length;
+				}
+
+				byteBuffer.putFloat((float)nx).putFloat((float)ny).putFloat((float)nz);
+				byteBuffer.putFloat((float)vertices[a]).putFloat((float)vertices[a + 1]).putFloat((float)vertices[a + 2]);
+				byteBuffer.putFloat((float)vertices[b]).putFloat((float)vertices[b + 1]).putFloat((float)vertices[b + 2]);
+				byteBuffer.putFloat((float)vertices[c]).putFloat((float)vertices[c + 1]).putFloat((float)vertices[c + 2]);
+				byteBuffer.putShort((short)0);
+
+				if(!byteBuffer.hasRemaining()){
+					byteBuffer.flip();
+					position += write(fileChannel, byteBuffer, position);
+					byteBuffer.clear();
+				}
+			}
+		}
+
+		byteBuffer.flip();
+		write(fileChannel, byteBuffer, position);
+	}
+
+	/**
+	 * Writes the remaining bytes of a buffer at the given file position.
+	 * @param  fileChannel File channel
+	 * @param  byteBuffer  Buffer to write
+	 * @param  position    File position
+	 * @return             Number of written bytes
+	 * @throws IOException Thrown if the file can't be written
+	 */
+	private static int write(FileChannel fileChannel, ByteBuffer byteBuffer, long position) throws IOException {
+		int writtenBytes = 0;
+		while(byteBuffer.hasRemaining()){
+			writtenBytes += fileChannel.write(byteBuffer, position + writtenBytes);
+		}
+		return writtenBytes;
+	}
+}
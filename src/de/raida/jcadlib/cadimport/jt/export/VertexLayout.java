@@ -0,0 +1,171 @@
+//################################################################################
+//	The MIT License
+//
+//	Copyright (c) 2014 Johannes Raida
+//
+//	Permission is hereby granted, free of charge, to any person obtaining a copy
+//	of this software and associated documentation files (the "Software"), to deal
+//	in the Software without restriction, including without limitation the rights
+//	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+//	copies of the Software, and to permit persons to whom the Software is
+//	furnished to do so, subject to the following conditions:
+//
+//	The above copyright notice and this permission notice shall be included in
+//	all copies or substantial portions of the Software.
+//
+//	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+//	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+//	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+//	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+//	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+//	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+//	THE SOFTWARE.
+//################################################################################
+
+package de.raida.jcadlib.cadimport.jt.export;
+
+/**
+ * Layout of an interleaved vertex: the position as three floats, followed by the optional
+ * normal and color attributes in the configured formats. Every attribute starts at a
+ * multiple of four bytes and the stride is a multiple of the configured alignment.
+ * Normals use signed normalized values, colors unsigned normalized values.
+ * <br>(c) 2014 by <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @author  <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @version 1.0
+ */
+public class VertexLayout {
+	/**
+	 * Format of the components of a vertex attribute.
+	 */
+	public static enum ComponentFormat {
+		/** Attribute is omitted */
+		NONE(0),
+
+		/** 32 bit float */
+		FLOAT(4),
+
+		/** 16 bit float (IEEE 754 half precision) */
+		HALF_FLOAT(2),
+
+		/** 16 bit normalized integer (signed for normals, unsigned for colors) */
+		NORMALIZED_SHORT(2),
+
+		/** 8 bit normalized integer (signed for normals, unsigned for colors) */
+		NORMALIZED_BYTE(1);
+
+		/** Size of a component in bytes */
+		private int _size;
+
+		/**
+		 * Constructor.
+		 * @param size Size of a component in bytes
+		 */
+		private ComponentFormat(int size){
+			_size = size;
+		}
+
+		/**
+		 * Returns the size of a component.
+		 * @return Size in bytes
+		 */
+		public int getSize(){
+			return _size;
+		}
+	}
+
+	/** Format of the normal components */
+	private ComponentFormat _normalFormat;
+
+	/** Format of the color components */
+	private ComponentFormat _colorFormat;
+
+	/** Byte offset of the normal within a vertex (-1, if omitted) */
+	private int _normalOffset;
+
+	/** Byte offset of the color within a vertex (-1, if omitted) */
+	private int _colorOffset;
+
+	/** Size of a vertex in bytes */
+	private int _stride;
+
+	/**
+	 * Constructor.
+	 * @param normalFormat Format of the normal components
+	 * @param colorFormat  Format of the color components (r, g, b)
+	 * @param alignment    Alignment of the stride in bytes (power of two, at least 4)
+	 */
+	public VertexLayout(ComponentFormat normalFormat, ComponentFormat colorFormat, int alignment){
+		if((alignment < 4) || ((alignment & (alignment - 1)) != 0)){
+			throw new IllegalArgumentException("Invalid alignment: " + alignment);
+		}
+		_normalFormat = normalFormat;
+		_colorFormat = colorFormat;
+
+		int offset = 12;
+		_normalOffset = (normalFormat == ComponentFormat.NONE) ? -1 : offset;
+		offset += align(normalFormat.getSize() * 3, 4);
+		_colorOffset = (colorFormat == ComponentFormat.NONE) ? -1 : offset;
+		offset += align(colorFormat.getSize() * 3, 4);
+		_stride = align(offset, alignment);
+	}
+
+	/**
+	 * Returns the format of the normal components.
+	 * @return Normal format
+	 */
+	public ComponentFormat getNormalFormat(){
+		return _normalFormat;
+	}
+
+	/**
+	 * Returns the format of the color components.
+	 * @return Color format
+	 */
+	public ComponentFormat getColorFormat(){
+		return _colorFormat;
+	}
+
+	/**
+	 * Returns the byte offset of the position within a vertex.
+	 * @return Byte offset (always 0)
+	 */
+	public int getPositionOffset(){
+		return 0;
+	}
+
+	/**
+	 * Returns the byte offset of the normal within a vertex.
+	 * @return Byte offset or<br>
+	 *         <b>-1</b>, if the vertices have no normals
+	 */
+	public int getNormalOffset(){
+		return _normalOffset;
+	}
+
+	/**
+	 * Returns the byte offset of the color within a vertex.
+	 * @return Byte offset or<br>
+	 *         <b>-1</b>, if the vertices have no colors
+	 */
+	public int getColorOffset(){
+		return _colorOffset;
+	}
+
+	/**
+	 * Returns the size of a vertex.
+	 * @return Stride in bytes
+	 */
+	public int getStride(){
+		return _stride;
+	}
+
+	/**
+	 * Rounds a size up to a multiple of the alignment.
+	 * @param  size      Size in bytes
+	 * @param  alignment Alignment (power of two)
+	 * @return           Aligned size
+	 */
+	private static int align(int size, int alignment){
+		return (size + alignment - 1) & ~(alignment - 1);
+	}
+}
@@ -26,7 +26,6 @@ package de.raida.jcadlib.cadimport.jt.model;
 
 import java.nio.ByteBuffer;
 
-import de.raida.jcadlib.cadimport.jt.JTImporter;
 import de.raida.jcadlib.cadimport.jt.reader.Helper;
 import de.raida.jcadlib.cadimport.jt.reader.WorkingContext;
 
@@ -63,8 +62,6 @@ public class ElementHeader {
 	 * @param byteBuffer      Byte buffer to read from
 	 */
 	public ElementHeader(int elementLength, GUID elementID, int elementBaseType, ByteBuffer byteBuffer){
-		JTImporter.updateProgress(elementLength);
-
 		_elementLength = elementLength;
 		_elementID = elementID;
 		_byteBuffer = byteBuffer;
@@ -81,8 +78,6 @@ public class ElementHeader {
 	 * @param byteBuffer           Byte buffer to read from
 	 */
 	public ElementHeader(int elementLength, GUID elementID, int elementBaseType, long compressionFlag, int compressionAlgorithm, int compressedDataLength, ByteBuffer byteBuffer){
-		JTImporter.updateProgress(compressedDataLength);
-
 		_elementLength = elementLength;
 		_elementID = elementID;
 
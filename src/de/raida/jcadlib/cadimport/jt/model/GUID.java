@@ -43,38 +43,17 @@ public class GUID {
 	/** Object type ID */
 	public final static String END_OF_ELEMENTS = "ffffffff-ffff-ffff-ff-ff-ff-ff-ff-ff-ff-ff";
 
-	/** Value 1 */
-	private long _a;
+	/** Object type ID, marking the end of the elements */
+	public final static GUID END_OF_ELEMENTS_GUID = new GUID(END_OF_ELEMENTS);
 
-	/** Value 2 */
-	private int _b;
+	/** Upper 64 bits (U32 and 2 x U16) */
+	private long _high;
 
-	/** Value 3 */
-	private int _c;
+	/** Lower 64 bits (8 x U8) */
+	private long _low;
 
-	/** Value 4 */
-	private int _d;
-
-	/** Value 5 */
-	private int _e;
-
-	/** Value 6 */
-	private int _f;
-
-	/** Value 7 */
-	private int _g;
-
-	/** Value 8 */
-	private int _h;
-
-	/** Value 9 */
-	private int _i;
-
-	/** Value 10 */
-	private int _j;
-
-	/** Value 11 */
-	private int _k;
+	/** String representation (created on demand) */
+	private String _string;
 
 	/**
 	 * Constructor.
@@ -91,17 +70,7 @@ public class GUID {
 	 * @param k Value 11
 	 */
 	public GUID(long a, int b, int c, int d, int e, int f, int g, int h, int i, int j, int k){
-		_a = a;
-		_b = b;
-		_c = c;
-		_d = d;
-		_e = e;
-		_f = f;
-		_g = g;
-		_h = h;
-		_i = i;
-		_j = j;
-		_k = k;
+		setValue(a, b, c, d, e, f, g, h, i, j, k);
 	}
 
 	/**
@@ -110,17 +79,59 @@ public class GUID {
 	 */
 	public GUID(String guid){
 		String[] guidComponents = guid.split("-");
-		_a = Long.parseLong(guidComponents[0], 16);
-		_b = Integer.parseInt(guidComponents[1], 16);
-		_c = Integer.parseInt(guidComponents[2], 16);
-		_d = Integer.parseInt(guidComponents[3], 16);
-		_e = Integer.parseInt(guidComponents[4], 16);
-		_f = Integer.parseInt(guidComponents[5], 16);
-		_g = Integer.parseInt(guidComponents[6], 16);
-		_h = Integer.parseInt(guidComponents[7], 16);
-		_i = Integer.parseInt(guidComponents[8], 16);
-		_j = Integer.parseInt(guidComponents[9], 16);
-		_k = Integer.parseInt(guidComponents[10], 16);
+		setValue(	Long.parseLong(guidComponents[0], 16),
+					Integer.parseInt(guidComponents[1], 16),
+					Integer.parseInt(guidComponents[2], 16),
+					Integer.parseInt(guidComponents[3], 16),
+					Integer.parseInt(guidComponents[4], 16),
+					Integer.parseInt(guidComponents[5], 16),
+					Integer.parseInt(guidComponents[6], 16),
+					Integer.parseInt(guidComponents[7], 16),
+					Integer.parseInt(guidComponents[8], 16),
+					Integer.parseInt(guidComponents[9], 16),
+					Integer.parseInt(guidComponents[10], 16));
+	}
+
+	/**
+	 * Packs the GUID components into two 64 bit values.
+	 * @param a Value 1
+	 * @param b Value 2
+	 * @param c Value 3
+	 * @param d Value 4
+	 * @param e Value 5
+	 * @param f Value 6
+	 * @param g Value 7
+	 * @param h Value 8
+	 * @param i Value 9
+	 * @param j Value 10
+	 * @param k Value 11
+	 */
+	private void setValue(long a, int b, int c, int d, int e, int f, int g, int h, int i, int j, int k){
+		_high = ((a & 0xFFFFFFFFL) << 32) | ((long)(b & 0xFFFF) << 16) | (c & 0xFFFF);
+		_low  = ((long)(d & 0xFF) << 56) | ((long)(e & 0xFF) << 48) | ((long)(f & 0xFF) << 40) | ((long)(g & 0xFF) << 32) |
+				((long)(h & 0xFF) << 24) | ((long)(i & 0xFF) << 16) | ((long)(j & 0xFF) << 8)  | (k & 0xFF);
+	}
+
+	/**
+	 * Compares the GUID with the given object.
+	 * @param  object Object to compare with
+	 * @return        Do both GUID's have the same value?
+	 */
+	public boolean equals(Object object){
+		if(!(object instanceof GUID)){
+			return false;
+		}
+		GUID guid = (GUID)object;
+		return (_high == guid._high) && (_low == guid._low);
+	}
+
+	/**
+	 * Returns the hash code of the GUID.
+	 * @return Hash code
+	 */
+	public int hashCode(){
+		long hash = _high ^ (_low * 31);
+		return (int)(hash ^ (hash >>> 32));
 	}
 
 	/**
@@ -128,23 +139,21 @@ public class GUID {
 	 * @return String representation of the GUID
 	 */
 	public String toString(){
-		StringBuffer stringBuffer = new StringBuffer();
-
-		stringBuffer.append(Long.toHexString(_a)).append("-");
-		stringBuffer.append(Integer.toHexString(_b)).append("-");
-		stringBuffer.append(Integer.toHexString(_c)).append("-");
-		stringBuffer.append(Integer.toHexString(_d & 0xFF)).append("-");
-		stringBuffer.append(Integer.toHexString(_e & 0xFF)).append("-");
-		stringBuffer.append(Integer.toHexString(_f & 0xFF)).append("-");
-		stringBuffer.append(Integer.toHexString(_g & 0xFF)).append("-");
-		stringBuffer.append(Integer.toHexString(_h & 0xFF)).append("-");
-		stringBuffer.append(Integer.toHexString(_i & 0xFF)).append("-");
-		stringBuffer.append(Integer.toHexString(_j & 0xFF)).append("-");
-		stringBuffer.append(Integer.toHexString(_k & 0xFF));
-
-		return stringBuffer.toString();
+		if(_string == null){
+			StringBuffer stringBuffer = new StringBuffer();
+
+			stringBuffer.append(Long.toHexString(_high >>> 32)).append("-");
+			stringBuffer.append(Integer.toHexString((int)(_high >>> 16) & 0xFFFF)).append("-");
+			stringBuffer.append(Integer.toHexString((int)_high & 0xFFFF));
+			for(int shift = 56; shift >= 0; shift -= 8){
+				stringBuffer.append("-").append(Integer.toHexString((int)(_low >>> shift) & 0xFF));
+			}
+
+			_string = stringBuffer.toString();
+		}
+		return _string;
 	}
-	
+
 	/**
 	 * Reads a Global Unique ID.
 	 * @param  workingContext Working context
@@ -0,0 +1,184 @@
+//################################################################################
+//	The MIT License
+//
+//	Copyright (c) 2014 Johannes Raida
+//
+//	Permission is hereby granted, free of charge, to any person obtaining a copy
+//	of this software and associated documentation files (the "Software"), to deal
+//	in the Software without restriction, including without limitation the rights
+//	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+//	copies of the Software, and to permit persons to whom the Software is
+//	furnished to do so, subject to the following conditions:
+//
+//	The above copyright notice and this permission notice shall be included in
+//	all copies or substantial portions of the Software.
+//
+//	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+//	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+//	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+//	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+//	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+//	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+//	THE SOFTWARE.
+//################################################################################
+
+package de.raida.jcadlib.cadimport.jt.model;
+
+import java.util.Arrays;
+
+/**
+ * Map of int keys to objects. The entries are stored in insertion order in primitive
+ * arrays, which are indexed by an open-addressing hash table with linear probing, so
+ * neither keys nor values are boxed.
+ * <br>(c) 2014 by <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @author  <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @version 1.0
+ */
+public class IntObjectMap<V> {
+	/** Hash table: entry index + 1 (0 marks an empty slot) */
+	private int[] _slots;
+
+	/** Keys of the entries, in insertion order */
+	private int[] _keys;
+
+	/** Values of the entries, in insertion order */
+	private Object[] _values;
+
+	/** Number of entries */
+	private int _size;
+
+	/**
+	 * Constructor.
+	 */
+	public IntObjectMap(){
+		this(4);
+	}
+
+	/**
+	 * Constructor.
+	 * @param expectedSize Expected number of entries
+	 */
+	public IntObjectMap(int expectedSize){
+		int capacity = 4;
+		while(capacity < (expectedSize * 2)){
+			capacity <<= 1;
+		}
+		_slots = new int[capacity];
+		_keys = new int[Math.max(expectedSize, 2)];
+		_values = new Object[_keys.length];
+	}
+
+	/**
+	 * Stores the value for the given key, replacing a previous value.
+	 * @param key   Key
+	 * @param value Value
+	 */
+	public void put(int key, V value){
+		int slot = findSlot(key);
+		if(_slots[slot] != 0){
+			_values[_slots[slot] - 1] = value;
+			return;
+		}
+
+		if(_size == _keys.length){
+			_keys = Arrays.copyOf(_keys, _size * 2);
+			_values = Arrays.copyOf(_values, _size * 2);
+		}
+		_keys[_size] = key;
+		_values[_size] = value;
+		_size++;
+		_slots[slot] = _size;
+
+		if((_size * 2) > _slots.length){
+			rehash();
+		}
+	}
+
+	/**
+	 * Returns the value of the given key.
+	 * @param  key Key
+	 * @return     Value or<br>
+	 *             <b>null</b>, if no value is stored for the key
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(int key){
+		int entry = _slots[findSlot(key)];
+		return (entry == 0) ? null : (V)_values[entry - 1];
+	}
+
+	/**
+	 * Returns whether a value is stored for the given key.
+	 * @param  key Key
+	 * @return     Is a value stored for the key?
+	 */
+	public boolean containsKey(int key){
+		return (_slots[findSlot(key)] != 0);
+	}
+
+	/**
+	 * Returns the number of entries.
+	 * @return Number of entries
+	 */
+	public int size(){
+		return _size;
+	}
+
+	/**
+	 * Returns the key of an entry.
+	 * @param  index Entry index (in insertion order)
+	 * @return       Key
+	 */
+	public int getKeyAt(int index){
+		return _keys[index];
+	}
+
+	/**
+	 * Returns the value of an entry.
+	 * @param  index Entry index (in insertion order)
+	 * @return       Value
+	 */
+	@SuppressWarnings("unchecked")
+	public V getValueAt(int index){
+		return (V)_values[index];
+	}
+
+	/**
+	 * Returns the slot of the given key: either the slot holding the key or the empty
+	 * slot, where the key has to be inserted.
+	 * @param  key Key
+	 * @return     Slot of the hash table
+	 */
+	private int findSlot(int key){
+		int mask = _slots.length - 1;
+		int slot = hash(key) & mask;
+		while((_slots[slot] != 0) && (_keys[_slots[slot] - 1] != key)){
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Doubles the capacity of the hash table.
+	 */
+	private void rehash(){
+		_slots = new int[_slots.length * 2];
+		int mask = _slots.length - 1;
+		for(int i = 0; i < _size; i++){
+			int slot = hash(_keys[i]) & mask;
+			while(_slots[slot] != 0){
+				slot = (slot + 1) & mask;
+			}
+			_slots[slot] = i + 1;
+		}
+	}
+
+	/**
+	 * Spreads the bits of a key for the hash table (object ID's are often consecutive).
+	 * @param  key Key
+	 * @return     Hash value
+	 */
+	private static int hash(int key){
+		int hash = key * 0x9e3779b9;
+		return hash ^ (hash >>> 16);
+	}
+}
@@ -25,10 +25,14 @@
 package de.raida.jcadlib.cadimport.jt.model;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import de.raida.jcadlib.cadimport.jt.model.property.PropertyKey;
+import de.raida.jcadlib.cadimport.jt.model.property.StringPropertyAtomElement;
+
 /**
  * Interface for LSG nodes.
  * <br>(c) 2014 by <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
@@ -48,6 +52,9 @@ public abstract class LSGNode implements JTNode {
 	/** List of property nodes */
 	private Map<JTNode, JTNode> _propertyNodes;
 
+	/** Property value nodes of the interned property keys */
+	private EnumMap<PropertyKey, JTNode> _typedPropertyNodes;
+
 	/**
 	 * Constructor.
 	 */
@@ -55,6 +62,7 @@ public abstract class LSGNode implements JTNode {
 		_childNodes = new ArrayList<LSGNode>();
 		_attributeNodes = new ArrayList<JTNode>();
 		_propertyNodes = new HashMap<JTNode, JTNode>();
+		_typedPropertyNodes = new EnumMap<PropertyKey, JTNode>(PropertyKey.class);
 	}
 
 	/**
@@ -123,9 +131,45 @@ public abstract class LSGNode implements JTNode {
 	public void addPropertyNode(JTNode keyNode, JTNode valueNode){
 		if(!_propertyNodes.containsKey(keyNode)){
 			_propertyNodes.put(keyNode, valueNode);
+			addTypedPropertyNode(keyNode, valueNode);
+		}
+	}
+
+	/**
+	 * Interns the key of a property node, if it's evaluated by the importer.
+	 * @param keyNode   Property node (key)
+	 * @param valueNode Property node (value)
+	 */
+	private void addTypedPropertyNode(JTNode keyNode, JTNode valueNode){
+		if(keyNode instanceof StringPropertyAtomElement){
+			PropertyKey propertyKey = PropertyKey.get(((StringPropertyAtomElement)keyNode).getValue());
+			if((propertyKey != null) && !_typedPropertyNodes.containsKey(propertyKey)){
+				_typedPropertyNodes.put(propertyKey, valueNode);
+			}
 		}
 	}
 
+	/**
+	 * Returns the property value node of the given key.
+	 * @param  propertyKey Property key
+	 * @return             Property node (value) or<br>
+	 *                     <b>null</b>, if the property isn't set
+	 */
+	public JTNode getPropertyNode(PropertyKey propertyKey){
+		return _typedPropertyNodes.get(propertyKey);
+	}
+
+	/**
+	 * Returns the string value of the given property.
+	 * @param  propertyKey Property key
+	 * @return             Property value or<br>
+	 *                     <b>null</b>, if the property isn't set or isn't a string
+	 */
+	public String getStringProperty(PropertyKey propertyKey){
+		JTNode valueNode = _typedPropertyNodes.get(propertyKey);
+		return (valueNode instanceof StringPropertyAtomElement) ? ((StringPropertyAtomElement)valueNode).getValue() : null;
+	}
+
 	/**
 	 * Returns the property nodes.
 	 * @return Property nodes
@@ -140,6 +184,10 @@ public abstract class LSGNode implements JTNode {
 	 */
 	public void setPropertyNodes(Map<JTNode, JTNode> propertyNodes){
 		_propertyNodes = propertyNodes;
+		_typedPropertyNodes.clear();
+		for(Map.Entry<JTNode, JTNode> entry : propertyNodes.entrySet()){
+			addTypedPropertyNode(entry.getKey(), entry.getValue());
+		}
 	}
 
 	/**
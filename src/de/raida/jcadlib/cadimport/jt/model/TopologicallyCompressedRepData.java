@@ -28,6 +28,8 @@ import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
+import de.raida.jcadlib.cadimport.jt.LoadStatistics;
+import de.raida.jcadlib.cadimport.jt.LoadStatistics.Phase;
 import de.raida.jcadlib.cadimport.jt.codec.Int32CDP2;
 import de.raida.jcadlib.cadimport.jt.codec.PredictorType;
 import de.raida.jcadlib.cadimport.jt.codec.mesh.MeshCoderDriver;
@@ -94,6 +96,9 @@ public class TopologicallyCompressedRepData {
 	/** Topologically compressed vertex records */
 	private TopologicallyCompressedVertexRecords _topologicallyCompressedVertexRecords;
 
+	/** Decoded indices (null until the topology has been decoded) */
+	private List<List<Integer>> _indices;
+
 	/**
 	 * Constructor.
 	 * @param faceDegrees                          Face degree lists
@@ -128,15 +133,32 @@ public class TopologicallyCompressedRepData {
 	}
 
 	/**
-	 * Returns the indices.
+	 * Returns the indices. The topology is decoded on the first call only; afterwards the symbol
+	 * lists are released and the decoded indices are returned.
 	 * @return Indices (vertex and normal)
 	 */
-	public List<List<Integer>> getIndices(){
-		MeshCoderDriver meshCoderDriver = new MeshCoderDriver();
-		meshCoderDriver.setInputData(	_vertexValences, _faceDegrees, _vertexGroups, _vertexFlags,
-										_faceAttributeMasks, _faceAttributeMask8_30, _faceAttributeMask8_4,
-										_highDegreeFaceAttributeMasks, _splitFaceSyms, _splitFacePositions);
-		return meshCoderDriver.decode();
+	public synchronized List<List<Integer>> getIndices(){
+		if(_indices == null){
+			MeshCoderDriver meshCoderDriver = new MeshCoderDriver();
+			meshCoderDriver.setInputData(	_vertexValences, _faceDegrees, _vertexGroups, _vertexFlags,
+											_faceAttributeMasks, _faceAttributeMask8_30, _faceAttributeMask8_4,
+											_highDegreeFaceAttributeMasks, _splitFaceSyms, _splitFacePositions);
+			int statisticsFrame = LoadStatistics.startPhase();
+			_indices = meshCoderDriver.decode();
+			LoadStatistics.stopPhase(statisticsFrame, Phase.MESH_TOPOLOGY, 0, 0, _indices.get(0).size());
+
+			_faceDegrees = null;
+			_vertexValences = null;
+			_vertexGroups = null;
+			_vertexFlags = null;
+			_faceAttributeMasks = null;
+			_faceAttributeMask8_30 = null;
+			_faceAttributeMask8_4 = null;
+			_highDegreeFaceAttributeMasks = null;
+			_splitFaceSyms = null;
+			_splitFacePositions = null;
+		}
+		return _indices;
 	}
 
 	/**
@@ -41,9 +41,27 @@ public class VertexShapeLODElement {
 	/** Object type ID */
 	public final static String ID = "10dd10b0-2ac8-11d1-9b-6b-00-80-c7-bb-59-97";
 
-	/** Vertex shape LOD data */
+	/** Vertex shape LOD data (released once all geometry has been resolved) */
 	private VertexShapeLODData _vertexShapeLODData;
 
+	/** Indices (vertex and normal) */
+	private List<List<Integer>> _indices;
+
+	/** Geometry vertices */
+	private List<Double> _vertices;
+
+	/** Normals */
+	private List<Double> _normals;
+
+	/** Colors */
+	private List<Double> _colors;
+
+	/** Have the indices already been resolved? */
+	private boolean _indicesResolved;
+
+	/** Have the vertices, normals and colors already been resolved? */
+	private boolean _vertexRecordsResolved;
+
 	/**
 	 * Constructor.
 	 * @param baseShapeLODData   Base shape LOD data
@@ -57,80 +75,96 @@ public class VertexShapeLODElement {
 	 * Returns the indices.
 	 * @return Indices (vertex and normal)
 	 */
-	public List<List<Integer>> getIndices(){
-		TopoMeshCompressedRepDataV1 topoMeshCompressedRepDataV1 = getTopoMeshCompressedRepDataV1();
-		if(topoMeshCompressedRepDataV1 != null){
-			throw new RuntimeException("Unimplemented code block found!");
-			//return topoMeshCompressedRepDataV1.getCompressedVertexNormalArray().getNormals();
-			//return null;
-		} else {
-			TopologicallyCompressedRepData topologicallyCompressedRepData = getTopologicallyCompressedRepData();
-			if(topologicallyCompressedRepData != null){
-				return topologicallyCompressedRepData.getIndices();
+	public synchronized List<List<Integer>> getIndices(){
+		if(!_indicesResolved){
+			TopoMeshCompressedRepDataV1 topoMeshCompressedRepDataV1 = getTopoMeshCompressedRepDataV1();
+			if(topoMeshCompressedRepDataV1 != null){
+				throw new RuntimeException("Unimplemented code block found!");
+				//return topoMeshCompressedRepDataV1.getCompressedVertexNormalArray().getNormals();
+				//return null;
+			} else {
+				TopologicallyCompressedRepData topologicallyCompressedRepData = getTopologicallyCompressedRepData();
+				if(topologicallyCompressedRepData != null){
+					_indices = topologicallyCompressedRepData.getIndices();
+				}
 			}
+
+			_indicesResolved = true;
+			releaseLODData();
 		}
-		
-		return null;
+
+		return _indices;
 	}
 
 	/**
 	 * Returns the geometry vertices (without texture coordinates, normals, ...).
 	 * @return Geometry vertices
 	 */
-	public List<Double> getVertices(){
-		TopoMeshCompressedRepDataV1 topoMeshCompressedRepDataV1 = getTopoMeshCompressedRepDataV1();
-		if(topoMeshCompressedRepDataV1 != null){
-			return topoMeshCompressedRepDataV1.getCompressedVertexCoordinateArray().getVertices();
-	
-		} else {
-			TopologicallyCompressedVertexRecords topologicallyCompressedVertexRecords = getTopologicallyCompressedVertexRecords();
-			if(topologicallyCompressedVertexRecords != null){
-				return topologicallyCompressedVertexRecords.getCompressedVertexCoordinateArray().getVertices();
-			}
-		}
-	
-		return null;
+	public synchronized List<Double> getVertices(){
+		resolveVertexRecords();
+		return _vertices;
 	}
 
 	/**
 	 * Returns the normals.
 	 * @return Normals
 	 */
-	public List<Double> getNormals(){
-		TopoMeshCompressedRepDataV1 topoMeshCompressedRepDataV1 = getTopoMeshCompressedRepDataV1();
-		if(topoMeshCompressedRepDataV1 != null){
-			return topoMeshCompressedRepDataV1.getCompressedVertexNormalArray().getNormals();
-	
-		} else {
-			TopologicallyCompressedVertexRecords topologicallyCompressedVertexRecords = getTopologicallyCompressedVertexRecords();
-			if(topologicallyCompressedVertexRecords != null){
-				return topologicallyCompressedVertexRecords.getCompressedVertexNormalArray().getNormals();
-			}
-		}
-	
-		return null;
+	public synchronized List<Double> getNormals(){
+		resolveVertexRecords();
+		return _normals;
 	}
 
 	/**
 	 * Returns the colors.
 	 * @return Colors
 	 */
-	public List<Double> getColors(){
+	public synchronized List<Double> getColors(){
+		resolveVertexRecords();
+		return _colors;
+	}
+
+	/**
+	 * Resolves the vertices, normals and colors from the compressed vertex arrays (only on the first call).
+	 */
+	private void resolveVertexRecords(){
+		if(_vertexRecordsResolved){
+			return;
+		}
+
+		CompressedVertexCoordinateArray compressedVertexCoordinateArray = null;
+		CompressedVertexNormalArray compressedVertexNormalArray = null;
+		CompressedVertexColorArray compressedVertexColorArray = null;
+
 		TopoMeshCompressedRepDataV1 topoMeshCompressedRepDataV1 = getTopoMeshCompressedRepDataV1();
 		if(topoMeshCompressedRepDataV1 != null){
-			return topoMeshCompressedRepDataV1.getCompressedVertexColorArray().getColors();
-	
+			compressedVertexCoordinateArray = topoMeshCompressedRepDataV1.getCompressedVertexCoordinateArray();
+			compressedVertexNormalArray = topoMeshCompressedRepDataV1.getCompressedVertexNormalArray();
+			compressedVertexColorArray = topoMeshCompressedRepDataV1.getCompressedVertexColorArray();
+
 		} else {
 			TopologicallyCompressedVertexRecords topologicallyCompressedVertexRecords = getTopologicallyCompressedVertexRecords();
 			if(topologicallyCompressedVertexRecords != null){
-				CompressedVertexColorArray compressedVertexColorArray = topologicallyCompressedVertexRecords.getCompressedVertexColorArray();
-				if(compressedVertexColorArray != null){
-					return compressedVertexColorArray.getColors();
-				}
+				compressedVertexCoordinateArray = topologicallyCompressedVertexRecords.getCompressedVertexCoordinateArray();
+				compressedVertexNormalArray = topologicallyCompressedVertexRecords.getCompressedVertexNormalArray();
+				compressedVertexColorArray = topologicallyCompressedVertexRecords.getCompressedVertexColorArray();
 			}
 		}
-	
-		return null;
+
+		_vertices = (compressedVertexCoordinateArray == null) ? null : compressedVertexCoordinateArray.getVertices();
+		_normals = (compressedVertexNormalArray == null) ? null : compressedVertexNormalArray.getNormals();
+		_colors = (compressedVertexColorArray == null) ? null : compressedVertexColorArray.getColors();
+
+		_vertexRecordsResolved = true;
+		releaseLODData();
+	}
+
+	/**
+	 * Drops the reference to the vertex shape LOD data, as soon as indices and vertex records have been resolved.
+	 */
+	private void releaseLODData(){
+		if(_indicesResolved && _vertexRecordsResolved){
+			_vertexShapeLODData = null;
+		}
 	}
 
 	/**
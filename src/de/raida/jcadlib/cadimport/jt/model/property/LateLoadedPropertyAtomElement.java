@@ -90,6 +90,14 @@ public class LateLoadedPropertyAtomElement implements JTNode {
 		return _segmentID.toString();
 	}
 
+	/**
+	 * Returns the segement ID as GUID.
+	 * @return Segment ID
+	 */
+	public GUID getSegmentGUID(){
+		return _segmentID;
+	}
+
 	/**
 	 * Returns the segement type.
 	 * @return Segment type
@@ -25,8 +25,7 @@
 package de.raida.jcadlib.cadimport.jt.model.property;
 
 import java.nio.ByteBuffer;
-import java.util.HashMap;
-
+import de.raida.jcadlib.cadimport.jt.model.IntIntMap;
 import de.raida.jcadlib.cadimport.jt.reader.Helper;
 
 /**
@@ -41,13 +40,13 @@ import de.raida.jcadlib.cadimport.jt.reader.Helper;
  */
 public class NodePropertyTable {
 	/** List of key / values */
-	private HashMap<Integer, Integer> _keyValuePairs;
+	private IntIntMap _keyValuePairs;
 
 	/**
 	 * Constructor.
 	 * @param keyValuePairs List of key / values
 	 */
-	public NodePropertyTable(HashMap<Integer, Integer> keyValuePairs){
+	public NodePropertyTable(IntIntMap keyValuePairs){
 		_keyValuePairs = keyValuePairs;
 	}
 
@@ -55,7 +54,7 @@ public class NodePropertyTable {
 	 * Returns the key / value pairs.
 	 * @return Key / value pairs.
 	 */
-	public HashMap<Integer, Integer> getKeyValuePairs(){
+	public IntIntMap getKeyValuePairs(){
 		return _keyValuePairs;
 	}
 
@@ -74,7 +73,7 @@ public class NodePropertyTable {
 	 * @return            BasePropertyAtomData instance
 	 */
 	public static NodePropertyTable read(ByteBuffer byteBuffer){
-		HashMap<Integer, Integer> keyValuePairs = new HashMap<Integer, Integer>();
+		IntIntMap keyValuePairs = new IntIntMap();
 
 		while(true){
 			int keyPropertyAtomObjectID = Helper.readI32(byteBuffer);
@@ -0,0 +1,79 @@
+//################################################################################
+//	The MIT License
+//
+//	Copyright (c) 2014 Johannes Raida
+//
+//	Permission is hereby granted, free of charge, to any person obtaining a copy
+//	of this software and associated documentation files (the "Software"), to deal
+//	in the Software without restriction, including without limitation the rights
+//	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+//	copies of the Software, and to permit persons to whom the Software is
+//	furnished to do so, subject to the following conditions:
+//
+//	The above copyright notice and this permission notice shall be included in
+//	all copies or substantial portions of the Software.
+//
+//	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+//	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+//	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+//	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+//	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+//	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+//	THE SOFTWARE.
+//################################################################################
+
+package de.raida.jcadlib.cadimport.jt.model.property;
+
+import java.util.HashMap;
+
+/**
+ * Property keys, evaluated by the importer. The string keys of the property table are
+ * interned into these constants, when the properties are attached to the LSG nodes.
+ * <br>(c) 2014 by <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @author  <a href="mailto:j.raida@gmx.net">Johannes Raida</a>
+ * @version 1.0
+ */
+public enum PropertyKey {
+	/** Name of the node, as written by the JT toolkit */
+	JT_PROP_NAME("JT_PROP_NAME"),
+
+	/** Name of the node, as set by the user (overwrites JT_PROP_NAME) */
+	NAME("Name::");
+
+	/** Mapping: string key -> property key */
+	private final static HashMap<String, PropertyKey> _propertyKeys = new HashMap<String, PropertyKey>();
+	static {
+		for(PropertyKey propertyKey : PropertyKey.values()){
+			_propertyKeys.put(propertyKey.getKey(), propertyKey);
+		}
+	}
+
+	/** String key */
+	private String _key;
+
+	/**
+	 * Constructor.
+	 * @param key String key
+	 */
+	private PropertyKey(String key){
+		_key = key;
+	}
+
+	/**
+	 * Returns the string key.
+	 * @return String key
+	 */
+	public String getKey(){
+		return _key;
+	}
+
+	/**
+	 * Returns the matching PropertyKey instance for the given string key.
+	 * @param  key String key
+	 * @return     Corresponding PropertyKey instance or<br>
+	 *             <b>null</b>, if the key isn't evaluated by the importer
+	 */
+	public static PropertyKey get(String key){
+		return _propertyKeys.get(key);
+	}
+}
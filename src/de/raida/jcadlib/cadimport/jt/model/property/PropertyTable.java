@@ -25,8 +25,7 @@
 package de.raida.jcadlib.cadimport.jt.model.property;
 
 import java.nio.ByteBuffer;
-import java.util.HashMap;
-
+import de.raida.jcadlib.cadimport.jt.model.IntObjectMap;
 import de.raida.jcadlib.cadimport.jt.reader.Helper;
 import de.raida.jcadlib.cadimport.jt.reader.WorkingContext;
 
@@ -47,14 +46,14 @@ import de.raida.jcadlib.cadimport.jt.reader.WorkingContext;
  */
 public class PropertyTable {
 	/** List of node property tables */
-	private HashMap<Integer, NodePropertyTable> _nodePropertyTables;
+	private IntObjectMap<NodePropertyTable> _nodePropertyTables;
 
 	/**
 	 * Constructor.
 	 * @param versionNumber      Version number
 	 * @param nodePropertyTables List of node property tables
 	 */
-	public PropertyTable(int versionNumber, HashMap<Integer, NodePropertyTable> nodePropertyTables){
+	public PropertyTable(int versionNumber, IntObjectMap<NodePropertyTable> nodePropertyTables){
 		_nodePropertyTables = nodePropertyTables;
 	}
 
@@ -65,11 +64,7 @@ public class PropertyTable {
 	 *                      <b>null</b> if no table is available
 	 */
 	public NodePropertyTable getNodePropertyTable(int nodeObjectID){
-		if(_nodePropertyTables.containsKey(nodeObjectID)){
-			return _nodePropertyTables.get(nodeObjectID);
-		}
-
-		return null;
+		return _nodePropertyTables.get(nodeObjectID);
 	}
 
 	/**
@@ -80,14 +75,13 @@ public class PropertyTable {
 	public static PropertyTable read(WorkingContext workingContext){
 		ByteBuffer byteBuffer = workingContext.getByteBuffer();
 
-		HashMap<Integer, NodePropertyTable> nodePropertyTables = new HashMap<Integer, NodePropertyTable>();
-
 		int versionNumber = Helper.readI16(byteBuffer);
 		if(versionNumber != 1){
 			throw new IllegalArgumentException("Found invalid version number: " + versionNumber);
 		}
 
 		int nodePropertyTableCount = Helper.readI32(byteBuffer);
+		IntObjectMap<NodePropertyTable> nodePropertyTables = new IntObjectMap<NodePropertyTable>(Math.min(nodePropertyTableCount, byteBuffer.remaining() / 8));
 
 		for(int i = 0; i < nodePropertyTableCount; i++){
 			int nodeObjectID = Helper.readI32(byteBuffer);
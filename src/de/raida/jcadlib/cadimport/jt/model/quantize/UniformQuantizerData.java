@@ -26,7 +26,7 @@ package de.raida.jcadlib.cadimport.jt.model.quantize;
 
 import java.nio.ByteBuffer;
 
-import de.raida.jcadlib.cadimport.jt.JTImporter;
+import de.raida.jcadlib.cadimport.jt.Diagnostics.Severity;
 import de.raida.jcadlib.cadimport.jt.reader.Helper;
 import de.raida.jcadlib.cadimport.jt.reader.WorkingContext;
 
@@ -98,7 +98,7 @@ public class UniformQuantizerData {
 		float max = Helper.readF32(byteBuffer);
 		int numberOfBits = Helper.readU8(byteBuffer);
 		if((numberOfBits < 0) || (numberOfBits > 32)){
-			JTImporter.addLoadInformation("WARNING", "Found unexpected number of bits: " + numberOfBits);
+			workingContext.addLoadInformation(Severity.WARNING, "Found unexpected number of bits: " + numberOfBits);
 		}
 
 		return new UniformQuantizerData(min,
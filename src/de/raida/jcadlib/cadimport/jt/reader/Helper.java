@@ -32,7 +32,8 @@ import java.util.Date;
 import java.util.List;
 import java.util.zip.Inflater;
 
-import de.raida.jcadlib.cadimport.jt.JTImporter;
+import de.raida.jcadlib.cadimport.jt.LoadStatistics;
+import de.raida.jcadlib.cadimport.jt.LoadStatistics.Phase;
 
 /**
  * Helper class providing static helper functions.
@@ -113,7 +114,6 @@ public class Helper {
 	 * @return            Double value
 	 */
 	public static double readF64(ByteBuffer byteBuffer){
-		JTImporter.updateProgress(8);
 		return byteBuffer.getDouble();
 	}
 
@@ -123,7 +123,6 @@ public class Helper {
 	 * @return            Float value
 	 */
 	public static float readF32(ByteBuffer byteBuffer){
-		JTImporter.updateProgress(4);
 		return byteBuffer.getFloat();
 	}
 
@@ -178,7 +177,6 @@ public class Helper {
 	 * @return            Long value
 	 */
 	public static long readI64(ByteBuffer byteBuffer){
-		JTImporter.updateProgress(8);
 		return byteBuffer.getLong();
 	}
 
@@ -188,7 +186,6 @@ public class Helper {
 	 * @return            Integer value
 	 */
 	public static int readI32(ByteBuffer byteBuffer){
-		JTImporter.updateProgress(4);
 		return byteBuffer.getInt();
 	}
 
@@ -198,7 +195,6 @@ public class Helper {
 	 * @return            Short value
 	 */
 	public static int readI16(ByteBuffer byteBuffer){
-		JTImporter.updateProgress(2);
 		return byteBuffer.getShort();
 	}
 
@@ -235,7 +231,6 @@ public class Helper {
 	 * @return            Read value
 	 */
 	public static int readU8(ByteBuffer byteBuffer){
-		JTImporter.updateProgress(1);
 		return ((short)(byteBuffer.get() & 0xff));
 	}
 
@@ -280,7 +275,6 @@ public class Helper {
 	 * @return                     Read bytes
 	 */
 	public static byte[] readBytes(ByteBuffer byteBuffer, int numberOfBytesToRead){
-		JTImporter.updateProgress(numberOfBytesToRead);
 		byte[] bytes = new byte[numberOfBytesToRead];
 		byteBuffer.get(bytes);
 		return bytes;
@@ -390,6 +384,7 @@ public class Helper {
 	 */
 	public static byte[] decompressByZLIB(byte[] compressedBytes){
 		try {
+			int statisticsFrame = LoadStatistics.startPhase();
 			Inflater inflater = new Inflater();
 			inflater.setInput(compressedBytes);
 			ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(compressedBytes.length);
@@ -399,7 +394,9 @@ public class Helper {
 				byteArrayOutputStream.write(buffer, 0, count);
 			}
 			byteArrayOutputStream.close();
-			return byteArrayOutputStream.toByteArray();
+			byte[] uncompressedBytes = byteArrayOutputStream.toByteArray();
+			LoadStatistics.stopPhase(statisticsFrame, Phase.SEGMENT_INFLATE, compressedBytes.length, uncompressedBytes.length, 0);
+			return uncompressedBytes;
 
 		} catch(Exception exception){
 			throw new IllegalStateException(exception.getMessage());
@@ -432,6 +429,7 @@ public class Helper {
 	 * @return                   Dequantized vertices
 	 */
 	public static List<Double> dequantize(List<Integer> vertexCoordinates, float[] vertexRange, int numberOfBits){
+		int statisticsFrame = LoadStatistics.startPhase();
 		float minimum = vertexRange[0];
 		float maximum = vertexRange[1];
 		long maxCode = 0xffffffff;
@@ -446,6 +444,7 @@ public class Helper {
 		for(int i = 0; i < vertexCoordinates.size(); i++){
 			dequantizesVertices.add((((vertexCoordinates.get(i) - 0.5) / encodeMultiplier + minimum)));
 		}
+		LoadStatistics.stopPhase(statisticsFrame, Phase.DEQUANTIZATION, vertexCoordinates.size() * 4L, dequantizesVertices.size() * 8L, dequantizesVertices.size());
 		return dequantizesVertices;
 	}
 
@@ -27,6 +27,8 @@ package de.raida.jcadlib.cadimport.jt.reader;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
+import de.raida.jcadlib.cadimport.jt.Diagnostics;
+import de.raida.jcadlib.cadimport.jt.Diagnostics.Severity;
 import de.raida.jcadlib.cadimport.jt.model.SegmentType;
 
 
@@ -55,6 +57,9 @@ public class WorkingContext {
 	/** Byte order */
 	private ByteOrder _byteOrder;
 
+	/** Load information messages of the importer (null, if not collected) */
+	private Diagnostics _diagnostics;
+
 	/**
 	 * Constructor.
 	 */
@@ -70,6 +75,7 @@ public class WorkingContext {
 		workingContext.setByteBuffer(_byteBuffer);
 		workingContext.setJTFileVersion(_jtFileVersion);
 		workingContext.setSegmentType(_segmentType);
+		workingContext.setDiagnostics(_diagnostics);
 		return workingContext;
 	}
 
@@ -168,4 +174,32 @@ public class WorkingContext {
 	public ByteOrder getByteOrder(){
 		return _byteOrder;
 	}
+
+	/**
+	 * Sets the load information messages of the importer.
+	 * @param diagnostics Load information messages or null
+	 */
+	public void setDiagnostics(Diagnostics diagnostics){
+		_diagnostics = diagnostics;
+	}
+
+	/**
+	 * Returns the load information messages of the importer.
+	 * @return Load information messages or<br>
+	 *         <b>null</b>, if not collected
+	 */
+	public Diagnostics getDiagnostics(){
+		return _diagnostics;
+	}
+
+	/**
+	 * Adds a load information message to the messages of the importer.
+	 * @param severity Severity
+	 * @param message  Message text
+	 */
+	public void addLoadInformation(Severity severity, String message){
+		if(_diagnostics != null){
+			_diagnostics.add(severity, message);
+		}
+	}
 }